@@ -71,11 +71,13 @@ public class AgentModule implements Module {
         binder.bind(PreForkConfiguration.class).in(SINGLETON);
         binder.bind(RepositoryCacheConfiguration.class).in(SINGLETON);
         binder.bind(ServerConfiguration.class).in(SINGLETON);
+        binder.bind(StateCacheConfiguration.class).in(SINGLETON);
         binder.bind(UnzipLimits.class).to(UnzipLimitsConfiguration.class).in(SINGLETON);
 
         binder.bind(DefaultDependencies.class).in(SINGLETON);
         binder.bind(ZipService.class).in(SINGLETON);
         binder.bind(ProcessPool.class).in(SINGLETON);
+        binder.bind(StateCache.class).in(SINGLETON);
         binder.bind(ApiClientFactory.class).in(SINGLETON);
         binder.bind(QueueClient.class).toProvider(QueueClientProvider.class).in(SINGLETON);
 
@@ -20,30 +20,111 @@ package com.walmartlabs.concord.agent;
  * =====
  */
 
+import com.walmartlabs.concord.client2.ApiException;
 import com.walmartlabs.concord.client2.ClientUtils;
 import com.walmartlabs.concord.client2.ProcessApi;
+import com.walmartlabs.concord.client2.StateManifestItem;
 import com.walmartlabs.concord.common.ZipService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.*;
 
 public class DefaultStateFetcher implements StateFetcher {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultStateFetcher.class);
+
     private final ProcessApi processApi;
     private final ZipService zipService;
+    private final StateCache stateCache;
 
     @Inject
-    public DefaultStateFetcher(ProcessApi processApi, ZipService zipService) {
+    public DefaultStateFetcher(ProcessApi processApi, ZipService zipService, StateCache stateCache) {
         this.processApi = processApi;
         this.zipService = zipService;
+        this.stateCache = stateCache;
     }
 
     @Override
     public void downloadState(JobRequest job) throws Exception {
+        if (stateCache.isEnabled()) {
+            List<StateManifestItem> manifest = getManifest(job.getInstanceId());
+            if (manifest != null) {
+                downloadChanges(job, manifest);
+                return;
+            }
+        }
+
+        downloadAll(job);
+    }
+
+    private void downloadAll(JobRequest job) throws Exception {
         try (InputStream is = ClientUtils.withRetry(AgentConstants.API_CALL_MAX_RETRIES, AgentConstants.API_CALL_RETRY_DELAY, () -> processApi.downloadState(job.getInstanceId()))){
             zipService.unzip(is, job.getPayloadDir(), StandardCopyOption.REPLACE_EXISTING);
         }
     }
-}
 
+    /**
+     * Downloads only the items that are different from the cached copy of the state.
+     */
+    private void downloadChanges(JobRequest job, List<StateManifestItem> manifest) throws Exception {
+        UUID instanceId = job.getInstanceId();
+        Path payloadDir = job.getPayloadDir();
+
+        Map<String, String> cached = stateCache.getManifest(instanceId);
+
+        Map<String, String> hashes = new HashMap<>();
+        List<String> unchanged = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        for (StateManifestItem i : manifest) {
+            hashes.put(i.getPath(), i.getHash());
+            if (i.getHash().equals(cached.get(i.getPath()))) {
+                unchanged.add(i.getPath());
+            } else {
+                changed.add(i.getPath());
+            }
+        }
+
+        try {
+            changed.addAll(stateCache.copyTo(instanceId, unchanged, payloadDir));
+        } catch (IOException e) {
+            log.warn("downloadChanges ['{}'] -> error while copying the cached state, downloading all: {}", instanceId, e.getMessage());
+            downloadAll(job);
+            return;
+        }
+
+        if (!changed.isEmpty()) {
+            try (InputStream is = ClientUtils.withRetry(AgentConstants.API_CALL_MAX_RETRIES, AgentConstants.API_CALL_RETRY_DELAY, () -> processApi.downloadStateItems(instanceId, changed))) {
+                zipService.unzip(is, payloadDir, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        log.info("downloadChanges ['{}'] -> {} item(s) downloaded, {} item(s) copied from the cache",
+                instanceId, changed.size(), manifest.size() - changed.size());
+
+        try {
+            stateCache.update(instanceId, hashes, payloadDir, changed);
+        } catch (IOException e) {
+            log.warn("downloadChanges ['{}'] -> can't update the cached state: {}", instanceId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the state manifest or {@code null} if the server doesn't support manifests.
+     */
+    private List<StateManifestItem> getManifest(UUID instanceId) throws Exception {
+        try {
+            return ClientUtils.withRetry(AgentConstants.API_CALL_MAX_RETRIES, AgentConstants.API_CALL_RETRY_DELAY, () -> processApi.getStateManifest(instanceId));
+        } catch (ApiException e) {
+            if (e.getCode() == 404 || e.getCode() == 405) {
+                return null;
+            }
+            throw e;
+        }
+    }
+}
@@ -36,6 +36,7 @@ import javax.inject.Inject;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class RepositoryManager {
 
@@ -43,6 +44,7 @@ public class RepositoryManager {
 
     private final SecretClient secretClient;
     private final RepositoryProviders providers;
+    private final GitCliRepositoryProvider gitProvider;
     private final RepositoryCache repositoryCache;
     private final GitConfiguration gitCfg;
 
@@ -69,11 +71,14 @@ public class RepositoryManager {
                 .sshTimeout(gitCfg.getSshTimeout())
                 .sshTimeoutRetryCount(gitCfg.getSshTimeoutRetryCount())
                 .maxGitCliOutputBytes(gitCfg.maxGitCliOutputBytes())
+                .useWorktrees(gitCfg.isUseWorktrees())
+                .worktreeMaxIdleTime(gitCfg.getWorktreeMaxIdleTime())
                 .build();
 
+        this.gitProvider = new GitCliRepositoryProvider(clientCfg, agentAuthTokenProvider);
         this.providers = new RepositoryProviders(List.of(
                 new MavenRepositoryProvider(dependencyManager, zipService),
-                new GitCliRepositoryProvider(clientCfg, agentAuthTokenProvider)
+                gitProvider
         ));
         this.repositoryCache = new RepositoryCache(cacheCfg.getCacheDir(),
                 cacheCfg.getInfoDir(),
@@ -93,7 +98,7 @@ public class RepositoryManager {
 
         Path cacheDir = repositoryCache.getPath(repoUrl);
 
-        repositoryCache.withLock(repoUrl, () -> {
+        Callable<Void> fetchAndExport = () -> {
             Repository repo = providers.fetch(
                     FetchRequest.builder()
                             .url(repoUrl)
@@ -106,7 +111,16 @@ public class RepositoryManager {
                     repoPath);
             repo.export(dest, ignorePatterns);
             return null;
-        });
+        };
+
+        if (gitCfg.isUseWorktrees()) {
+            // the git client synchronizes access to the shared store itself,
+            // the lock only keeps the cleanup away from the repository
+            repositoryCache.withSharedLock(repoUrl, fetchAndExport);
+            log.info("export ['{}'] -> worktree stats: {}", repoUrl, gitProvider.worktreeStats());
+        } else {
+            repositoryCache.withLock(repoUrl, fetchAndExport);
+        }
         repositoryCache.cleanup();
     }
 
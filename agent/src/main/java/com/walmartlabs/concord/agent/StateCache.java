@@ -0,0 +1,214 @@
+package com.walmartlabs.concord.agent;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walmartlabs.concord.agent.cfg.StateCacheConfiguration;
+import com.walmartlabs.concord.common.PathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Local copies of the process state. Each entry contains the state files
+ * as they were downloaded from (or uploaded to) the server and a manifest:
+ * item path to SHA-256 of the item's content.
+ */
+public class StateCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StateCache.class);
+
+    private static final String MANIFEST_FILE_NAME = "manifest.json";
+    private static final String FILES_DIR_NAME = "files";
+    private static final TypeReference<Map<String, String>> MANIFEST_TYPE = new TypeReference<>() {
+    };
+
+    private final StateCacheConfiguration cfg;
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public StateCache(StateCacheConfiguration cfg, ObjectMapper objectMapper) {
+        this.cfg = cfg;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return cfg.isEnabled();
+    }
+
+    /**
+     * Returns the manifest of the cached state or an empty map if the state is not cached.
+     */
+    public Map<String, String> getManifest(UUID instanceId) {
+        Path entryDir = cfg.getCacheDir().resolve(instanceId.toString());
+        Path p = entryDir.resolve(MANIFEST_FILE_NAME);
+        if (!Files.exists(p)) {
+            return Map.of();
+        }
+
+        try {
+            Files.setLastModifiedTime(entryDir, FileTime.fromMillis(System.currentTimeMillis()));
+            return objectMapper.readValue(p.toFile(), MANIFEST_TYPE);
+        } catch (IOException e) {
+            log.warn("getManifest ['{}'] -> can't read the manifest, ignoring the cached state: {}", instanceId, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Copies the cached files into the specified directory.
+     *
+     * @return paths of the files missing in the cache.
+     */
+    public Set<String> copyTo(UUID instanceId, Collection<String> paths, Path dst) throws IOException {
+        Path filesDir = cfg.getCacheDir().resolve(instanceId.toString()).resolve(FILES_DIR_NAME);
+
+        Set<String> missing = new HashSet<>();
+        for (String p : paths) {
+            Path src = resolve(filesDir, p);
+            if (!Files.isRegularFile(src)) {
+                missing.add(p);
+                continue;
+            }
+
+            Path target = resolve(dst, p);
+            Files.createDirectories(target.getParent());
+            Files.copy(src, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        return missing;
+    }
+
+    /**
+     * Replaces the manifest of the cached state. The specified changed files are copied
+     * from the source directory, the files not present in the new manifest are removed.
+     */
+    public void update(UUID instanceId, Map<String, String> manifest, Path src, Collection<String> changed) throws IOException {
+        Path entryDir = entryDir(instanceId);
+        Path filesDir = entryDir.resolve(FILES_DIR_NAME);
+        Path manifestFile = entryDir.resolve(MANIFEST_FILE_NAME);
+
+        // the entry is not valid until the new manifest is written
+        Files.deleteIfExists(manifestFile);
+
+        if (Files.exists(filesDir)) {
+            try (Stream<Path> files = Files.walk(filesDir)) {
+                for (Path f : (Iterable<Path>) files::iterator) {
+                    if (Files.isRegularFile(f) && !manifest.containsKey(filesDir.relativize(f).toString())) {
+                        Files.delete(f);
+                    }
+                }
+            }
+        }
+
+        for (String p : changed) {
+            Path target = resolve(filesDir, p);
+            Files.createDirectories(target.getParent());
+            Files.copy(resolve(src, p), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+
+        Path tmp = entryDir.resolve(MANIFEST_FILE_NAME + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), manifest);
+        Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        evict();
+    }
+
+    /**
+     * Hex-encoded SHA-256 of the file's content. Matches the hashes returned by the server.
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        byte[] buf = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buf)) > 0) {
+                md.update(buf, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private synchronized void evict() {
+        Path cacheDir = cfg.getCacheDir();
+
+        List<Path> entries;
+        try (Stream<Path> s = Files.list(cacheDir)) {
+            entries = new ArrayList<>(s.filter(Files::isDirectory).toList());
+        } catch (IOException e) {
+            log.warn("evict -> can't list the cache directory: {}", e.getMessage());
+            return;
+        }
+
+        entries.sort(Comparator.comparing(StateCache::lastModified).reversed());
+
+        long cutoff = System.currentTimeMillis() - cfg.getMaxAge().toMillis();
+        for (int i = 0; i < entries.size(); i++) {
+            Path e = entries.get(i);
+            if (i < cfg.getMaxEntries() && lastModified(e) >= cutoff) {
+                continue;
+            }
+
+            try {
+                PathUtils.deleteRecursively(e);
+            } catch (IOException ex) {
+                log.warn("evict -> can't remove {}: {}", e, ex.getMessage());
+            }
+        }
+    }
+
+    private Path entryDir(UUID instanceId) throws IOException {
+        Path p = cfg.getCacheDir().resolve(instanceId.toString());
+        Files.createDirectories(p);
+        return p;
+    }
+
+    private static Path resolve(Path dir, String path) {
+        Path p = dir.resolve(path).normalize();
+        if (!p.startsWith(dir)) {
+            throw new IllegalArgumentException("Invalid state item path: " + path);
+        }
+        return p;
+    }
+
+    private static long lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
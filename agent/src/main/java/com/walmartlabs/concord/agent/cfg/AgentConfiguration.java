@@ -62,6 +62,7 @@ public class AgentConfiguration {
 
     private final boolean explicitlyResolveV1Client;
     private final boolean mavenOfflineMode;
+    private final Duration dependencyGraphCacheVolatileTtl;
 
     @Inject
     public AgentConfiguration(Config cfg) {
@@ -92,6 +93,7 @@ public class AgentConfiguration {
 
         this.explicitlyResolveV1Client = cfg.getBoolean("explicitlyResolveV1Client");
         this.mavenOfflineMode = cfg.getBoolean("mavenOfflineMode");
+        this.dependencyGraphCacheVolatileTtl = cfg.getDuration("dependencyGraphCacheVolatileTtl");
     }
 
     public String getAgentId() {
@@ -165,4 +167,8 @@ public class AgentConfiguration {
     public boolean isMavenOfflineMode() {
         return mavenOfflineMode;
     }
+
+    public Duration getDependencyGraphCacheVolatileTtl() {
+        return dependencyGraphCacheVolatileTtl;
+    }
 }
@@ -39,6 +39,8 @@ public class GitConfiguration implements OauthTokenConfig {
     private final String oauthUrlPattern;
     private final boolean shallowClone;
     private final boolean checkAlreadyFetched;
+    private final boolean useWorktrees;
+    private final Duration worktreeMaxIdleTime;
     private final Duration defaultOperationTimeout;
     private final Duration fetchTimeout;
     private final int httpLowSpeedLimit;
@@ -56,6 +58,8 @@ public class GitConfiguration implements OauthTokenConfig {
         this.oauthUrlPattern = getStringOrDefault(cfg, "git.oauthUrlPattern", () -> null);
         this.shallowClone = cfg.getBoolean("git.shallowClone");
         this.checkAlreadyFetched = cfg.getBoolean("git.checkAlreadyFetched");
+        this.useWorktrees = cfg.getBoolean("git.useWorktrees");
+        this.worktreeMaxIdleTime = cfg.getDuration("git.worktreeMaxIdleTime");
         this.defaultOperationTimeout = cfg.getDuration("git.defaultOperationTimeout");
         this.fetchTimeout = cfg.getDuration("git.fetchTimeout");
         this.httpLowSpeedLimit = cfg.getInt("git.httpLowSpeedLimit");
@@ -90,6 +94,14 @@ public class GitConfiguration implements OauthTokenConfig {
         return checkAlreadyFetched;
     }
 
+    public boolean isUseWorktrees() {
+        return useWorktrees;
+    }
+
+    public Duration getWorktreeMaxIdleTime() {
+        return worktreeMaxIdleTime;
+    }
+
     public Duration getDefaultOperationTimeout() {
         return defaultOperationTimeout;
     }
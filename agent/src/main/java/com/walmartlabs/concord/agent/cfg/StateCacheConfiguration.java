@@ -0,0 +1,61 @@
+package com.walmartlabs.concord.agent.cfg;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.typesafe.config.Config;
+
+import javax.inject.Inject;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static com.walmartlabs.concord.agent.cfg.Utils.getOrCreatePath;
+
+public class StateCacheConfiguration {
+
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final int maxEntries;
+    private final Duration maxAge;
+
+    @Inject
+    public StateCacheConfiguration(Config cfg) {
+        this.enabled = cfg.getBoolean("stateCache.enabled");
+        this.cacheDir = getOrCreatePath(cfg, "stateCache.cacheDir");
+        this.maxEntries = cfg.getInt("stateCache.maxEntries");
+        this.maxAge = cfg.getDuration("stateCache.maxAge");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+}
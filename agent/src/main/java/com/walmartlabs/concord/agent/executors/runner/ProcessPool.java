@@ -32,30 +32,80 @@ import javax.inject.Inject;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of "pre-forked" JVMs. Processes are grouped by the hash of their
+ * command line (classpath, JVM and runtime parameters).
+ * <p>
+ * Each group keeps its own queue, JVMs are started outside any locks.
+ * When the pool is full, the idle JVMs of less frequently used groups
+ * are replaced. Frequently used groups are warmed up proactively,
+ * if the pre-forked processes live long enough to be used.
+ */
 public class ProcessPool {
 
     private static final Logger log = LoggerFactory.getLogger(ProcessPool.class);
 
     private static final long CLEANUP_PERIOD = 30000;
 
+    /**
+     * Usage scores of process groups are halved every SCORE_HALF_LIFE ms.
+     */
+    private static final long SCORE_HALF_LIFE = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Groups with the score below this value are forgotten.
+     */
+    private static final double MIN_SCORE = 0.1;
+
+    /**
+     * Groups with the score equal or above this value are warmed up
+     * even if there were no recent requests.
+     */
+    private static final double WARMUP_SCORE = 2.0;
+
+    /**
+     * Groups are warmed up only if the pre-forked processes live for at least
+     * this number of maintenance periods. Otherwise, the warmed up processes
+     * expire before they can be used.
+     */
+    private static final int WARMUP_MIN_AGE_PERIODS = 10;
+
     private final long maxEntryAge;
     private final int maxEntryCount;
-    private final Map<HashCode, Queue<ProcessEntry>> pool = new HashMap<>();
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final boolean warmupEnabled;
+    private final ConcurrentMap<HashCode, Group> pool = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    /**
+     * Number of idle and starting pooled processes.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder forks = new LongAdder();
+    private final LongAdder forkTime = new LongAdder();
 
     @Inject
     public ProcessPool(PreForkConfiguration cfg) {
-        this.maxEntryAge = cfg.getMaxAge();
-        this.maxEntryCount = cfg.getMaxCount();
+        this(cfg.getMaxAge(), cfg.getMaxCount(), Executors.newCachedThreadPool());
         init();
     }
 
+    ProcessPool(long maxEntryAge, int maxEntryCount, Executor executor) {
+        this.maxEntryAge = maxEntryAge;
+        this.maxEntryCount = maxEntryCount;
+        this.warmupEnabled = maxEntryAge >= WARMUP_MIN_AGE_PERIODS * CLEANUP_PERIOD;
+        this.executor = executor;
+    }
+
     public void init() {
         Thread t = new Thread(() -> {
-            log.info("run -> starting cleanup thread, max entry age {}ms, max entry count {}", maxEntryAge, maxEntryCount);
+            log.info("run -> starting cleanup thread, max entry age {}ms, max entry count {}, warmup enabled: {}", maxEntryAge, maxEntryCount, warmupEnabled);
 
             while (!Thread.currentThread().isInterrupted()) {
                 Utils.sleep(CLEANUP_PERIOD);
@@ -72,96 +122,183 @@ public class ProcessPool {
     }
 
     public ProcessEntry take(HashCode hc, ProcessLauncher launcher) throws ExecutionException {
-        synchronized (pool) {
-            Queue<ProcessEntry> q = pool.computeIfAbsent(hc, k -> new LinkedList<>());
+        Group g = pool.computeIfAbsent(hc, Group::new);
+        g.touch(launcher, System.currentTimeMillis());
 
-            ProcessEntry entry = q.poll();
-            if (entry == null) {
-                try {
-                    entry = launcher.start();
-                } catch (IOException e) {
-                    throw new ExecutionException("Error while starting a new process", e);
-                }
+        ProcessEntry entry = poll(g);
+        if (entry == null) {
+            misses.increment();
 
-                log.info("take -> started a new process: {}", entry.workDir);
-            } else {
-                log.info("take -> using a pre-forked instance: {}", entry.workDir);
+            try {
+                entry = start(launcher);
+            } catch (IOException e) {
+                throw new ExecutionException("Error while starting a new process", e);
             }
 
-            executor.submit(() -> populate(hc, launcher));
-
-            return entry;
+            log.info("take -> started a new process: {}", entry.workDir);
+        } else {
+            hits.increment();
+            log.info("take -> using a pre-forked instance: {}", entry.workDir);
         }
+
+        executor.execute(() -> populate(g));
+
+        return entry;
+    }
+
+    public Stats getStats() {
+        long forkCount = forks.sum();
+        return new Stats(hits.sum(), misses.sum(), idleCount(), forkCount, forkCount > 0 ? forkTime.sum() / forkCount : 0);
     }
 
-    private void populate(HashCode hc, ProcessLauncher launcher) {
-        synchronized (pool) {
-            // calculate the total number of processes in the pool
-            int total = 0;
-            for (Map.Entry<HashCode, Queue<ProcessEntry>> e : pool.entrySet()) {
-                total += e.getValue().size();
+    private ProcessEntry poll(Group g) {
+        long now = System.currentTimeMillis();
+
+        ProcessEntry e;
+        while ((e = g.idle.pollFirst()) != null) {
+            size.decrementAndGet();
+
+            if (e.process.isAlive() && now - e.timestamp < maxEntryAge) {
+                return e;
             }
 
-            if (total >= maxEntryCount) {
-                // mark the oldest entry for removal
-                ProcessEntry oldest = null;
-                for (Map.Entry<HashCode, Queue<ProcessEntry>> q : pool.entrySet()) {
-                    for (ProcessEntry e : q.getValue()) {
-                        if (oldest == null || oldest.timestamp > e.timestamp) {
-                            oldest = e;
-                        }
-                    }
+            destroy(e);
+        }
+
+        return null;
+    }
+
+    private void populate(Group g) {
+        if (!reserve(g)) {
+            return;
+        }
+
+        ProcessEntry e;
+        try {
+            e = start(g.launcher);
+        } catch (Exception ex) {
+            size.decrementAndGet();
+            log.error("populate -> error while starting a new process", ex);
+            return;
+        }
+
+        g.idle.addLast(e);
+
+        // the group was removed by the maintenance task while the process was starting
+        if (pool.get(g.hc) != g && g.idle.removeFirstOccurrence(e)) {
+            size.decrementAndGet();
+            destroy(e);
+        }
+    }
+
+    /**
+     * Reserves a place in the pool for a new process of the specified group.
+     * If the pool is full, an idle process of a less used group is removed.
+     *
+     * @return {@code false} if the pool is full and there are no less used groups.
+     */
+    private boolean reserve(Group g) {
+        while (true) {
+            int n = size.get();
+            if (n < maxEntryCount) {
+                if (size.compareAndSet(n, n + 1)) {
+                    return true;
                 }
+                continue;
+            }
+
+            Group victim = findVictim(g);
+            if (victim == null) {
+                return false;
+            }
 
-                // it's never null
-                assert oldest != null;
+            ProcessEntry e = victim.idle.pollFirst();
+            if (e != null) {
+                size.decrementAndGet();
+                destroy(e);
+            }
+        }
+    }
 
-                oldest.remove = true;
+    private Group findVictim(Group g) {
+        long now = System.currentTimeMillis();
+        double score = g.score(now);
+
+        Group victim = null;
+        double victimScore = score;
+        for (Group candidate : pool.values()) {
+            if (candidate == g || candidate.idle.isEmpty()) {
+                continue;
             }
 
-            // add a new pool entry
-            Queue<ProcessEntry> q = pool.computeIfAbsent(hc, k -> new LinkedList<>());
-            try {
-                q.add(launcher.start());
-            } catch (IOException e) {
-                log.error("populate -> error while starting a new process", e);
+            double s = candidate.score(now);
+            if (s < victimScore) {
+                victim = candidate;
+                victimScore = s;
             }
         }
+
+        return victim;
     }
 
-    private void maintenance() {
-        List<HashCode> queuesToRemove = new ArrayList<>();
-        List<ProcessEntry> processesToKill = new ArrayList<>();
+    private ProcessEntry start(ProcessLauncher launcher) throws IOException {
+        long t1 = System.currentTimeMillis();
+        ProcessEntry e = launcher.start();
+        long t2 = System.currentTimeMillis();
 
-        long t = System.currentTimeMillis();
+        forks.increment();
+        forkTime.add(t2 - t1);
+
+        return e;
+    }
 
-        synchronized (pool) {
-            pool.forEach((hc, q) -> {
-                q.removeIf(e -> {
-                    if (e.remove || t - e.timestamp >= maxEntryAge) {
-                        processesToKill.add(e);
-                        return true;
-                    }
-                    return false;
-                });
+    void maintenance() {
+        long now = System.currentTimeMillis();
 
-                if (q.isEmpty()) {
-                    queuesToRemove.add(hc);
+        int removedGroups = 0;
+        int killed = 0;
+        List<Group> warmup = new ArrayList<>();
+
+        for (Group g : pool.values()) {
+
+            for (Iterator<ProcessEntry> j = g.idle.iterator(); j.hasNext(); ) {
+                ProcessEntry e = j.next();
+                if ((!e.process.isAlive() || now - e.timestamp >= maxEntryAge) && g.idle.removeFirstOccurrence(e)) {
+                    size.decrementAndGet();
+                    destroy(e);
+                    killed++;
                 }
-            });
+            }
 
-            for (HashCode hc : queuesToRemove) {
-                pool.remove(hc);
+            double score = g.score(now);
+            if (g.idle.isEmpty() && score < MIN_SCORE && pool.remove(g.hc, g)) {
+                removedGroups++;
+            } else if (warmupEnabled && g.idle.isEmpty() && score >= WARMUP_SCORE) {
+                warmup.add(g);
             }
         }
 
-        log.info("maintenance -> removed {} queues", queuesToRemove.size());
+        // warm up the most used groups first
+        int warmupCount = Math.min(warmup.size(), Math.max(0, maxEntryCount - size.get()));
+        warmup.sort(Comparator.comparingDouble((Group g) -> g.score(now)).reversed());
+        warmup.subList(0, warmupCount)
+                .forEach(g -> executor.execute(() -> populate(g)));
+
+        log.info("maintenance -> removed {} groups, killed {} processes, warming up {} groups, {}",
+                removedGroups, killed, warmupCount, getStats());
+    }
 
-        for (ProcessEntry p : processesToKill) {
-            Utils.kill(p.process);
-            cleanup(p);
+    private int idleCount() {
+        int result = 0;
+        for (Group g : pool.values()) {
+            result += g.idle.size();
         }
-        log.info("maintenance -> killed {} processes", processesToKill.size());
+        return result;
+    }
+
+    private static void destroy(ProcessEntry e) {
+        Utils.kill(e.process);
+        cleanup(e);
     }
 
     private static void cleanup(ProcessEntry process) {
@@ -178,14 +315,65 @@ public class ProcessPool {
         ProcessEntry start() throws IOException;
     }
 
+    /**
+     * @param hits         number of requests served by pre-forked processes
+     * @param misses       number of requests which required a new process
+     * @param idle         current number of idle pre-forked processes
+     * @param forks        total number of started processes
+     * @param avgForkTime  average time to start a process, ms
+     */
+    public record Stats(long hits, long misses, int idle, long forks, long avgForkTime) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total > 0 ? (double) hits / total : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.2f, idle=%d, forks=%d, avgForkTime=%dms",
+                    hits, misses, hitRate(), idle, forks, avgForkTime);
+        }
+    }
+
+    /**
+     * Processes with the same command line.
+     */
+    private static final class Group {
+
+        private final HashCode hc;
+        private final Deque<ProcessEntry> idle = new ConcurrentLinkedDeque<>();
+
+        private volatile ProcessLauncher launcher;
+
+        // decaying usage frequency
+        private double score;
+        private long scoreUpdatedAt;
+
+        private Group(HashCode hc) {
+            this.hc = hc;
+        }
+
+        synchronized void touch(ProcessLauncher launcher, long now) {
+            this.launcher = launcher;
+            this.score = score(now) + 1;
+            this.scoreUpdatedAt = now;
+        }
+
+        synchronized double score(long now) {
+            if (scoreUpdatedAt == 0) {
+                return 0;
+            }
+            return score * Math.pow(0.5, (double) (now - scoreUpdatedAt) / SCORE_HALF_LIFE);
+        }
+    }
+
     public static final class ProcessEntry {
 
         private final long timestamp;
         private final Process process;
         private final Path workDir;
 
-        private boolean remove = false;
-
         public ProcessEntry(Process process, Path workDir) {
             this.timestamp = System.currentTimeMillis();
             this.process = process;
@@ -45,6 +45,7 @@ public class AgentDependencyManagerConfigurationProvider implements Provider<Dep
                 .exclusions(cfg.dependencyExclusions())
                 .explicitlyResolveV1Client(cfg.isExplicitlyResolveV1Client())
                 .offlineMode(cfg.isMavenOfflineMode())
+                .graphCacheVolatileTtl(cfg.getDependencyGraphCacheVolatileTtl())
                 .build();
     }
 }
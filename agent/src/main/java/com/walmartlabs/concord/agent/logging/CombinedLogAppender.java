@@ -21,6 +21,7 @@ package com.walmartlabs.concord.agent.logging;
  */
 
 import javax.inject.Inject;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -48,6 +49,16 @@ public class CombinedLogAppender implements LogAppender {
         return result;
     }
 
+    @Override
+    public boolean appendSegments(UUID instanceId, Map<Long, byte[]> segments) {
+        boolean result = true;
+        for (LogAppender a : appenders) {
+            boolean done = a.appendSegments(instanceId, segments);
+            result = result && done;
+        }
+        return result;
+    }
+
     @Override
     public boolean updateSegment(UUID instanceId, long segmentId, LogSegmentStats stats) {
         boolean result = true;
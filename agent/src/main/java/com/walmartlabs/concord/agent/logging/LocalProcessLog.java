@@ -40,6 +40,9 @@ public class LocalProcessLog extends AbstractProcessLog {
 
     private final Path baseDir;
 
+    private final Object writeMonitor = new Object();
+    private long writeCount;
+
     public LocalProcessLog(Path baseDir) throws IOException {
         this.baseDir = baseDir;
         Files.createFile(logFile());
@@ -61,7 +64,12 @@ public class LocalProcessLog extends AbstractProcessLog {
     public void log(InputStream src) throws IOException {
         Path f = logFile();
         try (OutputStream dst = Files.newOutputStream(f, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-            src.transferTo(dst);
+            byte[] ab = new byte[8192];
+            int read;
+            while ((read = src.read(ab)) >= 0) {
+                dst.write(ab, 0, read);
+                onWrite();
+            }
         }
     }
 
@@ -74,6 +82,40 @@ public class LocalProcessLog extends AbstractProcessLog {
         } catch (IOException e) {
             throw new RuntimeException("Error writing to a log file: " + f, e);
         }
+        onWrite();
+    }
+
+    /**
+     * @return the number of writes made so far. Can be used with {@link #awaitWrite(long, long)}.
+     */
+    public long writeCount() {
+        synchronized (writeMonitor) {
+            return writeCount;
+        }
+    }
+
+    /**
+     * Waits until something is written into the log after {@code lastWriteCount}
+     * or until the timeout.
+     */
+    public void awaitWrite(long lastWriteCount, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (writeMonitor) {
+            while (writeCount == lastWriteCount) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                writeMonitor.wait(remaining);
+            }
+        }
+    }
+
+    private void onWrite() {
+        synchronized (writeMonitor) {
+            writeCount++;
+            writeMonitor.notifyAll();
+        }
     }
 
     public Path logFile() {
@@ -20,6 +20,7 @@ package com.walmartlabs.concord.agent.logging;
  * =====
  */
 
+import java.util.Map;
 import java.util.UUID;
 
 public interface LogAppender {
@@ -28,5 +29,19 @@ public interface LogAppender {
 
     boolean appendLog(UUID instanceId, long segmentId, byte[] ab);
 
+    /**
+     * Appends data to multiple log segments at once.
+     *
+     * @param segments segment ID to data
+     */
+    default boolean appendSegments(UUID instanceId, Map<Long, byte[]> segments) {
+        boolean result = true;
+        for (Map.Entry<Long, byte[]> e : segments.entrySet()) {
+            boolean done = appendLog(instanceId, e.getKey(), e.getValue());
+            result = result && done;
+        }
+        return result;
+    }
+
     boolean updateSegment(UUID instanceId, long segmentId, LogSegmentStats stats);
 }
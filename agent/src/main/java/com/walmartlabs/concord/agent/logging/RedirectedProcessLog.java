@@ -20,9 +20,13 @@ package com.walmartlabs.concord.agent.logging;
  * =====
  */
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.function.Consumer;
@@ -31,9 +35,18 @@ import java.util.function.Supplier;
 /**
  * Log that uses a local file as a buffer before sending the data into the specified {@link LogAppender}.
  * Typically, {@link #run(Supplier)} method should be executed in a separate thread.
+ * <p/>
+ * The file is read using an adaptive buffer: the buffer grows while the reads fill it up
+ * (i.e. while the process produces more data than we ship) and shrinks back when the log is quiet.
+ * New data is picked up as soon as it is written, {@code logSteamMaxDelay} is used only as a fallback.
  */
 public class RedirectedProcessLog implements ProcessLog {
 
+    private static final Logger log = LoggerFactory.getLogger(RedirectedProcessLog.class);
+
+    private static final int MIN_BUFFER_SIZE = 8192;
+    private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
     protected final long logSteamMaxDelay;
     private final LocalProcessLog localLog;
     private final Consumer<Chunk> consumer;
@@ -45,7 +58,7 @@ public class RedirectedProcessLog implements ProcessLog {
     }
 
     public void run(Supplier<Boolean> stopCondition) throws Exception {
-        streamLog(localLog.logFile(), stopCondition, logSteamMaxDelay, consumer);
+        streamLog(localLog, stopCondition, logSteamMaxDelay, consumer);
     }
 
     @Override
@@ -73,35 +86,89 @@ public class RedirectedProcessLog implements ProcessLog {
         this.localLog.error(log, args);
     }
 
-    private static void streamLog(Path p, Supplier<Boolean> stopCondition, long maxDelay, Consumer<Chunk> sink) throws IOException {
-        long total = 0;
+    private static void streamLog(LocalProcessLog localLog, Supplier<Boolean> stopCondition, long maxDelay, Consumer<Chunk> sink) throws IOException {
+        Path p = localLog.logFile();
+        Stats stats = new Stats();
 
-        byte[] ab = new byte[8192];
+        ByteBuffer buf = ByteBuffer.allocate(MIN_BUFFER_SIZE);
+        long position = 0;
 
-        try (InputStream in = Files.newInputStream(p, StandardOpenOption.READ)) {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
             while (true) {
-                int read = in.read(ab, 0, ab.length);
+                // remember the write counter before reading, so we don't miss the writes made in between
+                long writeCount = localLog.writeCount();
+
+                buf.clear();
+                int read = ch.read(buf, position);
                 if (read > 0) {
-                    sink.accept(new Chunk(ab, read));
-                    total += read;
+                    position += read;
+
+                    long t1 = System.nanoTime();
+                    sink.accept(new Chunk(buf.array(), read));
+                    stats.onChunk(read, System.nanoTime() - t1, ch.size() - position);
                 }
 
-                if (read < ab.length) {
-                    if (stopCondition.get() && total >= Files.size(p)) {
-                        // the log and the job are finished
-                        break;
+                if (read == buf.capacity()) {
+                    // the process is writing faster than we read, use bigger reads
+                    if (buf.capacity() < MAX_BUFFER_SIZE) {
+                        buf = ByteBuffer.allocate(Math.min(buf.capacity() * 2, MAX_BUFFER_SIZE));
                     }
+                    continue;
+                }
 
-                    // job is still running, wait for more data
-                    try {
-                        Thread.sleep(maxDelay);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+                if (read < buf.capacity() / 4 && buf.capacity() > MIN_BUFFER_SIZE) {
+                    buf = ByteBuffer.allocate(Math.max(buf.capacity() / 2, MIN_BUFFER_SIZE));
+                }
+
+                if (stopCondition.get() && position >= ch.size()) {
+                    // the log and the job are finished
+                    break;
+                }
+
+                // job is still running, wait for more data
+                try {
+                    localLog.awaitWrite(writeCount, maxDelay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
             }
         }
+
+        log.info("streamLog ['{}'] -> done, {}", p.getParent().getFileName(), stats);
+    }
+
+    /**
+     * Per-job log shipping statistics.
+     */
+    private static final class Stats {
+
+        private final long startedAt = System.nanoTime();
+
+        private long bytes;
+        private long chunks;
+        private long uploadNanos;
+        private long maxUploadNanos;
+        private long maxBacklog;
+
+        private void onChunk(int len, long uploadTime, long backlog) {
+            bytes += len;
+            chunks++;
+            uploadNanos += uploadTime;
+            maxUploadNanos = Math.max(maxUploadNanos, uploadTime);
+            maxBacklog = Math.max(maxBacklog, backlog);
+        }
+
+        @Override
+        public String toString() {
+            long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+            return "bytes: " + bytes +
+                    ", rate: " + (bytes * 1000 / elapsedMs) + " bytes/s" +
+                    ", chunks: " + chunks +
+                    ", avg upload: " + (chunks > 0 ? uploadNanos / chunks / 1_000_000 : 0) + "ms" +
+                    ", max upload: " + maxUploadNanos / 1_000_000 + "ms" +
+                    ", max backlog: " + maxBacklog + " bytes";
+        }
     }
 
     public static class Chunk {
@@ -28,7 +28,12 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public class RemoteLogAppender implements LogAppender {
 
@@ -37,6 +42,21 @@ public class RemoteLogAppender implements LogAppender {
     private final ProcessApi processApi;
     private final ProcessLogV2Api processLogV2Api;
 
+    /**
+     * The server returns this message when the process doesn't exist, i.e. the endpoint itself is available.
+     */
+    private static final String PROCESS_NOT_FOUND_MESSAGE = "Process instance not found";
+
+    /**
+     * How long to use single segment appends before trying the batch endpoint again.
+     */
+    private static final long BATCH_RETRY_PERIOD = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Older servers don't support batch appends. Until this time single segment appends are used.
+     */
+    private volatile long batchDisabledUntil = 0;
+
     @Inject
     public RemoteLogAppender(ApiClient apiClient) {
         this.processApi = new ProcessApi(apiClient);
@@ -71,6 +91,32 @@ public class RemoteLogAppender implements LogAppender {
         }
     }
 
+    @Override
+    public boolean appendSegments(UUID instanceId, Map<Long, byte[]> segments) {
+        if (segments.size() == 1 || System.currentTimeMillis() < batchDisabledUntil) {
+            return LogAppender.super.appendSegments(instanceId, segments);
+        }
+
+        byte[] body = encode(segments);
+        try {
+            ClientUtils.withRetry(AgentConstants.API_CALL_MAX_RETRIES, AgentConstants.API_CALL_RETRY_DELAY, () -> {
+                processLogV2Api.appendProcessLogSegments(instanceId, new ByteArrayInputStream(body));
+                return null;
+            });
+            return true;
+        } catch (ApiException e) {
+            if (isBatchNotSupported(e)) {
+                log.warn("appendSegments ['{}'] -> batch appends are not supported by the server, falling back to single segment appends", instanceId);
+                batchDisabledUntil = System.currentTimeMillis() + BATCH_RETRY_PERIOD;
+                return LogAppender.super.appendSegments(instanceId, segments);
+            }
+
+            log.warn("appendSegments ['{}'] -> error: {}", instanceId, e.getMessage());
+
+            return e.getCode() >= 400 && e.getCode() < 500;
+        }
+    }
+
     @Override
     public boolean updateSegment(UUID instanceId, long segmentId, LogSegmentStats stats) {
         LogSegmentUpdateRequest request = new LogSegmentUpdateRequest()
@@ -88,6 +134,38 @@ public class RemoteLogAppender implements LogAppender {
         return false;
     }
 
+    /**
+     * A 404 is also returned for unknown processes. Only a 404 without the server's
+     * "not found" message means that the endpoint itself is missing.
+     */
+    private static boolean isBatchNotSupported(ApiException e) {
+        if (e.getCode() == 405) {
+            return true;
+        }
+
+        if (e.getCode() != 404) {
+            return false;
+        }
+
+        String body = e.getResponseBody();
+        return body == null || !body.contains(PROCESS_NOT_FOUND_MESSAGE);
+    }
+
+    private static byte[] encode(Map<Long, byte[]> segments) {
+        int size = segments.values().stream().mapToInt(ab -> ab.length + 12).sum();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(size);
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            for (Map.Entry<Long, byte[]> e : segments.entrySet()) {
+                out.writeLong(e.getKey());
+                out.writeInt(e.getValue().length);
+                out.write(e.getValue());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return baos.toByteArray();
+    }
+
     private static LogSegmentUpdateRequest.StatusEnum convertStatus(LogSegmentStatus status) {
         if (status == null) {
             return null;
@@ -59,16 +59,25 @@ public class SegmentedLogsConsumer implements Consumer<RedirectedProcessLog.Chun
 
         invalidSegmentsToSystemSegments(invalidSegments, segments);
         Map<Long, List<Segment>> segmentsById = byId(segments);
+
+        // send the data of all segments found in the chunk using a single call
+        Map<Long, byte[]> data = new LinkedHashMap<>();
         for (Map.Entry<Long, List<Segment>> e : segmentsById.entrySet()) {
             int buffLength = e.getValue().stream().mapToInt(h -> actualLength(h, ab.length)).sum();
             byte[] segmentBuffer = new byte[buffLength];
             fillBuffer(e.getValue(), ab, segmentBuffer);
 
             if (segmentBuffer.length > 0) {
-                // TODO: retry?
-                logAppender.appendLog(instanceId, e.getKey(), segmentBuffer);
+                data.put(e.getKey(), segmentBuffer);
             }
+        }
 
+        if (!data.isEmpty()) {
+            // TODO: retry?
+            logAppender.appendSegments(instanceId, data);
+        }
+
+        for (Map.Entry<Long, List<Segment>> e : segmentsById.entrySet()) {
             LogSegmentStats stats = findStats(e.getValue());
             if (stats != null) {
                 logAppender.updateSegment(instanceId, e.getKey(), stats);
@@ -20,26 +20,39 @@ package com.walmartlabs.concord.agent.remote;
  * =====
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.walmartlabs.concord.agent.AgentConstants;
+import com.walmartlabs.concord.agent.StateCache;
 import com.walmartlabs.concord.client2.*;
 import com.walmartlabs.concord.common.PathUtils;
 import com.walmartlabs.concord.common.TemporaryPath;
 import com.walmartlabs.concord.common.ZipUtils;
 import com.walmartlabs.concord.sdk.Constants;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Stream;
 
 public class AttachmentsUploader {
 
+    private static final Logger log = LoggerFactory.getLogger(AttachmentsUploader.class);
+
     private final ApiClient apiClient;
+    private final StateCache stateCache;
+    private final ObjectMapper objectMapper;
 
     @Inject
-    public AttachmentsUploader(ApiClient apiClient) {
+    public AttachmentsUploader(ApiClient apiClient, StateCache stateCache, ObjectMapper objectMapper) {
         this.apiClient = apiClient;
+        this.stateCache = stateCache;
+        this.objectMapper = objectMapper;
     }
 
     public void upload(UUID instanceId, Path workDir) throws Exception {
@@ -48,6 +61,13 @@ public class AttachmentsUploader {
             return;
         }
 
+        if (stateCache.isEnabled()) {
+            Map<String, String> cached = stateCache.getManifest(instanceId);
+            if (!cached.isEmpty() && uploadChanges(instanceId, workDir, cached)) {
+                return;
+            }
+        }
+
         try (TemporaryPath tmp = PathUtils.tempFile("attachments", ".zip")) {
             try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(Files.newOutputStream(tmp.path()))) {
                 ZipUtils.zip(zip, attachmentsDir);
@@ -60,4 +80,76 @@ public class AttachmentsUploader {
             });
         }
     }
+
+    /**
+     * Uploads only the attachments which are different from the cached copy of the process state.
+     * Updates the cached copy after a successful upload.
+     *
+     * @return {@code false} if the server doesn't support incremental uploads.
+     */
+    private boolean uploadChanges(UUID instanceId, Path workDir, Map<String, String> cached) throws Exception {
+        Path attachmentsDir = workDir.resolve(Constants.Files.JOB_ATTACHMENTS_DIR_NAME);
+
+        Map<String, String> manifest = new HashMap<>(cached);
+        manifest.keySet().removeIf(p -> p.startsWith(Constants.Files.JOB_ATTACHMENTS_DIR_NAME + "/" + Constants.Files.JOB_STATE_DIR_NAME + "/"));
+
+        List<String> unchanged = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(attachmentsDir)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(f)) {
+                    continue;
+                }
+
+                String name = attachmentsDir.relativize(f).toString();
+                String statePath = Constants.Files.JOB_ATTACHMENTS_DIR_NAME + "/" + name;
+                String hash = StateCache.hash(f);
+                manifest.put(statePath, hash);
+
+                // OUT variables are always sent, the server reads them from the uploaded data
+                if (hash.equals(cached.get(statePath)) && !name.equals(Constants.Files.OUT_VALUES_FILE_NAME)) {
+                    unchanged.add(name);
+                } else {
+                    changed.add(name);
+                }
+            }
+        }
+
+        try (TemporaryPath tmp = PathUtils.tempFile("attachments", ".zip")) {
+            try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(Files.newOutputStream(tmp.path()))) {
+                for (String name : changed) {
+                    ZipUtils.zipFile(zip, attachmentsDir.resolve(name), name);
+                }
+
+                zip.putArchiveEntry(new ZipArchiveEntry(Constants.Files.UNCHANGED_ATTACHMENTS_FILE_NAME));
+                zip.write(objectMapper.writeValueAsBytes(unchanged));
+                zip.closeArchiveEntry();
+            }
+
+            ProcessApi api = new ProcessApi(apiClient);
+            ClientUtils.withRetry(AgentConstants.API_CALL_MAX_RETRIES, AgentConstants.API_CALL_RETRY_DELAY, () -> {
+                api.uploadProcessAttachmentsDelta(instanceId, Files.newInputStream(tmp.path()));
+                return null;
+            });
+        } catch (ApiException e) {
+            if (e.getCode() == 404 || e.getCode() == 405) {
+                return false;
+            }
+            throw e;
+        }
+
+        log.info("uploadChanges ['{}'] -> {} file(s) uploaded, {} file(s) unchanged", instanceId, changed.size(), unchanged.size());
+
+        List<String> updated = changed.stream()
+                .map(n -> Constants.Files.JOB_ATTACHMENTS_DIR_NAME + "/" + n)
+                .toList();
+
+        try {
+            stateCache.update(instanceId, manifest, workDir, updated);
+        } catch (IOException e) {
+            log.warn("uploadChanges ['{}'] -> can't update the cached state: {}", instanceId, e.getMessage());
+        }
+
+        return true;
+    }
 }
@@ -0,0 +1,93 @@
+package com.walmartlabs.concord.agent;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.ConfigFactory;
+import com.walmartlabs.concord.agent.cfg.StateCacheConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testUpdateAndCopy() throws Exception {
+        StateCache cache = new StateCache(cfg(tempDir.resolve("cache")), new ObjectMapper());
+        UUID instanceId = UUID.randomUUID();
+
+        Path payload = Files.createDirectories(tempDir.resolve("payload"));
+        Files.writeString(payload.resolve("concord.yml"), "flows: {}");
+        Files.createDirectories(payload.resolve("_attachments/_state"));
+        Files.writeString(payload.resolve("_attachments/_state/instance"), "abc");
+
+        Map<String, String> manifest = Map.of(
+                "concord.yml", StateCache.hash(payload.resolve("concord.yml")),
+                "_attachments/_state/instance", StateCache.hash(payload.resolve("_attachments/_state/instance")));
+
+        cache.update(instanceId, manifest, payload, manifest.keySet());
+        assertEquals(manifest, cache.getManifest(instanceId));
+
+        // ---
+
+        Path dst = Files.createDirectories(tempDir.resolve("dst"));
+        Set<String> missing = cache.copyTo(instanceId, List.of("concord.yml", "unknown.txt"), dst);
+        assertEquals(Set.of("unknown.txt"), missing);
+        assertEquals("flows: {}", Files.readString(dst.resolve("concord.yml")));
+
+        // --- items removed from the manifest are removed from the cache
+
+        cache.update(instanceId, Map.of("concord.yml", manifest.get("concord.yml")), payload, List.of());
+        assertEquals(Set.of("_attachments/_state/instance"), cache.copyTo(instanceId, List.of("_attachments/_state/instance"), dst));
+    }
+
+    @Test
+    void testHash() throws Exception {
+        Path f = tempDir.resolve("test.txt");
+        Files.writeString(f, "hello");
+        assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", StateCache.hash(f));
+    }
+
+    @Test
+    void testInvalidPath() {
+        StateCache cache = new StateCache(cfg(tempDir.resolve("cache")), new ObjectMapper());
+        assertThrows(IllegalArgumentException.class, () -> cache.copyTo(UUID.randomUUID(), List.of("../../etc/passwd"), tempDir));
+    }
+
+    private static StateCacheConfiguration cfg(Path cacheDir) {
+        return new StateCacheConfiguration(ConfigFactory.parseMap(Map.of(
+                "stateCache.enabled", true,
+                "stateCache.cacheDir", cacheDir.toString(),
+                "stateCache.maxEntries", 10,
+                "stateCache.maxAge", "1 hour")));
+    }
+}
@@ -0,0 +1,216 @@
+package com.walmartlabs.concord.agent.executors.runner;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.walmartlabs.concord.agent.executors.runner.ProcessPool.ProcessEntry;
+import com.walmartlabs.concord.agent.executors.runner.ProcessPool.ProcessLauncher;
+import com.walmartlabs.concord.common.PathUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProcessPoolTest {
+
+    private static final HashCode A = hash("a");
+    private static final HashCode B = hash("b");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPreforkedProcessIsReused() throws Exception {
+        ProcessPool pool = new ProcessPool(TimeUnit.DAYS.toMillis(1), 2, Runnable::run);
+        ProcessLauncher launcher = launcher(new AtomicBoolean());
+
+        pool.take(A, launcher);
+        pool.take(A, launcher);
+
+        ProcessPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.idle());
+    }
+
+    @Test
+    void testExpiredProcessIsNotUsed() throws Exception {
+        ProcessPool pool = new ProcessPool(0, 2, Runnable::run);
+        ProcessLauncher launcher = launcher(new AtomicBoolean());
+
+        ProcessEntry first = pool.take(A, launcher);
+        pool.take(A, launcher);
+
+        ProcessPool.Stats stats = pool.getStats();
+        assertEquals(0, stats.hits());
+        assertEquals(2, stats.misses());
+
+        // the expired prefork is destroyed, the processes that were taken are still there
+        assertEquals(4, stats.forks());
+        assertEquals(3, countProcesses());
+        assertTrue(Files.exists(first.getWorkDir()));
+    }
+
+    @Test
+    void testLessUsedGroupIsReplaced() throws Exception {
+        ProcessPool pool = new ProcessPool(TimeUnit.DAYS.toMillis(1), 1, Runnable::run);
+        ProcessLauncher launcher = launcher(new AtomicBoolean());
+
+        for (int i = 0; i < 3; i++) {
+            pool.take(A, launcher);
+        }
+        assertEquals(2, pool.getStats().hits());
+
+        // B is used less than A, A's prefork stays
+        pool.take(B, launcher);
+        pool.take(A, launcher);
+        assertEquals(3, pool.getStats().hits());
+
+        // B is used more than A now, A's prefork is replaced with B's
+        for (int i = 0; i < 5; i++) {
+            pool.take(B, launcher);
+        }
+
+        long misses = pool.getStats().misses();
+        pool.take(A, launcher);
+        assertEquals(misses + 1, pool.getStats().misses());
+
+        // B is still used more than A, its prefork is not replaced
+        long hits = pool.getStats().hits();
+        pool.take(B, launcher);
+        assertEquals(hits + 1, pool.getStats().hits());
+
+        assertEquals(1, pool.getStats().idle());
+    }
+
+    @Test
+    void testPoolSizeIsBounded() throws Exception {
+        int maxCount = 4;
+        int groups = 16;
+        int threads = 32;
+        int takesPerThread = 50;
+
+        ExecutorService populateExecutor = Executors.newFixedThreadPool(8);
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        try {
+            ProcessPool pool = new ProcessPool(TimeUnit.DAYS.toMillis(1), maxCount, populateExecutor);
+            ProcessLauncher launcher = launcher(new AtomicBoolean());
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(clients.submit(() -> {
+                    for (int j = 0; j < takesPerThread; j++) {
+                        HashCode hc = hash("group-" + ThreadLocalRandom.current().nextInt(groups));
+                        ProcessEntry e = pool.take(hc, launcher);
+
+                        // the process is done
+                        PathUtils.deleteRecursively(e.getWorkDir());
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> f : futures) {
+                f.get(1, TimeUnit.MINUTES);
+            }
+
+            populateExecutor.shutdown();
+            assertTrue(populateExecutor.awaitTermination(1, TimeUnit.MINUTES));
+
+            ProcessPool.Stats stats = pool.getStats();
+            assertEquals(threads * takesPerThread, stats.hits() + stats.misses());
+            assertTrue(stats.idle() <= maxCount, "idle: " + stats.idle());
+
+            // the replaced preforks are destroyed, only the idle ones remain
+            assertEquals(stats.idle(), countProcesses());
+        } finally {
+            clients.shutdownNow();
+            populateExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testNoWarmupWithShortMaxAge() throws Exception {
+        assertEquals(0, warmUp(TimeUnit.SECONDS.toMillis(30)));
+        assertEquals(1, warmUp(TimeUnit.DAYS.toMillis(1)));
+    }
+
+    /**
+     * @return the number of idle processes after a maintenance run for a frequently
+     * used group without preforks.
+     */
+    private int warmUp(long maxAge) throws Exception {
+        ProcessPool pool = new ProcessPool(maxAge, 2, Runnable::run);
+
+        AtomicBoolean fail = new AtomicBoolean();
+        ProcessLauncher launcher = launcher(fail);
+
+        pool.take(A, launcher);
+        pool.take(A, launcher);
+
+        // take the prefork and fail to start a new one
+        fail.set(true);
+        pool.take(A, launcher);
+        fail.set(false);
+        assertEquals(0, pool.getStats().idle());
+
+        pool.maintenance();
+        return pool.getStats().idle();
+    }
+
+    private ProcessLauncher launcher(AtomicBoolean fail) {
+        return () -> {
+            if (fail.get()) {
+                throw new IOException("test");
+            }
+
+            Process process = mock(Process.class);
+            when(process.isAlive()).thenReturn(true);
+            when(process.toHandle()).thenReturn(mock(ProcessHandle.class));
+
+            Path workDir = Files.createTempDirectory(tempDir, "process");
+            return new ProcessEntry(process, workDir);
+        };
+    }
+
+    private long countProcesses() throws IOException {
+        try (Stream<Path> s = Files.list(tempDir)) {
+            return s.count();
+        }
+    }
+
+    private static HashCode hash(String s) {
+        return Hashing.sha256().hashString(s, StandardCharsets.UTF_8);
+    }
+}
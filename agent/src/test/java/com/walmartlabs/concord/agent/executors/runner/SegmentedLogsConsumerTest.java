@@ -31,6 +31,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import static com.walmartlabs.concord.agent.logging.RedirectedProcessLog.Chunk;
@@ -44,6 +46,7 @@ public class SegmentedLogsConsumerTest {
     @BeforeEach
     public void init() {
         this.logAppender = mock(LogAppender.class);
+        when(logAppender.appendSegments(any(), any())).thenCallRealMethod();
         consumer = new SegmentedLogsConsumer(UUID.randomUUID(), logAppender);
     }
 
@@ -146,6 +149,25 @@ public class SegmentedLogsConsumerTest {
         verifyNoMoreInteractions(logAppender);
     }
 
+    /**
+     * in: |7|1|1|1|2|hello1\n|8|2|1|1|2|hello223|6|1|1|1|2|again!
+     */
+    @Test
+    public void testBatch() {
+        String msg1 = "hello1\n";
+        String msg2 = "hello223";
+        String msg3 = "again!";
+
+        consumer.accept(toChunk(Bytes.concat(bb(1, msg1), bb(2, msg2), bb(1, msg3))));
+
+        Map<Long, byte[]> expected = new LinkedHashMap<>();
+        expected.put(1L, (msg1 + msg3).getBytes());
+        expected.put(2L, msg2.getBytes());
+
+        verify(logAppender, times(1)).appendSegments(any(), argThat(m -> m.size() == expected.size()
+                && m.entrySet().stream().allMatch(e -> Arrays.equals(e.getValue(), expected.get(e.getKey())))));
+    }
+
     private static Chunk toChunk(byte[] ab) {
         return new Chunk(ab, ab.length) {
         };
@@ -0,0 +1,95 @@
+package com.walmartlabs.concord.common;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * Compares {@link Matcher#matches(Object, Object)} with {@link CompiledMatcher}
+ * using trigger-like conditions matched against a stream of events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompiledMatcherBenchmark {
+
+    private static final int CONDITIONS = 200;
+    private static final int EVENTS = 500;
+
+    @Param({"Matcher", "CompiledMatcher"})
+    public String matcher;
+
+    private List<Map<String, Object>> conditions;
+    private List<Map<String, Object>> events;
+    private BiPredicate<Object, Object> predicate;
+
+    @Setup
+    public void setUp() {
+        conditions = new ArrayList<>(CONDITIONS);
+        for (int i = 0; i < CONDITIONS; i++) {
+            Map<String, Object> c = new HashMap<>();
+            c.put("type", "push");
+            c.put("githubOrg", "org-" + i);
+            c.put("githubRepo", i % 2 == 0 ? "repo-" + i : "repo-.*");
+            c.put("branch", i % 3 == 0 ? "master" : "release/.*");
+            conditions.add(c);
+        }
+
+        events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            Map<String, Object> e = new HashMap<>();
+            e.put("type", "push");
+            e.put("githubOrg", "org-" + (i % CONDITIONS));
+            e.put("githubRepo", "repo-" + i);
+            e.put("branch", i % 2 == 0 ? "master" : "release/1.0");
+            e.put("status", "opened");
+            events.add(e);
+        }
+
+        if ("CompiledMatcher".equals(matcher)) {
+            Map<Object, CompiledMatcher> compiled = new IdentityHashMap<>();
+            predicate = (c, e) -> compiled.computeIfAbsent(c, CompiledMatcher::compile).matches(e);
+        } else {
+            predicate = (c, e) -> Matcher.matches(e, c);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONDITIONS * EVENTS)
+    public int matches() {
+        int matched = 0;
+        for (Map<String, Object> e : events) {
+            for (Map<String, Object> c : conditions) {
+                if (predicate.test(c, e)) {
+                    matched++;
+                }
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,84 @@
+package com.walmartlabs.concord.runtime.v2.runner.el;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.runtime.v2.runner.el.resolvers.SensitiveDataProcessor;
+import com.walmartlabs.concord.runtime.v2.runner.tasks.TaskProviders;
+import com.walmartlabs.concord.runtime.v2.sdk.EvalContext;
+import com.walmartlabs.concord.runtime.v2.sdk.ExpressionEvaluator;
+import com.walmartlabs.concord.runtime.v2.sdk.MapBackedVariables;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the evaluation time of typical flow expressions with and without
+ * the {@link ExpressionCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExpressionEvaluatorBenchmark {
+
+    @Param({"cached", "uncached"})
+    public String cache;
+
+    private ExpressionEvaluator ee;
+    private EvalContext ctx;
+    private Map<String, Object> input;
+
+    @Setup
+    public void setUp() {
+        ExpressionCache expressionCache = "cached".equals(cache) ? new ExpressionCache() : new ExpressionCache(0);
+        ee = new DefaultExpressionEvaluator(new TaskProviders(), new FunctionHolder(), List.of(), List.of(), mock(SensitiveDataProcessor.class), expressionCache);
+
+        Map<String, Object> vars = Map.of(
+                "item", Map.of("name", "host-1", "port", 22),
+                "prefix", "srv");
+
+        ctx = EvalContext.builder()
+                .variables(new MapBackedVariables(vars))
+                .useIntermediateResults(true)
+                .build();
+
+        // nested maps are evaluated lazily using LazyEvalMap
+        input = Map.of(
+                "host", "${item.name}",
+                "address", Map.of("value", "${prefix}-${item.name}:${item.port}"));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void eval(Blackhole bh) {
+        bh.consume(ee.eval(ctx, "${item.name}", String.class));
+
+        Map<String, Object> result = ee.evalAsMap(ctx, input);
+        bh.consume(((Map<String, Object>) result.get("address")).get("value"));
+    }
+}
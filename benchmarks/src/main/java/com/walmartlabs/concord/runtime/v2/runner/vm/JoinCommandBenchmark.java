@@ -0,0 +1,135 @@
+package com.walmartlabs.concord.runtime.v2.runner.vm;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.runtime.v2.model.Step;
+import com.walmartlabs.concord.svm.*;
+import com.walmartlabs.concord.svm.State;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time it takes for a {@link JoinCommand} to complete when
+ * 1k forked threads finish at random times. Compares the notification-based
+ * {@link InMemoryState#awaitThreads} with the polling default
+ * implementation of {@link State#awaitThreads}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JoinCommandBenchmark {
+
+    private static final int FORKS = 1000;
+    private static final int WORKERS = 64;
+    private static final int MAX_WORK_MILLIS = 20;
+
+    @Param({"notifying", "polling"})
+    public String mode;
+
+    private ExecutorService executor;
+
+    private State state;
+    private ThreadId parentThread;
+    private List<ThreadId> children;
+    private JoinCommand<Step> joinCommand;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(WORKERS);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Setup(Level.Invocation)
+    public void fork() {
+        InMemoryState delegate = new InMemoryState(Frame.builder().root().build());
+        state = "polling".equals(mode) ? pollingState(delegate) : delegate;
+
+        parentThread = state.getRootThreadId();
+
+        children = new ArrayList<>(FORKS);
+        for (int i = 0; i < FORKS; i++) {
+            ThreadId child = state.nextThreadId();
+            state.fork(parentThread, child);
+            children.add(child);
+        }
+
+        joinCommand = new JoinCommand<>(children, null);
+        state.peekFrame(parentThread).push(joinCommand);
+    }
+
+    @TearDown(Level.Invocation)
+    public void verify() {
+        long done = state.threadStatus().values().stream().filter(s -> s == ThreadStatus.DONE).count();
+        if (done != FORKS) {
+            throw new IllegalStateException("Expected all forks to be done, got " + done);
+        }
+    }
+
+    @Benchmark
+    public void join() throws Exception {
+        for (ThreadId child : children) {
+            executor.submit(() -> {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(MAX_WORK_MILLIS));
+                state.setStatus(child, ThreadStatus.DONE);
+                return null;
+            });
+        }
+
+        joinCommand.execute(null, state, parentThread);
+    }
+
+    /**
+     * Hides the {@link InMemoryState#awaitThreads} override so the polling
+     * default implementation is used.
+     */
+    private static State pollingState(InMemoryState delegate) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+
+        return (State) Proxy.newProxyInstance(State.class.getClassLoader(), new Class[]{State.class}, handler);
+    }
+}
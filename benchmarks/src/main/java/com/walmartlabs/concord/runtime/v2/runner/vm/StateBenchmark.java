@@ -0,0 +1,126 @@
+package com.walmartlabs.concord.runtime.v2.runner.vm;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.svm.Runtime;
+import com.walmartlabs.concord.svm.*;
+import com.walmartlabs.concord.svm.State;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link VM#eval(Runtime, State, ThreadId)} throughput of
+ * {@link InMemoryState} and {@link ConcurrentState} with 1, 16 and 256
+ * concurrently running VM threads.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StateBenchmark {
+
+    private static final int TOTAL_COMMANDS = 1 << 21;
+    private static final Command NOOP = new NoopCommand();
+
+    @Param({"InMemoryState", "ConcurrentState"})
+    public String state;
+
+    @Param({"1", "16", "256"})
+    public int threads;
+
+    private CountDownLatch start;
+    private List<Thread> workers;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Frame root = Frame.builder().root().build();
+        State s = "ConcurrentState".equals(state) ? new ConcurrentState(root) : new InMemoryState(root);
+        VM vm = new VM(v -> new BenchmarkRuntime(), Collections.emptyList());
+
+        int commandsPerThread = TOTAL_COMMANDS / threads;
+
+        start = new CountDownLatch(1);
+        workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            ThreadId id = s.nextThreadId();
+
+            Command[] cmds = new Command[commandsPerThread];
+            Arrays.fill(cmds, NOOP);
+            s.fork(s.getRootThreadId(), id, cmds);
+
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    vm.eval(null, s, id);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL_COMMANDS)
+    public void eval() throws Exception {
+        start.countDown();
+        for (Thread t : workers) {
+            t.join();
+        }
+    }
+
+    private static class NoopCommand implements Command {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void eval(Runtime runtime, State state, ThreadId threadId) {
+            state.peekFrame(threadId).pop();
+        }
+    }
+
+    private static class BenchmarkRuntime implements Runtime {
+
+        @Override
+        public void spawn(State state, ThreadId threadId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public EvalResult eval(State state, ThreadId threadId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T getService(Class<T> klass) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.walmartlabs.concord.server;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.db.AbstractDao;
+import com.walmartlabs.concord.db.DatabaseConfiguration;
+import com.walmartlabs.concord.db.DatabaseModule;
+import com.walmartlabs.concord.db.MainDBChangeLogProvider;
+import org.jooq.Configuration;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A migrated Concord DB for the benchmarks that require one.
+ * The connection parameters can be changed using the {@code db.url},
+ * {@code db.username} and {@code db.password} system properties.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    public static BenchmarkDatabase open(int maxPoolSize) {
+        DatabaseConfiguration cfg = new DatabaseConfigurationImpl(
+                System.getProperty("db.url", "jdbc:postgresql://localhost:5432/postgres"),
+                System.getProperty("db.username", "postgres"),
+                System.getProperty("db.password", "q1"),
+                maxPoolSize);
+
+        DatabaseModule db = new DatabaseModule(true);
+        DataSource dataSource = db.appDataSource(cfg, new MetricRegistry(), Collections.singleton(new MainDBChangeLogProvider()));
+        return new BenchmarkDatabase(cfg, dataSource, db.appJooqConfiguration(dataSource));
+    }
+
+    private final DatabaseConfiguration dbCfg;
+    private final DataSource dataSource;
+    private final Configuration cfg;
+
+    private BenchmarkDatabase(DatabaseConfiguration dbCfg, DataSource dataSource, Configuration cfg) {
+        this.dbCfg = dbCfg;
+        this.dataSource = dataSource;
+        this.cfg = cfg;
+    }
+
+    public DatabaseConfiguration getDatabaseConfiguration() {
+        return dbCfg;
+    }
+
+    public Configuration getConfiguration() {
+        return cfg;
+    }
+
+    public void tx(AbstractDao.Tx t) {
+        DSL.using(cfg).transaction(cfg -> {
+            DSLContext tx = DSL.using(cfg);
+            t.run(tx);
+        });
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (dataSource instanceof AutoCloseable c) {
+            c.close();
+        }
+    }
+
+    private record DatabaseConfigurationImpl(String url, String username, String password,
+                                             int maxPoolSize) implements DatabaseConfiguration {
+
+        @Override
+        public Duration maxLifetime() {
+            return Duration.ofSeconds(30);
+        }
+
+        @Override
+        public Map<String, Object> changeLogParameters() {
+            String fakeSecret = Base64.getEncoder().encodeToString("benchmark".getBytes());
+            return Map.of("createExtensionAvailable", "true",
+                    "defaultAdminToken", fakeSecret,
+                    "skipAdminTokenGeneration", "true",
+                    "defaultAgentToken", fakeSecret,
+                    "skipAgentTokenGeneration", "true",
+                    "secretStoreSalt", fakeSecret,
+                    "serverPassword", fakeSecret);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.server.BenchmarkDatabase;
+import com.walmartlabs.concord.server.Listeners;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_LOG_DATA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the throughput of direct and buffered log appends using
+ * many concurrent writers and small (Ansible-like) chunks. Each invocation
+ * writes {@link #CHUNKS_PER_PROCESS} chunks for each of {@link #PROCESSES}
+ * processes and waits until all data is in the DB.
+ * <p>
+ * Requires a DB instance, see {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessLogBufferBenchmark {
+
+    private static final int PROCESSES = 50;
+    private static final int CHUNKS_PER_PROCESS = 2000;
+    private static final byte[] CHUNK = "TASK [debug] ok: [localhost] => {\"msg\": \"Hello!\"}\n".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"direct", "buffered"})
+    public String mode;
+
+    private BenchmarkDatabase db;
+    private ProcessLogsDao logsDao;
+    private ProcessLogBuffer buffer;
+    private ExecutorService executor;
+
+    private List<ProcessKey> processKeys;
+
+    @Setup
+    public void setUp() {
+        db = BenchmarkDatabase.open(PROCESSES);
+        logsDao = new ProcessLogsDao(db.getConfiguration());
+
+        if ("buffered".equals(mode)) {
+            ProcessConfiguration cfg = mock(ProcessConfiguration.class);
+            when(cfg.isLogBufferEnabled()).thenReturn(true);
+            when(cfg.getLogBufferFlushInterval()).thenReturn(Duration.ofMillis(250));
+            when(cfg.getLogBufferMaxSize()).thenReturn(1024 * 1024);
+
+            buffer = new ProcessLogBuffer(cfg, logsDao, mock(Listeners.class), mock(ProcessLogWatchHub.class), new MetricRegistry());
+            buffer.start();
+        }
+
+        executor = Executors.newFixedThreadPool(PROCESSES);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+
+        if (buffer != null) {
+            buffer.stop();
+        }
+
+        db.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void createProcessKeys() {
+        processKeys = new ArrayList<>(PROCESSES);
+        for (int i = 0; i < PROCESSES; i++) {
+            processKeys.add(ProcessKey.random());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteLogs() {
+        for (ProcessKey processKey : processKeys) {
+            int size = logsDao.streamData(processKey, null, null).getSize();
+            if (size != CHUNKS_PER_PROCESS * CHUNK.length) {
+                throw new IllegalStateException("Unexpected log size of " + processKey + ": " + size);
+            }
+
+            db.tx(tx -> tx.deleteFrom(PROCESS_LOG_DATA)
+                    .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(processKey.getInstanceId()))
+                    .execute());
+        }
+    }
+
+    @Benchmark
+    public void append() throws Exception {
+        List<Future<?>> futures = new ArrayList<>(PROCESSES);
+        for (ProcessKey processKey : processKeys) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < CHUNKS_PER_PROCESS; i++) {
+                    if (buffer != null) {
+                        buffer.append(processKey, 0, CHUNK);
+                    } else {
+                        logsDao.append(processKey, 0, CHUNK);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> f : futures) {
+            f.get();
+        }
+
+        if (buffer != null) {
+            buffer.flush();
+        }
+    }
+}
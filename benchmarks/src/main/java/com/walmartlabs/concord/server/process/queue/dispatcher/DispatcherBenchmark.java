@@ -0,0 +1,164 @@
+package com.walmartlabs.concord.server.process.queue.dispatcher;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.common.ObjectMapperProvider;
+import com.walmartlabs.concord.process.loader.ImportsNormalizer;
+import com.walmartlabs.concord.server.BenchmarkDatabase;
+import com.walmartlabs.concord.server.ConcordObjectMapper;
+import com.walmartlabs.concord.server.Locks;
+import com.walmartlabs.concord.server.cfg.ProcessQueueConfiguration;
+import com.walmartlabs.concord.server.message.MessageChannel;
+import com.walmartlabs.concord.server.message.MessageChannelManager;
+import com.walmartlabs.concord.server.process.ImportsNormalizerFactory;
+import com.walmartlabs.concord.server.process.SessionTokenCreator;
+import com.walmartlabs.concord.server.process.logs.ProcessLogManager;
+import com.walmartlabs.concord.server.process.queue.ProcessQueueManager;
+import com.walmartlabs.concord.server.queueclient.message.Message;
+import com.walmartlabs.concord.server.queueclient.message.MessageType;
+import com.walmartlabs.concord.server.queueclient.message.ProcessRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the dispatch latency with a large number of ENQUEUED processes
+ * that can't be matched by any of the connected agents.
+ * <p>
+ * Requires a DB instance, see {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DispatcherBenchmark {
+
+    private static final String MARKER = "dispatcher-benchmark";
+
+    @Param({"10000", "50000", "100000"})
+    public int queueSize;
+
+    @Param({"false", "true"})
+    public boolean indexEnabled;
+
+    private BenchmarkDatabase db;
+    private Dispatcher dispatcher;
+
+    @Setup
+    public void setUp() {
+        db = BenchmarkDatabase.open(3);
+        populate();
+
+        ProcessQueueConfiguration cfg = mock(ProcessQueueConfiguration.class);
+        when(cfg.getDispatcherPollDelay()).thenReturn(Duration.ofSeconds(1));
+        when(cfg.getDispatcherBatchSize()).thenReturn(10);
+        when(cfg.isDispatcherIndexEnabled()).thenReturn(indexEnabled);
+        when(cfg.getDispatcherMaxExcludedRequirements()).thenReturn(100);
+
+        ImportsNormalizer normalizer = value -> value;
+        ImportsNormalizerFactory importsNormalizerFactory = mock(ImportsNormalizerFactory.class);
+        when(importsNormalizerFactory.forProject(any())).thenReturn(normalizer);
+
+        MessageChannelManager channelManager = new MessageChannelManager();
+        channelManager.add(new BenchmarkChannel());
+
+        MetricRegistry metricRegistry = new MetricRegistry();
+        Dispatcher.DispatcherDao dao = new Dispatcher.DispatcherDao(db.getConfiguration(), new ConcordObjectMapper(new ObjectMapperProvider().get()), metricRegistry);
+
+        // the queue manager is a mock, the matched process stays ENQUEUED
+        // and each invocation scans the same rows
+        dispatcher = new Dispatcher(mock(Locks.class), dao, channelManager, mock(ProcessLogManager.class),
+                mock(ProcessQueueManager.class), Collections.emptySet(), importsNormalizerFactory, cfg,
+                metricRegistry, mock(SessionTokenCreator.class));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        db.tx(tx -> tx.execute("delete from PROCESS_QUEUE where REPO_PATH = ?", MARKER));
+        db.close();
+    }
+
+    @Benchmark
+    public boolean dispatch() {
+        if (!dispatcher.performTask()) {
+            throw new IllegalStateException("Expected the process to be dispatched");
+        }
+        return true;
+    }
+
+    private void populate() {
+        db.tx(tx -> {
+            // rows that require a non-existent agent flavor
+            tx.execute("insert into PROCESS_QUEUE (INSTANCE_ID, PROCESS_KIND, CREATED_AT, CURRENT_STATUS, LAST_UPDATED_AT, REPO_PATH, REQUIREMENTS) " +
+                       "select md5(random()::text || n)::uuid, 'DEFAULT', now(), 'ENQUEUED', now() - interval '1 hour' + n * interval '1 millisecond', ?, " +
+                       "'{\"agent\": {\"flavor\": \"gpu\"}}'::jsonb " +
+                       "from generate_series(1, ?) as n", MARKER, queueSize);
+
+            // the only row that can be dispatched, at the very end of the queue
+            tx.execute("insert into PROCESS_QUEUE (INSTANCE_ID, PROCESS_KIND, CREATED_AT, CURRENT_STATUS, LAST_UPDATED_AT, REPO_PATH, REQUIREMENTS) " +
+                       "values (md5(random()::text)::uuid, 'DEFAULT', now(), 'ENQUEUED', now(), ?, '{\"agent\": {\"flavor\": \"default\"}}'::jsonb)", MARKER);
+        });
+    }
+
+    private static class BenchmarkChannel implements MessageChannel {
+
+        @Override
+        public String getChannelId() {
+            return MARKER;
+        }
+
+        @Override
+        public String getAgentId() {
+            return MARKER;
+        }
+
+        @Override
+        public boolean offerMessage(Message msg) {
+            return true;
+        }
+
+        @Override
+        public Optional<Message> getMessage(MessageType messageType) {
+            if (messageType != MessageType.PROCESS_REQUEST) {
+                return Optional.empty();
+            }
+
+            ProcessRequest request = new ProcessRequest(Map.of("flavor", "default"));
+            request.setCorrelationId(System.nanoTime());
+            return Optional.of(request);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.walmartlabs.concord.server.process.queue.dispatcher;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.common.ObjectMapperProvider;
+import com.walmartlabs.concord.process.loader.ImportsNormalizer;
+import com.walmartlabs.concord.server.BenchmarkDatabase;
+import com.walmartlabs.concord.server.ConcordObjectMapper;
+import com.walmartlabs.concord.server.Locks;
+import com.walmartlabs.concord.server.cfg.ProcessQueueConfiguration;
+import com.walmartlabs.concord.server.message.MessageChannel;
+import com.walmartlabs.concord.server.message.MessageChannelManager;
+import com.walmartlabs.concord.server.process.ImportsNormalizerFactory;
+import com.walmartlabs.concord.server.process.SessionTokenCreator;
+import com.walmartlabs.concord.server.process.logs.ProcessLogManager;
+import com.walmartlabs.concord.server.process.queue.ProcessQueueManager;
+import com.walmartlabs.concord.server.queueclient.message.Message;
+import com.walmartlabs.concord.server.queueclient.message.MessageType;
+import com.walmartlabs.concord.server.queueclient.message.ProcessRequest;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.ProcessStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the latency between a process becoming ENQUEUED and the dispatcher
+ * sending it to an agent, with notifications enabled and a very long poll delay.
+ * <p>
+ * Requires a DB instance, see {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DispatcherNotificationBenchmark {
+
+    private static final String MARKER = "dispatcher-notification-benchmark";
+
+    private final LinkedBlockingQueue<Message> responses = new LinkedBlockingQueue<>();
+
+    private BenchmarkDatabase db;
+    private Dispatcher dispatcher;
+    private DispatcherNotifier notifier;
+    private DispatcherNotificationListener listener;
+
+    private ProcessKey processKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.open(3);
+
+        ProcessQueueConfiguration cfg = mock(ProcessQueueConfiguration.class);
+        when(cfg.getDispatcherPollDelay()).thenReturn(Duration.ofHours(1));
+        when(cfg.getDispatcherBatchSize()).thenReturn(10);
+        when(cfg.isDispatcherNotificationsEnabled()).thenReturn(true);
+
+        ImportsNormalizer normalizer = value -> value;
+        ImportsNormalizerFactory importsNormalizerFactory = mock(ImportsNormalizerFactory.class);
+        when(importsNormalizerFactory.forProject(any())).thenReturn(normalizer);
+
+        MessageChannelManager channelManager = new MessageChannelManager();
+        channelManager.add(new BenchmarkChannel(responses));
+
+        MetricRegistry metricRegistry = new MetricRegistry();
+        Dispatcher.DispatcherDao dao = new Dispatcher.DispatcherDao(db.getConfiguration(), new ConcordObjectMapper(new ObjectMapperProvider().get()), metricRegistry);
+        dispatcher = new Dispatcher(mock(Locks.class), dao, channelManager, mock(ProcessLogManager.class),
+                mock(ProcessQueueManager.class), Collections.emptySet(), importsNormalizerFactory, cfg,
+                metricRegistry, mock(SessionTokenCreator.class));
+
+        notifier = new DispatcherNotifier(cfg);
+        listener = new DispatcherNotificationListener(db.getDatabaseConfiguration(), dispatcher, cfg, metricRegistry);
+
+        dispatcher.start();
+        listener.start();
+
+        // give the listener some time to connect
+        Thread.sleep(1000);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        listener.stop();
+        dispatcher.stop();
+
+        db.tx(tx -> tx.execute("delete from PROCESS_QUEUE where REPO_PATH = ?", MARKER));
+        db.close();
+    }
+
+    @Benchmark
+    public Message enqueueAndDispatch() throws Exception {
+        processKey = ProcessKey.random();
+
+        db.tx(tx -> {
+            tx.execute("insert into PROCESS_QUEUE (INSTANCE_ID, PROCESS_KIND, CREATED_AT, CURRENT_STATUS, LAST_UPDATED_AT, REPO_PATH) " +
+                       "values (?, 'DEFAULT', ?, 'ENQUEUED', now(), ?)", processKey.getInstanceId(), processKey.getCreatedAt(), MARKER);
+            notifier.onStatusChange(tx, processKey, ProcessStatus.ENQUEUED);
+        });
+
+        Message response = responses.poll(10, TimeUnit.SECONDS);
+        if (response == null) {
+            throw new IllegalStateException("The process wasn't dispatched in time: " + processKey);
+        }
+        return response;
+    }
+
+    @TearDown(Level.Invocation)
+    public void finishProcess() {
+        // the queue manager is a mock, finish the process manually
+        db.tx(tx -> tx.execute("update PROCESS_QUEUE set CURRENT_STATUS = 'FINISHED' where INSTANCE_ID = ?", processKey.getInstanceId()));
+    }
+
+    private static class BenchmarkChannel implements MessageChannel {
+
+        private final LinkedBlockingQueue<Message> responses;
+
+        private BenchmarkChannel(LinkedBlockingQueue<Message> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public String getChannelId() {
+            return MARKER;
+        }
+
+        @Override
+        public String getAgentId() {
+            return MARKER;
+        }
+
+        @Override
+        public boolean offerMessage(Message msg) {
+            responses.add(msg);
+            return true;
+        }
+
+        @Override
+        public Optional<Message> getMessage(MessageType messageType) {
+            if (messageType != MessageType.PROCESS_REQUEST) {
+                return Optional.empty();
+            }
+
+            ProcessRequest request = new ProcessRequest(Map.of());
+            request.setCorrelationId(System.nanoTime());
+            return Optional.of(request);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
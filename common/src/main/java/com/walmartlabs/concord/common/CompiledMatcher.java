@@ -0,0 +1,266 @@
+package com.walmartlabs.concord.common;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2018 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A conditions tree compiled into an immutable predicate. Produces the same
+ * results as {@link Matcher#matches(Object, Object)}, but analyzes the conditions
+ * only once. String conditions without regex metacharacters are compared
+ * directly, other patterns are compiled on first use and shared via a bounded cache.
+ * <p>
+ * The conditions are copied during the compilation, changes made to the
+ * original conditions afterwards are not visible to the compiled matcher.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class CompiledMatcher {
+
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    public static CompiledMatcher compile(Object conditions) {
+        return new CompiledMatcher(compileNode(conditions));
+    }
+
+    private final Node root;
+
+    private CompiledMatcher(Node root) {
+        this.root = root;
+    }
+
+    public boolean matches(Object data) {
+        return root.test(data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node compileNode(Object conditions) {
+        if (conditions == null) {
+            return Objects::isNull;
+        } else if (conditions instanceof String) {
+            return compileString((String) conditions);
+        } else if (conditions instanceof Map) {
+            return compileObject((Map<Object, Object>) conditions);
+        } else if (conditions instanceof Collection) {
+            return compileArray((Collection<Object>) conditions);
+        } else {
+            return new ValueNode(conditions);
+        }
+    }
+
+    private static Node compileString(String condition) {
+        if (isLiteral(condition)) {
+            return new StringNode(condition) {
+                @Override
+                boolean matches(String value) {
+                    return equalsIgnoreAsciiCase(value, condition);
+                }
+            };
+        }
+
+        return new StringNode(condition) {
+
+            private volatile Pattern pattern;
+
+            @Override
+            boolean matches(String value) {
+                // compiled lazily, just like in Matcher invalid patterns fail only when used
+                Pattern p = pattern;
+                if (p == null) {
+                    p = PatternCache.get(condition);
+                    pattern = p;
+                }
+                return p.matcher(value).matches();
+            }
+        };
+    }
+
+    private static Node compileObject(Map<Object, Object> conditions) {
+        List<Map.Entry<Object, Node>> entries = new ArrayList<>(conditions.size());
+        for (Map.Entry<Object, Object> e : conditions.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), compileNode(e.getValue())));
+        }
+
+        return new Node() {
+            @Override
+            public boolean test(Object data) {
+                if (data instanceof Map<?, ?> m) {
+                    if (entries.isEmpty() && !m.isEmpty()) {
+                        return false;
+                    }
+
+                    for (Map.Entry<Object, Node> e : entries) {
+                        if (!e.getValue().test(m.get(e.getKey()))) {
+                            return false;
+                        }
+                    }
+
+                    return true;
+                } else if (data instanceof Collection<?> c) {
+                    return anyMatch(this, c);
+                }
+
+                return false;
+            }
+        };
+    }
+
+    private static Node compileArray(Collection<Object> conditions) {
+        List<Node> elements = new ArrayList<>(conditions.size());
+        for (Object c : conditions) {
+            elements.add(compileNode(c));
+        }
+
+        return data -> {
+            if (data instanceof Collection<?> c) {
+                if (elements.size() > c.size()) {
+                    return false;
+                }
+
+                if (elements.isEmpty() && !c.isEmpty()) {
+                    return false;
+                }
+
+                for (Node n : elements) {
+                    if (!anyMatch(n, c)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+
+            for (Node n : elements) {
+                if (n.test(data)) {
+                    return true;
+                }
+            }
+
+            return false;
+        };
+    }
+
+    private static boolean anyMatch(Node node, Collection<?> data) {
+        for (Object d : data) {
+            if (node.test(d)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the condition matches only itself (ignoring
+     * the ASCII case), i.e. it is pure ASCII and contains no regex metacharacters.
+     */
+    public static boolean isLiteral(String condition) {
+        for (int i = 0; i < condition.length(); i++) {
+            char c = condition.charAt(i);
+            if (c > 127 || REGEX_METACHARACTERS.indexOf(c) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@code Pattern.compile(Pattern.quote(b), CASE_INSENSITIVE).matcher(a).matches()}
+     * for ASCII {@code b}: only ASCII letters are compared case-insensitively.
+     */
+    private static boolean equalsIgnoreAsciiCase(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < a.length(); i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca == cb) {
+                continue;
+            }
+
+            if (toLowerAscii(ca) != toLowerAscii(cb)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static char toLowerAscii(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c;
+    }
+
+    private interface Node {
+
+        boolean test(Object data);
+    }
+
+    private abstract static class StringNode implements Node {
+
+        protected final String condition;
+
+        private StringNode(String condition) {
+            this.condition = condition;
+        }
+
+        abstract boolean matches(String value);
+
+        @Override
+        public boolean test(Object data) {
+            if (data == null) {
+                return matches("");
+            } else if (data instanceof String s) {
+                return matches(s);
+            } else if (data instanceof UUID) {
+                return matches(data.toString());
+            } else if (data instanceof Collection<?> c) {
+                return anyMatch(this, c);
+            }
+
+            return false;
+        }
+    }
+
+    private static final class ValueNode implements Node {
+
+        private final Object condition;
+
+        private ValueNode(Object condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean test(Object data) {
+            if (data == null) {
+                return false;
+            } else if (data instanceof Collection<?> c) {
+                return anyMatch(this, c);
+            }
+
+            return data.equals(condition);
+        }
+    }
+}
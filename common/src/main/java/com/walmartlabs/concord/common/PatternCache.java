@@ -0,0 +1,60 @@
+package com.walmartlabs.concord.common;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2018 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded cache of case-insensitive patterns used by {@link Matcher}
+ * and {@link CompiledMatcher}.
+ */
+final class PatternCache {
+
+    private static final int MAX_SIZE = 4096;
+
+    private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    /**
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid.
+     */
+    static Pattern get(String regex) {
+        Pattern p = patterns.get(regex);
+        if (p != null) {
+            return p;
+        }
+
+        p = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+
+        // the patterns come from user-defined conditions,
+        // start over rather than grow without limits
+        if (patterns.size() >= MAX_SIZE) {
+            patterns.clear();
+        }
+
+        patterns.put(regex, p);
+        return p;
+    }
+
+    private PatternCache() {
+    }
+}
@@ -0,0 +1,100 @@
+package com.walmartlabs.concord.common;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2018 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledMatcherTest {
+
+    private static final List<Object> VALUES = asList(
+            null, "", "abc", "ABC", "aBc", "a.c", "a-c", "abcd", "Kbc", "kbc",
+            "a.*", ".*", "[ab]+c", "ab|xy", "1", 1, 2, true, false,
+            UUID.fromString("8e9d1b26-eb23-465b-9862-e64037e4d2e9"), "8E9D1B26-EB23-465B-9862-E64037E4D2E9");
+
+    @Test
+    public void testLiterals() {
+        assertTrue(CompiledMatcher.isLiteral("push"));
+        assertTrue(CompiledMatcher.isLiteral("refs/heads/master"));
+        assertTrue(CompiledMatcher.isLiteral(""));
+        assertFalse(CompiledMatcher.isLiteral("refs/heads/.*"));
+        assertFalse(CompiledMatcher.isLiteral("a|b"));
+        assertFalse(CompiledMatcher.isLiteral("café"));
+
+        assertTrue(CompiledMatcher.compile("Push").matches("pUSH"));
+        assertFalse(CompiledMatcher.compile("kbc").matches("Kbc"));
+        assertTrue(CompiledMatcher.compile("").matches(null));
+    }
+
+    @Test
+    public void testInvalidPatternFailsOnlyWhenUsed() {
+        Map<String, Object> conditions = new LinkedHashMap<>();
+        conditions.put("a", "x");
+        conditions.put("b", "(");
+
+        CompiledMatcher m = CompiledMatcher.compile(conditions);
+        assertFalse(m.matches(Collections.singletonMap("a", "y")));
+        assertThrows(RuntimeException.class, () -> m.matches(Collections.singletonMap("a", "x")));
+    }
+
+    @Test
+    public void testSameResultsAsMatcher() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            Object conditions = randomNode(rnd, 3);
+            CompiledMatcher compiled = CompiledMatcher.compile(conditions);
+
+            for (int j = 0; j < 10; j++) {
+                Object data = randomNode(rnd, 3);
+                assertEquals(Matcher.matches(data, conditions), compiled.matches(data),
+                        () -> "data: " + data + ", conditions: " + conditions);
+            }
+        }
+    }
+
+    private static Object randomNode(Random rnd, int depth) {
+        int kind = depth > 0 ? rnd.nextInt(4) : 0;
+        switch (kind) {
+            case 1: {
+                Map<String, Object> m = new HashMap<>();
+                int size = rnd.nextInt(3);
+                for (int i = 0; i < size; i++) {
+                    m.put("k" + rnd.nextInt(3), randomNode(rnd, depth - 1));
+                }
+                return m;
+            }
+            case 2: {
+                List<Object> l = new ArrayList<>();
+                int size = rnd.nextInt(4);
+                for (int i = 0; i < size; i++) {
+                    l.add(randomNode(rnd, depth - 1));
+                }
+                return l;
+            }
+            default:
+                return VALUES.get(rnd.nextInt(VALUES.size()));
+        }
+    }
+}
@@ -20,6 +20,7 @@ package com.walmartlabs.concord.dependencymanager;
  * =====
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.walmartlabs.concord.common.ExceptionUtils;
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
@@ -62,6 +63,7 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
@@ -75,15 +77,19 @@ public class DependencyManager {
     private static final long RETRY_INTERVAL = 5000;
 
     private static final String FILES_CACHE_DIR = "files";
+    private static final ObjectMapper GRAPH_KEY_MAPPER = new ObjectMapper();
     public static final String MAVEN_SCHEME = "mvn";
     private static final String LATEST = "LATEST";
+    private static final String RELEASE = "RELEASE";
 
     private final Path cacheDir;
     private final Path localCacheDir;
+    private final List<MavenRepository> repositoryConfigs;
     private final List<RemoteRepository> repositories;
     private final Object mutex = new Object();
     private final RepositorySystem maven;
     private final boolean strictRepositories;
+    private final ResolvedGraphCache graphCache;
 
     private final List<String> defaultExclusions;
 
@@ -99,12 +105,14 @@ public class DependencyManager {
         this.localCacheDir = resolveLocalCacheDir();
 
         log.info("init -> using repositories: {}", cfg.repositories());
+        this.repositoryConfigs = cfg.repositories();
         this.repositories = toRemote(cfg.repositories());
         this.maven = RepositorySystemFactory.create();
         this.strictRepositories = cfg.strictRepositories();
         this.defaultExclusions = cfg.exclusions();
         this.explicitlyResolveV1Client = cfg.explicitlyResolveV1Client();
         this.offlineMode = cfg.offlineMode();
+        this.graphCache = cfg.graphCacheEnabled() ? new ResolvedGraphCache(cacheDir, cfg.graphCacheVolatileTtl()) : null;
     }
 
     @VisibleForTesting
@@ -155,9 +163,7 @@ public class DependencyManager {
 
         result.addAll(resolveDirectLinks(deps.directLinks));
 
-        result.addAll(resolveMavenTransitiveDependencies(deps.mavenTransitiveDependencies, deps.mavenExclusions, progressNotifier).stream()
-                .map(DependencyManager::toDependency)
-                .toList());
+        result.addAll(resolveMavenTransitiveDependencies(deps.mavenTransitiveDependencies, deps.mavenExclusions, progressNotifier));
 
         result.addAll(resolveMavenSingleDependencies(deps.mavenSingleDependencies, progressNotifier).stream()
                 .map(DependencyManager::toDependency)
@@ -298,10 +304,30 @@ public class DependencyManager {
         return paths;
     }
 
-    private Collection<Artifact> resolveMavenTransitiveDependencies(Collection<MavenDependency> deps, List<String> exclusions, ProgressNotifier progressNotifier) throws IOException {
-        // TODO: why we need new RepositorySystem?
-        RepositorySystem system = RepositorySystemFactory.create();
-        RepositorySystemSession session = getRepositorySession(deps, system, progressNotifier);
+    private Collection<DependencyEntity> resolveMavenTransitiveDependencies(Collection<MavenDependency> deps, List<String> exclusions, ProgressNotifier progressNotifier) throws IOException {
+        if (deps.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> excludes = new ArrayList<>(exclusions);
+        excludes.addAll(defaultExclusions);
+
+        if (graphCache == null) {
+            return collectMavenTransitiveDependencies(deps, excludes, progressNotifier);
+        }
+
+        try {
+            return graphCache.get(graphKey(deps, excludes), isVolatile(deps),
+                    () -> collectMavenTransitiveDependencies(deps, excludes, progressNotifier));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Collection<DependencyEntity> collectMavenTransitiveDependencies(Collection<MavenDependency> deps, List<String> excludes, ProgressNotifier progressNotifier) throws IOException {
+        RepositorySystemSession session = getRepositorySession(deps, maven, progressNotifier);
 
         CollectRequest req = new CollectRequest();
         req.setDependencies(deps.stream()
@@ -309,26 +335,55 @@ public class DependencyManager {
                 .collect(Collectors.toList()));
         req.setRepositories(repositories);
 
-        List<String> excludes = new ArrayList<>(exclusions);
-        excludes.addAll(defaultExclusions);
-
         DependencyRequest dependencyRequest = new DependencyRequest(req, new ExclusionsDependencyFilter(excludes));
         if (explicitlyResolveV1Client) {
             dependencyRequest.getCollectRequest().addManagedDependency(new Dependency(ClientDepSelector.CLIENT1_ARTIFACT, ""));
         }
 
-        synchronized (mutex) {
-            try {
-                return system.resolveDependencies(session, dependencyRequest)
-                        .getArtifactResults().stream()
-                        .map(ArtifactResult::getArtifact)
-                        .collect(Collectors.toSet());
-            } catch (DependencyResolutionException e) {
-                throw new IOException(e);
-            }
+        // no global lock here: the resolver handles concurrent access to the local repository,
+        // concurrent resolutions of the same graph are serialized by the graph cache
+        try {
+            return maven.resolveDependencies(session, dependencyRequest)
+                    .getArtifactResults().stream()
+                    .map(ArtifactResult::getArtifact)
+                    .map(DependencyManager::toDependency)
+                    .collect(Collectors.toSet());
+        } catch (DependencyResolutionException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return a stable key of the dependency graph: the dependencies, exclusions
+     * and everything in the configuration that affects the resolution.
+     */
+    private String graphKey(Collection<MavenDependency> deps, List<String> excludes) throws IOException {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("dependencies", deps.stream()
+                .map(d -> d.artifact + "@" + d.scope)
+                .sorted()
+                .toList());
+        m.put("exclusions", excludes.stream().sorted().distinct().toList());
+        m.put("repositories", repositoryConfigs);
+        m.put("strictRepositories", strictRepositories);
+        m.put("explicitlyResolveV1Client", explicitlyResolveV1Client);
+        m.put("localCacheDir", localCacheDir.toString());
+        m.put("offlineMode", offlineMode);
+
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return DatatypeConverter.printHexBinary(md.digest(GRAPH_KEY_MAPPER.writeValueAsBytes(m))).toLowerCase();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
         }
     }
 
+    private static boolean isVolatile(Collection<MavenDependency> deps) {
+        return deps.stream()
+                .map(d -> d.artifact.getVersion())
+                .anyMatch(v -> v.equals(LATEST) || v.equals(RELEASE) || v.endsWith("SNAPSHOT") || v.startsWith("[") || v.startsWith("("));
+    }
+
     private DefaultRepositorySystemSession newRepositorySystemSession(RepositorySystem system, ProgressNotifier progressNotifier) {
         return newRepositorySystemSession(system, progressNotifier, false);
     }
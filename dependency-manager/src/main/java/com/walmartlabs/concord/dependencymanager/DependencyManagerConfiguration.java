@@ -23,6 +23,7 @@ package com.walmartlabs.concord.dependencymanager;
 import org.immutables.value.Value;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -70,6 +71,23 @@ public interface DependencyManagerConfiguration {
         return false;
     }
 
+    /**
+     * Enable/disable caching of resolved transitive dependency graphs.
+     */
+    @Value.Default
+    default boolean graphCacheEnabled() {
+        return true;
+    }
+
+    /**
+     * How long resolved graphs with SNAPSHOT, LATEST, RELEASE or version range
+     * dependencies can be reused. Zero disables caching of such graphs.
+     */
+    @Value.Default
+    default Duration graphCacheVolatileTtl() {
+        return Duration.ZERO;
+    }
+
     static ImmutableDependencyManagerConfiguration.Builder builder() {
         return ImmutableDependencyManagerConfiguration.builder();
     }
@@ -0,0 +1,205 @@
+package com.walmartlabs.concord.dependencymanager;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches results of transitive dependency resolution in memory and in
+ * {@code ${cacheDir}/graphs}, so repeated resolutions of the same set of
+ * dependencies don't go through the dependency collection step again.
+ * <p>
+ * Graphs of "volatile" dependencies (SNAPSHOT, LATEST, RELEASE or version ranges)
+ * expire after {@link DependencyManagerConfiguration#graphCacheVolatileTtl()}.
+ * Other graphs are reused for as long as all of their files exist.
+ * <p>
+ * The number of graphs kept in memory is bounded, evicted graphs are
+ * loaded from disk on the next access.
+ */
+class ResolvedGraphCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResolvedGraphCache.class);
+
+    private static final String GRAPHS_CACHE_DIR = "graphs";
+    private static final int DEFAULT_MAX_GRAPHS = 1000;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path dir;
+    private final long volatileTtl;
+    private final int maxGraphs;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentMap<String, Graph> graphs = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    ResolvedGraphCache(Path cacheDir, Duration volatileTtl) throws IOException {
+        this(cacheDir, volatileTtl, DEFAULT_MAX_GRAPHS);
+    }
+
+    ResolvedGraphCache(Path cacheDir, Duration volatileTtl, int maxGraphs) throws IOException {
+        this.dir = cacheDir.resolve(GRAPHS_CACHE_DIR);
+        if (!Files.exists(dir)) {
+            Files.createDirectories(dir);
+        }
+        this.volatileTtl = volatileTtl.toMillis();
+        this.maxGraphs = maxGraphs;
+
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the cached graph or resolves it using the supplied function.
+     * Concurrent calls with the same key wait for each other, calls with
+     * different keys mostly run in parallel (the keys share a fixed number of locks).
+     */
+    Collection<DependencyEntity> get(String key, boolean isVolatile, Callable<Collection<DependencyEntity>> resolver) throws Exception {
+        if (isVolatile && volatileTtl <= 0) {
+            return resolver.call();
+        }
+
+        Collection<DependencyEntity> result = get(key);
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (locks[Math.floorMod(key.hashCode(), locks.length)]) {
+            result = get(key);
+            if (result != null) {
+                return result;
+            }
+
+            result = resolver.call();
+            put(key, isVolatile, result);
+            return result;
+        }
+    }
+
+    private Collection<DependencyEntity> get(String key) {
+        Graph g = graphs.get(key);
+        if (g == null) {
+            g = load(key);
+            if (g == null) {
+                return null;
+            }
+            cache(key, g);
+        }
+
+        if (g.isExpired(volatileTtl) || !g.isValid()) {
+            graphs.remove(key, g);
+            delete(key);
+            return null;
+        }
+
+        return g.toEntities();
+    }
+
+    private void put(String key, boolean isVolatile, Collection<DependencyEntity> entities) {
+        List<Item> items = entities.stream()
+                .map(e -> new Item(e.getArtifact().getGroupId(), e.getArtifact().getArtifactId(), e.getArtifact().getVersion(), e.getPath().toString()))
+                .toList();
+
+        Graph g = new Graph(System.currentTimeMillis(), isVolatile, items);
+        cache(key, g);
+
+        Path dst = dir.resolve(key + ".json");
+        Path tmp = dir.resolve(key + ".json.tmp");
+        try {
+            objectMapper.writeValue(tmp.toFile(), g);
+            Files.move(tmp, dst, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("put ['{}'] -> can't save the graph: {}", key, e.getMessage());
+        }
+    }
+
+    int cachedGraphs() {
+        return graphs.size();
+    }
+
+    private void cache(String key, Graph g) {
+        if (graphs.size() >= maxGraphs) {
+            // remove ~10% of the graphs to avoid evicting on each put
+            int n = Math.max(1, maxGraphs / 10);
+            Iterator<String> it = graphs.keySet().iterator();
+            while (n-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        graphs.put(key, g);
+    }
+
+    private Graph load(String key) {
+        Path src = dir.resolve(key + ".json");
+        if (!Files.exists(src)) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(src.toFile(), Graph.class);
+        } catch (IOException e) {
+            log.warn("load ['{}'] -> invalid cache entry, ignoring: {}", key, e.getMessage());
+            delete(key);
+            return null;
+        }
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(dir.resolve(key + ".json"));
+        } catch (IOException e) {
+            log.warn("delete ['{}'] -> error: {}", key, e.getMessage());
+        }
+    }
+
+    record Item(String groupId, String artifactId, String version, String path) {
+    }
+
+    record Graph(long createdAt, boolean volatileVersions, List<Item> items) {
+
+        boolean isExpired(long volatileTtl) {
+            return volatileVersions && System.currentTimeMillis() - createdAt > volatileTtl;
+        }
+
+        boolean isValid() {
+            return items.stream().allMatch(i -> Files.exists(Paths.get(i.path())));
+        }
+
+        List<DependencyEntity> toEntities() {
+            return items.stream()
+                    .map(i -> new DependencyEntity(Paths.get(i.path()), i.groupId(), i.artifactId(), i.version()))
+                    .toList();
+        }
+    }
+}
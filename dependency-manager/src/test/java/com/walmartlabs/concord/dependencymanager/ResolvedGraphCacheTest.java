@@ -0,0 +1,113 @@
+package com.walmartlabs.concord.dependencymanager;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResolvedGraphCacheTest {
+
+    @Test
+    public void testReuse(@TempDir Path tmpDir) throws Exception {
+        Path jar = Files.createFile(tmpDir.resolve("a.jar"));
+        AtomicInteger calls = new AtomicInteger();
+
+        ResolvedGraphCache cache = new ResolvedGraphCache(tmpDir, Duration.ZERO);
+        Collection<DependencyEntity> a = cache.get("key", false, () -> resolve(calls, jar));
+        Collection<DependencyEntity> b = cache.get("key", false, () -> resolve(calls, jar));
+
+        assertEquals(1, calls.get());
+        assertEquals(a, b);
+
+        // persisted across instances
+        ResolvedGraphCache cache2 = new ResolvedGraphCache(tmpDir, Duration.ZERO);
+        Collection<DependencyEntity> c = cache2.get("key", false, () -> resolve(calls, jar));
+
+        assertEquals(1, calls.get());
+        assertEquals(a, List.copyOf(c));
+        assertEquals("1.0", c.iterator().next().getArtifact().getVersion());
+    }
+
+    @Test
+    public void testMissingFiles(@TempDir Path tmpDir) throws Exception {
+        Path jar = Files.createFile(tmpDir.resolve("a.jar"));
+        AtomicInteger calls = new AtomicInteger();
+
+        ResolvedGraphCache cache = new ResolvedGraphCache(tmpDir, Duration.ZERO);
+        cache.get("key", false, () -> resolve(calls, jar));
+
+        Files.delete(jar);
+
+        cache.get("key", false, () -> resolve(calls, jar));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testVolatile(@TempDir Path tmpDir) throws Exception {
+        Path jar = Files.createFile(tmpDir.resolve("a.jar"));
+        AtomicInteger calls = new AtomicInteger();
+
+        ResolvedGraphCache noTtl = new ResolvedGraphCache(tmpDir, Duration.ZERO);
+        noTtl.get("key", true, () -> resolve(calls, jar));
+        noTtl.get("key", true, () -> resolve(calls, jar));
+        assertEquals(2, calls.get());
+
+        ResolvedGraphCache withTtl = new ResolvedGraphCache(tmpDir, Duration.ofHours(1));
+        withTtl.get("key", true, () -> resolve(calls, jar));
+        withTtl.get("key", true, () -> resolve(calls, jar));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testBounded(@TempDir Path tmpDir) throws Exception {
+        Path jar = Files.createFile(tmpDir.resolve("a.jar"));
+        AtomicInteger calls = new AtomicInteger();
+
+        ResolvedGraphCache cache = new ResolvedGraphCache(tmpDir, Duration.ZERO, 10);
+        for (int i = 0; i < 100; i++) {
+            cache.get("key" + i, false, () -> resolve(calls, jar));
+        }
+        assertEquals(100, calls.get());
+        assertTrue(cache.cachedGraphs() <= 10);
+
+        // evicted graphs are loaded from disk
+        for (int i = 0; i < 100; i++) {
+            cache.get("key" + i, false, () -> resolve(calls, jar));
+        }
+        assertEquals(100, calls.get());
+        assertTrue(cache.cachedGraphs() <= 10);
+    }
+
+    private static List<DependencyEntity> resolve(AtomicInteger calls, Path jar) {
+        calls.incrementAndGet();
+        return List.of(new DependencyEntity(jar, "com.example", "a", "1.0"));
+    }
+}
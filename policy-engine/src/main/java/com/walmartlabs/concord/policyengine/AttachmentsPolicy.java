@@ -40,23 +40,32 @@ public class AttachmentsPolicy {
     }
 
     public CheckResult<AttachmentsRule, Long> check(Path p) throws IOException {
-        if (rule == null || !Files.exists(p) || !Files.isDirectory(p)) {
+        return check(p, 0);
+    }
+
+    /**
+     * @param storedSize the size of the previously uploaded attachments that are kept as is
+     */
+    public CheckResult<AttachmentsRule, Long> check(Path p, long storedSize) throws IOException {
+        if (rule == null) {
             return CheckResult.success();
         }
 
         List<CheckResult.Item<AttachmentsRule, Long>> deny = new ArrayList<>();
 
-        Long[] size = { 0L };
+        Long[] size = { storedSize };
 
-        Files.walkFileTree(p, new SimpleFileVisitor<Path>() {
+        if (Files.exists(p) && Files.isDirectory(p)) {
+            Files.walkFileTree(p, new SimpleFileVisitor<Path>() {
 
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                size[0] += Files.size(file);
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    size[0] += Files.size(file);
 
-                return FileVisitResult.CONTINUE;
-            }
-        });
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
 
         if (size[0] > Objects.requireNonNull(rule.maxSizeInBytes())) {
             deny.add(new CheckResult.Item<>(rule, size[0], null));
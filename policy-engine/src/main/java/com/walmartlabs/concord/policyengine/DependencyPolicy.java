@@ -20,6 +20,7 @@ package com.walmartlabs.concord.policyengine;
  * =====
  */
 
+import com.walmartlabs.concord.common.CompiledMatcher;
 import com.walmartlabs.concord.dependencymanager.DependencyEntity;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 
@@ -28,14 +29,22 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-import static com.walmartlabs.concord.policyengine.Utils.matches;
+import static com.walmartlabs.concord.policyengine.Utils.compile;
 
 public class DependencyPolicy {
 
     private final PolicyRules<DependencyRule> rules;
 
+    private final List<CompiledRule> allowRules;
+    private final List<CompiledRule> denyRules;
+    private final List<CompiledRule> warnRules;
+
     public DependencyPolicy(PolicyRules<DependencyRule> rules) {
         this.rules = rules;
+
+        this.allowRules = compileRules(rules != null ? rules.getAllow() : List.of());
+        this.denyRules = compileRules(rules != null ? rules.getDeny() : List.of());
+        this.warnRules = compileRules(rules != null ? rules.getWarn() : List.of());
     }
 
     public CheckResult<DependencyRule, DependencyEntity> check(Collection<DependencyEntity> dependencies) {
@@ -57,71 +66,90 @@ public class DependencyPolicy {
                        List<CheckResult.Item<DependencyRule, DependencyEntity>> warn,
                        List<CheckResult.Item<DependencyRule, DependencyEntity>> deny) {
 
-        for (DependencyRule r : rules.getAllow()) {
-            if (matchRule(r, d)) {
+        for (CompiledRule r : allowRules) {
+            if (r.matches(d)) {
                 return;
             }
         }
 
-        for (DependencyRule r : rules.getDeny()) {
-            if (matchRule(r, d)) {
-                deny.add(new CheckResult.Item<>(r, d));
+        for (CompiledRule r : denyRules) {
+            if (r.matches(d)) {
+                deny.add(new CheckResult.Item<>(r.rule, d));
                 return;
             }
         }
 
-        for (DependencyRule r : rules.getWarn()) {
-            if (matchRule(r, d)) {
-                warn.add(new CheckResult.Item<>(r, d));
+        for (CompiledRule r : warnRules) {
+            if (r.matches(d)) {
+                warn.add(new CheckResult.Item<>(r.rule, d));
                 return;
             }
         }
     }
 
-    private static boolean matchRule(DependencyRule r, DependencyEntity d) {
-        if (d.getArtifact() != null) {
-            return matchRule(r, d.getArtifact());
-        } else {
-            return matchRule(r, d.getDirectLink());
-        }
+    private static List<CompiledRule> compileRules(List<DependencyRule> rules) {
+        return rules.stream().map(CompiledRule::new).toList();
     }
 
-    private static boolean matchRule(DependencyRule r, DependencyEntity.Artifact a) {
-        if (r.scheme() != null && !matches(r.scheme(), "mvn")) {
-            return false;
-        }
+    private static int compareVersions(String a, String b) {
+        ComparableVersion v1 = new ComparableVersion(a);
+        ComparableVersion v2 = new ComparableVersion(b);
+        return v1.compareTo(v2);
+    }
 
-        if (r.groupId() != null && !matches(r.groupId(), a.getGroupId())) {
-            return false;
-        }
+    private static final class CompiledRule {
 
-        if (r.artifactId() != null && !matches(r.artifactId(), a.getArtifactId())) {
-            return false;
-        }
+        private final DependencyRule rule;
+        private final CompiledMatcher scheme;
+        private final CompiledMatcher groupId;
+        private final CompiledMatcher artifactId;
 
-        if (r.fromVersion() != null && compareVersions(r.fromVersion(), a.getVersion()) > 0) {
-            return false;
+        private CompiledRule(DependencyRule rule) {
+            this.rule = rule;
+            this.scheme = compile(rule.scheme());
+            this.groupId = compile(rule.groupId());
+            this.artifactId = compile(rule.artifactId());
         }
 
-        if (r.toVersion() != null && compareVersions(r.toVersion(), a.getVersion()) < 0) {
-            return false;
+        private boolean matches(DependencyEntity d) {
+            if (d.getArtifact() != null) {
+                return matches(d.getArtifact());
+            } else {
+                return matches(d.getDirectLink());
+            }
         }
 
-        return true;
-    }
+        private boolean matches(DependencyEntity.Artifact a) {
+            if (scheme != null && !scheme.matches("mvn")) {
+                return false;
+            }
+
+            if (groupId != null && !groupId.matches(a.getGroupId())) {
+                return false;
+            }
+
+            if (artifactId != null && !artifactId.matches(a.getArtifactId())) {
+                return false;
+            }
+
+            if (rule.fromVersion() != null && compareVersions(rule.fromVersion(), a.getVersion()) > 0) {
+                return false;
+            }
+
+            if (rule.toVersion() != null && compareVersions(rule.toVersion(), a.getVersion()) < 0) {
+                return false;
+            }
 
-    private static boolean matchRule(DependencyRule r, URI directLink) {
-        if (r.scheme() != null && matches(r.scheme(), directLink.getScheme())) {
             return true;
         }
 
-        return false;
-    }
+        private boolean matches(URI directLink) {
+            if (scheme != null && scheme.matches(directLink.getScheme())) {
+                return true;
+            }
 
-    private static int compareVersions(String a, String b) {
-        ComparableVersion v1 = new ComparableVersion(a);
-        ComparableVersion v2 = new ComparableVersion(b);
-        return v1.compareTo(v2);
+            return false;
+        }
     }
 
 }
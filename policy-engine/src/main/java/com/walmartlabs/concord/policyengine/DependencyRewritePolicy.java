@@ -20,6 +20,7 @@ package com.walmartlabs.concord.policyengine;
  * =====
  */
 
+import com.walmartlabs.concord.common.CompiledMatcher;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
@@ -30,14 +31,14 @@ import java.util.Collection;
 import java.util.List;
 
 import static com.walmartlabs.concord.dependencymanager.DependencyManager.MAVEN_SCHEME;
-import static com.walmartlabs.concord.policyengine.Utils.matches;
+import static com.walmartlabs.concord.policyengine.Utils.compile;
 
 public class DependencyRewritePolicy {
 
-    private final List<DependencyRewriteRule> rules;
+    private final List<CompiledRule> rules;
 
     public DependencyRewritePolicy(List<DependencyRewriteRule> rules) {
-        this.rules = rules;
+        this.rules = rules != null ? rules.stream().map(CompiledRule::new).toList() : null;
     }
 
     public Collection<URI> rewrite(Collection<URI> dependencies, RewriteListener listener) {
@@ -60,8 +61,9 @@ public class DependencyRewritePolicy {
 
         List<URI> result = new ArrayList<>();
         Artifact artifact = new DefaultArtifact(value.getAuthority());
-        for (DependencyRewriteRule rule : rules) {
-            if (match(rule, artifact)) {
+        for (CompiledRule r : rules) {
+            DependencyRewriteRule rule = r.rule;
+            if (r.matches(artifact)) {
                 if (rule.value() != null) {
                     listener.onRewrite(rule.msg(), value, rule.value());
                     result.add(rule.value());
@@ -77,30 +79,43 @@ public class DependencyRewritePolicy {
         return result.isEmpty() ? List.of(value) : result;
     }
 
-    private static boolean match(DependencyRewriteRule r, Artifact a) {
-        if (r.groupId() != null && !matches(r.groupId(), a.getGroupId())) {
-            return false;
-        }
+    private static int compareVersions(String a, String b) {
+        ComparableVersion v1 = new ComparableVersion(a);
+        ComparableVersion v2 = new ComparableVersion(b);
+        return v1.compareTo(v2);
+    }
 
-        if (r.artifactId() != null && !matches(r.artifactId(), a.getArtifactId())) {
-            return false;
-        }
+    private static final class CompiledRule {
 
-        if (r.fromVersion() != null && compareVersions(r.fromVersion(), a.getVersion()) > 0) {
-            return false;
-        }
+        private final DependencyRewriteRule rule;
+        private final CompiledMatcher groupId;
+        private final CompiledMatcher artifactId;
 
-        if (r.toVersion() != null && compareVersions(r.toVersion(), a.getVersion()) < 0) {
-            return false;
+        private CompiledRule(DependencyRewriteRule rule) {
+            this.rule = rule;
+            this.groupId = compile(rule.groupId());
+            this.artifactId = compile(rule.artifactId());
         }
 
-        return true;
-    }
+        private boolean matches(Artifact a) {
+            if (groupId != null && !groupId.matches(a.getGroupId())) {
+                return false;
+            }
 
-    private static int compareVersions(String a, String b) {
-        ComparableVersion v1 = new ComparableVersion(a);
-        ComparableVersion v2 = new ComparableVersion(b);
-        return v1.compareTo(v2);
+            if (artifactId != null && !artifactId.matches(a.getArtifactId())) {
+                return false;
+            }
+
+            if (rule.fromVersion() != null && compareVersions(rule.fromVersion(), a.getVersion()) > 0) {
+                return false;
+            }
+
+            if (rule.toVersion() != null && compareVersions(rule.toVersion(), a.getVersion()) < 0) {
+                return false;
+            }
+
+            return true;
+        }
     }
 
     public interface RewriteListener {
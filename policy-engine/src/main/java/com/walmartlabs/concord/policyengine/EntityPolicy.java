@@ -20,19 +20,29 @@ package com.walmartlabs.concord.policyengine;
  * =====
  */
 
+import com.walmartlabs.concord.common.CompiledMatcher;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
-import static com.walmartlabs.concord.policyengine.Utils.matches;
+import static com.walmartlabs.concord.policyengine.Utils.compile;
 
 public class EntityPolicy {
 
     private final PolicyRules<EntityRule> rules;
 
+    private final List<CompiledRule> allowRules;
+    private final List<CompiledRule> denyRules;
+    private final List<CompiledRule> warnRules;
+
     public EntityPolicy(PolicyRules<EntityRule> rules) {
         this.rules = rules;
+
+        this.allowRules = compileRules(rules != null ? rules.getAllow() : List.of());
+        this.denyRules = compileRules(rules != null ? rules.getDeny() : List.of());
+        this.warnRules = compileRules(rules != null ? rules.getWarn() : List.of());
     }
 
     public CheckResult<EntityRule, Map<String, Object>> check(String entity, String action, Supplier<Map<String, Object>> attrs) {
@@ -52,40 +62,59 @@ public class EntityPolicy {
                        List<CheckResult.Item<EntityRule, Map<String, Object>>> warn,
                        List<CheckResult.Item<EntityRule, Map<String, Object>>> deny) {
 
-        for (EntityRule r : rules.getAllow()) {
-            if (matchRule(r, entity, action, attrs)) {
+        for (CompiledRule r : allowRules) {
+            if (r.matches(entity, action, attrs)) {
                 return;
             }
         }
 
-        for (EntityRule r : rules.getDeny()) {
-            if (matchRule(r, entity, action, attrs)) {
-                deny.add(new CheckResult.Item<>(r, attrs));
+        for (CompiledRule r : denyRules) {
+            if (r.matches(entity, action, attrs)) {
+                deny.add(new CheckResult.Item<>(r.rule, attrs));
                 return;
             }
         }
 
-        for (EntityRule r : rules.getWarn()) {
-            if (matchRule(r, entity, action, attrs)) {
-                warn.add(new CheckResult.Item<>(r, attrs));
+        for (CompiledRule r : warnRules) {
+            if (r.matches(entity, action, attrs)) {
+                warn.add(new CheckResult.Item<>(r.rule, attrs));
                 return;
             }
         }
     }
 
-    private boolean matchRule(EntityRule r, String entity, String action, Map<String, Object> attrs) {
-        if (r.entity() != null && !matches(r.entity(), entity)) {
-            return false;
-        }
+    private static List<CompiledRule> compileRules(List<EntityRule> rules) {
+        return rules.stream().map(CompiledRule::new).toList();
+    }
 
-        if (r.action() != null && !matches(r.action(), action)) {
-            return false;
-        }
+    private static final class CompiledRule {
+
+        private final EntityRule rule;
+        private final CompiledMatcher entity;
+        private final CompiledMatcher action;
+        private final CompiledMatcher conditions;
 
-        if (r.conditions() != null && !matches(r.conditions(), attrs)) {
-            return false;
+        private CompiledRule(EntityRule rule) {
+            this.rule = rule;
+            this.entity = compile(rule.entity());
+            this.action = compile(rule.action());
+            this.conditions = compile(rule.conditions());
         }
 
-        return true;
+        private boolean matches(String entity, String action, Map<String, Object> attrs) {
+            if (this.entity != null && !this.entity.matches(entity)) {
+                return false;
+            }
+
+            if (this.action != null && !this.action.matches(action)) {
+                return false;
+            }
+
+            if (this.conditions != null && !this.conditions.matches(attrs)) {
+                return false;
+            }
+
+            return true;
+        }
     }
 }
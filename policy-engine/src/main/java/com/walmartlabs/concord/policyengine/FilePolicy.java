@@ -20,6 +20,8 @@ package com.walmartlabs.concord.policyengine;
  * =====
  */
 
+import com.walmartlabs.concord.common.CompiledMatcher;
+
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -29,14 +31,22 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.walmartlabs.concord.policyengine.Utils.matchAny;
+import static com.walmartlabs.concord.policyengine.Utils.compile;
 
 public class FilePolicy {
 
     private final PolicyRules<FileRule> rules;
 
+    private final List<CompiledRule> allowRules;
+    private final List<CompiledRule> denyRules;
+    private final List<CompiledRule> warnRules;
+
     public FilePolicy(PolicyRules<FileRule> rules) {
         this.rules = rules;
+
+        this.allowRules = compileRules(rules != null ? rules.getAllow() : List.of());
+        this.denyRules = compileRules(rules != null ? rules.getDeny() : List.of());
+        this.warnRules = compileRules(rules != null ? rules.getWarn() : List.of());
     }
 
     public CheckResult<FileRule, Path> check(Path p) throws IOException {
@@ -51,7 +61,7 @@ public class FilePolicy {
 
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                for(FileRule r : rules.getAllow()) {
+                for(CompiledRule r : allowRules) {
                     if (matchRule(dir, r, FileRule.Type.DIR)) {
                         return FileVisitResult.SKIP_SUBTREE;
                     }
@@ -62,22 +72,22 @@ public class FilePolicy {
 
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                for(FileRule r : rules.getAllow()) {
+                for(CompiledRule r : allowRules) {
                     if (matchRule(file, r, FileRule.Type.FILE)) {
                         return FileVisitResult.CONTINUE;
                     }
                 }
 
-                for(FileRule r : rules.getDeny()) {
+                for(CompiledRule r : denyRules) {
                     if (matchRule(file, r, FileRule.Type.FILE)) {
-                        deny.add(new CheckResult.Item<>(r, file));
+                        deny.add(new CheckResult.Item<>(r.rule, file));
                         return FileVisitResult.CONTINUE;
                     }
                 }
 
-                for(FileRule r : rules.getWarn()) {
+                for(CompiledRule r : warnRules) {
                     if (matchRule(file, r, FileRule.Type.FILE)) {
-                        warn.add(new CheckResult.Item<>(r, file));
+                        warn.add(new CheckResult.Item<>(r.rule, file));
                         return FileVisitResult.CONTINUE;
                     }
                 }
@@ -89,12 +99,13 @@ public class FilePolicy {
         return new CheckResult<>(warn, deny);
     }
 
-    private boolean matchRule(Path file, FileRule ri, FileRule.Type type) throws IOException {
+    private boolean matchRule(Path file, CompiledRule r, FileRule.Type type) throws IOException {
+        FileRule ri = r.rule;
         if (ri.getType() != type) {
             return false;
         }
 
-        if (!ri.getNames().isEmpty() && !matchAny(ri.getNames(), file.getFileName().toString())) {
+        if (r.names != null && !r.names.matches(file.getFileName().toString())) {
             return false;
         }
 
@@ -104,4 +115,19 @@ public class FilePolicy {
 
         return true;
     }
+
+    private static List<CompiledRule> compileRules(List<FileRule> rules) {
+        return rules.stream().map(CompiledRule::new).toList();
+    }
+
+    private static final class CompiledRule {
+
+        private final FileRule rule;
+        private final CompiledMatcher names;
+
+        private CompiledRule(FileRule rule) {
+            this.rule = rule;
+            this.names = rule.getNames().isEmpty() ? null : compile(rule.getNames());
+        }
+    }
 }
@@ -20,6 +20,8 @@ package com.walmartlabs.concord.policyengine;
  * =====
  */
 
+import com.walmartlabs.concord.common.CompiledMatcher;
+
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
@@ -52,8 +54,14 @@ public class StatePolicy {
 
     private final PolicyRules<StateRule> rules;
 
+    private final List<PatternRule> warnPatternRules;
+    private final List<PatternRule> denyPatternRules;
+
     public StatePolicy(PolicyRules<StateRule> rules) {
         this.rules = rules;
+
+        this.warnPatternRules = compilePatterns(rules != null ? rules.getWarn() : List.of());
+        this.denyPatternRules = compilePatterns(rules != null ? rules.getDeny() : List.of());
     }
 
     public CheckResult<StateRule, StateStats> check(Supplier<StateStats> statsSupplier) {
@@ -87,9 +95,7 @@ public class StatePolicy {
             return CheckResult.success();
         }
 
-        List<StateRule> warnRules = rules.getWarn().stream().filter(r -> !r.patterns().isEmpty()).collect(Collectors.toList());
-        List<StateRule> denyRules = rules.getDeny().stream().filter(r -> !r.patterns().isEmpty()).collect(Collectors.toList());
-        if (warnRules.isEmpty() && denyRules.isEmpty()) {
+        if (warnPatternRules.isEmpty() && denyPatternRules.isEmpty()) {
             return CheckResult.success();
         }
 
@@ -107,8 +113,8 @@ public class StatePolicy {
                     return FileVisitResult.CONTINUE;
                 }
 
-                checkPatterns(warnRules, file, warn);
-                checkPatterns(denyRules, file, deny);
+                checkPatterns(warnPatternRules, file, warn);
+                checkPatterns(denyPatternRules, file, deny);
 
                 return FileVisitResult.CONTINUE;
             }
@@ -129,10 +135,11 @@ public class StatePolicy {
         }
     }
 
-    private static void checkPatterns(List<StateRule> rules, Path file, List<CheckResult.Item<StateRule, Path>> result) {
-        for (StateRule r : rules) {
-            if (matchPattern(r.patterns(), file.toString())) {
-                result.add(new CheckResult.Item<>(r, file));
+    private static void checkPatterns(List<PatternRule> rules, Path file, List<CheckResult.Item<StateRule, Path>> result) {
+        String fileName = file.toString();
+        for (PatternRule r : rules) {
+            if (r.patterns.matches(fileName)) {
+                result.add(new CheckResult.Item<>(r.rule, file));
             }
         }
     }
@@ -141,7 +148,21 @@ public class StatePolicy {
         return rule.maxFilesCount() != null || rule.maxSizeInBytes() != null;
     }
 
-    private static boolean matchPattern(List<String> patterns, String fileName) {
-        return Utils.matchAny(patterns, fileName);
+    private static List<PatternRule> compilePatterns(List<StateRule> rules) {
+        return rules.stream()
+                .filter(r -> !r.patterns().isEmpty())
+                .map(PatternRule::new)
+                .toList();
+    }
+
+    private static final class PatternRule {
+
+        private final StateRule rule;
+        private final CompiledMatcher patterns;
+
+        private PatternRule(StateRule rule) {
+            this.rule = rule;
+            this.patterns = CompiledMatcher.compile(rule.patterns());
+        }
     }
 }
@@ -20,21 +20,30 @@ package com.walmartlabs.concord.policyengine;
  * =====
  */
 
+import com.walmartlabs.concord.common.CompiledMatcher;
 import com.walmartlabs.concord.runtime.v2.sdk.Variables;
 import com.walmartlabs.concord.sdk.Context;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
-import static com.walmartlabs.concord.policyengine.Utils.matches;
+import static com.walmartlabs.concord.policyengine.Utils.compile;
 
 public class TaskPolicy {
 
     private final PolicyRules<TaskRule> rules;
 
+    private final List<CompiledRule> allowRules;
+    private final List<CompiledRule> denyRules;
+    private final List<CompiledRule> warnRules;
+
     public TaskPolicy(PolicyRules<TaskRule> rules) {
         this.rules = rules;
+
+        this.allowRules = compileAll(rules != null ? rules.getAllow() : List.of(), CompiledRule::new);
+        this.denyRules = compileAll(rules != null ? rules.getDeny() : List.of(), CompiledRule::new);
+        this.warnRules = compileAll(rules != null ? rules.getWarn() : List.of(), CompiledRule::new);
     }
 
     public CheckResult<TaskRule, String> check(String taskName, String methodName, Object[] params, Map<String, List<Serializable>> taskResults) {
@@ -42,21 +51,21 @@ public class TaskPolicy {
             return CheckResult.success();
         }
 
-        for (TaskRule r : rules.getAllow()) {
+        for (CompiledRule r : allowRules) {
             if (matchRule(taskName, methodName, params, taskResults, r)) {
                 return CheckResult.success();
             }
         }
 
-        for (TaskRule r : rules.getDeny()) {
+        for (CompiledRule r : denyRules) {
             if (matchRule(taskName, methodName, params, taskResults, r)) {
-                return CheckResult.error(new CheckResult.Item<>(r, methodName));
+                return CheckResult.error(new CheckResult.Item<>(r.rule, methodName));
             }
         }
 
-        for (TaskRule r : rules.getWarn()) {
+        for (CompiledRule r : warnRules) {
             if (matchRule(taskName, methodName, params, taskResults, r)) {
-                return CheckResult.warn(new CheckResult.Item<>(r, methodName));
+                return CheckResult.warn(new CheckResult.Item<>(r.rule, methodName));
             }
         }
 
@@ -81,41 +90,37 @@ public class TaskPolicy {
         }
     }
 
-    private boolean matchRule(String taskName, String methodName, Object[] params, Map<String, List<Serializable>> taskResults, TaskRule r) {
-        if (!matches(r.taskName(), taskName)) {
+    private boolean matchRule(String taskName, String methodName, Object[] params, Map<String, List<Serializable>> taskResults, CompiledRule r) {
+        if (!r.taskName.matches(taskName)) {
             return false;
         }
 
-        if (r.method() != null && !matches(r.method(), methodName)) {
+        if (r.method != null && !r.method.matches(methodName)) {
             return false;
         }
 
-        if (paramsMatches(r.params(), params)) {
+        if (paramsMatches(r.params, params)) {
             return true;
         }
 
-        if (taskResultsMatches(r.taskResults(), taskResults)) {
+        if (taskResultsMatches(r.taskResults, taskResults)) {
             return true;
         }
 
         return false;
     }
 
-    private static boolean paramsMatches(List<TaskRule.Param> r, Object[] params) {
+    private static boolean paramsMatches(List<CompiledParam> r, Object[] params) {
         if (params == null) {
             return r.isEmpty();
         }
 
-        for (TaskRule.Param p : r) {
-            if (p.index() >= params.length) {
+        for (CompiledParam p : r) {
+            if (p.param.index() >= params.length) {
                 return false;
             }
 
-            if (!paramMatches(
-                    Optional.ofNullable(p.name()).map(n -> n.split("\\.")).orElse(null),
-                    0,
-                    p.values(), params[p.index()],
-                    p.protectedVariable())) {
+            if (!paramMatches(p.names, 0, p.values, params[p.param.index()], p.param.protectedVariable())) {
                 return false;
             }
         }
@@ -124,9 +129,9 @@ public class TaskPolicy {
     }
 
     @SuppressWarnings("unchecked")
-    private static boolean paramMatches(String[] names, int nameIndex, List<Object> values, Object param, boolean isProtected) {
+    private static boolean paramMatches(String[] names, int nameIndex, CompiledValues values, Object param, boolean isProtected) {
         if (param == null) {
-            return values.contains(null);
+            return values.values.contains(null);
         }
 
         if (param instanceof Map) {
@@ -159,9 +164,9 @@ public class TaskPolicy {
             Object v = ctx.variables().get(name);
             return paramMatches(names, nameIndex, values, v, isProtected);
         } else if (param instanceof String) {
-            return Utils.matchAny(values.stream().map(Object::toString).collect(Collectors.toList()), param.toString());
+            return values.patterns.matches(param);
         } else {
-            for (Object v : values) {
+            for (Object v : values.values) {
                 if (v != null && v.equals(param)) {
                     return true;
                 }
@@ -171,20 +176,17 @@ public class TaskPolicy {
         return false;
     }
 
-    private static boolean taskResultsMatches(List<TaskRule.TaskResult> rule, Map<String, List<Serializable>> taskResults) {
+    private static boolean taskResultsMatches(List<CompiledTaskResult> rule, Map<String, List<Serializable>> taskResults) {
         if (rule.isEmpty() || taskResults == null) {
             return false;
         }
 
-        for (TaskRule.TaskResult tr : rule) {
-            String taskName = tr.task();
+        for (CompiledTaskResult tr : rule) {
+            String taskName = tr.taskResult.task();
             List<Serializable> results = taskResults.getOrDefault(taskName, Collections.emptyList());
-            String resultName = tr.result();
 
             for (Object result : results) {
-                if (paramMatches(
-                        Optional.ofNullable(resultName).map(n -> n.split("\\.")).orElse(null),
-                        0, tr.values(), result, false)) {
+                if (paramMatches(tr.names, 0, tr.values, result, false)) {
                     return true;
                 }
             }
@@ -192,4 +194,73 @@ public class TaskPolicy {
 
         return false;
     }
+
+    private static <T, C> List<C> compileAll(List<T> items, Function<T, C> compiler) {
+        return items.stream().map(compiler).toList();
+    }
+
+    private static String[] splitName(String name) {
+        return Optional.ofNullable(name).map(n -> n.split("\\.")).orElse(null);
+    }
+
+    private static final class CompiledRule {
+
+        private final TaskRule rule;
+        private final CompiledMatcher taskName;
+        private final CompiledMatcher method;
+        private final List<CompiledParam> params;
+        private final List<CompiledTaskResult> taskResults;
+
+        private CompiledRule(TaskRule rule) {
+            this.rule = rule;
+            // always checked, a rule without a name matches only calls without a task name
+            this.taskName = CompiledMatcher.compile(rule.taskName());
+            this.method = compile(rule.method());
+            this.params = compileAll(rule.params(), CompiledParam::new);
+            this.taskResults = compileAll(rule.taskResults(), CompiledTaskResult::new);
+        }
+    }
+
+    private static final class CompiledParam {
+
+        private final TaskRule.Param param;
+        private final String[] names;
+        private final CompiledValues values;
+
+        private CompiledParam(TaskRule.Param param) {
+            this.param = param;
+            this.names = splitName(param.name());
+            this.values = new CompiledValues(param.values());
+        }
+    }
+
+    private static final class CompiledTaskResult {
+
+        private final TaskRule.TaskResult taskResult;
+        private final String[] names;
+        private final CompiledValues values;
+
+        private CompiledTaskResult(TaskRule.TaskResult taskResult) {
+            this.taskResult = taskResult;
+            this.names = splitName(taskResult.result());
+            this.values = new CompiledValues(taskResult.values());
+        }
+    }
+
+    /**
+     * The expected values as is (matched with {@code equals}) and as patterns (matched against string values).
+     */
+    private static final class CompiledValues {
+
+        private final List<Object> values;
+        private final CompiledMatcher patterns;
+
+        private CompiledValues(List<Object> values) {
+            this.values = values;
+            this.patterns = CompiledMatcher.compile(values.stream()
+                    .filter(Objects::nonNull)
+                    .map(Object::toString)
+                    .toList());
+        }
+    }
 }
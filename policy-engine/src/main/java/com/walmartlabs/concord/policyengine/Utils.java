@@ -20,10 +20,8 @@ package com.walmartlabs.concord.policyengine;
  * =====
  */
 
-import com.walmartlabs.concord.common.Matcher;
+import com.walmartlabs.concord.common.CompiledMatcher;
 
-import java.util.List;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 public final class Utils {
@@ -32,16 +30,16 @@ public final class Utils {
 
     private static final Pattern FILE_SIZE_PATTERN = Pattern.compile("([\\d.]+)(.*)");
 
-    public static boolean matchAny(List<String> patterns, String value) {
-        return Matcher.matchAny(patterns, value);
-    }
-
-    public static boolean matches(String pattern, String value) {
-        return Matcher.matches(value, pattern);
-    }
+    /**
+     * Compiles the rule's pattern, list of patterns or conditions.
+     * Returns {@code null} if the rule doesn't specify any.
+     */
+    public static CompiledMatcher compile(Object conditions) {
+        if (conditions == null) {
+            return null;
+        }
 
-    public static boolean matches(Map<String, Object> conditions, Map<String, Object> data) {
-        return Matcher.matches(data, conditions);
+        return CompiledMatcher.compile(conditions);
     }
 
     public static Long parseFileSize(String v) {
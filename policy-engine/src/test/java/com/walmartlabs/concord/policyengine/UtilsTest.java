@@ -29,12 +29,14 @@ import static org.junit.jupiter.api.Assertions.*;
 public class UtilsTest {
 
     @Test
-    public void testMatchAny() {
-        boolean result = Utils.matchAny(Collections.singletonList("\\.concord"), ".concord");
+    public void testCompile() {
+        boolean result = Utils.compile(Collections.singletonList("\\.concord")).matches(".concord");
         assertTrue(result);
 
-        result = Utils.matchAny(Collections.emptyList(), ".concord");
+        result = Utils.compile(Collections.emptyList()).matches(".concord");
         assertFalse(result);
+
+        assertNull(Utils.compile(null));
     }
 
     @Test
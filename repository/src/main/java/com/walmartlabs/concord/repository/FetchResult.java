@@ -23,6 +23,7 @@ package com.walmartlabs.concord.repository;
 import org.immutables.value.Value;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 
 @Value.Immutable
 @Value.Style(jdkOnly = true)
@@ -51,6 +52,13 @@ public interface FetchResult {
     @Nullable
     String author();
 
+    /**
+     * Path to the fetched files if it's not the request's
+     * {@link FetchRequest#destination()}.
+     */
+    @Nullable
+    Path path();
+
     static ImmutableFetchResult.Builder builder() {
         return ImmutableFetchResult.builder();
     }
@@ -37,9 +37,11 @@ public class GitCliRepositoryProvider implements RepositoryProvider {
     private static final String GIT_FILES = "^(\\.git|\\.gitmodules|\\.gitignore)$";
 
     private final GitClient client;
+    private final boolean useWorktrees;
 
     public GitCliRepositoryProvider(GitClientConfiguration cfg, AuthTokenProvider authProvider) {
         this.client = new GitClient(cfg, authProvider);
+        this.useWorktrees = cfg.useWorktrees();
     }
 
     @Override
@@ -62,6 +64,11 @@ public class GitCliRepositoryProvider implements RepositoryProvider {
                 return client.fetch(request);
             } catch (RepositoryException e) {
                 lastException = e;
+                if (useWorktrees) {
+                    // the shared store may be in use by other fetches, incomplete worktrees
+                    // are re-created by the client
+                    continue;
+                }
                 try {
                     PathUtils.deleteRecursively(request.destination());
                 } catch (IOException ee) {
@@ -74,6 +81,13 @@ public class GitCliRepositoryProvider implements RepositoryProvider {
         throw lastException;
     }
 
+    /**
+     * @return worktree cache statistics, see {@link GitClientConfiguration#useWorktrees()}
+     */
+    public GitClient.WorktreeStats worktreeStats() {
+        return client.worktreeStats();
+    }
+
     @Override
     public Snapshot export(Path src, Path dst, List<String> ignorePatterns) throws IOException {
         LastModifiedSnapshot snapshot = new LastModifiedSnapshot();
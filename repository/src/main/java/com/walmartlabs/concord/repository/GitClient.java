@@ -36,9 +36,11 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.walmartlabs.concord.common.LogUtils.withMdc;
 import static java.nio.file.attribute.PosixFilePermission.OWNER_EXECUTE;
@@ -53,17 +55,39 @@ public class GitClient {
 
     private static final int SUCCESS_EXIT_CODE = 0;
 
+    private static final String STORE_DIR_NAME = "store.git";
+    private static final String WORKTREES_DIR_NAME = "worktrees";
+    private static final String WORKTREE_READY_SUFFIX = ".ready";
+
+    /**
+     * Number of locks shared by all worktrees. Worktrees are created per commit,
+     * per-path locks would accumulate forever.
+     */
+    private static final int WORKTREE_LOCK_STRIPES = 64;
+
     private final GitClientConfiguration cfg;
     private final AuthTokenProvider authProvider;
     private final Set<Obfuscation> sensitiveData;
     private final ExecutorService executor;
 
+    // one lock per bare store, i.e. per repository URL
+    private final ConcurrentMap<Path, Object> locks = new ConcurrentHashMap<>();
+    private final Object[] worktreeLocks = new Object[WORKTREE_LOCK_STRIPES];
+    private final ConcurrentMap<String, CompletableFuture<Void>> inflightFetches = new ConcurrentHashMap<>();
+    private final LongAdder worktreeHits = new LongAdder();
+    private final LongAdder worktreeMisses = new LongAdder();
+    private final LongAdder coalescedFetches = new LongAdder();
+    private final LongAdder fetchCount = new LongAdder();
+    private final LongAdder fetchTimeMillis = new LongAdder();
+
     public GitClient(GitClientConfiguration cfg, AuthTokenProvider authProvider) {
         this.cfg = cfg;
         this.authProvider = authProvider;
         this.executor = Executors.newCachedThreadPool();
         this.sensitiveData = new LinkedHashSet<>();
 
+        Arrays.setAll(worktreeLocks, i -> new Object());
+
         // urls with user info.
         sensitiveData.add(new Obfuscation("https://([^@]*)@", "https://***@"));
 
@@ -75,6 +99,10 @@ public class GitClient {
     public FetchResult fetch(FetchRequest req) {
         assertSecret(req.url(), req.secret());
 
+        if (cfg.useWorktrees()) {
+            return fetchWorktree(req);
+        }
+
         try {
             boolean exists = Files.exists(req.destination().resolve(".git"));
             if (!exists) {
@@ -129,6 +157,276 @@ public class GitClient {
         }
     }
 
+    /**
+     * @return worktree cache statistics, see {@link GitClientConfiguration#useWorktrees()}
+     */
+    public WorktreeStats worktreeStats() {
+        return new WorktreeStats(worktreeHits.sum(), worktreeMisses.sum(), coalescedFetches.sum(),
+                fetchCount.sum(), fetchTimeMillis.sum());
+    }
+
+    /**
+     * Fetches the requested version into a bare repository ({@code ${destination}/store.git})
+     * shared by all versions of the same URL and checks it out into a separate worktree
+     * per commit ({@code ${destination}/worktrees/${commitId}}).
+     * <p>
+     * Worktrees are never modified after they are created, so different commits
+     * of the same repository can be fetched and exported in parallel.
+     * Concurrent fetches of the same ref are coalesced into one {@code git fetch}.
+     */
+    private FetchResult fetchWorktree(FetchRequest req) {
+        long t1 = System.currentTimeMillis();
+        try {
+            Path store = req.destination().resolve(STORE_DIR_NAME);
+            initStore(req.destination(), store, updateUrl(req.url(), req.secret()));
+
+            Ref ref = getHeadRef(store, req.version().ref(), req.secret());
+            NormalizedVersion version = NormalizedVersion.from(req.version(), ref);
+            String target = version.commitId() != null ? version.commitId() : Objects.requireNonNull(ref).commitId();
+
+            String head = resolveCommit(store, target);
+            if (head == null) {
+                boolean shallow = req.shallow() && version.commitId() == null;
+                fetchCoalesced(store, getRefSpec(ref), shallow, req.secret());
+
+                head = resolveCommit(store, target);
+                if (head == null && isShallowRepo(store)) {
+                    fetchCoalesced(store, getRefSpec(ref), false, req.secret());
+                    head = resolveCommit(store, target);
+                }
+
+                if (head == null) {
+                    throw new RepositoryException("Can't find '" + req.version().value() + "' in " + hideSensitiveData(req.url()));
+                }
+            }
+
+            Path worktree = req.destination().resolve(WORKTREES_DIR_NAME).resolve(head);
+            boolean hit = checkoutWorktree(store, worktree, head, req);
+
+            ImmutableFetchResult.Builder result = FetchResult.builder()
+                    .head(head)
+                    .branchOrTag(ref != null ? ref.name() : null)
+                    .path(worktree);
+
+            if (req.withCommitInfo()) {
+                CommitInfo ci = getCommitInfo(worktree);
+                result.message(ci.message())
+                        .author(ci.author());
+            }
+
+            pruneWorktrees(store, req.destination().resolve(WORKTREES_DIR_NAME), worktree);
+
+            log.info("fetchWorktree ['{}', '{}'] -> {} in {}ms", hideSensitiveData(req.url()), req.version().value(),
+                    hit ? "hit" : "miss", System.currentTimeMillis() - t1);
+
+            return result.build();
+        } catch (RepositoryException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("fetchWorktree ['{}'] -> error", req, e);
+            throw new RepositoryException("Error while fetching a repository: " + e.getMessage());
+        }
+    }
+
+    private void initStore(Path baseDir, Path store, String url) throws IOException {
+        synchronized (lock(store)) {
+            if (!Files.exists(store.resolve("HEAD"))) {
+                if (Files.exists(baseDir.resolve(".git"))) {
+                    // a working copy created without worktrees, replace it
+                    PathUtils.deleteRecursively(baseDir);
+                }
+
+                Files.createDirectories(store);
+
+                exec(Command.builder()
+                        .workDir(store)
+                        .timeout(cfg.defaultOperationTimeout())
+                        .addArgs("init", "--bare", "--quiet")
+                        .build());
+
+                configure(store);
+            }
+
+            configureRemote(store, url);
+        }
+    }
+
+    /**
+     * Fetches the specified ref spec. If the same fetch is already running
+     * (e.g. for another process on the same branch), waits for it instead.
+     */
+    private void fetchCoalesced(Path store, String refSpec, boolean shallow, Secret secret) {
+        String key = store + "|" + refSpec + "|" + shallow;
+
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        CompletableFuture<Void> inflight = inflightFetches.putIfAbsent(key, f);
+        if (inflight != null) {
+            coalescedFetches.increment();
+            try {
+                inflight.join();
+                return;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+        }
+
+        long t1 = System.currentTimeMillis();
+        try {
+            synchronized (lock(store)) {
+                fetch(store, refSpec, shallow, secret);
+            }
+            f.complete(null);
+        } catch (RuntimeException e) {
+            f.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflightFetches.remove(key, f);
+            fetchCount.increment();
+            fetchTimeMillis.add(System.currentTimeMillis() - t1);
+        }
+    }
+
+    private void fetch(Path store, String refSpec, boolean shallow, Secret secret) {
+        List<String> args = new ArrayList<>();
+        args.add("fetch");
+        if (shallow) {
+            args.add("--depth=1");
+        } else if (isShallowRepo(store)) {
+            args.add("--unshallow");
+        }
+        args.add("--quiet");
+        args.add("origin");
+        args.add(refSpec);
+
+        execWithCredentials(Command.builder()
+                .workDir(store)
+                .timeout(cfg.fetchTimeout())
+                .addAllArgs(args)
+                .build(), secret);
+    }
+
+    /**
+     * @return {@code true} if the worktree already existed
+     */
+    private boolean checkoutWorktree(Path store, Path worktree, String commitId, FetchRequest req) throws IOException {
+        Path marker = worktree.resolveSibling(worktree.getFileName() + WORKTREE_READY_SUFFIX);
+
+        synchronized (worktreeLock(worktree)) {
+            if (Files.exists(marker)) {
+                // mark as recently used
+                Files.setLastModifiedTime(marker, FileTime.fromMillis(System.currentTimeMillis()));
+                worktreeHits.increment();
+                return true;
+            }
+
+            worktreeMisses.increment();
+
+            synchronized (lock(store)) {
+                if (Files.exists(worktree)) {
+                    // leftovers of a failed checkout
+                    PathUtils.deleteRecursively(worktree);
+                    pruneWorktreeRecords(store);
+                }
+
+                exec(Command.builder()
+                        .workDir(store)
+                        .timeout(cfg.defaultOperationTimeout())
+                        .addArgs("worktree", "add", "--quiet", "--no-checkout", "--detach", worktree.toAbsolutePath().toString(), commitId)
+                        .build());
+            }
+
+            // the actual checkout only touches the worktree's own index and files
+            reset(worktree, commitId);
+
+            if (req.includeSubmodules() && hasSubmodules(worktree)) {
+                updateSubmodules(worktree, req.secret());
+                resetSubmodules(worktree);
+            }
+
+            Files.createFile(marker);
+            return false;
+        }
+    }
+
+    /**
+     * Removes worktrees that weren't used for longer than {@link GitClientConfiguration#worktreeMaxIdleTime()}.
+     */
+    private void pruneWorktrees(Path store, Path worktreesDir, Path current) throws IOException {
+        long cutoff = System.currentTimeMillis() - cfg.worktreeMaxIdleTime().toMillis();
+
+        List<Path> markers;
+        try (var files = Files.list(worktreesDir)) {
+            markers = files.filter(p -> p.getFileName().toString().endsWith(WORKTREE_READY_SUFFIX))
+                    .toList();
+        }
+
+        boolean pruned = false;
+        for (Path marker : markers) {
+            String name = marker.getFileName().toString();
+            Path worktree = worktreesDir.resolve(name.substring(0, name.length() - WORKTREE_READY_SUFFIX.length()));
+            if (worktree.equals(current)) {
+                continue;
+            }
+
+            synchronized (worktreeLock(worktree)) {
+                if (!Files.exists(marker) || Files.getLastModifiedTime(marker).toMillis() >= cutoff) {
+                    continue;
+                }
+
+                Files.delete(marker);
+                PathUtils.deleteRecursively(worktree);
+                pruned = true;
+            }
+        }
+
+        if (pruned) {
+            synchronized (lock(store)) {
+                pruneWorktreeRecords(store);
+            }
+        }
+    }
+
+    private void pruneWorktreeRecords(Path store) {
+        exec(Command.builder()
+                .workDir(store)
+                .timeout(cfg.defaultOperationTimeout())
+                .addArgs("worktree", "prune")
+                .build());
+    }
+
+    /**
+     * @return the full commit ID or {@code null} if the commit is not available locally
+     */
+    private String resolveCommit(Path workDir, String rev) {
+        try {
+            String result = exec(Command.builder()
+                    .workDir(workDir)
+                    .timeout(cfg.defaultOperationTimeout())
+                    .addArgs("rev-parse", "--verify", "--quiet", rev + "^{commit}")
+                    .quiet(true)
+                    .build());
+            String line = result.trim();
+            return line.isEmpty() ? null : fromString(line);
+        } catch (RepositoryException e) {
+            return null;
+        }
+    }
+
+    private Object lock(Path path) {
+        return locks.computeIfAbsent(path.toAbsolutePath().normalize(), k -> new Object());
+    }
+
+    /**
+     * Worktree locks are taken before the store locks, never the other way around.
+     */
+    private Object worktreeLock(Path worktree) {
+        int i = Math.floorMod(worktree.toAbsolutePath().normalize().hashCode(), worktreeLocks.length);
+        return worktreeLocks[i];
+    }
+
     private boolean alreadyFetched(Path workDir, Ref ref, NormalizedVersion version) {
         String head = revParse(workDir, "HEAD");
 
@@ -551,6 +849,9 @@ public class GitClient {
             int code = p.exitValue();
             if (code != SUCCESS_EXIT_CODE) {
                 String msg = String.format("code: %d, %s", code, hideSensitiveData(error.get().toString()));
+                if (command.quiet()) {
+                    throw new RepositoryException(msg);
+                }
                 log.warn("exec ['{}'] -> finished with code {}, error: '{}'",
                         hideSensitiveData(String.join(" ", cmd)), code, msg);
                 throw new RepositoryException(msg);
@@ -731,6 +1032,14 @@ public class GitClient {
 
         Duration timeout();
 
+        /**
+         * Don't log non-zero exit codes. For commands that are expected to fail.
+         */
+        @Value.Default
+        default boolean quiet() {
+            return false;
+        }
+
         static ImmutableCommand.Builder builder() {
             return ImmutableCommand.builder();
         }
@@ -794,4 +1103,11 @@ public class GitClient {
     private record Obfuscation(String pattern,
                                String replacement) {
     }
+
+    public record WorktreeStats(long hits,
+                                long misses,
+                                long coalescedFetches,
+                                long fetches,
+                                long fetchTimeMillis) {
+    }
 }
@@ -78,6 +78,24 @@ public interface GitClientConfiguration {
         return 512;
     }
 
+    /**
+     * If {@code true}, keep one bare repository per URL and check out each
+     * commit into a separate worktree instead of updating a single working copy.
+     * Allows parallel fetches of different commits of the same repository.
+     */
+    @Value.Default
+    default boolean useWorktrees() {
+        return false;
+    }
+
+    /**
+     * Worktrees not used for longer than this are removed.
+     */
+    @Value.Default
+    default Duration worktreeMaxIdleTime() {
+        return Duration.ofHours(1);
+    }
+
     static ImmutableGitClientConfiguration.Builder builder() {
         return ImmutableGitClientConfiguration.builder();
     }
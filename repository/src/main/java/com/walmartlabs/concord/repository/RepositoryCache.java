@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 
 public class RepositoryCache {
 
@@ -46,7 +47,7 @@ public class RepositoryCache {
     private final long lockTimeout;
     private final long maxCacheAge;
 
-    private final Striped<Lock> locks;
+    private final Striped<ReadWriteLock> locks;
 
     public RepositoryCache(Path cacheDir,
                            Path repoJournalPath,
@@ -59,7 +60,7 @@ public class RepositoryCache {
         this.lockTimeout = lockTimeout.toMillis();
         this.accessJournal = maxCacheAge.toMillis() > 0 ? new RepositoryAccessJournal(objectMapper, repoJournalPath) : null;
         this.maxCacheAge = maxCacheAge.toMillis();
-        this.locks = Striped.lock(lockCount);
+        this.locks = Striped.readWriteLock(lockCount);
     }
 
     public Path getPath(String repositoryUrl) {
@@ -78,11 +79,20 @@ public class RepositoryCache {
     }
 
     public <T> T withLock(String repoUrl, Callable<T> f) {
-        return withLock(lockTimeout, repoUrl, f);
+        return withLock(lockTimeout, locks.get(repoUrl).writeLock(), repoUrl, f);
     }
 
-    private <T> T withLock(long lockTimeout, String repoUrl, Callable<T> f) {
-        Lock l = locks.get(repoUrl);
+    /**
+     * Same as {@link #withLock(String, Callable)}, but allows concurrent calls
+     * for the same repository. For callers that synchronize access to the
+     * repository's directory themselves, only prevents {@link #cleanup()}
+     * from removing the directory while it is in use.
+     */
+    public <T> T withSharedLock(String repoUrl, Callable<T> f) {
+        return withLock(lockTimeout, locks.get(repoUrl).readLock(), repoUrl, f);
+    }
+
+    private <T> T withLock(long lockTimeout, Lock l, String repoUrl, Callable<T> f) {
         try {
             if (l.tryLock(lockTimeout, TimeUnit.MILLISECONDS)) {
                 try {
@@ -109,7 +119,7 @@ public class RepositoryCache {
 
         List<RepositoryAccessJournal.RepositoryJournalItem> oldItems = accessJournal.listOld(maxCacheAge);
         for (RepositoryAccessJournal.RepositoryJournalItem i : oldItems) {
-            Path repoPath = withLock(lockTimeout, i.repoUrl(), () -> {
+            Path repoPath = withLock(lockTimeout, locks.get(i.repoUrl()).writeLock(), i.repoUrl(), () -> {
                 try {
                     Path tmpDir = null;
 
@@ -36,7 +36,8 @@ public class RepositoryProviders {
         RepositoryProvider provider = getProvider(request.url());
         FetchResult result = provider.fetch(request);
 
-        Path repoPath = repoPath(request.destination(), path);
+        Path baseDir = result.path() != null ? result.path() : request.destination();
+        Path repoPath = repoPath(baseDir, path);
 
         return new Repository(repoPath, result, provider);
     }
@@ -0,0 +1,149 @@
+package com.walmartlabs.concord.repository;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.common.AuthTokenProvider;
+import com.walmartlabs.concord.common.PathUtils;
+import com.walmartlabs.concord.common.TemporaryPath;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class GitClientWorktreeTest {
+
+    private GitClient client;
+
+    @Mock
+    AuthTokenProvider authProvider;
+
+    @BeforeEach
+    public void init() {
+        client = new GitClient(GitClientConfiguration.builder()
+                .useWorktrees(true)
+                .worktreeMaxIdleTime(Duration.ofHours(1))
+                .build(), authProvider);
+    }
+
+    @Test
+    public void testFetchDifferentCommits() throws Exception {
+        Path repo = GitUtils.createBareRepository(resourceToPath("/master"));
+        RevCommit commit0 = GitUtils.addContent(repo, resourceToPath("/test5/0_concord.yml"));
+        GitUtils.addContent(repo, resourceToPath("/test5/1_concord.yml"));
+
+        try (TemporaryPath cacheDir = PathUtils.tempDir("git-client-test")) {
+            FetchResult head = fetch(repo.toString(), "master", null, cacheDir.path());
+            assertContent(head.path(), "0_concord.yml", "0-concord-content");
+            assertContent(head.path(), "1_concord.yml", "1-concord-content");
+
+            FetchResult prev = fetch(repo.toString(), "master", commit0.name(), cacheDir.path());
+            assertEquals(commit0.name(), prev.head());
+            assertNotEquals(head.path(), prev.path());
+            assertTrue(Files.notExists(prev.path().resolve("1_concord.yml")));
+
+            // the first worktree is left untouched
+            assertContent(head.path(), "1_concord.yml", "1-concord-content");
+
+            // re-fetching uses the existing worktree
+            FetchResult again = fetch(repo.toString(), "master", null, cacheDir.path());
+            assertEquals(head.path(), again.path());
+            assertEquals(1, client.worktreeStats().hits());
+            assertEquals(2, client.worktreeStats().misses());
+        }
+    }
+
+    @Test
+    public void testNewCommitsAreFetched() throws Exception {
+        Path repo = GitUtils.createBareRepository(resourceToPath("/master"));
+        GitUtils.addContent(repo, resourceToPath("/test5/0_concord.yml"));
+
+        try (TemporaryPath cacheDir = PathUtils.tempDir("git-client-test")) {
+            FetchResult r1 = fetch(repo.toString(), "master", null, cacheDir.path());
+            assertTrue(Files.notExists(r1.path().resolve("1_concord.yml")));
+
+            RevCommit commit1 = GitUtils.addContent(repo, resourceToPath("/test5/1_concord.yml"));
+
+            FetchResult r2 = fetch(repo.toString(), "master", null, cacheDir.path());
+            assertEquals(commit1.name(), r2.head());
+            assertContent(r2.path(), "1_concord.yml", "1-concord-content");
+        }
+    }
+
+    @Test
+    public void testConcurrentFetches() throws Exception {
+        Path repo = GitUtils.createBareRepository(resourceToPath("/master"));
+        GitUtils.addContent(repo, resourceToPath("/test5/0_concord.yml"));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (TemporaryPath cacheDir = PathUtils.tempDir("git-client-test")) {
+            List<Future<FetchResult>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> fetch(repo.toString(), "master", null, cacheDir.path())));
+            }
+
+            Path path = results.get(0).get().path();
+            for (Future<FetchResult> f : results) {
+                assertEquals(path, f.get().path());
+            }
+            assertContent(path, "0_concord.yml", "0-concord-content");
+
+            GitClient.WorktreeStats stats = client.worktreeStats();
+            assertEquals(1, stats.misses());
+            assertEquals(threads, stats.hits() + stats.misses());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FetchResult fetch(String repoUri, String branch, String commitId, Path dest) {
+        return client.fetch(FetchRequest.builder()
+                .url(repoUri)
+                .version(FetchRequest.Version.commitWithBranch(commitId, branch))
+                .destination(dest)
+                .shallow(true)
+                .build());
+    }
+
+    private static void assertContent(Path repoPath, String path, String expectedContent) throws IOException {
+        assertEquals(expectedContent, new String(Files.readAllBytes(repoPath.resolve(path))).trim());
+    }
+
+    private static Path resourceToPath(String resource) throws Exception {
+        return Paths.get(GitClientWorktreeTest.class.getResource(resource).toURI());
+    }
+}
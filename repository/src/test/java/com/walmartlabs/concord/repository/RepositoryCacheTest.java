@@ -0,0 +1,75 @@
+package com.walmartlabs.concord.repository;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositoryCacheTest {
+
+    private static final String URL = "https://example.com/repo.git";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSharedLock() throws Exception {
+        RepositoryCache cache = new RepositoryCache(tempDir.resolve("cache"), tempDir.resolve("info"),
+                Duration.ofMillis(200), Duration.ZERO, 4, new ObjectMapper());
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> cache.withSharedLock(URL, () -> {
+                locked.countDown();
+                return release.await(10, TimeUnit.SECONDS);
+            }));
+
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            // shared locks don't block each other
+            assertEquals("ok", cache.withSharedLock(URL, () -> "ok"));
+
+            // but block the exclusive lock, e.g. the cleanup
+            assertThrows(IllegalStateException.class, () -> cache.withLock(URL, () -> "ok"));
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+
+            assertEquals("ok", cache.withLock(URL, () -> "ok"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -82,6 +82,28 @@ public interface RunnerConfiguration {
         return LoggingConfiguration.builder().build();
     }
 
+    /**
+     * Type of threads used to execute forked VM threads.
+     *
+     * @apiNote only for the runtime v2.
+     */
+    @Value.Default
+    default ThreadMode threadMode() {
+        return ThreadMode.PLATFORM;
+    }
+
+    /**
+     * If {@code true} the runtime keeps the VM state in a data structure
+     * optimized for processes with many concurrent threads. The saved state
+     * remains compatible with the default implementation.
+     *
+     * @apiNote only for the runtime v2.
+     */
+    @Value.Default
+    default boolean concurrentState() {
+        return false;
+    }
+
     /**
      * Java Security Manager configuration.
      */
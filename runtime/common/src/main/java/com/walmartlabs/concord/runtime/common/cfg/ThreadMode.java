@@ -0,0 +1,39 @@
+package com.walmartlabs.concord.runtime.common.cfg;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+/**
+ * Type of Java threads used to execute forked VM threads
+ * (e.g. {@code parallel} blocks and {@code parallelWithItems} loops).
+ */
+public enum ThreadMode {
+
+    /**
+     * Regular (platform) Java threads.
+     */
+    PLATFORM,
+
+    /**
+     * Virtual threads. Requires Java 21 or newer, falls back to
+     * {@link #PLATFORM} when not available.
+     */
+    VIRTUAL
+}
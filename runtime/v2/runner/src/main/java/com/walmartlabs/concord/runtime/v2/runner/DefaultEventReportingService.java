@@ -20,8 +20,8 @@ package com.walmartlabs.concord.runtime.v2.runner;
  * =====
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.walmartlabs.concord.client2.ApiClient;
-import com.walmartlabs.concord.client2.ApiException;
 import com.walmartlabs.concord.client2.ProcessEventRequest;
 import com.walmartlabs.concord.client2.ProcessEventsApi;
 import com.walmartlabs.concord.runtime.common.injector.InstanceId;
@@ -34,27 +34,79 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.TimerTask;
-import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Reports process events asynchronously.
+ * <p>
+ * Events are put into a bounded queue and sent by a single background thread,
+ * so flow threads never wait for the API call. The sender sends a batch as soon
+ * as {@code events.batchSize} events are queued or every
+ * {@code events.batchFlushInterval} seconds, whichever comes first.
+ * <p>
+ * When the queue is full, {@link #report(ProcessEventRequest)} waits up to
+ * {@link #OFFER_TIMEOUT_MS} for the sender to catch up and then writes
+ * the event into the spool file. While the sender backs off after an error,
+ * the event is spooled without waiting. Batches that can't be sent are
+ * appended to the same spool file (one JSON object per line) and retried
+ * after the next successful send. The spool file is kept in the process
+ * attachments if it can't be delivered before the process ends.
+ */
 public class DefaultEventReportingService implements EventReportingService, ExecutionListener {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultEventReportingService.class);
 
+    static final String SPOOL_FILE_NAME = "events_spool.jsonl";
+
+    private static final int MIN_QUEUE_CAPACITY = 1024;
+    private static final int QUEUE_CAPACITY_PER_BATCH = 16;
+    private static final long OFFER_TIMEOUT_MS = 1000;
+    private static final long MIN_RETRY_DELAY_MS = 500;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
     private final InstanceId instanceId;
     private final ProcessEventsApi processEventsApi;
     private final BlockingQueue<ProcessEventRequest> eventQueue;
     private final int maxBatchSize;
-    private final Object batchLock = new Object();
-    private final ScheduledExecutorService flushScheduler;
+    private final long flushIntervalNanos;
     private final PersistenceService persistenceService;
+    private final Object spoolLock = new Object();
+
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final LongAdder sentEvents = new LongAdder();
+    private final LongAdder spooledEvents = new LongAdder();
+    private final LongAdder sendCount = new LongAdder();
+    private final LongAdder sendTimeNanos = new LongAdder();
+    private final AtomicLong maxSendTimeNanos = new AtomicLong();
+
+    // report() holds the read lock while queueing, stop() takes the write lock,
+    // so no events are queued after the final drain
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private volatile Thread sender;
+    private volatile boolean stopped;
+    private volatile boolean backingOff;
+
+    // guarded by spoolLock
+    private boolean spoolExists;
+
+    // accessed only by the sender thread
+    private long retryDelayMs;
 
     @Inject
     public DefaultEventReportingService(InstanceId instanceId,
@@ -66,10 +118,7 @@ public class DefaultEventReportingService implements EventReportingService, Exec
         this.maxBatchSize = processConfiguration.events().batchSize();
         this.persistenceService = persistenceService;
         this.eventQueue = initializeQueue(maxBatchSize);
-        this.flushScheduler = Executors.newSingleThreadScheduledExecutor();
-
-        int period = processConfiguration.events().batchFlushInterval();
-        flushScheduler.scheduleAtFixedRate(new FlushTimer(this), period, period, TimeUnit.SECONDS);
+        this.flushIntervalNanos = TimeUnit.SECONDS.toNanos(processConfiguration.events().batchFlushInterval());
     }
 
     private static BlockingQueue<ProcessEventRequest> initializeQueue(int maxBatchSize) {
@@ -77,79 +126,238 @@ public class DefaultEventReportingService implements EventReportingService, Exec
             throw new IllegalArgumentException("Invalid event batch size '" + maxBatchSize + "'. Must be greater than zero.");
         }
 
-        return new LinkedBlockingQueue<>();
+        int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_QUEUE_CAPACITY, (long) maxBatchSize * QUEUE_CAPACITY_PER_BATCH));
+        return new ArrayBlockingQueue<>(capacity);
     }
 
     @Override
-    public synchronized void report(ProcessEventRequest req) {
+    public void report(ProcessEventRequest req) {
         if (req == null) {
             return;
         }
 
-        // avoid modification while a flush may be occurring from another thread
-        synchronized (batchLock) {
-            eventQueue.add(req);
+        acceptLock.readLock().lock();
+        try {
+            if (!stopped) {
+                enqueue(req);
+                return;
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+
+        // the process has ended, nothing is going to send the queue anymore
+        List<ProcessEventRequest> events = Collections.singletonList(req);
+        if (!send(events)) {
+            spool(events);
+        }
+    }
+
+    private void enqueue(ProcessEventRequest req) {
+        if (sender == null) {
+            startSender();
+        }
+
+        boolean queued;
+        try {
+            // don't wait for the sender while it's backing off after an error
+            queued = eventQueue.offer(req) || (!backingOff && eventQueue.offer(req, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+
+        if (!queued) {
+            log.warn("Event queue is full, spooling the event");
+            spool(Collections.singletonList(req));
+            return;
         }
 
-        // Don't allow batch to grow larger than max batch size
-        // This is why the method is synchronized. If not, another thread may add
-        // one-too-many items to the batch before this flush finishes.
-        if (eventQueue.size() >= maxBatchSize) {
-            flush();
+        int depth = eventQueue.size();
+        peakQueueDepth.accumulateAndGet(depth, Math::max);
+
+        if (depth >= maxBatchSize) {
+            LockSupport.unpark(sender);
         }
     }
 
     @Override
     public void afterProcessEnds(Runtime runtime, State state, Frame lastFrame) {
-        flushScheduler.shutdown();
-        flush();
+        stop();
     }
 
     @Override
     public void onProcessError(Runtime runtime, State state, Exception e) {
-        flushScheduler.shutdown();
-        flush();
+        stop();
+    }
+
+    /**
+     * @return current number of queued events
+     */
+    public int queueDepth() {
+        return eventQueue.size();
+    }
+
+    /**
+     * @return average duration of event API calls in milliseconds
+     */
+    public double averageSendTimeMs() {
+        long count = sendCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+        return sendTimeNanos.sum() / (double) count / 1_000_000;
     }
 
     ProcessEventsApi getProcessEventsApi() {
         return processEventsApi;
     }
 
-    synchronized void flush() {
+    /**
+     * Sends all queued events. On error, the remaining events are left in
+     * the queue (or spooled if the service is stopping).
+     *
+     * @return {@code true} if all events were sent successfully
+     */
+    boolean flush() {
         List<ProcessEventRequest> eventBatch = takeBatch();
 
         while (!eventBatch.isEmpty()) {
-            send(eventBatch);
+            if (!send(eventBatch)) {
+                spool(eventBatch);
+
+                if (stopped) {
+                    spool(takeAll());
+                }
+
+                return false;
+            }
+
             eventBatch = takeBatch();
         }
+
+        return true;
+    }
+
+    private synchronized void startSender() {
+        if (sender != null || stopped) {
+            return;
+        }
+
+        Thread t = new Thread(this::runSender, "event-sender");
+        t.setDaemon(true);
+        t.start();
+        sender = t;
+    }
+
+    private void stop() {
+        Thread t;
+        acceptLock.writeLock().lock();
+        try {
+            stopped = true;
+            t = sender;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // catch anything reported between the sender's last flush and the stop
+        if (flush()) {
+            retrySpool();
+        }
+
+        logStats();
     }
 
-    private void send(List<ProcessEventRequest> eventBatch) {
-        if (eventBatch.size() == 1) {
-            sendSingle(eventBatch.get(0));
-        } else {
-            sendBatch(eventBatch);
+    private void runSender() {
+        while (!stopped) {
+            awaitBatch();
+
+            if (stopped) {
+                break;
+            }
+
+            boolean sent;
+            try {
+                sent = flush();
+                if (sent) {
+                    retryDelayMs = 0;
+                    retrySpool();
+                }
+            } catch (Exception e) {
+                // keep the sender running, otherwise the events are only spooled from now on
+                log.warn("Error while sending events: {}", e.getMessage());
+                sent = false;
+            }
+
+            if (!sent) {
+                retryDelayMs = Math.min(MAX_RETRY_DELAY_MS, Math.max(MIN_RETRY_DELAY_MS, retryDelayMs * 2));
+                backOff(retryDelayMs);
+            }
         }
     }
 
-    private void sendBatch(List<ProcessEventRequest> eventBatch) {
+    /**
+     * Waits for the specified delay or until the service is stopped.
+     */
+    private void backOff(long delayMs) {
+        backingOff = true;
         try {
-            getProcessEventsApi().batchEvent(instanceId.getValue(), eventBatch);
-        } catch (ApiException e) {
-            for (var event: eventBatch) {
-                saveEvent(event);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            while (!stopped) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            backingOff = false;
+        }
+    }
+
+    /**
+     * Waits until a full batch is queued, the flush interval elapses
+     * or the service is stopped.
+     */
+    private void awaitBatch() {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (!stopped && eventQueue.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
             }
-            log.warn("Error while sending batch of {} event{} to the server: {}",
-                    eventBatch.size(), eventBatch.isEmpty() ? "" : "s", e.getMessage());
+            LockSupport.parkNanos(this, remaining);
         }
     }
 
-    private void sendSingle(ProcessEventRequest req) {
+    private boolean send(List<ProcessEventRequest> eventBatch) {
+        long t1 = System.nanoTime();
         try {
-            getProcessEventsApi().event(instanceId.getValue(), req);
-        } catch (ApiException e) {
-            saveEvent(req);
-            log.warn("error while sending an event to the server: {}", e.getMessage());
+            if (eventBatch.size() == 1) {
+                getProcessEventsApi().event(instanceId.getValue(), eventBatch.get(0));
+            } else {
+                getProcessEventsApi().batchEvent(instanceId.getValue(), eventBatch);
+            }
+            sentEvents.add(eventBatch.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Error while sending {} event{} to the server: {}",
+                    eventBatch.size(), eventBatch.size() == 1 ? "" : "s", e.getMessage());
+            return false;
+        } finally {
+            long duration = System.nanoTime() - t1;
+            sendCount.increment();
+            sendTimeNanos.add(duration);
+            maxSendTimeNanos.accumulateAndGet(duration, Math::max);
         }
     }
 
@@ -157,33 +365,104 @@ public class DefaultEventReportingService implements EventReportingService, Exec
      * @return batch of up-to {@link #maxBatchSize} queued process events
      */
     private List<ProcessEventRequest> takeBatch() {
-        List<ProcessEventRequest> batch = new ArrayList<>(maxBatchSize);
+        List<ProcessEventRequest> batch = new ArrayList<>(Math.min(maxBatchSize, eventQueue.size()));
+        eventQueue.drainTo(batch, maxBatchSize);
+        return batch;
+    }
 
-        synchronized (batchLock) { // avoid draining while an element may be added
-            eventQueue.drainTo(batch, maxBatchSize);
+    private List<ProcessEventRequest> takeAll() {
+        List<ProcessEventRequest> result = new ArrayList<>(eventQueue.size());
+        eventQueue.drainTo(result);
+        return result;
+    }
+
+    private void spool(List<ProcessEventRequest> events) {
+        if (events.isEmpty()) {
+            return;
         }
 
-        return batch;
+        ObjectMapper om = objectMapper();
+        synchronized (spoolLock) {
+            try {
+                persistenceService.persistFile(SPOOL_FILE_NAME, out -> {
+                    for (ProcessEventRequest e : events) {
+                        out.write(om.writeValueAsBytes(e));
+                        out.write('\n');
+                    }
+                }, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                spoolExists = true;
+                spooledEvents.add(events.size());
+            } catch (Exception e) {
+                log.warn("Can't save {} event(s): {}", events.size(), e.getMessage());
+            }
+        }
     }
 
-    private static class FlushTimer extends TimerTask {
-        private final DefaultEventReportingService reportingService;
+    /**
+     * Re-sends the spooled events. Events that still can't be sent are
+     * written back into the spool file.
+     */
+    private void retrySpool() {
+        List<ProcessEventRequest> events;
+        synchronized (spoolLock) {
+            if (!spoolExists) {
+                return;
+            }
+
+            try {
+                events = loadSpool();
+                persistenceService.deletePersistedFile(SPOOL_FILE_NAME);
+                spoolExists = false;
+            } catch (Exception e) {
+                log.warn("Can't load spooled events: {}", e.getMessage());
+                return;
+            }
+        }
 
-        public FlushTimer(DefaultEventReportingService reportingService) {
-            this.reportingService = reportingService;
+        if (events == null || events.isEmpty()) {
+            return;
         }
 
-        @Override
-        public void run() {
-            reportingService.flush();
+        log.info("Re-sending {} spooled event(s)", events.size());
+
+        for (int i = 0; i < events.size(); i += maxBatchSize) {
+            List<ProcessEventRequest> batch = events.subList(i, Math.min(events.size(), i + maxBatchSize));
+            if (!send(batch)) {
+                spool(events.subList(i, events.size()));
+                return;
+            }
         }
     }
 
-    private void saveEvent(ProcessEventRequest event) {
-        try {
-            persistenceService.persistFile("invalid_event_" + UUID.randomUUID() + ".json", out -> processEventsApi.getApiClient().getObjectMapper().writeValue(out, event));
-        } catch (Exception e) {
-            log.warn("can't save event", e);
+    private List<ProcessEventRequest> loadSpool() {
+        ObjectMapper om = objectMapper();
+        return persistenceService.loadPersistedFile(SPOOL_FILE_NAME, in -> {
+            List<ProcessEventRequest> result = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    result.add(om.readValue(line, ProcessEventRequest.class));
+                }
+            }
+            return result;
+        });
+    }
+
+    private ObjectMapper objectMapper() {
+        return processEventsApi.getApiClient().getObjectMapper();
+    }
+
+    private void logStats() {
+        long count = sendCount.sum();
+        if (count == 0) {
+            return;
         }
+
+        log.debug("Event reporting stats: sent={}, spooled={}, requests={}, avgSendTime={}ms, maxSendTime={}ms, peakQueueDepth={}",
+                sentEvents.sum(), spooledEvents.sum(), count,
+                String.format("%.2f", averageSendTimeMs()),
+                TimeUnit.NANOSECONDS.toMillis(maxSendTimeNanos.get()),
+                peakQueueDepth.get());
     }
 }
@@ -21,13 +21,20 @@ package com.walmartlabs.concord.runtime.v2.runner;
  */
 
 import com.google.inject.Injector;
+import com.walmartlabs.concord.runtime.common.cfg.RunnerConfiguration;
+import com.walmartlabs.concord.runtime.common.cfg.ThreadMode;
+import com.walmartlabs.concord.runtime.v2.runner.el.ExpressionCache;
 import com.walmartlabs.concord.svm.*;
 import com.walmartlabs.concord.svm.Runtime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DefaultRuntime implements Runtime {
 
@@ -35,18 +42,39 @@ public class DefaultRuntime implements Runtime {
 
     private final VM vm;
     private final Injector injector;
+    private final boolean debug;
+    private final ThreadMode threadMode;
     private final ExecutorService executor;
 
+    private final AtomicInteger activeForks = new AtomicInteger();
+    private final AtomicInteger peakForks = new AtomicInteger();
+    private final AtomicLong totalForks = new AtomicLong();
+
     public DefaultRuntime(VM vm, Injector injector) {
         this.vm = vm;
         this.injector = injector;
 
-        this.executor = Executors.newCachedThreadPool();
+        RunnerConfiguration runnerCfg = injector.getInstance(RunnerConfiguration.class);
+        this.debug = runnerCfg.debug();
+        this.threadMode = effectiveThreadMode(runnerCfg.threadMode());
+        this.executor = createExecutor(threadMode);
     }
 
     @Override
     public void spawn(State state, ThreadId threadId) {
-        executor.submit(() -> eval(state, threadId));
+        int active = activeForks.incrementAndGet();
+        peakForks.accumulateAndGet(active, Math::max);
+        totalForks.incrementAndGet();
+
+        executor.submit(() -> {
+            try {
+                return eval(state, threadId);
+            } finally {
+                if (activeForks.decrementAndGet() == 0) {
+                    reportStats();
+                }
+            }
+        });
     }
 
     @Override
@@ -58,4 +86,45 @@ public class DefaultRuntime implements Runtime {
     public <T> T getService(Class<T> klass) {
         return injector.getInstance(klass);
     }
+
+    /**
+     * Logs the number of forks, the memory usage and the expression cache
+     * statistics once all forked threads are completed.
+     */
+    private void reportStats() {
+        if (!debug && !log.isDebugEnabled()) {
+            return;
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        int platformThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        ExpressionCache.Stats expressions = injector.getInstance(ExpressionCache.class).stats();
+
+        String msg = "forks -> threadMode: {}, total: {}, peak: {}, platform threads: {}, heap used: {}MB, heap max: {}MB, " +
+                "expression cache hits: {}, misses: {}, size: {}";
+        Object[] args = {threadMode, totalForks.get(), peakForks.get(), platformThreads,
+                heap.getUsed() / 1024 / 1024, heap.getMax() / 1024 / 1024,
+                expressions.hits(), expressions.misses(), expressions.size()};
+
+        if (debug) {
+            log.info(msg, args);
+        } else {
+            log.debug(msg, args);
+        }
+    }
+
+    private static ThreadMode effectiveThreadMode(ThreadMode requested) {
+        if (requested == ThreadMode.VIRTUAL && !VirtualThreads.isSupported()) {
+            log.warn("Virtual threads are not supported by the current JVM (Java {}), using platform threads instead", System.getProperty("java.version"));
+            return ThreadMode.PLATFORM;
+        }
+        return requested;
+    }
+
+    private static ExecutorService createExecutor(ThreadMode threadMode) {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            return VirtualThreads.newThreadPerTaskExecutor("fork-");
+        }
+        return Executors.newCachedThreadPool();
+    }
 }
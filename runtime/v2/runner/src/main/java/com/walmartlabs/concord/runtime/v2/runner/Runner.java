@@ -23,6 +23,7 @@ package com.walmartlabs.concord.runtime.v2.runner;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.walmartlabs.concord.runtime.common.cfg.RunnerConfiguration;
 import com.walmartlabs.concord.runtime.common.injector.InstanceId;
 import com.walmartlabs.concord.runtime.v2.model.ProcessDefinition;
 import com.walmartlabs.concord.runtime.v2.runner.compiler.CompilerUtils;
@@ -71,7 +72,7 @@ public class Runner {
         log.debug("start ['{}'] -> running...", processConfiguration.entryPoint());
 
         Command cmd = CompilerUtils.compile(compiler, processConfiguration, processDefinition, processConfiguration.entryPoint());
-        State state = new InMemoryState(cmd);
+        State state = createState(cmd);
         // install the exception handler into the root frame
         // takes care of all unhandled errors bubbling up
         VMUtils.assertNearestRoot(state, state.getRootThreadId())
@@ -100,7 +101,7 @@ public class Runner {
         statusCallback.onRunning(instanceId.getValue());
         log.debug("resume ['{}'] -> running...", eventRefs);
 
-        State state = snapshot.vmState();
+        State state = prepareState(snapshot.vmState());
 
         VM vm = createVM(snapshot.processDefinition());
 
@@ -132,7 +133,7 @@ public class Runner {
         statusCallback.onRunning(instanceId.getValue());
         log.debug("resume -> running...");
 
-        State state = snapshot.vmState();
+        State state = prepareState(snapshot.vmState());
 
         VM vm = createVM(snapshot.processDefinition());
         // update the global variables using the input map by running a special command
@@ -154,6 +155,28 @@ public class Runner {
                 .build();
     }
 
+    private State createState(Command cmd) {
+        if (useConcurrentState()) {
+            return new ConcurrentState(cmd);
+        }
+        return new InMemoryState(cmd);
+    }
+
+    /**
+     * Converts a restored state into the configured implementation.
+     * {@link ConcurrentState} is always saved as {@link InMemoryState}.
+     */
+    private State prepareState(State state) {
+        if (useConcurrentState() && state instanceof InMemoryState s) {
+            return ConcurrentState.from(s);
+        }
+        return state;
+    }
+
+    private boolean useConcurrentState() {
+        return injector.getInstance(RunnerConfiguration.class).concurrentState();
+    }
+
     private VM createVM(ProcessDefinition processDefinition) {
         Collection<ExecutionListener> listeners = new ArrayList<>();
         listeners.add(new SynchronizationServiceListener(synchronizationService));
@@ -20,8 +20,6 @@ package com.walmartlabs.concord.runtime.v2.runner.checkpoints;
  * =====
  */
 
-import com.google.common.annotations.VisibleForTesting;
-import com.walmartlabs.concord.common.ObjectInputStreamWithClassLoader;
 import com.walmartlabs.concord.common.TemporaryPath;
 import com.walmartlabs.concord.runtime.v2.runner.ProcessSnapshot;
 import com.walmartlabs.concord.runtime.v2.runner.vm.VMUtils;
@@ -32,8 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import javax.inject.Named;
-import java.io.*;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -46,22 +43,22 @@ public class DefaultCheckpointService implements CheckpointService {
 
     private final WorkingDirectory workingDirectory;
     private final CheckpointUploader checkpointUploader;
-    private final ClassLoader classLoader;
 
     @Inject
     public DefaultCheckpointService(WorkingDirectory workingDirectory,
-                                    CheckpointUploader checkpointUploader,
-                                    @Named("runtime") ClassLoader classLoader) {
+                                    CheckpointUploader checkpointUploader) {
 
         this.workingDirectory = workingDirectory;
         this.checkpointUploader = checkpointUploader;
-        this.classLoader = classLoader;
     }
 
     @Override
     public void create(ThreadId threadId, UUID correlationId, String name, Runtime runtime, ProcessSnapshot snapshot) {
         validate(threadId, snapshot);
 
+        long t1 = System.currentTimeMillis();
+        long size;
+
         UUID checkpointId = UUID.randomUUID();
 
         try (StateArchive archive = new StateArchive()) {
@@ -71,7 +68,9 @@ public class DefaultCheckpointService implements CheckpointService {
 
             String resumeEventRef = checkpointId.toString();
 
-            State state = clone(snapshot.vmState(), classLoader);
+            // a shallow copy is enough: only the copy's thread data and the root frame
+            // are modified, everything else is written as is into the archive
+            State state = snapshot.vmState().copy();
             state.setEventRef(threadId, resumeEventRef);
             state.setStatus(threadId, ThreadStatus.SUSPENDED);
 
@@ -87,13 +86,14 @@ public class DefaultCheckpointService implements CheckpointService {
                     .withSystemDirectory(workingDirectory.getValue());
 
             try (TemporaryPath zip = archive.zip()) {
+                size = Files.size(zip.path());
                 checkpointUploader.upload(checkpointId, correlationId, name, zip.path());
             }
         } catch (Exception e) {
             throw new RuntimeException("Checkpoint upload error", e);
         }
 
-        log.info("Checkpoint '{}' created", name);
+        log.info("Checkpoint '{}' created (size: {} bytes, took: {}ms)", name, size, System.currentTimeMillis() - t1);
     }
 
     private static void validate(ThreadId threadId, ProcessSnapshot snapshot) {
@@ -104,24 +104,4 @@ public class DefaultCheckpointService implements CheckpointService {
             throw new IllegalStateException("Can't create a checkpoint, the current thread has an unprocessed eventRef: " + eventRef);
         }
     }
-
-    @VisibleForTesting
-    @SuppressWarnings("unchecked")
-    static <T> T clone(T object, ClassLoader cl) throws Exception {
-        byte[] ab;
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ObjectOutputStream oos = new ObjectOutputStream(baos)) {
-            oos.writeObject(object);
-            ab = baos.toByteArray();
-        }
-
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(ab);
-             ObjectInputStream ois = new ObjectInputStreamWithClassLoader(bais, cl)) {
-            return (T) ois.readObject();
-        } catch (OptionalDataException odx) {
-            log.error("Error while cloning an instance of {} (eof={}, length={}) using the provided class loader (name={}, class={})", object.getClass(), odx.eof, odx.length, cl.getName(), cl.getClass());
-            throw odx;
-        }
-    }
 }
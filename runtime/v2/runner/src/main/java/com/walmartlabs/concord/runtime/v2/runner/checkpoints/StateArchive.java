@@ -23,33 +23,54 @@ package com.walmartlabs.concord.runtime.v2.runner.checkpoints;
 import com.walmartlabs.concord.common.PathUtils;
 import com.walmartlabs.concord.common.TemporaryPath;
 import com.walmartlabs.concord.common.ZipUtils;
-import com.walmartlabs.concord.runtime.common.StateManager;
+import com.walmartlabs.concord.runtime.common.SerializationUtils;
 import com.walmartlabs.concord.runtime.v2.runner.ProcessSnapshot;
 import com.walmartlabs.concord.sdk.Constants;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 
-import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+/**
+ * Writes the process state directly into a ZIP archive, without
+ * creating intermediate files or directories.
+ */
 public class StateArchive implements AutoCloseable {
 
-    private final TemporaryPath dir;
+    private static final String STATE_DIR = Constants.Files.JOB_ATTACHMENTS_DIR_NAME + "/" + Constants.Files.JOB_STATE_DIR_NAME + "/";
+
+    private final TemporaryPath dst;
+    private final ZipArchiveOutputStream zip;
+
+    private boolean finished;
 
     public StateArchive() throws IOException {
-        this.dir = PathUtils.tempDir("state-archive");
+        this.dst = new TemporaryPath(PathUtils.createTempFile("state", ".zip"));
+        this.zip = new ZipArchiveOutputStream(dst.path().toFile());
     }
 
     @Override
     public void close() {
-        this.dir.close();
+        if (!finished) {
+            try {
+                zip.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            dst.close();
+        }
     }
 
     public StateArchive withProcessState(ProcessSnapshot snapshot) {
         try {
-            StateManager.saveProcessState(dir.path(), snapshot);
+            zip.putArchiveEntry(new ZipArchiveEntry(STATE_DIR + "instance"));
+            SerializationUtils.serialize(new NonClosingOutputStream(zip), snapshot);
+            zip.closeArchiveEntry();
         } catch (IOException e) {
             throw new RuntimeException("Error while saving process state: " + e.getMessage(), e);
         }
@@ -58,7 +79,14 @@ public class StateArchive implements AutoCloseable {
     }
 
     public StateArchive withResumeEvent(String name) {
-        StateManager.saveResumeEvent(dir.path(), name);
+        try {
+            zip.putArchiveEntry(new ZipArchiveEntry(STATE_DIR + Constants.Files.RESUME_MARKER_FILE_NAME));
+            zip.write(name.getBytes(StandardCharsets.UTF_8));
+            zip.closeArchiveEntry();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while saving a resume event: " + e.getMessage(), e);
+        }
+
         return this;
     }
 
@@ -69,12 +97,7 @@ public class StateArchive implements AutoCloseable {
                 return this;
             }
 
-            Path dst = dir.path().resolve(Constants.Files.CONCORD_SYSTEM_DIR_NAME);
-            if (!Files.exists(dst)) {
-                Files.createDirectories(dst);
-            }
-
-            PathUtils.copy(src, dst);
+            ZipUtils.zip(zip, Constants.Files.CONCORD_SYSTEM_DIR_NAME + "/", src);
         } catch (IOException e) {
             throw new RuntimeException("Error while copying the process' system directory: " + e.getMessage(), e);
         }
@@ -82,12 +105,34 @@ public class StateArchive implements AutoCloseable {
         return this;
     }
 
+    /**
+     * Completes the archive and returns the path to the ZIP file.
+     * The caller is responsible for removing the file.
+     */
     public TemporaryPath zip() throws IOException {
-        Path dst = PathUtils.createTempFile("state", ".zip");
-        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dst));
-             ZipArchiveOutputStream zip = new ZipArchiveOutputStream(out)) {
-            ZipUtils.zip(zip, dir.path());
+        zip.close();
+        finished = true;
+        return dst;
+    }
+
+    /**
+     * Prevents {@link SerializationUtils#serialize(OutputStream, java.io.Serializable)}
+     * from closing the ZIP stream.
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
         }
-        return new TemporaryPath(dst);
     }
 }
@@ -34,13 +34,22 @@ public class DefaultExpressionEvaluator implements ExpressionEvaluator {
 
     private final LazyExpressionEvaluator delegate;
 
-    @Inject
     public DefaultExpressionEvaluator(TaskProviders taskProviders,
                                       FunctionHolder functionHolder,
                                       List<CustomTaskMethodResolver> taskMethodResolvers,
                                       List<CustomBeanMethodResolver> beanMethodResolvers,
                                       SensitiveDataProcessor sensitiveDataProcessor) {
-        this.delegate = new LazyExpressionEvaluator(taskProviders, functionHolder, taskMethodResolvers, beanMethodResolvers, sensitiveDataProcessor);
+        this(taskProviders, functionHolder, taskMethodResolvers, beanMethodResolvers, sensitiveDataProcessor, new ExpressionCache());
+    }
+
+    @Inject
+    public DefaultExpressionEvaluator(TaskProviders taskProviders,
+                                      FunctionHolder functionHolder,
+                                      List<CustomTaskMethodResolver> taskMethodResolvers,
+                                      List<CustomBeanMethodResolver> beanMethodResolvers,
+                                      SensitiveDataProcessor sensitiveDataProcessor,
+                                      ExpressionCache expressionCache) {
+        this.delegate = new LazyExpressionEvaluator(taskProviders, functionHolder, taskMethodResolvers, beanMethodResolvers, sensitiveDataProcessor, expressionCache);
     }
 
     @Override
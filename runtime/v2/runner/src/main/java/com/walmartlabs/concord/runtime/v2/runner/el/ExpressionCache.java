@@ -0,0 +1,110 @@
+package com.walmartlabs.concord.runtime.v2.runner.el;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import javax.el.ValueExpression;
+import javax.inject.Singleton;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of parsed {@link ValueExpression}s keyed by the expression
+ * text and the expected type.
+ * <p/>
+ * Parsed expressions don't depend on the {@link javax.el.ELContext} they
+ * were created with (except for the function mapper which is the same for
+ * the whole process), so they can be reused between evaluations and threads.
+ * <p/>
+ * The cache is bounded. When full, arbitrary entries are evicted.
+ */
+@Singleton
+public class ExpressionCache {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final int maxSize;
+    private final Map<Key, ValueExpression> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ExpressionCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of cached expressions. {@code 0} disables the cache.
+     */
+    public ExpressionCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached expression or creates a new one using the provided
+     * {@code parser}. Exceptions thrown by the parser are propagated, failed
+     * expressions are not cached.
+     */
+    public ValueExpression get(String expr, Class<?> expectedType, Supplier<ValueExpression> parser) {
+        Key key = new Key(expr, expectedType);
+
+        ValueExpression result = cache.get(key);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+
+        misses.increment();
+
+        result = parser.get();
+        if (maxSize <= 0) {
+            return result;
+        }
+
+        if (cache.size() >= maxSize) {
+            evict();
+        }
+
+        ValueExpression prev = cache.putIfAbsent(key, result);
+        return prev != null ? prev : result;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), cache.size());
+    }
+
+    private void evict() {
+        // remove ~10% of the entries to avoid evicting on each miss
+        int n = Math.max(1, maxSize / 10);
+        Iterator<Key> it = cache.keySet().iterator();
+        while (n-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public record Stats(long hits, long misses, int size) {
+    }
+
+    private record Key(String expr, Class<?> expectedType) {
+    }
+}
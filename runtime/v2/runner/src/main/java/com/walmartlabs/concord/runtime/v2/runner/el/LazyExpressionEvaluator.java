@@ -47,17 +47,27 @@ public class LazyExpressionEvaluator implements ExpressionEvaluator {
     private final List<CustomTaskMethodResolver> taskMethodResolvers;
     private final List<CustomBeanMethodResolver> beanMethodResolvers;
     private final SensitiveDataProcessor sensitiveDataProcessor;
+    private final ExpressionCache expressionCache;
+
+    // stateless resolvers, shared between evaluations
+    private final ELResolver commonResolver;
+    private final ELResolver beanResolver;
 
     public LazyExpressionEvaluator(TaskProviders taskProviders,
                                    FunctionHolder functionHolder,
                                    List<CustomTaskMethodResolver> taskMethodResolvers,
                                    List<CustomBeanMethodResolver> beanMethodResolvers,
-                                   SensitiveDataProcessor sensitiveDataProcessor) {
+                                   SensitiveDataProcessor sensitiveDataProcessor,
+                                   ExpressionCache expressionCache) {
         this.taskProviders = taskProviders;
         this.sensitiveDataProcessor = sensitiveDataProcessor;
         this.functionMapper = new DelegatingFunctionMapper(functionHolder);
         this.taskMethodResolvers = taskMethodResolvers;
         this.beanMethodResolvers = beanMethodResolvers;
+        this.expressionCache = expressionCache;
+
+        this.commonResolver = createCommonResolver(expressionFactory, sensitiveDataProcessor);
+        this.beanResolver = new CompositeBeanELResolver(taskMethodResolvers, beanMethodResolvers, sensitiveDataProcessor);
     }
 
     @Override
@@ -124,7 +134,7 @@ public class LazyExpressionEvaluator implements ExpressionEvaluator {
     }
 
     private <T> T evalExpr(LazyEvalContext ctx, String expr, Class<T> type) {
-        var resolver = createResolver(ctx, expressionFactory);
+        var resolver = createResolver(ctx);
 
         var sc = new StandardELContext(expressionFactory) {
             @Override
@@ -140,7 +150,7 @@ public class LazyExpressionEvaluator implements ExpressionEvaluator {
         sc.putContext(ExpressionFactory.class, expressionFactory);
 
         try {
-            var x = expressionFactory.createValueExpression(sc, expr, type);
+            var x = expressionCache.get(expr, type, () -> expressionFactory.createValueExpression(sc, expr, type));
             var v = withEvalContext(ctx, () -> x.getValue(sc));
             return type.cast(v);
         } catch (PropertyNotFoundException e) {
@@ -177,10 +187,9 @@ public class LazyExpressionEvaluator implements ExpressionEvaluator {
     /**
      * Based on the original code from {@link StandardELContext#getELResolver()}.
      * Creates a {@link ELResolver} instance with "sub-resolvers" in the original order.
+     * Only the context-dependent resolvers are created for each evaluation.
      */
-    private ELResolver createResolver(LazyEvalContext evalContext,
-                                      ExpressionFactory expressionFactory) {
-
+    private ELResolver createResolver(LazyEvalContext evalContext) {
         var r = new CompositeELResolver();
         if (evalContext.scope() != null) {
             r.add(new VariableResolver(evalContext.scope()));
@@ -189,6 +198,18 @@ public class LazyExpressionEvaluator implements ExpressionEvaluator {
         if (evalContext.context() != null) {
             r.add(new TaskResolver(evalContext.context(), taskProviders));
         }
+        r.add(commonResolver);
+        if (evalContext.context() != null) {
+            r.add(new TaskMethodResolver(taskMethodResolvers, evalContext.context(), sensitiveDataProcessor));
+        }
+        r.add(beanResolver);
+        return r;
+    }
+
+    private static ELResolver createCommonResolver(ExpressionFactory expressionFactory,
+                                                   SensitiveDataProcessor sensitiveDataProcessor) {
+
+        var r = new CompositeELResolver();
         r.add(expressionFactory.getStreamELResolver());
         r.add(new StaticFieldELResolver());
         r.add(new MapELResolver(sensitiveDataProcessor));
@@ -196,10 +217,6 @@ public class LazyExpressionEvaluator implements ExpressionEvaluator {
         r.add(new ResourceBundleELResolver());
         r.add(new ListELResolver());
         r.add(new ArrayELResolver());
-        if (evalContext.context() != null) {
-            r.add(new TaskMethodResolver(taskMethodResolvers, evalContext.context(), sensitiveDataProcessor));
-        }
-        r.add(new CompositeBeanELResolver(taskMethodResolvers, beanMethodResolvers, sensitiveDataProcessor));
         return r;
     }
 
@@ -27,6 +27,13 @@ public final class LogUtils {
      */
     private static final int MAX_DEPTH = 100;
 
+    /**
+     * Log context of the current thread, used instead of {@link LogContextThreadGroup}
+     * when the thread group can't be changed (e.g. in virtual threads).
+     * Inherited by the threads created in the scope of the context.
+     */
+    private static final InheritableThreadLocal<LogContext> CURRENT = new InheritableThreadLocal<>();
+
     public static Long getSegmentId() {
         LogContext ctx = getContext();
         if (ctx == null) {
@@ -36,6 +43,11 @@ public final class LogUtils {
     }
 
     public static LogContext getContext() {
+        LogContext current = CURRENT.get();
+        if (current != null) {
+            return current;
+        }
+
         int depth = 0;
 
         ThreadGroup g = Thread.currentThread().getThreadGroup();
@@ -61,6 +73,24 @@ public final class LogUtils {
         return null;
     }
 
+    /**
+     * Runs the {@link Runnable} in the current thread with the specified log context.
+     * Unlike {@link LogContextThreadGroup} it doesn't require a new thread.
+     */
+    public static void withContext(LogContext context, Runnable runnable) {
+        LogContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            runnable.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
     private LogUtils() {
     }
 }
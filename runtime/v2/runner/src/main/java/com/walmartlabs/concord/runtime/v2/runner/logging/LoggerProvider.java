@@ -21,6 +21,7 @@ package com.walmartlabs.concord.runtime.v2.runner.logging;
  */
 
 import com.walmartlabs.concord.runtime.common.cfg.RunnerConfiguration;
+import com.walmartlabs.concord.runtime.common.cfg.ThreadMode;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -42,7 +43,9 @@ public class LoggerProvider implements Provider<RunnerLogger> {
 
     private static RunnerLogger createLogger(RunnerConfiguration runnerCfg, LoggingClient loggingClient) {
         if (runnerCfg.logging().segmentedLogs()) {
-            return new SegmentedLogger(loggingClient);
+            // virtual threads can't be started in a custom ThreadGroup
+            boolean threadLocalContext = runnerCfg.threadMode() == ThreadMode.VIRTUAL;
+            return new SegmentedLogger(loggingClient, threadLocalContext);
         } else {
             return new SimpleLogger();
         }
@@ -44,9 +44,21 @@ public class SegmentedLogger implements RunnerLogger {
     private static final Logger log = LoggerFactory.getLogger(SegmentedLogger.class);
 
     private final LoggingClient loggingClient;
+    private final boolean threadLocalContext;
 
     public SegmentedLogger(LoggingClient loggingClient) {
+        this(loggingClient, false);
+    }
+
+    /**
+     * @param threadLocalContext if {@code true} the log context is kept in a thread-local
+     *                           variable of the current thread instead of starting a new
+     *                           thread in a {@link LogContextThreadGroup}. Required for
+     *                           virtual threads which can't use custom thread groups.
+     */
+    public SegmentedLogger(LoggingClient loggingClient, boolean threadLocalContext) {
         this.loggingClient = loggingClient;
+        this.threadLocalContext = threadLocalContext;
     }
 
     @Override
@@ -69,15 +81,22 @@ public class SegmentedLogger implements RunnerLogger {
 
     @Override
     public void withContext(LogContext context, Runnable runnable) {
-        ThreadGroup threadGroup = new LogContextThreadGroup(context);
-        executeInThreadGroup(threadGroup, "thread-" + context.segmentName(), () -> {
+        Runnable r = () -> {
             // make sure the redirection is enabled in the current thread
             if (context.redirectSystemOutAndErr() && !SysOutOverSLF4J.systemOutputsAreSLF4JPrintStreams()) {
                 SysOutOverSLF4J.sendSystemOutAndErrToSLF4J(LogLevel.INFO, LogLevel.ERROR);
             }
 
             runnable.run();
-        });
+        };
+
+        if (threadLocalContext) {
+            LogUtils.withContext(context, r);
+            return;
+        }
+
+        ThreadGroup threadGroup = new LogContextThreadGroup(context);
+        executeInThreadGroup(threadGroup, "thread-" + context.segmentName(), r);
     }
 
     public static String getSegmentName(AbstractStep<?> step) {
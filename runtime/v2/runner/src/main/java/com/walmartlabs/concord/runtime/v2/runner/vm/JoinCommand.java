@@ -35,7 +35,6 @@ public class JoinCommand<T extends Step> extends StepCommand<T> {
     private static final long serialVersionUID = 1L;
 
     private static final Logger log = LoggerFactory.getLogger(JoinCommand.class);
-    private static final long BUSY_WAIT_SLEEP = 100; // how often poll status of threads, milliseconds
 
     private final Collection<ThreadId> ids;
 
@@ -47,9 +46,9 @@ public class JoinCommand<T extends Step> extends StepCommand<T> {
 
     @Override
     protected void execute(Runtime runtime, State state, ThreadId threadId) {
-        // Here's a very dumb but working solution to the problem
-        // of monitoring child thread state - just a loop
-        // waiting on a monitor . On each iteration it decides whether
+        // Block until all child threads are done, failed or suspended.
+        // The state wakes us up whenever a thread stops, so there's no need
+        // to poll. Once the children are stopped we decide whether
         // the join command can be removed from the stack (and thus
         // continuing the execution) or not.
         // We could've used futures instead, but it's way more
@@ -77,30 +76,11 @@ public class JoinCommand<T extends Step> extends StepCommand<T> {
     }
 
     private Map<ThreadId, ThreadStatus> waitForChildren(State state) {
-        while (true) {
-            var allStatuses = state.threadStatus();
-
-            var targets = new HashMap<ThreadId, ThreadStatus>();
-            var active = false;
-            for (var id : ids) {
-                // null means the thread completed and was removed by gc()
-                var s = allStatuses.getOrDefault(id, ThreadStatus.DONE);
-                targets.put(id, s);
-                if (s == ThreadStatus.READY || s == ThreadStatus.UNWINDING) {
-                    active = true;
-                }
-            }
-
-            if (!active) {
-                return targets;
-            }
-
-            try {
-                Thread.sleep(BUSY_WAIT_SLEEP);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("JoinCommand interrupted", e);
-            }
+        try {
+            return state.awaitThreads(ids);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("JoinCommand interrupted", e);
         }
     }
 }
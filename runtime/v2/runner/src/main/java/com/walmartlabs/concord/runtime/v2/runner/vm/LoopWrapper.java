@@ -203,7 +203,6 @@ public abstract class LoopWrapper implements Command {
     static class ParallelLoopCommand extends StepCommand<Step> {
 
         private static final long serialVersionUID = 1L;
-        private static final long BUSY_WAIT_SLEEP = 100;
 
         private final Command cmd;
         private final ArrayList<Serializable> items;
@@ -241,7 +240,7 @@ public abstract class LoopWrapper implements Command {
                 boolean hasRunning = updateActiveThreads(statuses);
                 if (!failed.isEmpty()) {
                     if (hasRunning) {
-                        sleep();
+                        await(state, active, true);
                         continue;
                     }
 
@@ -271,7 +270,11 @@ public abstract class LoopWrapper implements Command {
                     return;
                 }
 
-                sleep();
+                // wait for any of the running threads to stop
+                Map<ThreadId, ThreadStatus> current = statuses;
+                await(state, active.stream()
+                        .filter(id -> current.getOrDefault(id, ThreadStatus.DONE).isActive())
+                        .toList(), false);
             }
         }
 
@@ -328,9 +331,9 @@ public abstract class LoopWrapper implements Command {
             return true;
         }
 
-        private static void sleep() {
+        private static void await(State state, Collection<ThreadId> ids, boolean all) {
             try {
-                Thread.sleep(BUSY_WAIT_SLEEP);
+                state.awaitThreads(ids, all);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new RuntimeException("Parallel loop interrupted", e);
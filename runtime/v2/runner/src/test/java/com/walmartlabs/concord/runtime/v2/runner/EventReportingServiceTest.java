@@ -20,76 +20,216 @@ package com.walmartlabs.concord.runtime.v2.runner;
  * =====
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.walmartlabs.concord.client2.ApiClient;
+import com.walmartlabs.concord.client2.ApiException;
 import com.walmartlabs.concord.client2.ProcessEventRequest;
 import com.walmartlabs.concord.client2.ProcessEventsApi;
 import com.walmartlabs.concord.runtime.common.injector.InstanceId;
 import com.walmartlabs.concord.runtime.v2.model.EventConfiguration;
 import com.walmartlabs.concord.runtime.v2.sdk.ProcessConfiguration;
+import com.walmartlabs.concord.runtime.v2.sdk.WorkingDirectory;
+import com.walmartlabs.concord.sdk.Constants;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class EventReportingServiceTest {
 
     @Test
-    void testSingle() {
+    void testSingle() throws Exception {
         var evs = getService(1);
         evs.report(new ProcessEventRequest());
         evs.report(new ProcessEventRequest());
         evs.report(new ProcessEventRequest());
         evs.report(new ProcessEventRequest());
 
-        assertEquals(4, evs.flushCounter.get());
-
         evs.afterProcessEnds(null, null, null);
 
-        assertEquals(5, evs.flushCounter.get());
+        verify(evs.mockProcessEventsApi, times(4)).event(any(), any());
+        verify(evs.mockProcessEventsApi, never()).batchEvent(any(), anyList());
+        assertEquals(0, evs.queueDepth());
     }
 
     @Test
-    void testBatch() {
+    void testBatch() throws Exception {
         var evs = getService(2);
         evs.report(new ProcessEventRequest());
         evs.report(new ProcessEventRequest());
         evs.report(new ProcessEventRequest());
         evs.report(new ProcessEventRequest());
 
-        assertEquals(2, evs.flushCounter.get());
+        evs.afterProcessEnds(null, null, null);
+
+        verify(evs.mockProcessEventsApi, times(2)).batchEvent(any(), argThat(l -> l.size() == 2));
+        verify(evs.mockProcessEventsApi, never()).event(any(), any());
+    }
+
+    @Test
+    void testReportDoesNotWaitForServer() throws Exception {
+        var evs = getService(2);
+
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(evs.mockProcessEventsApi).batchEvent(any(), anyList());
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            evs.report(new ProcessEventRequest());
+        }
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t1);
+
+        assertTrue(duration < 5000, "report() took " + duration + "ms");
+
+        release.countDown();
+        evs.afterProcessEnds(null, null, null);
+
+        verify(evs.mockProcessEventsApi, times(50)).batchEvent(any(), anyList());
+        assertEquals(0, evs.queueDepth());
+    }
+
+    @Test
+    void testFailedEventsAreSpooled(@TempDir Path workDir) throws Exception {
+        var evs = getService(2, new DefaultPersistenceService(new WorkingDirectory(workDir)));
+
+        doThrow(new ApiException("boom")).when(evs.mockProcessEventsApi).batchEvent(any(), anyList());
+
+        evs.report(event("a"));
+        evs.report(event("b"));
+        evs.afterProcessEnds(null, null, null);
+
+        Path spool = workDir.resolve(Constants.Files.JOB_ATTACHMENTS_DIR_NAME)
+                .resolve(DefaultEventReportingService.SPOOL_FILE_NAME);
+
+        List<String> lines = Files.readAllLines(spool);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"a\""));
+        assertTrue(lines.get(1).contains("\"b\""));
+        assertEquals(0, evs.queueDepth());
+    }
+
+    @Test
+    void testSenderSurvivesUnexpectedErrors(@TempDir Path workDir) throws Exception {
+        var evs = getService(2, new DefaultPersistenceService(new WorkingDirectory(workDir)));
+
+        CountDownLatch sent = new CountDownLatch(2);
+        doThrow(new RuntimeException("boom"))
+                .doAnswer(invocation -> {
+                    sent.countDown();
+                    return null;
+                })
+                .when(evs.mockProcessEventsApi).batchEvent(any(), anyList());
+
+        evs.report(event("a"));
+        evs.report(event("b"));
+        evs.report(event("c"));
+        evs.report(event("d"));
+
+        // the new batch and the spooled one are sent by the sender thread, before the final flush
+        assertTrue(sent.await(10, TimeUnit.SECONDS));
 
         evs.afterProcessEnds(null, null, null);
 
-        assertEquals(3, evs.flushCounter.get());
+        verify(evs.mockProcessEventsApi, times(3)).batchEvent(any(), anyList());
+        assertFalse(Files.exists(workDir.resolve(Constants.Files.JOB_ATTACHMENTS_DIR_NAME)
+                .resolve(DefaultEventReportingService.SPOOL_FILE_NAME)));
+    }
+
+    @Test
+    void testEventsReportedDuringStopAreSent() throws Exception {
+        var evs = getService(10);
+
+        AtomicInteger sent = new AtomicInteger();
+        doAnswer(invocation -> {
+            sent.addAndGet(invocation.<List<?>>getArgument(1).size());
+            return null;
+        }).when(evs.mockProcessEventsApi).batchEvent(any(), anyList());
+        doAnswer(invocation -> {
+            sent.incrementAndGet();
+            return null;
+        }).when(evs.mockProcessEventsApi).event(any(), any());
+
+        int threads = 4;
+        int eventsPerThread = 1000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < eventsPerThread; j++) {
+                        evs.report(new ProcessEventRequest());
+                    }
+                }));
+            }
+
+            evs.afterProcessEnds(null, null, null);
+
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * eventsPerThread, sent.get());
+        assertEquals(0, evs.queueDepth());
+    }
+
+    private static ProcessEventRequest event(String type) {
+        ProcessEventRequest req = new ProcessEventRequest();
+        req.setEventType(type);
+        return req;
     }
 
     private static MockedEventReportingService getService(int batchSize) {
+        return getService(batchSize, mock(PersistenceService.class));
+    }
+
+    private static MockedEventReportingService getService(int batchSize, PersistenceService persistenceService) {
         ProcessConfiguration processCfg = ProcessConfiguration.builder()
                 .events(EventConfiguration.builder()
                         .batchSize(batchSize)
                         .build())
                 .build();
 
-        return new MockedEventReportingService(processCfg);
+        ApiClient apiClient = mock(ApiClient.class);
+        when(apiClient.getObjectMapper()).thenReturn(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+        return new MockedEventReportingService(processCfg, apiClient, persistenceService);
     }
 
     private static class MockedEventReportingService extends DefaultEventReportingService {
+
         final ProcessEventsApi mockProcessEventsApi;
-        private final AtomicInteger flushCounter;
 
-        public MockedEventReportingService(ProcessConfiguration processConfiguration) {
-            super(new InstanceId(UUID.randomUUID()), processConfiguration, mock(ApiClient.class), mock(PersistenceService.class));
+        public MockedEventReportingService(ProcessConfiguration processConfiguration, ApiClient apiClient, PersistenceService persistenceService) {
+            super(new InstanceId(UUID.randomUUID()), processConfiguration, apiClient, persistenceService);
             this.mockProcessEventsApi = mock(ProcessEventsApi.class);
-            this.flushCounter = new AtomicInteger();
-        }
-
-        @Override
-        void flush() {
-            super.flush();
-            flushCounter.incrementAndGet();
         }
 
         @Override
@@ -20,20 +20,73 @@ package com.walmartlabs.concord.runtime.v2.runner.checkpoints;
  * =====
  */
 
+import com.walmartlabs.concord.common.ObjectInputStreamWithClassLoader;
+import com.walmartlabs.concord.runtime.v2.model.ProcessDefinition;
+import com.walmartlabs.concord.runtime.v2.runner.ProcessSnapshot;
+import com.walmartlabs.concord.runtime.v2.sdk.WorkingDirectory;
+import com.walmartlabs.concord.svm.*;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-import java.io.Serializable;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static com.walmartlabs.concord.sdk.Constants.Request.RESUME_EVENTS_KEY;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class DefaultCheckpointServiceTest {
 
     @Test
-    public void simpleClone() throws Exception {
-        record Foo(String value) implements Serializable {
+    public void testCreate(@TempDir Path workDir) throws Exception {
+        Path systemDir = Files.createDirectories(workDir.resolve(".concord"));
+        Files.writeString(systemDir.resolve("test.txt"), "hello");
+
+        InMemoryState state = new InMemoryState(Frame.builder().root().build());
+        ThreadId threadId = state.getRootThreadId();
+
+        ProcessSnapshot snapshot = ProcessSnapshot.builder()
+                .vmState(state)
+                .processDefinition(ProcessDefinition.builder().build())
+                .build();
+
+        Map<String, byte[]> entries = new HashMap<>();
+        CheckpointUploader uploader = (checkpointId, correlationId, name, path) -> {
+            try (ZipFile zip = new ZipFile(path.toFile())) {
+                for (ZipArchiveEntry e : Collections.list(zip.getEntries())) {
+                    try (InputStream in = zip.getInputStream(e)) {
+                        entries.put(e.getName(), in.readAllBytes());
+                    }
+                }
+            }
+        };
+
+        new DefaultCheckpointService(new WorkingDirectory(workDir), uploader)
+                .create(threadId, UUID.randomUUID(), "first", null, snapshot);
+
+        assertEquals("hello", new String(entries.get(".concord/test.txt"), StandardCharsets.UTF_8));
+
+        String eventRef = new String(entries.get("_attachments/_state/_resume"), StandardCharsets.UTF_8);
+
+        ProcessSnapshot saved;
+        try (ObjectInputStream in = new ObjectInputStreamWithClassLoader(new ByteArrayInputStream(entries.get("_attachments/_state/instance")), getClass().getClassLoader())) {
+            saved = (ProcessSnapshot) in.readObject();
         }
-        var input = new Foo("foo");
-        var output = DefaultCheckpointService.clone(input, input.getClass().getClassLoader());
-        assertEquals(input, output);
+
+        State savedState = saved.vmState();
+        assertEquals(eventRef, savedState.getEventRefs().get(threadId));
+        assertEquals(ThreadStatus.SUSPENDED, savedState.getStatus(threadId));
+        assertEquals(List.of("first"), savedState.getFrames(threadId).get(0).getLocal(RESUME_EVENTS_KEY));
+
+        // the original state must not be affected
+        assertTrue(state.getEventRefs().isEmpty());
+        assertNull(state.getStatus(threadId));
+        assertFalse(state.getFrames(threadId).get(0).hasLocal(RESUME_EVENTS_KEY));
     }
 }
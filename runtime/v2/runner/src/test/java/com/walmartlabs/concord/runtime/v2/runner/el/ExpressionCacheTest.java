@@ -0,0 +1,75 @@
+package com.walmartlabs.concord.runtime.v2.runner.el;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.runtime.v2.runner.el.resolvers.SensitiveDataProcessor;
+import com.walmartlabs.concord.runtime.v2.runner.tasks.TaskProviders;
+import com.walmartlabs.concord.runtime.v2.sdk.EvalContext;
+import com.walmartlabs.concord.runtime.v2.sdk.ExpressionEvaluator;
+import org.junit.jupiter.api.Test;
+
+import javax.el.ValueExpression;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ExpressionCacheTest {
+
+    @Test
+    public void testCachedEvaluation() {
+        ExpressionCache cache = new ExpressionCache();
+        ExpressionEvaluator ee = new DefaultExpressionEvaluator(new TaskProviders(), new FunctionHolder(), List.of(), List.of(), mock(SensitiveDataProcessor.class), cache);
+
+        for (int i = 0; i < 3; i++) {
+            EvalContext ctx = new EvalContextFactoryImpl().global(new SingleFrameContext(Map.of("item", Map.of("name", "item" + i))));
+            assertEquals("item" + i, ee.eval(ctx, "${item.name}", String.class));
+        }
+
+        ExpressionCache.Stats stats = cache.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    public void testBounded() {
+        ExpressionCache cache = new ExpressionCache(10);
+        for (int i = 0; i < 100; i++) {
+            cache.get("${x" + i + "}", Object.class, () -> mock(ValueExpression.class));
+        }
+
+        assertTrue(cache.stats().size() <= 10);
+        assertEquals(100, cache.stats().misses());
+    }
+
+    @Test
+    public void testDisabled() {
+        ExpressionCache cache = new ExpressionCache(0);
+        cache.get("${x}", Object.class, () -> mock(ValueExpression.class));
+        cache.get("${x}", Object.class, () -> mock(ValueExpression.class));
+
+        assertEquals(0, cache.stats().hits());
+        assertEquals(2, cache.stats().misses());
+        assertEquals(0, cache.stats().size());
+    }
+}
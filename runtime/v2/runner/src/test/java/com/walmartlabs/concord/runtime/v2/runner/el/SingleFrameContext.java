@@ -191,6 +191,11 @@ public class SingleFrameContext extends DummyContext {
                     public void gc() {
                         throw new IllegalStateException("Not implemented");
                     }
+
+                    @Override
+                    public State copy() {
+                        throw new IllegalStateException("Not implemented");
+                    }
                 };
             }
 
@@ -0,0 +1,70 @@
+package com.walmartlabs.concord.runtime.v2.runner.logging;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogUtilsTest {
+
+    @Test
+    public void testThreadLocalContext() throws Exception {
+        LogContext outer = context(1L, "outer");
+        LogContext inner = context(2L, "inner");
+
+        assertNull(LogUtils.getContext());
+
+        AtomicReference<LogContext> fromChildThread = new AtomicReference<>();
+        LogUtils.withContext(outer, () -> {
+            assertSame(outer, LogUtils.getContext());
+
+            LogUtils.withContext(inner, () -> assertEquals(2L, LogUtils.getSegmentId()));
+
+            // restored after the nested scope
+            assertSame(outer, LogUtils.getContext());
+
+            // threads started in the scope inherit the context
+            Thread t = new Thread(() -> fromChildThread.set(LogUtils.getContext()));
+            t.start();
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertSame(outer, fromChildThread.get());
+        assertNull(LogUtils.getContext());
+    }
+
+    private static LogContext context(long segmentId, String segmentName) {
+        return LogContext.builder()
+                .segmentId(segmentId)
+                .segmentName(segmentName)
+                .correlationId(UUID.randomUUID())
+                .redirectSystemOutAndErr(false)
+                .build();
+    }
+}
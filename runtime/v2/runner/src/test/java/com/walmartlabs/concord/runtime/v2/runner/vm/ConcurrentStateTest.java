@@ -0,0 +1,121 @@
+package com.walmartlabs.concord.runtime.v2.runner.vm;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.svm.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentStateTest {
+
+    @Test
+    public void testSerializedAsInMemoryState() throws Exception {
+        ConcurrentState state = new ConcurrentState(Frame.builder().root().build());
+
+        ThreadId root = state.getRootThreadId();
+        ThreadId child = state.nextThreadId();
+        state.fork(root, child);
+        state.setStatus(child, ThreadStatus.SUSPENDED);
+        state.setEventRef(child, "ev1");
+        state.setThreadLocal(child, "k", "v");
+        state.pushStackTraceItem(child, new StackTraceItem(null, child, "concord.yml", "myFlow", 1, 2));
+
+        State restored = roundTrip(state);
+        assertInstanceOf(InMemoryState.class, restored);
+
+        assertEquals(Map.of(child, ThreadStatus.SUSPENDED), restored.threadStatus());
+        assertEquals(Map.of(child, "ev1"), restored.getEventRefs());
+        assertEquals("v", restored.getThreadLocal(child, "k"));
+        assertEquals(1, restored.getFrames(root).size());
+        assertEquals(1, restored.getFrames(child).size());
+        assertEquals(1, restored.getStackTrace(child).size());
+        assertNotEquals(child, restored.nextThreadId());
+
+        ConcurrentState converted = ConcurrentState.from((InMemoryState) restored);
+        assertEquals(root, converted.getRootThreadId());
+        assertEquals(child, converted.removeEventRef("ev1"));
+        assertEquals("v", converted.getThreadLocal(child, "k"));
+        assertEquals(1, converted.getFrames(child).size());
+    }
+
+    @Test
+    public void testGc() {
+        ConcurrentState state = new ConcurrentState(Frame.builder().root().build());
+
+        ThreadId root = state.getRootThreadId();
+        ThreadId done = state.nextThreadId();
+        ThreadId failed = state.nextThreadId();
+        ThreadId handled = state.nextThreadId();
+
+        state.fork(root, done);
+        state.fork(root, failed);
+        state.fork(root, handled);
+
+        state.setStatus(done, ThreadStatus.DONE);
+        state.setStatus(failed, ThreadStatus.FAILED);
+        state.setThreadError(failed, new RuntimeException("boom"));
+        state.setStatus(handled, ThreadStatus.FAILED);
+
+        state.gc();
+
+        assertEquals(Map.of(failed, ThreadStatus.FAILED), state.threadStatus());
+        assertTrue(state.getFrames(done).isEmpty());
+        assertNotNull(state.getThreadError(failed));
+    }
+
+    @Test
+    public void testAwaitThreads() throws Exception {
+        ConcurrentState state = new ConcurrentState(Frame.builder().root().build());
+
+        ThreadId root = state.getRootThreadId();
+        ThreadId child1 = state.nextThreadId();
+        ThreadId child2 = state.nextThreadId();
+        state.fork(root, child1);
+        state.fork(root, child2);
+
+        Thread t = new Thread(() -> {
+            state.setStatus(child1, ThreadStatus.DONE);
+            state.setStatus(child2, ThreadStatus.SUSPENDED);
+        });
+        t.start();
+
+        Map<ThreadId, ThreadStatus> result = state.awaitThreads(List.of(child1, child2));
+        assertEquals(Map.of(child1, ThreadStatus.DONE, child2, ThreadStatus.SUSPENDED), result);
+
+        t.join();
+    }
+
+    private static State roundTrip(State state) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(state);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            return (State) in.readObject();
+        }
+    }
+}
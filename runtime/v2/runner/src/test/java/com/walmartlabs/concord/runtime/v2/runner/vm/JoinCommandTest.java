@@ -24,7 +24,10 @@ import com.walmartlabs.concord.runtime.v2.model.Step;
 import com.walmartlabs.concord.svm.*;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -268,4 +271,45 @@ public class JoinCommandTest {
                 "Foreign thread's error should be untouched");
     }
 
+    @Test
+    public void testShouldWakeUpWhenChildrenComplete() throws Exception {
+        Frame rootFrame = Frame.builder().root().build();
+        InMemoryState state = new InMemoryState(rootFrame);
+
+        ThreadId parentThread = state.getRootThreadId();
+        ThreadId child1 = state.nextThreadId();
+        ThreadId child2 = state.nextThreadId();
+
+        state.setStatus(child1, ThreadStatus.READY);
+        state.setStatus(child2, ThreadStatus.READY);
+
+        JoinCommand<Step> joinCommand = new JoinCommand<>(List.of(child1, child2), null);
+        state.peekFrame(parentThread).push(joinCommand);
+
+        CompletableFuture<Void> join = new CompletableFuture<>();
+        Thread joiner = new Thread(() -> {
+            joinCommand.execute(null, state, parentThread);
+            join.complete(null);
+        });
+        joiner.start();
+
+        // the joiner must block until all children are done
+        awaitBlockedOrDone(joiner);
+        assertFalse(join.isDone());
+
+        state.setStatus(child1, ThreadStatus.DONE);
+        awaitBlockedOrDone(joiner);
+        assertFalse(join.isDone());
+
+        state.setStatus(child2, ThreadStatus.DONE);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> join.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitBlockedOrDone(Thread t) {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (t.getState() != Thread.State.WAITING && t.getState() != Thread.State.TERMINATED) {
+                Thread.onSpinWait();
+            }
+        });
+    }
 }
@@ -0,0 +1,488 @@
+package com.walmartlabs.concord.svm;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ObjectStreamException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link State} implementation for processes with many concurrent threads.
+ * <p/>
+ * Unlike {@link InMemoryState} it doesn't use a single monitor: all data is
+ * partitioned by thread ID using concurrent maps, per-thread structures
+ * (frames, stack traces) are guarded by their own locks and thread status
+ * reads are lock-free.
+ * <p/>
+ * Serialized as {@link InMemoryState}, so the saved state can be restored
+ * by any version of the runtime. Use {@link #from(InMemoryState)} to convert
+ * a restored state back.
+ */
+public class ConcurrentState implements State {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentState.class);
+
+    private final Map<ThreadId, LinkedList<Frame>> frames = new ConcurrentHashMap<>();
+    private final Map<ThreadId, ThreadStatus> threadStatus = new ConcurrentHashMap<>();
+    private final Map<ThreadId, Set<ThreadId>> children = new ConcurrentHashMap<>();
+    private final Map<ThreadId, String> eventRefs = new ConcurrentHashMap<>();
+    private final Map<ThreadId, ThreadError> threadErrors = new ConcurrentHashMap<>();
+    private final Map<ThreadId, LinkedList<StackTraceItem>> stackTrace = new ConcurrentHashMap<>();
+    private final Map<ThreadId, Map<String, Serializable>> threadLocals = new ConcurrentHashMap<>();
+
+    private final ThreadId rootThreadId;
+    private final AtomicLong threadIdSeq;
+
+    // used to notify the threads blocked in awaitThreads
+    private final transient Lock statusLock = new ReentrantLock();
+    private final transient Condition threadStopped = statusLock.newCondition();
+
+    public ConcurrentState(Frame rootFrame) {
+        this.threadIdSeq = new AtomicLong();
+        this.rootThreadId = nextThreadId();
+        pushFrame(rootThreadId, rootFrame);
+    }
+
+    public ConcurrentState(Command cmd) {
+        this(Frame.builder()
+                .root()
+                .commands(cmd)
+                .build());
+    }
+
+    private ConcurrentState(ThreadId rootThreadId, long threadIdSeq) {
+        this.rootThreadId = rootThreadId;
+        this.threadIdSeq = new AtomicLong(threadIdSeq);
+    }
+
+    /**
+     * Creates a new {@link ConcurrentState} using the data of the specified
+     * {@link InMemoryState}, e.g. after restoring a process snapshot.
+     */
+    public static ConcurrentState from(InMemoryState src) {
+        src.lock.lock();
+        try {
+            ConcurrentState dst = new ConcurrentState(src.rootThreadId, src.threadIdSeq);
+
+            src.frames.forEach((k, v) -> dst.frames.put(k, new LinkedList<>(v)));
+            dst.threadStatus.putAll(src.threadStatus);
+            src.children.forEach((k, v) -> dst.children.put(k, newKeySet(v)));
+            dst.eventRefs.putAll(src.eventRefs);
+            // old versions stored exceptions instead of ThreadError instances
+            @SuppressWarnings("unchecked")
+            Map<ThreadId, Object> threadErrors = (Map<ThreadId, Object>) (Map<?, ?>) src.threadErrors;
+            threadErrors.forEach((k, v) -> {
+                if (v != null) {
+                    dst.threadErrors.put(k, StateBackwardCompatibility.processThreadError(v, k));
+                }
+            });
+
+            // for backward compatibility
+            if (src.stackTrace != null) {
+                src.stackTrace.forEach((k, v) -> dst.stackTrace.put(k, new LinkedList<>(v)));
+            }
+
+            // for backward compatibility
+            if (src.threadLocals != null) {
+                src.threadLocals.forEach((k, v) -> dst.threadLocals.put(k, new ConcurrentHashMap<>(v)));
+            }
+
+            return dst;
+        } finally {
+            src.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the current state as {@link InMemoryState}.
+     */
+    public InMemoryState toInMemoryState() {
+        InMemoryState dst = new InMemoryState(rootThreadId, threadIdSeq.get());
+
+        frames.forEach((k, v) -> {
+            synchronized (v) {
+                dst.frames.put(k, new LinkedList<>(v));
+            }
+        });
+        dst.threadStatus.putAll(threadStatus);
+        children.forEach((k, v) -> dst.children.put(k, new HashSet<>(v)));
+        dst.eventRefs.putAll(eventRefs);
+        dst.threadErrors.putAll(threadErrors);
+        stackTrace.forEach((k, v) -> {
+            synchronized (v) {
+                dst.stackTrace.put(k, new LinkedList<>(v));
+            }
+        });
+        threadLocals.forEach((k, v) -> dst.threadLocals.put(k, new HashMap<>(v)));
+
+        return dst;
+    }
+
+    @Override
+    public void pushFrame(ThreadId threadId, Frame frame) {
+        log.trace("pushFrame {}", threadId);
+
+        LinkedList<Frame> l = frames.computeIfAbsent(threadId, key -> new LinkedList<>());
+        synchronized (l) {
+            l.addFirst(frame);
+        }
+    }
+
+    @Override
+    public Frame peekFrame(ThreadId threadId) {
+        LinkedList<Frame> l = frames.get(threadId);
+        if (l == null) {
+            return null;
+        }
+
+        synchronized (l) {
+            return l.peekFirst();
+        }
+    }
+
+    @Override
+    public void popFrame(ThreadId threadId) {
+        log.trace("popFrame {}", threadId);
+
+        LinkedList<Frame> l = frames.get(threadId);
+        if (l == null) {
+            throw new IllegalStateException("Call frame doesn't exist: " + threadId);
+        }
+
+        Frame removed;
+        synchronized (l) {
+            removed = l.removeFirst();
+        }
+
+        unwindStackTrace(threadId, removed);
+    }
+
+    @Override
+    public List<Frame> getFrames(ThreadId threadId) {
+        LinkedList<Frame> l = frames.get(threadId);
+        if (l == null) {
+            return Collections.emptyList();
+        }
+
+        synchronized (l) {
+            return Collections.unmodifiableList(new ArrayList<>(l));
+        }
+    }
+
+    @Override
+    public void dropAllFrames() {
+        frames.clear();
+    }
+
+    @Override
+    public void setStatus(ThreadId threadId, ThreadStatus status) {
+        threadStatus.put(threadId, status);
+
+        if (!status.isActive()) {
+            statusLock.lock();
+            try {
+                threadStopped.signalAll();
+            } finally {
+                statusLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public ThreadStatus getStatus(ThreadId threadId) {
+        return threadStatus.get(threadId);
+    }
+
+    @Override
+    public ThreadId getRootThreadId() {
+        return rootThreadId;
+    }
+
+    @Override
+    public void fork(ThreadId parentThreadId, ThreadId threadId, Command... cmds) {
+        pushFrame(threadId, Frame.builder()
+                .root()
+                .commands(cmds)
+                .build());
+
+        children.computeIfAbsent(parentThreadId, k -> ConcurrentHashMap.newKeySet())
+                .add(threadId);
+
+        // set the status last, READY threads can be picked up for execution immediately
+        setStatus(threadId, ThreadStatus.READY);
+    }
+
+    @Override
+    public Map<ThreadId, ThreadStatus> threadStatus() {
+        return new HashMap<>(threadStatus);
+    }
+
+    @Override
+    public Map<ThreadId, ThreadStatus> awaitThreads(Collection<ThreadId> ids, boolean all) throws InterruptedException {
+        statusLock.lock();
+        try {
+            while (true) {
+                Map<ThreadId, ThreadStatus> result = new HashMap<>(ids.size());
+                int active = 0;
+                for (ThreadId id : ids) {
+                    // no status means the thread completed and was removed by gc()
+                    ThreadStatus s = threadStatus.getOrDefault(id, ThreadStatus.DONE);
+                    result.put(id, s);
+                    if (s.isActive()) {
+                        active++;
+                    }
+                }
+
+                if (active == 0 || (!all && active < ids.size())) {
+                    return result;
+                }
+
+                threadStopped.await();
+            }
+        } finally {
+            statusLock.unlock();
+        }
+    }
+
+    @Override
+    public ThreadId nextThreadId() {
+        return new ThreadId(threadIdSeq.getAndIncrement());
+    }
+
+    @Override
+    public void setEventRef(ThreadId threadId, String eventRef) {
+        // TODO check for uniqueness
+
+        String old = eventRefs.putIfAbsent(threadId, eventRef);
+        if (old != null) {
+            throw new IllegalStateException("Thread " + threadId + " already had an unprocessed event ref registered: " + old);
+        }
+    }
+
+    @Override
+    public ThreadId removeEventRef(String eventRef) {
+        for (Map.Entry<ThreadId, String> e : eventRefs.entrySet()) {
+            if (eventRef.equals(e.getValue()) && eventRefs.remove(e.getKey(), eventRef)) {
+                return e.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Map<ThreadId, String> getEventRefs() {
+        return Collections.unmodifiableMap(eventRefs);
+    }
+
+    @Override
+    public ThreadError getThreadError(ThreadId threadId) {
+        return threadErrors.get(threadId);
+    }
+
+    @Override
+    public void setThreadError(ThreadId threadId, Exception error) {
+        setThreadError(threadId, null, error);
+    }
+
+    @Override
+    public void setThreadError(ThreadId threadId, Command cmd, Exception error) {
+        threadErrors.put(threadId, new ThreadError(threadId, cmd, error, getStackTrace(threadId)));
+    }
+
+    @Override
+    public ThreadError clearThreadError(ThreadId threadId) {
+        return threadErrors.remove(threadId);
+    }
+
+    @Override
+    public List<StackTraceItem> getStackTrace(ThreadId threadId) {
+        List<ThreadId> threads = collectParents(threadId);
+        threads.add(0, threadId);
+
+        List<StackTraceItem> result = new ArrayList<>();
+        for (ThreadId tid : threads) {
+            LinkedList<StackTraceItem> items = stackTrace.get(tid);
+            if (items != null) {
+                synchronized (items) {
+                    result.addAll(items);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void pushStackTraceItem(ThreadId threadId, StackTraceItem item) {
+        LinkedList<StackTraceItem> l = stackTrace.computeIfAbsent(threadId, key -> new LinkedList<>());
+        synchronized (l) {
+            l.addFirst(item);
+        }
+    }
+
+    @Override
+    public void clearStackTrace(ThreadId threadId) {
+        stackTrace.remove(threadId);
+    }
+
+    @Override
+    public void setThreadLocal(ThreadId threadId, String key, Serializable value) {
+        threadLocals.computeIfAbsent(threadId, v -> new ConcurrentHashMap<>())
+                .put(key, value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Serializable> T getThreadLocal(ThreadId threadId, String key) {
+        Map<String, Serializable> locals = threadLocals.get(threadId);
+        if (locals == null) {
+            return null;
+        }
+        return (T) locals.get(key);
+    }
+
+    @Override
+    public void removeThreadLocal(ThreadId threadId, String key) {
+        threadLocals.computeIfPresent(threadId, (k, locals) -> {
+            locals.remove(key);
+            return locals.isEmpty() ? null : locals;
+        });
+    }
+
+    @Override
+    public void gc() {
+        // avoid races by eagerly calculating the list of IDs
+        List<ThreadId> ids = new ArrayList<>();
+        threadStatus.forEach((k, v) -> {
+            if (v == ThreadStatus.DONE || (v == ThreadStatus.FAILED && !threadErrors.containsKey(k))) {
+                ids.add(k);
+            }
+        });
+
+        ids.forEach(k -> {
+            threadErrors.remove(k);
+            threadStatus.remove(k);
+            frames.remove(k);
+            eventRefs.remove(k);
+            children.remove(k);
+            stackTrace.remove(k);
+            threadLocals.remove(k);
+        });
+    }
+
+    @Override
+    public ConcurrentState copy() {
+        ConcurrentState dst = new ConcurrentState(rootThreadId, threadIdSeq.get());
+
+        frames.forEach((k, v) -> {
+            synchronized (v) {
+                dst.frames.put(k, InMemoryState.copyFrames(v));
+            }
+        });
+        dst.threadStatus.putAll(threadStatus);
+        children.forEach((k, v) -> dst.children.put(k, newKeySet(v)));
+        dst.eventRefs.putAll(eventRefs);
+        dst.threadErrors.putAll(threadErrors);
+        stackTrace.forEach((k, v) -> {
+            synchronized (v) {
+                dst.stackTrace.put(k, new LinkedList<>(v));
+            }
+        });
+        threadLocals.forEach((k, v) -> dst.threadLocals.put(k, new ConcurrentHashMap<>(v)));
+
+        return dst;
+    }
+
+    @Serial
+    private Object writeReplace() throws ObjectStreamException {
+        return toInMemoryState();
+    }
+
+    private List<ThreadId> collectParents(ThreadId threadId) {
+        List<ThreadId> result = new ArrayList<>();
+        ThreadId current = threadId;
+        while (true) {
+            ThreadId parent = findParent(current);
+            if (parent != null) {
+                result.add(parent);
+                current = parent;
+            } else {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private ThreadId findParent(ThreadId threadId) {
+        for (Map.Entry<ThreadId, Set<ThreadId>> e : children.entrySet()) {
+            if (e.getValue().contains(threadId)) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+
+    private void unwindStackTrace(ThreadId threadId, Frame removed) {
+        if (removed.id() == null) {
+            return;
+        }
+
+        stackTrace.computeIfPresent(threadId, (k, items) -> {
+            synchronized (items) {
+                int itemIndex = -1;
+                for (int i = 0; i < items.size(); i++) {
+                    StackTraceItem item = items.get(i);
+                    if (removed.id().equals(item.getFrameId())) {
+                        itemIndex = i;
+                    }
+                }
+
+                if (itemIndex < 0) {
+                    return items;
+                }
+
+                if (itemIndex + 1 == items.size()) {
+                    return null;
+                }
+
+                return new LinkedList<>(items.subList(itemIndex + 1, items.size()));
+            }
+        });
+    }
+
+    private static Set<ThreadId> newKeySet(Collection<ThreadId> src) {
+        Set<ThreadId> result = ConcurrentHashMap.newKeySet();
+        result.addAll(src);
+        return result;
+    }
+}
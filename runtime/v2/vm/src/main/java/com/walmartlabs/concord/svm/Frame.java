@@ -65,6 +65,28 @@ public class Frame implements Serializable {
         this.finallyHandler = b.finallyHandler;
     }
 
+    private Frame(Frame src) {
+        this.id = src.id;
+        this.type = src.type;
+        this.commandStack = new LinkedList<>(src.commandStack);
+
+        synchronized (src.locals) {
+            this.locals = Collections.synchronizedMap(new LinkedHashMap<>(src.locals));
+        }
+
+        this.exceptionHandler = src.exceptionHandler;
+        this.finallyHandler = src.finallyHandler;
+    }
+
+    /**
+     * Returns a copy of the frame with the same ID. The command stack and
+     * the locals are copied, the commands and the values of the local
+     * variables are shared with the original frame.
+     */
+    public Frame copy() {
+        return new Frame(this);
+    }
+
     public FrameId id() {
         return id;
     }
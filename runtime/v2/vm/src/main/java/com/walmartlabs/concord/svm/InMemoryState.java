@@ -23,8 +23,13 @@ package com.walmartlabs.concord.svm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,23 +42,38 @@ public class InMemoryState implements Serializable, State {
 
     private static final Logger log = LoggerFactory.getLogger(InMemoryState.class);
 
-    private final Map<ThreadId, List<Frame>> frames = new HashMap<>();
-    private final Map<ThreadId, ThreadStatus> threadStatus = new HashMap<>();
-    private final Map<ThreadId, Set<ThreadId>> children = new HashMap<>();
-    private final Map<ThreadId, String> eventRefs = new HashMap<>();
-    private final Map<ThreadId, ThreadError> threadErrors = new HashMap<>();
-    private final Map<ThreadId, List<StackTraceItem>> stackTrace = new HashMap<>();
-    private final Map<ThreadId, Map<String, Serializable>> threadLocals = new HashMap<>();
+    // package-private fields are accessed by ConcurrentState when converting from/to this class
 
-    private final ThreadId rootThreadId;
+    final Map<ThreadId, List<Frame>> frames = new HashMap<>();
+    final Map<ThreadId, ThreadStatus> threadStatus = new HashMap<>();
+    final Map<ThreadId, Set<ThreadId>> children = new HashMap<>();
+    final Map<ThreadId, String> eventRefs = new HashMap<>();
+    final Map<ThreadId, ThreadError> threadErrors = new HashMap<>();
+    final Map<ThreadId, List<StackTraceItem>> stackTrace = new HashMap<>();
+    final Map<ThreadId, Map<String, Serializable>> threadLocals = new HashMap<>();
 
-    private long threadIdSeq = 0;
+    final ThreadId rootThreadId;
+
+    long threadIdSeq = 0;
+
+    // a lock instead of the monitor, so virtual threads blocked in awaitThreads
+    // don't pin their carrier threads. Restored after deserialization, see readObject
+    transient ReentrantLock lock = new ReentrantLock();
+    private transient Condition threadStopped = lock.newCondition();
 
     public InMemoryState(Frame rootFrame) {
         this.rootThreadId = nextThreadId();
         pushFrame(rootThreadId, rootFrame);
     }
 
+    /**
+     * Creates an empty state. Used to convert other {@link State} implementations.
+     */
+    InMemoryState(ThreadId rootThreadId, long threadIdSeq) {
+        this.rootThreadId = rootThreadId;
+        this.threadIdSeq = threadIdSeq;
+    }
+
     public InMemoryState(Command cmd) {
         this(Frame.builder()
                 .root()
@@ -65,21 +85,27 @@ public class InMemoryState implements Serializable, State {
     public void pushFrame(ThreadId threadId, Frame frame) {
         log.trace("pushFrame {}", threadId);
 
-        synchronized (this) {
+        lock.lock();
+        try {
             List<Frame> l = frames.computeIfAbsent(threadId, key -> new LinkedList<>());
             l.add(0, frame);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public Frame peekFrame(ThreadId threadId) {
-        synchronized (this) {
+        lock.lock();
+        try {
             List<Frame> l = frames.get(threadId);
             if (l == null || l.isEmpty()) {
                 return null;
             }
 
             return l.get(0);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -87,7 +113,8 @@ public class InMemoryState implements Serializable, State {
     public void popFrame(ThreadId threadId) {
         log.trace("popFrame {}", threadId);
 
-        synchronized (this) {
+        lock.lock();
+        try {
             List<Frame> l = frames.get(threadId);
             if (l == null) {
                 throw new IllegalStateException("Call frame doesn't exist: " + threadId);
@@ -95,39 +122,58 @@ public class InMemoryState implements Serializable, State {
 
             Frame removed = l.remove(0);
             unwindStackTrace(threadId, removed);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public List<Frame> getFrames(ThreadId threadId) {
-        synchronized (this) {
+        lock.lock();
+        try {
             List<Frame> l = this.frames.get(threadId);
             if (l == null) {
                 return Collections.emptyList();
             }
 
             return Collections.unmodifiableList(new ArrayList<>(l));
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void dropAllFrames() {
-        synchronized (this) {
+        lock.lock();
+        try {
             frames.clear();
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void setStatus(ThreadId threadId, ThreadStatus status) {
-        synchronized (this) {
+        lock.lock();
+        try {
             threadStatus.put(threadId, status);
+
+            if (!status.isActive()) {
+                // wake up threads blocked in awaitThreads
+                threadStopped.signalAll();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public ThreadStatus getStatus(ThreadId threadId) {
-        synchronized (this) {
+        lock.lock();
+        try {
             return threadStatus.get(threadId);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -138,7 +184,8 @@ public class InMemoryState implements Serializable, State {
 
     @Override
     public void fork(ThreadId parentThreadId, ThreadId threadId, Command... cmds) {
-        synchronized (this) {
+        lock.lock();
+        try {
             setStatus(threadId, ThreadStatus.READY);
             pushFrame(threadId, Frame.builder()
                     .root()
@@ -147,21 +194,57 @@ public class InMemoryState implements Serializable, State {
 
             children.computeIfAbsent(parentThreadId, k -> new HashSet<>())
                     .add(threadId);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public Map<ThreadId, ThreadStatus> threadStatus() {
-        synchronized (this) {
+        lock.lock();
+        try {
             return new HashMap<>(threadStatus);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<ThreadId, ThreadStatus> awaitThreads(Collection<ThreadId> ids, boolean all) throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Map<ThreadId, ThreadStatus> result = new HashMap<>(ids.size());
+                int active = 0;
+                for (ThreadId id : ids) {
+                    // no status means the thread completed and was removed by gc()
+                    ThreadStatus s = threadStatus.getOrDefault(id, ThreadStatus.DONE);
+                    result.put(id, s);
+                    if (s.isActive()) {
+                        active++;
+                    }
+                }
+
+                if (active == 0 || (!all && active < ids.size())) {
+                    return result;
+                }
+
+                // releases the lock, setStatus() signals us when a thread stops
+                threadStopped.await();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public ThreadId nextThreadId() {
-        synchronized (this) {
+        lock.lock();
+        try {
             long id = threadIdSeq++;
             return new ThreadId(id);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -169,11 +252,14 @@ public class InMemoryState implements Serializable, State {
     public void setEventRef(ThreadId threadId, String eventRef) {
         // TODO check for uniqueness
 
-        synchronized (this) {
+        lock.lock();
+        try {
             String old = eventRefs.put(threadId, eventRef);
             if (old != null) {
                 throw new IllegalStateException("Thread " + threadId + " already had an unprocessed event ref registered: " + old);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -181,7 +267,8 @@ public class InMemoryState implements Serializable, State {
     public ThreadId removeEventRef(String eventRef) {
         ThreadId threadId = null;
 
-        synchronized (this) {
+        lock.lock();
+        try {
             for (Map.Entry<ThreadId, String> e : eventRefs.entrySet()) {
                 String s = e.getValue();
                 if (eventRef.equals(s)) {
@@ -193,6 +280,8 @@ public class InMemoryState implements Serializable, State {
             if (threadId != null) {
                 eventRefs.remove(threadId);
             }
+        } finally {
+            lock.unlock();
         }
 
         return threadId;
@@ -200,16 +289,22 @@ public class InMemoryState implements Serializable, State {
 
     @Override
     public Map<ThreadId, String> getEventRefs() {
-        synchronized (this) {
+        lock.lock();
+        try {
             return Collections.unmodifiableMap(eventRefs);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public ThreadError getThreadError(ThreadId threadId) {
-        synchronized (this) {
+        lock.lock();
+        try {
             Object result = threadErrors.get(threadId);
             return StateBackwardCompatibility.processThreadError(result, threadId);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -220,22 +315,29 @@ public class InMemoryState implements Serializable, State {
 
     @Override
     public void setThreadError(ThreadId threadId, Command cmd, Exception error) {
-        synchronized (this) {
+        lock.lock();
+        try {
             threadErrors.put(threadId, new ThreadError(threadId, cmd, error, getStackTrace(threadId)));
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public ThreadError clearThreadError(ThreadId threadId) {
-        synchronized (this) {
+        lock.lock();
+        try {
             Object result = threadErrors.remove(threadId);
             return StateBackwardCompatibility.processThreadError(result, threadId);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public List<StackTraceItem> getStackTrace(ThreadId threadId) {
-        synchronized (this) {
+        lock.lock();
+        try {
             // for backward compatibility
             if (stackTrace == null) {
                 return Collections.emptyList();
@@ -246,12 +348,15 @@ public class InMemoryState implements Serializable, State {
             List<StackTraceItem> result = new ArrayList<>();
             threads.forEach(tid -> result.addAll(stackTrace.getOrDefault(tid, Collections.emptyList())));
             return result;
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void pushStackTraceItem(ThreadId threadId, StackTraceItem item) {
-        synchronized (this) {
+        lock.lock();
+        try {
             // for backward compatibility
             if (stackTrace == null) {
                 return;
@@ -259,24 +364,30 @@ public class InMemoryState implements Serializable, State {
 
             List<StackTraceItem> l = stackTrace.computeIfAbsent(threadId, key -> new LinkedList<>());
             l.add(0, item);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void clearStackTrace(ThreadId threadId) {
-        synchronized (this) {
+        lock.lock();
+        try {
             // for backward compatibility
             if (stackTrace == null) {
                 return;
             }
 
             stackTrace.remove(threadId);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void setThreadLocal(ThreadId threadId, String key, Serializable value) {
-        synchronized (this) {
+        lock.lock();
+        try {
             // for backward compatibility
             if (threadLocals == null) {
                 return;
@@ -284,12 +395,15 @@ public class InMemoryState implements Serializable, State {
 
             Map<String, Serializable> locals = threadLocals.computeIfAbsent(threadId, v -> new HashMap<>());
             locals.put(key, value);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public <T extends Serializable> T getThreadLocal(ThreadId threadId, String key) {
-        synchronized (this) {
+        lock.lock();
+        try {
             // for backward compatibility
             if (threadLocals == null) {
                 return null;
@@ -300,12 +414,15 @@ public class InMemoryState implements Serializable, State {
                 return null;
             }
             return (T) locals.get(key);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void removeThreadLocal(ThreadId threadId, String key) {
-        synchronized (this) {
+        lock.lock();
+        try {
             // for backward compatibility
             if (threadLocals == null) {
                 return;
@@ -316,12 +433,15 @@ public class InMemoryState implements Serializable, State {
             if (locals.isEmpty()) {
                 threadLocals.remove(threadId);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void gc() {
-        synchronized (this) {
+        lock.lock();
+        try {
             Stream<ThreadId> done = threadStatus.entrySet().stream()
                     .filter(e -> e.getValue() == ThreadStatus.DONE)
                     .map(Map.Entry::getKey);
@@ -346,7 +466,45 @@ public class InMemoryState implements Serializable, State {
                             threadLocals.remove(k);
                         }
                     });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public InMemoryState copy() {
+        lock.lock();
+        try {
+            InMemoryState dst = new InMemoryState(rootThreadId, threadIdSeq);
+
+            frames.forEach((k, v) -> dst.frames.put(k, copyFrames(v)));
+            dst.threadStatus.putAll(threadStatus);
+            children.forEach((k, v) -> dst.children.put(k, new HashSet<>(v)));
+            dst.eventRefs.putAll(eventRefs);
+            dst.threadErrors.putAll(threadErrors);
+
+            // for backward compatibility
+            if (stackTrace != null) {
+                stackTrace.forEach((k, v) -> dst.stackTrace.put(k, new LinkedList<>(v)));
+            }
+
+            // for backward compatibility
+            if (threadLocals != null) {
+                threadLocals.forEach((k, v) -> dst.threadLocals.put(k, new HashMap<>(v)));
+            }
+
+            return dst;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static LinkedList<Frame> copyFrames(Collection<Frame> frames) {
+        LinkedList<Frame> result = new LinkedList<>();
+        for (Frame f : frames) {
+            result.add(f.copy());
         }
+        return result;
     }
 
     private List<ThreadId> collectParents(ThreadId threadId) {
@@ -364,6 +522,14 @@ public class InMemoryState implements Serializable, State {
         return result;
     }
 
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        this.lock = new ReentrantLock();
+        this.threadStopped = lock.newCondition();
+    }
+
     private ThreadId findParent(ThreadId threadId) {
         return children.entrySet().stream()
                 .filter(e -> e.getValue().contains(threadId))
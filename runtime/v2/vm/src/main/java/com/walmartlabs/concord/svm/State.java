@@ -21,6 +21,8 @@ package com.walmartlabs.concord.svm;
  */
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -83,6 +85,46 @@ public interface State extends Serializable {
      */
     Map<ThreadId, ThreadStatus> threadStatus();
 
+    /**
+     * Blocks until none of the specified threads is {@link ThreadStatus#isActive() active}
+     * and returns the statuses of those threads.
+     * @see #awaitThreads(Collection, boolean)
+     */
+    default Map<ThreadId, ThreadStatus> awaitThreads(Collection<ThreadId> ids) throws InterruptedException {
+        return awaitThreads(ids, true);
+    }
+
+    /**
+     * Blocks until all ({@code all == true}) or at least one ({@code all == false})
+     * of the specified threads are no longer {@link ThreadStatus#isActive() active}
+     * and returns the statuses of the specified threads. Threads removed by {@link #gc()}
+     * are reported as {@link ThreadStatus#DONE}.
+     * <p/>
+     * The default implementation polls {@link #threadStatus()}, implementations
+     * are expected to provide a more efficient way.
+     */
+    default Map<ThreadId, ThreadStatus> awaitThreads(Collection<ThreadId> ids, boolean all) throws InterruptedException {
+        while (true) {
+            Map<ThreadId, ThreadStatus> statuses = threadStatus();
+
+            Map<ThreadId, ThreadStatus> result = new HashMap<>(ids.size());
+            int active = 0;
+            for (ThreadId id : ids) {
+                ThreadStatus s = statuses.getOrDefault(id, ThreadStatus.DONE);
+                result.put(id, s);
+                if (s.isActive()) {
+                    active++;
+                }
+            }
+
+            if (active == 0 || (!all && active < ids.size())) {
+                return result;
+            }
+
+            Thread.sleep(100);
+        }
+    }
+
     /**
      * Returns a next thread ID. Unique per {@link State} instance.
      */
@@ -158,4 +200,12 @@ public interface State extends Serializable {
      * Performs state maintenance and cleanup.
      */
     void gc();
+
+    /**
+     * Returns a shallow copy of the state. All frames and per-thread data
+     * structures are copied, so the copy can be modified independently.
+     * The commands and the values of variables are shared with the original
+     * state and must not be modified while the copy is in use.
+     */
+    State copy();
 }
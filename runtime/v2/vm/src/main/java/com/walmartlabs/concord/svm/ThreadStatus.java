@@ -45,5 +45,13 @@ public enum ThreadStatus {
     /**
      * Completed unsuccessfully.
      */
-    FAILED
+    FAILED;
+
+    /**
+     * Returns {@code true} if the thread is running or about to run, i.e. its
+     * status can change without an external event.
+     */
+    public boolean isActive() {
+        return this == READY || this == UNWINDING;
+    }
 }
@@ -427,6 +427,13 @@ public class Constants {
          */
         public static final String OUT_VALUES_FILE_NAME = "out.json";
 
+        /**
+         * File which contains the list of unchanged job attachments.
+         * Used in incremental uploads of job attachments. Stored in the
+         * {@code .concord} directory to avoid clashes with the process' own files.
+         */
+        public static final String UNCHANGED_ATTACHMENTS_FILE_NAME = ".concord/unchanged-attachments.json";
+
         /**
          * Marker file, indicating that a process was suspended.
          * It contains the list of waiting events.
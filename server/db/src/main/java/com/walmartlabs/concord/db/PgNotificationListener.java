@@ -0,0 +1,142 @@
+package com.walmartlabs.concord.db;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listens for PostgreSQL notifications on a dedicated thread.
+ * <p>
+ * Uses its own, non-pooled connection: the connection is blocked for
+ * the lifetime of the listener, and the {@code LISTEN} subscription ends
+ * with the session instead of leaking into a pooled connection.
+ * Reconnects automatically on errors.
+ */
+public class PgNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PgNotificationListener.class);
+
+    private static final long ERROR_DELAY = TimeUnit.SECONDS.toMillis(10);
+
+    private final DatabaseConfiguration cfg;
+    private final String channel;
+    private final String name;
+    private final long pollTimeout;
+    private final Handler handler;
+
+    private Thread worker;
+
+    /**
+     * @param cfg         the database to connect to
+     * @param channel     the channel to {@code LISTEN} on
+     * @param name        the name of the listener thread
+     * @param pollTimeout max time to wait for notifications before calling {@link Handler#afterPoll()}
+     * @param handler     the notification handler, invoked on the listener thread
+     */
+    public PgNotificationListener(DatabaseConfiguration cfg, String channel, String name, long pollTimeout, Handler handler) {
+        this.cfg = cfg;
+        this.channel = channel;
+        this.name = name;
+        this.pollTimeout = pollTimeout;
+        this.handler = handler;
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+
+        this.worker = new Thread(this::run, name);
+        this.worker.start();
+        log.info("start ['{}'] -> done", channel);
+    }
+
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+
+        log.info("stop ['{}'] -> done", channel);
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection conn = connect()) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("listen " + channel);
+                }
+
+                handler.onConnect();
+
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] n = pg.getNotifications((int) pollTimeout);
+                    if (n != null && n.length > 0) {
+                        handler.onNotifications(n);
+                    }
+
+                    handler.afterPoll();
+                }
+            } catch (Exception e) {
+                log.warn("run ['{}'] -> error: {}. Will retry in {}ms...", channel, e.getMessage(), ERROR_DELAY);
+                try {
+                    Thread.sleep(ERROR_DELAY);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private Connection connect() throws Exception {
+        Class.forName(cfg.driverClassName());
+
+        Connection conn = DriverManager.getConnection(cfg.url(), cfg.username(), cfg.password());
+        conn.setAutoCommit(true);
+        return conn;
+    }
+
+    public interface Handler {
+
+        /**
+         * Called after every (re)connect, once the listener is subscribed.
+         */
+        default void onConnect() throws Exception {
+        }
+
+        void onNotifications(PGNotification[] notifications) throws Exception;
+
+        /**
+         * Called after every poll, with or without notifications.
+         */
+        default void afterPoll() throws Exception {
+        }
+    }
+}
@@ -30,8 +30,10 @@ public abstract class PeriodicTask implements BackgroundTask {
 
     private final long interval;
     private final long errorDelay;
+    private final Object wakeUpMonitor = new Object();
 
     private Thread worker;
+    private boolean wakeUpRequested;
 
     public PeriodicTask(long interval, long errorDelay) {
         this.interval = interval;
@@ -65,7 +67,7 @@ public abstract class PeriodicTask implements BackgroundTask {
             try {
                 boolean isContinue = performTask();
                 if (!isContinue) {
-                    sleep(interval);
+                    await(interval);
                 }
             } catch (Exception e) {
                 log.warn("run -> task {} error: {}. Will retry in {}ms...", taskName(), e.getMessage(), errorDelay, e);
@@ -74,6 +76,37 @@ public abstract class PeriodicTask implements BackgroundTask {
         }
     }
 
+    /**
+     * Interrupts the current delay between runs (if any) and performs
+     * the task as soon as possible. Calls made while the task is running
+     * cause an immediate re-run.
+     */
+    public void wakeUp() {
+        synchronized (wakeUpMonitor) {
+            wakeUpRequested = true;
+            wakeUpMonitor.notifyAll();
+        }
+    }
+
+    private void await(long ms) {
+        long deadline = System.currentTimeMillis() + ms;
+        synchronized (wakeUpMonitor) {
+            try {
+                while (!wakeUpRequested) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    wakeUpMonitor.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            wakeUpRequested = false;
+        }
+    }
+
     private String taskName() {
         return this.getClass().getSimpleName();
     }
@@ -22,6 +22,7 @@ package com.walmartlabs.concord.server.agent.websocket;
 
 import com.walmartlabs.concord.server.message.MessageChannelManager;
 import com.walmartlabs.concord.server.queueclient.MessageSerializer;
+import com.walmartlabs.concord.server.queueclient.message.Message;
 import org.eclipse.jetty.ee8.websocket.api.Session;
 import org.eclipse.jetty.ee8.websocket.api.WebSocketPingPongListener;
 import org.slf4j.Logger;
@@ -69,7 +70,11 @@ public class WebSocketListener implements org.eclipse.jetty.ee8.websocket.api.We
     @Override
     public void onWebSocketText(String message) {
         channelManager.getChannel(channelId, WebSocketChannel.class)
-                .ifPresentOrElse(c -> c.onRequest(MessageSerializer.deserialize(message)),
+                .ifPresentOrElse(c -> {
+                            Message request = MessageSerializer.deserialize(message);
+                            c.onRequest(request);
+                            channelManager.onRequest(request.getMessageType());
+                        },
                         () -> log.warn("onWebSocketText ['{}', '{}'] -> channel not found", channelId, message));
     }
 
@@ -31,6 +31,10 @@ public class EnqueueWorkersConfiguration {
     @Config("queue.enqueueWorkerCount")
     private int workersCount;
 
+    @Inject
+    @Config("queue.enqueueMaxWorkerCount")
+    private int maxWorkersCount;
+
     @Inject
     @Config("queue.enqueueBatchSize")
     private int batchSize;
@@ -47,6 +51,10 @@ public class EnqueueWorkersConfiguration {
         return workersCount;
     }
 
+    public int getMaxWorkersCount() {
+        return Math.max(workersCount, maxWorkersCount);
+    }
+
     public Duration getInterval() {
         return interval;
     }
@@ -34,7 +34,15 @@ public class PolicyCacheConfiguration implements Serializable {
     @Config("policyCache.reloadInterval")
     private Duration reloadInterval;
 
+    @Inject
+    @Config("policyCache.changeCheckInterval")
+    private Duration changeCheckInterval;
+
     public Duration getReloadInterval() {
         return reloadInterval;
     }
+
+    public Duration getChangeCheckInterval() {
+        return changeCheckInterval;
+    }
 }
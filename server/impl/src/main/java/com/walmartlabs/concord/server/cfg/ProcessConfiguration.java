@@ -86,6 +86,58 @@ public class ProcessConfiguration implements Serializable {
     @Config("process.checkLogPermissions")
     private boolean checkLogPermissions;
 
+    @Inject
+    @Config("process.logBuffer.enabled")
+    private boolean logBufferEnabled;
+
+    @Inject
+    @Config("process.logBuffer.flushInterval")
+    private Duration logBufferFlushInterval;
+
+    @Inject
+    @Config("process.logBuffer.maxSize")
+    private int logBufferMaxSize;
+
+    @Inject
+    @Config("process.logWatch.maxWatchers")
+    private int logWatchMaxWatchers;
+
+    @Inject
+    @Config("process.logWatch.maxWaitTime")
+    private Duration logWatchMaxWaitTime;
+
+    @Inject
+    @Config("process.logWatch.notificationsEnabled")
+    private boolean logWatchNotificationsEnabled;
+
+    @Inject
+    @Config("process.logWatch.notifyInterval")
+    private Duration logWatchNotifyInterval;
+
+    @Inject
+    @Config("process.stateBlobs.enabled")
+    private boolean stateBlobsEnabled;
+
+    @Inject
+    @Config("process.stateBlobs.gracePeriod")
+    private Duration stateBlobsGracePeriod;
+
+    @Inject
+    @Config("process.partitions.enabled")
+    private boolean partitionsEnabled;
+
+    @Inject
+    @Config("process.partitions.interval")
+    private Duration partitionInterval;
+
+    @Inject
+    @Config("process.partitions.premake")
+    private int partitionPremake;
+
+    @Inject
+    @Config("process.partitions.lockTimeout")
+    private Duration partitionLockTimeout;
+
     @Inject
     public ProcessConfiguration(@Config("process.signingKeyPath") @Nullable String signingKeyPath) {
         this.signingKeyPath = signingKeyPath != null ? Paths.get(signingKeyPath) : null;
@@ -96,6 +148,11 @@ public class ProcessConfiguration implements Serializable {
         this.secureFiles = secureFiles;
     }
 
+    public ProcessConfiguration(Duration maxStateAge, List<String> secureFiles, boolean stateBlobsEnabled) {
+        this(maxStateAge, secureFiles);
+        this.stateBlobsEnabled = stateBlobsEnabled;
+    }
+
     public Duration getCleanupInterval() {
         return cleanupInterval;
     }
@@ -147,4 +204,56 @@ public class ProcessConfiguration implements Serializable {
     public boolean isCheckLogPermissions() {
         return checkLogPermissions;
     }
+
+    public boolean isLogBufferEnabled() {
+        return logBufferEnabled;
+    }
+
+    public Duration getLogBufferFlushInterval() {
+        return logBufferFlushInterval;
+    }
+
+    public int getLogBufferMaxSize() {
+        return logBufferMaxSize;
+    }
+
+    public int getLogWatchMaxWatchers() {
+        return logWatchMaxWatchers;
+    }
+
+    public Duration getLogWatchMaxWaitTime() {
+        return logWatchMaxWaitTime;
+    }
+
+    public boolean isLogWatchNotificationsEnabled() {
+        return logWatchNotificationsEnabled;
+    }
+
+    public Duration getLogWatchNotifyInterval() {
+        return logWatchNotifyInterval;
+    }
+
+    public boolean isStateBlobsEnabled() {
+        return stateBlobsEnabled;
+    }
+
+    public Duration getStateBlobsGracePeriod() {
+        return stateBlobsGracePeriod;
+    }
+
+    public boolean isPartitionsEnabled() {
+        return partitionsEnabled;
+    }
+
+    public Duration getPartitionInterval() {
+        return partitionInterval;
+    }
+
+    public int getPartitionPremake() {
+        return partitionPremake;
+    }
+
+    public Duration getPartitionLockTimeout() {
+        return partitionLockTimeout;
+    }
 }
@@ -38,6 +38,26 @@ public class ProcessQueueConfiguration implements Serializable {
     @Config("queue.dispatcher.batchSize")
     private int dispatcherBatchSize;
 
+    @Inject
+    @Config("queue.dispatcher.notificationsEnabled")
+    private boolean dispatcherNotificationsEnabled;
+
+    @Inject
+    @Config("queue.dispatcher.indexEnabled")
+    private boolean dispatcherIndexEnabled;
+
+    @Inject
+    @Config("queue.dispatcher.maxExcludedRequirements")
+    private int dispatcherMaxExcludedRequirements;
+
+    @Inject
+    @Config("queue.counters.compactionInterval")
+    private Duration countersCompactionInterval;
+
+    @Inject
+    @Config("queue.counters.reconciliationInterval")
+    private Duration countersReconciliationInterval;
+
     public Duration getDispatcherPollDelay() {
         return dispatcherPollDelay;
     }
@@ -45,4 +65,24 @@ public class ProcessQueueConfiguration implements Serializable {
     public int getDispatcherBatchSize() {
         return dispatcherBatchSize;
     }
+
+    public boolean isDispatcherNotificationsEnabled() {
+        return dispatcherNotificationsEnabled;
+    }
+
+    public boolean isDispatcherIndexEnabled() {
+        return dispatcherIndexEnabled;
+    }
+
+    public int getDispatcherMaxExcludedRequirements() {
+        return dispatcherMaxExcludedRequirements;
+    }
+
+    public Duration getCountersCompactionInterval() {
+        return countersCompactionInterval;
+    }
+
+    public Duration getCountersReconciliationInterval() {
+        return countersReconciliationInterval;
+    }
 }
@@ -42,6 +42,10 @@ public class ProcessWaitWatchdogConfiguration implements Serializable {
     @Config("process.waitProcessLimitForStatusQuery")
     private int processLimitForStatusQuery;
 
+    @Inject
+    @Config("process.waitRecoveryPeriod")
+    private Duration recoveryPeriod;
+
     public Duration getPeriod() {
         return period;
     }
@@ -53,4 +57,8 @@ public class ProcessWaitWatchdogConfiguration implements Serializable {
     public int getProcessLimitForStatusQuery() {
         return processLimitForStatusQuery;
     }
+
+    public Duration getRecoveryPeriod() {
+        return recoveryPeriod;
+    }
 }
@@ -22,7 +22,7 @@ package com.walmartlabs.concord.server.events.externalevent;
 
 import com.walmartlabs.concord.server.events.DefaultEventFilter;
 import com.walmartlabs.concord.server.org.triggers.TriggerEntry;
-import com.walmartlabs.concord.server.org.triggers.TriggersDao;
+import com.walmartlabs.concord.server.org.triggers.TriggerIndex;
 
 import javax.inject.Inject;
 import java.util.Collections;
@@ -32,20 +32,20 @@ import java.util.Map;
 
 public abstract class ExternalEventTriggerProcessor {
 
-    private final TriggersDao dao;
+    private final TriggerIndex triggerIndex;
     private final int version;
 
     @Inject
-    public ExternalEventTriggerProcessor(TriggersDao dao, int version) {
-        this.dao = dao;
+    public ExternalEventTriggerProcessor(TriggerIndex triggerIndex, int version) {
+        this.triggerIndex = triggerIndex;
         this.version = version;
     }
 
     public void process(String eventName, Map<String, Object> event, List<Result> result) {
-        List<TriggerEntry> triggers = listTriggers(eventName);
-
         Map<String, Object> updatedEvent = buildEvent(event);
 
+        List<TriggerEntry> triggers = listTriggers(eventName, updatedEvent);
+
         for (TriggerEntry t : triggers) {
             if (DefaultEventFilter.filter(updatedEvent, t)) {
                 result.add(Result.from(updatedEvent, t));
@@ -59,8 +59,8 @@ public abstract class ExternalEventTriggerProcessor {
         return m;
     }
 
-    private List<TriggerEntry> listTriggers(String eventName) {
-        return dao.list(eventName, version, null);
+    private List<TriggerEntry> listTriggers(String eventName, Map<String, Object> event) {
+        return triggerIndex.list(eventName, version, null, event);
     }
 
     public static class Result {
@@ -20,7 +20,7 @@ package com.walmartlabs.concord.server.events.externalevent;
  * =====
  */
 
-import com.walmartlabs.concord.server.org.triggers.TriggersDao;
+import com.walmartlabs.concord.server.org.triggers.TriggerIndex;
 
 import javax.inject.Inject;
 
@@ -28,7 +28,7 @@ import javax.inject.Inject;
 public class ExternalEventTriggerV1Processor extends ExternalEventTriggerProcessor {
 
     @Inject
-    public ExternalEventTriggerV1Processor(TriggersDao dao) {
-        super(dao, 1);
+    public ExternalEventTriggerV1Processor(TriggerIndex triggerIndex) {
+        super(triggerIndex, 1);
     }
 }
\ No newline at end of file
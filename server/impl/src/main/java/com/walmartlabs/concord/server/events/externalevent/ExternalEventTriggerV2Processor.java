@@ -20,14 +20,14 @@ package com.walmartlabs.concord.server.events.externalevent;
  * =====
  */
 
-import com.walmartlabs.concord.server.org.triggers.TriggersDao;
+import com.walmartlabs.concord.server.org.triggers.TriggerIndex;
 
 import javax.inject.Inject;
 
 public class ExternalEventTriggerV2Processor extends ExternalEventTriggerProcessor {
 
     @Inject
-    public ExternalEventTriggerV2Processor(TriggersDao dao) {
-        super(dao, 2);
+    public ExternalEventTriggerV2Processor(TriggerIndex triggerIndex) {
+        super(triggerIndex, 2);
     }
 }
\ No newline at end of file
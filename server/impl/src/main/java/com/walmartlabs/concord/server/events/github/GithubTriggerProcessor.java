@@ -28,6 +28,7 @@ import com.walmartlabs.concord.server.events.DefaultEventFilter;
 import com.walmartlabs.concord.server.org.project.RepositoryDao;
 import com.walmartlabs.concord.server.org.project.RepositoryEntry;
 import com.walmartlabs.concord.server.org.triggers.TriggerEntry;
+import com.walmartlabs.concord.server.org.triggers.TriggerIndex;
 import com.walmartlabs.concord.server.org.triggers.TriggerUtils;
 import com.walmartlabs.concord.server.org.triggers.TriggersDao;
 import com.walmartlabs.concord.server.sdk.metrics.WithTimer;
@@ -69,6 +70,7 @@ public class GithubTriggerProcessor {
         GithubKey githubKey = GithubKey.getCurrent();
         UUID projectId = githubKey.getProjectId();
 
+        Set<UUID> disabledRepoIds = new HashSet<>();
         if (isDisableReposOnDeletedRef
             && PUSH_EVENT.equals(payload.eventName())
             && isRefDeleted(payload)) {
@@ -78,11 +80,20 @@ public class GithubTriggerProcessor {
             repositories.stream()
                     .filter(r -> !r.isDisabled() && null != r.getBranch())
                     .filter(r -> r.getBranch().equals(payload.getBranch()))
-                    .forEach(r -> disableRepo(r, payload));
+                    .forEach(r -> {
+                        disableRepo(r, payload);
+                        disabledRepoIds.add(r.getId());
+                    });
         }
 
-        List<TriggerEntry> triggers = listTriggers(projectId, payload.getOrg(), payload.getRepo());
+        List<TriggerEntry> triggers = listTriggers(projectId, eventName, payload.getOrg(), payload.getRepo());
         for (TriggerEntry t : triggers) {
+            // the trigger index is updated asynchronously and might still contain
+            // the triggers of the repositories we've just disabled
+            if (disabledRepoIds.contains(t.getRepositoryId())) {
+                continue;
+            }
+
             if (skipTrigger(t, eventName, payload)) {
                 continue;
             }
@@ -142,9 +153,8 @@ public class GithubTriggerProcessor {
         return Boolean.TRUE.equals(val);
     }
 
-    @WithTimer
-    List<TriggerEntry> listTriggers(UUID projectId, String org, String repo) {
-        return dao.listTriggers(projectId, org, repo);
+    List<TriggerEntry> listTriggers(UUID projectId, String eventName, String org, String repo) {
+        return dao.listTriggers(projectId, eventName, org, repo);
     }
 
     private Map<String, Object> buildEvent(String eventName, UriInfo uriInfo, Payload payload) {
@@ -247,15 +257,18 @@ public class GithubTriggerProcessor {
     public static class Dao {
         private final RepositoryDao repoDao;
         private final TriggersDao triggersDao;
+        private final TriggerIndex triggerIndex;
         private final Configuration cfg;
 
         @Inject
         public Dao(@MainDB Configuration cfg,
                    RepositoryDao repoDao,
-                   TriggersDao triggersDao) {
+                   TriggersDao triggersDao,
+                   TriggerIndex triggerIndex) {
 
             this.cfg = cfg;
             this.triggersDao = triggersDao;
+            this.triggerIndex = triggerIndex;
             this.repoDao = repoDao;
         }
 
@@ -264,18 +277,13 @@ public class GithubTriggerProcessor {
             return repoDao.findSimilar(sshAndHttpPattern);
         }
 
-        List<TriggerEntry> listTriggers(UUID projectId, String org, String repo) {
-            Map<String, String> conditions = new HashMap<>();
-
-            if (org != null) {
-                conditions.put(GITHUB_ORG_KEY, org);
-            }
-
-            if (repo != null) {
-                conditions.put(GITHUB_REPO_KEY, repo);
-            }
+        List<TriggerEntry> listTriggers(UUID projectId, String eventName, String org, String repo) {
+            Map<String, Object> event = new HashMap<>();
+            event.put(GITHUB_ORG_KEY, org);
+            event.put(GITHUB_REPO_KEY, repo);
+            event.put(TYPE_KEY, eventName);
 
-            return triggersDao.list(projectId, EVENT_SOURCE, VERSION_ID, conditions);
+            return triggerIndex.list(EVENT_SOURCE, VERSION_ID, projectId, event);
         }
 
         void disable(UUID projectId, UUID repoId) {
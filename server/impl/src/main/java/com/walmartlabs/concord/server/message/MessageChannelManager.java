@@ -25,17 +25,17 @@ import com.walmartlabs.concord.server.queueclient.message.MessageType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class MessageChannelManager {
 
     private static final Logger log = LoggerFactory.getLogger(MessageChannelManager.class);
 
     private final Map<String, MessageChannel> channels = new ConcurrentHashMap<>();
+    private final List<Consumer<MessageType>> requestListeners = new CopyOnWriteArrayList<>();
 
     private volatile boolean isShutdown;
 
@@ -102,6 +102,26 @@ public class MessageChannelManager {
         return result;
     }
 
+    /**
+     * Registers a listener that is called every time a channel receives a new request.
+     */
+    public void addRequestListener(Consumer<MessageType> listener) {
+        requestListeners.add(listener);
+    }
+
+    /**
+     * Should be called by channels when a new request is received.
+     */
+    public void onRequest(MessageType requestType) {
+        requestListeners.forEach(l -> {
+            try {
+                l.accept(requestType);
+            } catch (Exception e) {
+                log.warn("onRequest ['{}'] -> listener error: {}", requestType, e.getMessage());
+            }
+        });
+    }
+
     public void add(MessageChannel channel) {
         channels.put(channel.getChannelId(), channel);
     }
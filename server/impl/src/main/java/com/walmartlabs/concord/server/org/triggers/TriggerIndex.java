@@ -0,0 +1,398 @@
+package com.walmartlabs.concord.server.org.triggers;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.common.CompiledMatcher;
+import com.walmartlabs.concord.db.DatabaseConfiguration;
+import com.walmartlabs.concord.db.MainDB;
+import com.walmartlabs.concord.db.PgNotificationListener;
+import com.walmartlabs.concord.server.cfg.TriggersConfiguration;
+import com.walmartlabs.concord.server.sdk.BackgroundTask;
+import com.walmartlabs.concord.server.sdk.metrics.WithTimer;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.walmartlabs.concord.server.events.github.Constants.*;
+
+/**
+ * Node-local in-memory index of triggers, used to find the triggers matching
+ * an incoming event without querying the DB.
+ * <p>
+ * Triggers are grouped by their event source and version. Within a group,
+ * triggers are indexed by the literal (i.e. without any regex metacharacters)
+ * values of their {@code githubOrg}, {@code githubRepo} and {@code type}
+ * conditions. Any other value (a pattern, a list, a missing condition) acts
+ * as a wildcard and is checked against the event using a precompiled matcher.
+ * The returned triggers match the event's values of the indexed conditions,
+ * callers still have to match the event against the rest of the conditions.
+ * <p>
+ * The index is kept up to date using PostgreSQL notifications sent on every
+ * change in the TRIGGERS table. Only the triggers of the affected repositories
+ * are reloaded. The whole index is reloaded after every (re)connect and
+ * periodically, to pick up the changes not covered by the notifications
+ * (e.g. renamed projects or repositories).
+ * <p>
+ * Until the index is loaded (or if it is disabled) the lookups go to the DB.
+ */
+public class TriggerIndex implements BackgroundTask, PgNotificationListener.Handler {
+
+    private static final Logger log = LoggerFactory.getLogger(TriggerIndex.class);
+
+    static final String CHANNEL = "concord_triggers_changed";
+
+    private static final long POLL_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final TriggersDao triggersDao;
+    private final boolean enabled;
+    private final long reloadInterval;
+    private final Meter notifications;
+    private final PgNotificationListener listener;
+
+    /**
+     * Triggers by repository. Accessed only by the worker thread.
+     */
+    private final Map<RepositoryKey, List<TriggerEntry>> byRepository = new HashMap<>();
+
+    private volatile Snapshot snapshot;
+    private volatile long lastReloadDuration;
+
+    /**
+     * Accessed only by the worker thread.
+     */
+    private long lastReloadAt;
+
+    @Inject
+    public TriggerIndex(@MainDB DatabaseConfiguration dbCfg,
+                        TriggersDao triggersDao,
+                        TriggersConfiguration cfg,
+                        MetricRegistry metricRegistry) {
+
+        this.triggersDao = triggersDao;
+        this.enabled = cfg.isIndexEnabled();
+        this.reloadInterval = cfg.getIndexReloadInterval().toMillis();
+        this.notifications = metricRegistry.meter("trigger-index-notifications");
+        this.listener = new PgNotificationListener(dbCfg, CHANNEL, "trigger-index", Math.min(POLL_TIMEOUT, reloadInterval), this);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        listener.stop();
+    }
+
+    /**
+     * Returns the triggers of the specified event source and version that
+     * can match the event.
+     *
+     * @param projectId if not {@code null}, only the project's triggers are returned
+     */
+    @WithTimer
+    public List<TriggerEntry> list(String eventSource, int version, UUID projectId, Map<String, Object> event) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return triggersDao.list(projectId, eventSource, version, dbConditions(eventSource, event));
+        }
+
+        List<TriggerEntry> candidates = s.candidates(eventSource, version, event);
+        if (projectId == null || candidates.isEmpty()) {
+            return candidates;
+        }
+
+        List<TriggerEntry> result = new ArrayList<>(candidates.size());
+        for (TriggerEntry t : candidates) {
+            if (projectId.equals(t.getProjectId())) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    public long getSize() {
+        Snapshot s = snapshot;
+        return s != null ? s.size() : 0;
+    }
+
+    public long getLastReloadDuration() {
+        return lastReloadDuration;
+    }
+
+    @Override
+    public void onConnect() {
+        // the notifications might've been sent while we were reconnecting
+        reloadAll();
+    }
+
+    @Override
+    public void onNotifications(PGNotification[] n) {
+        notifications.mark(n.length);
+        reload(n);
+    }
+
+    @Override
+    public void afterPoll() {
+        if (System.currentTimeMillis() - lastReloadAt >= reloadInterval) {
+            reloadAll();
+        }
+    }
+
+    private void reloadAll() {
+        long t1 = System.currentTimeMillis();
+
+        byRepository.clear();
+        for (TriggerEntry t : triggersDao.list()) {
+            byRepository.computeIfAbsent(new RepositoryKey(t.getProjectId(), t.getRepositoryId()), k -> new ArrayList<>())
+                    .add(t);
+        }
+
+        publish(t1);
+        lastReloadAt = System.currentTimeMillis();
+    }
+
+    private void reload(PGNotification[] notifications) {
+        long t1 = System.currentTimeMillis();
+
+        Set<RepositoryKey> keys = new HashSet<>();
+        for (PGNotification n : notifications) {
+            RepositoryKey k = RepositoryKey.parse(n.getParameter());
+            if (k != null) {
+                keys.add(k);
+            }
+        }
+
+        for (RepositoryKey k : keys) {
+            List<TriggerEntry> triggers = triggersDao.list(k.projectId(), k.repositoryId());
+            if (triggers.isEmpty()) {
+                byRepository.remove(k);
+            } else {
+                byRepository.put(k, triggers);
+            }
+        }
+
+        publish(t1);
+    }
+
+    private void publish(long startedAt) {
+        List<TriggerEntry> all = new ArrayList<>();
+        byRepository.values().forEach(all::addAll);
+
+        Snapshot s = Snapshot.build(all);
+        this.snapshot = s;
+        this.lastReloadDuration = System.currentTimeMillis() - startedAt;
+
+        log.debug("publish -> done, {} trigger(s) in {}ms", s.size(), lastReloadDuration);
+    }
+
+    /**
+     * Conditions to filter the triggers by in the DB, when the index isn't available.
+     */
+    private static Map<String, String> dbConditions(String eventSource, Map<String, Object> event) {
+        if (!EVENT_SOURCE.equals(eventSource)) {
+            return null;
+        }
+
+        Map<String, String> result = new HashMap<>();
+        for (String key : List.of(GITHUB_ORG_KEY, GITHUB_REPO_KEY)) {
+            if (event.get(key) instanceof String v) {
+                result.put(key, v);
+            }
+        }
+        return result;
+    }
+
+    record RepositoryKey(UUID projectId, UUID repositoryId) {
+
+        /**
+         * Parses the notification payload: {@code projectId/repositoryId}.
+         */
+        static RepositoryKey parse(String s) {
+            int idx = s != null ? s.indexOf('/') : -1;
+            if (idx < 0) {
+                log.warn("parse -> invalid notification: '{}'", s);
+                return null;
+            }
+
+            try {
+                return new RepositoryKey(UUID.fromString(s.substring(0, idx)), UUID.fromString(s.substring(idx + 1)));
+            } catch (IllegalArgumentException e) {
+                log.warn("parse -> invalid notification: '{}'", s);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Immutable view of the indexed triggers.
+     */
+    record Snapshot(Map<GroupKey, Group> groups, int size) {
+
+        static Snapshot build(Collection<TriggerEntry> triggers) {
+            Map<GroupKey, Group> groups = new HashMap<>();
+            for (TriggerEntry t : triggers) {
+                GroupKey k = new GroupKey(t.getEventSource(), versionOf(t.getConditions()));
+                groups.computeIfAbsent(k, key -> new Group()).add(t);
+            }
+            return new Snapshot(groups, triggers.size());
+        }
+
+        List<TriggerEntry> candidates(String eventSource, int version, Map<String, Object> event) {
+            Group g = groups.get(new GroupKey(eventSource, String.valueOf(version)));
+            if (g == null) {
+                return Collections.emptyList();
+            }
+            return g.candidates(event);
+        }
+
+        /**
+         * Same as the {@code conditions->>'version'} check in {@link TriggersDao}:
+         * triggers without a version are version 1 triggers.
+         */
+        private static String versionOf(Map<String, Object> conditions) {
+            Object v = conditions != null ? conditions.get(VERSION_KEY) : null;
+            return v != null ? String.valueOf(v) : "1";
+        }
+    }
+
+    record GroupKey(String eventSource, String version) {
+    }
+
+    /**
+     * Literal values of the indexed conditions, {@code null} means "any value".
+     */
+    record LiteralKey(String org, String repo, String type) {
+    }
+
+    static final class Group {
+
+        private static final List<String> INDEXED_KEYS = List.of(GITHUB_ORG_KEY, GITHUB_REPO_KEY, TYPE_KEY);
+
+        private final List<TriggerEntry> all = new ArrayList<>();
+        private final Map<LiteralKey, List<Entry>> byKey = new HashMap<>();
+
+        private void add(TriggerEntry t) {
+            Map<String, Object> c = t.getConditions() != null ? t.getConditions() : Collections.emptyMap();
+            LiteralKey k = new LiteralKey(literal(c.get(GITHUB_ORG_KEY)), literal(c.get(GITHUB_REPO_KEY)), literal(c.get(TYPE_KEY)));
+
+            // indexed conditions that are not literals are checked separately
+            Map<String, Object> patterns = new HashMap<>();
+            for (String key : INDEXED_KEYS) {
+                Object v = c.get(key);
+                if (v != null && literal(v) == null) {
+                    patterns.put(key, v);
+                }
+            }
+
+            all.add(t);
+            byKey.computeIfAbsent(k, key -> new ArrayList<>())
+                    .add(new Entry(t, patterns.isEmpty() ? null : CompiledMatcher.compile(patterns)));
+        }
+
+        List<TriggerEntry> candidates(Map<String, Object> event) {
+            String[] orgs = lookupValues(event.get(GITHUB_ORG_KEY));
+            String[] repos = lookupValues(event.get(GITHUB_REPO_KEY));
+            String[] types = lookupValues(event.get(TYPE_KEY));
+            if (orgs == null || repos == null || types == null) {
+                // can't use the index for such values (e.g. lists)
+                return all;
+            }
+
+            List<TriggerEntry> result = new ArrayList<>();
+            for (String org : orgs) {
+                for (String repo : repos) {
+                    for (String type : types) {
+                        List<Entry> l = byKey.get(new LiteralKey(org, repo, type));
+                        if (l == null) {
+                            continue;
+                        }
+
+                        for (Entry e : l) {
+                            if (e.matches(event)) {
+                                result.add(e.trigger());
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the normalized condition value if it matches only itself
+         * (ignoring the ASCII case), {@code null} otherwise.
+         */
+        private static String literal(Object condition) {
+            if (!(condition instanceof String s) || s.isEmpty() || !CompiledMatcher.isLiteral(s)) {
+                return null;
+            }
+            return s.toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Returns the index keys to look up for the event's value
+         * or {@code null} if the index can't be used for the value.
+         */
+        private static String[] lookupValues(Object value) {
+            if (value == null) {
+                // a missing value can't match a non-empty literal
+                return new String[]{null};
+            }
+
+            if (value instanceof String || value instanceof UUID) {
+                return new String[]{value.toString().toLowerCase(Locale.ROOT), null};
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * @param patterns the trigger's indexed conditions that are not literals, if any
+     */
+    private record Entry(TriggerEntry trigger, CompiledMatcher patterns) {
+
+        boolean matches(Map<String, Object> event) {
+            if (patterns == null) {
+                return true;
+            }
+
+            try {
+                return patterns.matches(event);
+            } catch (Exception e) {
+                // e.g. an invalid regex, let the caller's filter deal with it
+                return true;
+            }
+        }
+    }
+}
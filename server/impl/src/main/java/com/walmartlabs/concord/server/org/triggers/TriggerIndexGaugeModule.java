@@ -0,0 +1,56 @@
+package com.walmartlabs.concord.server.org.triggers;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Gauge;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.multibindings.Multibinder;
+import com.walmartlabs.concord.server.sdk.metrics.GaugeProvider;
+
+import java.util.function.ToLongFunction;
+
+public class TriggerIndexGaugeModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        Provider<TriggerIndex> provider = getProvider(TriggerIndex.class);
+
+        Multibinder<GaugeProvider> gauges = Multibinder.newSetBinder(binder(), GaugeProvider.class);
+        gauges.addBinding().toInstance(create("size", provider, TriggerIndex::getSize));
+        gauges.addBinding().toInstance(create("reload-duration-ms", provider, TriggerIndex::getLastReloadDuration));
+    }
+
+    private static GaugeProvider<Long> create(String suffix, Provider<TriggerIndex> provider, ToLongFunction<TriggerIndex> value) {
+        return new GaugeProvider<>() {
+            @Override
+            public String name() {
+                return "trigger-index-" + suffix;
+            }
+
+            @Override
+            public Gauge<Long> gauge() {
+                TriggerIndex index = provider.get();
+                return () -> value.applyAsLong(index);
+            }
+        };
+    }
+}
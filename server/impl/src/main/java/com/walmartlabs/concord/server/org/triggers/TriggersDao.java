@@ -88,6 +88,10 @@ public class TriggersDao extends AbstractDao {
                 .execute();
     }
 
+    public List<TriggerEntry> list() {
+        return selectTriggers(dsl()).fetch(this::toEntity);
+    }
+
     public List<TriggerEntry> list(UUID projectId, UUID repositoryId) {
         return list(dsl(), projectId, repositoryId);
     }
@@ -25,6 +25,7 @@ import com.google.inject.Module;
 
 import static com.google.inject.Scopes.SINGLETON;
 import static com.walmartlabs.concord.server.Utils.bindJaxRsResource;
+import static com.walmartlabs.concord.server.Utils.bindSingletonBackgroundTask;
 import static com.walmartlabs.concord.server.Utils.bindSingletonScheduledTask;
 
 public class TriggersModule implements Module {
@@ -41,5 +42,8 @@ public class TriggersModule implements Module {
         bindJaxRsResource(binder, TriggerV2Resource.class);
 
         bindSingletonScheduledTask(binder, TriggerScheduler.class);
+
+        bindSingletonBackgroundTask(binder, TriggerIndex.class);
+        binder.install(new TriggerIndexGaugeModule());
     }
 }
@@ -30,6 +30,7 @@ import com.walmartlabs.concord.policyengine.PolicyEngineRules;
 import com.walmartlabs.concord.server.ConcordObjectMapper;
 import com.walmartlabs.concord.server.cfg.PolicyCacheConfiguration;
 import com.walmartlabs.concord.server.sdk.BackgroundTask;
+import com.walmartlabs.concord.server.sdk.metrics.WithTimer;
 import org.immutables.value.Value;
 import org.jooq.Configuration;
 import org.slf4j.Logger;
@@ -39,13 +40,10 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
-import static com.walmartlabs.concord.server.jooq.Tables.POLICIES;
-import static com.walmartlabs.concord.server.jooq.Tables.POLICY_LINKS;
+import static com.walmartlabs.concord.server.jooq.Tables.*;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class PolicyCache implements BackgroundTask {
@@ -54,19 +52,29 @@ public class PolicyCache implements BackgroundTask {
     private static final long ERROR_DELAY = 10000;
 
     private final ObjectMapper objectMapper;
-    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
     private final Lock refreshMutex = new ReentrantLock();
+    private final Lock reloadMutex = new ReentrantLock();
 
     private final PolicyCacheConfiguration cacheCfg;
     private final Dao dao;
 
-    private PolicyEngine defaultPolicy;
-    private Map<UUID, PolicyEngine> byOrg = Collections.emptyMap();
-    private Map<UUID, PolicyEngine> byProject = Collections.emptyMap();
-    private Map<UUID, PolicyEngine> byUser = Collections.emptyMap();
-    private List<PolicyItem> otherUserPolicies = Collections.emptyList();
+    /**
+     * Readers always see a complete, immutable snapshot of the policies.
+     * Reloads build a new snapshot and replace the reference.
+     */
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Compiled policies by policy ID, used to rebuild only the changed
+     * policies on reload. Guarded by {@link #reloadMutex}.
+     */
+    private Map<UUID, CompiledPolicy> compiledPolicies = Collections.emptyMap();
 
     private volatile long lastRefreshRequestAt = -1;
+    private volatile long lastReloadAt = -1;
+    private volatile long loadedVersion = -1;
+    private volatile long lastReloadDuration = -1;
+    private volatile int lastRebuiltCount = 0;
     private Thread loader;
 
     @Inject
@@ -105,72 +113,39 @@ public class PolicyCache implements BackgroundTask {
         }
     }
 
+    @WithTimer
     public PolicyEngine get(UUID orgId, UUID projectId, UUID userId) {
-        Lock l = rwLock.readLock();
-        l.lock();
-        try {
-            return getUnsafe(orgId, projectId, userId);
-        } finally {
-            l.unlock();
-        }
+        return snapshot.get(orgId, projectId, userId);
     }
 
-    private PolicyEngine getUnsafe(UUID orgId, UUID projectId, UUID userId) {
-        if (userId != null) {
-            if (projectId != null) {
-                PolicyEngine result = otherUserPolicies.stream()
-                        .filter(p -> userId.equals(p.link().userId()))
-                        .filter(p -> projectId.equals(p.link().projectId()))
-                        .findAny()
-                        .map(PolicyItem::engine)
-                        .orElse(null);
-
-                if (result != null) {
-                    return result;
-                }
-            }
-
-            if (orgId != null) {
-                PolicyEngine result = otherUserPolicies.stream()
-                        .filter(p -> userId.equals(p.link().userId()))
-                        .filter(p -> orgId.equals(p.link().orgId()))
-                        .findAny()
-                        .map(PolicyItem::engine)
-                        .orElse(null);
-
-                if (result != null) {
-                    return result;
-                }
-            }
-
-            PolicyEngine result = byUser.get(userId);
-            if (result != null) {
-                return result;
-            }
-        }
-
-        if (projectId != null) {
-            PolicyEngine result = byProject.get(projectId);
-            if (result != null) {
-                return result;
-            }
-        }
+    /**
+     * @return version of the policies (see POLICY_VERSION table) the cache was loaded with.
+     */
+    public long getLoadedVersion() {
+        return loadedVersion;
+    }
 
-        if (orgId != null) {
-            PolicyEngine result = byOrg.get(orgId);
-            if (result != null) {
-                return result;
-            }
-        }
+    /**
+     * @return duration of the last reload (ms).
+     */
+    public long getLastReloadDuration() {
+        return lastReloadDuration;
+    }
 
-        return defaultPolicy;
+    /**
+     * @return number of policies recompiled during the last reload.
+     */
+    public int getLastRebuiltCount() {
+        return lastRebuiltCount;
     }
 
     private void run() {
         while (!Thread.currentThread().isInterrupted()) {
             try {
                 long now = System.currentTimeMillis();
-                reloadPolicies();
+                if (isReloadNeeded(now)) {
+                    reloadPolicies();
+                }
 
                 refreshMutex.lock();
                 try {
@@ -179,7 +154,7 @@ public class PolicyCache implements BackgroundTask {
                     } else {
                         //noinspection ResultOfMethodCallIgnored
                         refreshMutex.newCondition()
-                                .await(cacheCfg.getReloadInterval().toMillis(), MILLISECONDS);
+                                .await(cacheCfg.getChangeCheckInterval().toMillis(), MILLISECONDS);
                     }
                 } finally {
                     refreshMutex.unlock();
@@ -198,78 +173,98 @@ public class PolicyCache implements BackgroundTask {
         }
     }
 
-    private void reloadPolicies() {
-        PolicyEngine defaultPolicy = null;
-        Map<UUID, PolicyEngine> byOrg = new HashMap<>();
-        Map<UUID, PolicyEngine> byProject = new HashMap<>();
-        Map<UUID, PolicyEngine> byUser = new HashMap<>();
-        List<PolicyItem> otherUserPolicies = new ArrayList<>();
-
-        List<PolicyLink> links = dao.listLinks();
-        if (links.isEmpty()) {
-            setPolicies(defaultPolicy, byOrg, byProject, byUser, otherUserPolicies);
-            return;
+    private boolean isReloadNeeded(long now) {
+        if (lastReloadAt < 0 || lastRefreshRequestAt > lastReloadAt) {
+            return true;
         }
 
-        Map<UUID, Policy> policies = mergePolicies(dao.listPolicies());
-        for (PolicyLink l : links) {
-            Policy policy = policies.get(l.policyId());
-            if (policy == null) {
-                continue;
-            }
-            PolicyEngine pe = new PolicyEngine(policy.policyNames(), policy.rules());
-            if (l.orgId() == null && l.projectId() == null && l.userId() == null) {
-                defaultPolicy = pe;
-            } else if (l.orgId() != null && l.projectId() == null && l.userId() == null) {
-                byOrg.put(l.orgId(), pe);
-            } else if (l.orgId() == null && l.projectId() != null && l.userId() == null) {
-                byProject.put(l.projectId(), pe);
-            } else if (l.orgId() == null && l.projectId() == null && l.userId() != null) {
-                byUser.put(l.userId(), pe);
-            } else if (l.userId() != null) {
-                otherUserPolicies.add(PolicyItem.of(l, pe));
-            } else {
-                log.warn("Unexpected policy link: {}", l);
-            }
+        if (now - lastReloadAt >= cacheCfg.getReloadInterval().toMillis()) {
+            return true;
         }
 
-        setPolicies(defaultPolicy, byOrg, byProject, byUser, otherUserPolicies);
+        return dao.getVersion() != loadedVersion;
     }
 
-    private void setPolicies(PolicyEngine defaultPolicy,
-                             Map<UUID, PolicyEngine> byOrg,
-                             Map<UUID, PolicyEngine> byProject,
-                             Map<UUID, PolicyEngine> byUser,
-                             List<PolicyItem> otherUserPolicies) {
-
-        Lock l = rwLock.writeLock();
-        l.lock();
+    private void reloadPolicies() {
+        reloadMutex.lock();
         try {
-            this.defaultPolicy = defaultPolicy;
-            this.byOrg = byOrg;
-            this.byProject = byProject;
-            this.byUser = byUser;
-            this.otherUserPolicies = otherUserPolicies;
+            long t1 = System.currentTimeMillis();
+
+            // read the version first, any concurrent changes will trigger another reload
+            long version = dao.getVersion();
+
+            List<PolicyLink> links = dao.listLinks();
+            if (links.isEmpty()) {
+                this.compiledPolicies = Collections.emptyMap();
+                this.snapshot = Snapshot.EMPTY;
+                onReloaded(version, t1, 0);
+                return;
+            }
+
+            List<PolicyRules> policies = dao.listPolicies();
+
+            Map<UUID, CompiledPolicy> compiled = new HashMap<>();
+            int rebuilt = 0;
+            for (PolicyRules p : policies) {
+                List<PolicyRules> rules = combinePolicies(p, policies);
+
+                CompiledPolicy prev = compiledPolicies.get(p.id());
+                if (prev != null && prev.rules().equals(rules)) {
+                    compiled.put(p.id(), prev);
+                    continue;
+                }
+
+                Policy policy = toPolicy(p, rules);
+                compiled.put(p.id(), new CompiledPolicy(rules, new PolicyEngine(policy.policyNames(), policy.rules())));
+                rebuilt++;
+            }
+
+            Snapshot.Builder b = new Snapshot.Builder();
+            for (PolicyLink l : links) {
+                CompiledPolicy policy = compiled.get(l.policyId());
+                if (policy == null) {
+                    continue;
+                }
+                b.add(l, policy.engine());
+            }
+
+            this.compiledPolicies = compiled;
+            this.snapshot = b.build();
+            onReloaded(version, t1, rebuilt);
         } finally {
-            l.unlock();
+            reloadMutex.unlock();
         }
     }
 
+    private void onReloaded(long version, long startedAt, int rebuilt) {
+        long now = System.currentTimeMillis();
+        this.loadedVersion = version;
+        this.lastReloadAt = now;
+        this.lastReloadDuration = now - startedAt;
+        this.lastRebuiltCount = rebuilt;
+
+        log.debug("reloadPolicies -> version: {}, rebuilt: {}, took {}ms", version, rebuilt, lastReloadDuration);
+    }
+
     Map<UUID, Policy> mergePolicies(List<PolicyRules> policies) {
         Map<UUID, Policy> result = new HashMap<>();
         for (PolicyRules p : policies) {
             List<PolicyRules> rules = combinePolicies(p, policies);
-            Map<String, Object> mergedRules = mergeRules(rules);
-
-            result.put(p.id(), ImmutablePolicy.builder()
-                    .id(p.id())
-                    .addAllPolicyNames(rules.stream().map(PolicyRules::name).collect(Collectors.toList()))
-                    .rules(objectMapper.convertValue(mergedRules, PolicyEngineRules.class))
-                    .build());
+            result.put(p.id(), toPolicy(p, rules));
         }
         return result;
     }
 
+    private Policy toPolicy(PolicyRules p, List<PolicyRules> rules) {
+        Map<String, Object> mergedRules = mergeRules(rules);
+
+        return ImmutablePolicy.builder()
+                .id(p.id())
+                .addAllPolicyNames(rules.stream().map(PolicyRules::name).collect(Collectors.toList()))
+                .rules(objectMapper.convertValue(mergedRules, PolicyEngineRules.class))
+                .build();
+    }
+
     private static Map<String, Object> mergeRules(List<PolicyRules> rules) {
         Map<String, Object> result = new HashMap<>();
         for (int i = rules.size() - 1; i >= 0; i--) {
@@ -330,6 +325,14 @@ public class PolicyCache implements BackgroundTask {
                             .rules(objectMapper.fromJSONB(r.getRules()))
                             .build()));
         }
+
+        public long getVersion() {
+            Long version = txResult(tx -> tx.select(POLICY_VERSION.VERSION)
+                    .from(POLICY_VERSION)
+                    .fetchOne(POLICY_VERSION.VERSION));
+
+            return version != null ? version : -1;
+        }
     }
 
     @Value.Immutable
@@ -365,26 +368,104 @@ public class PolicyCache implements BackgroundTask {
     }
 
     @Value.Immutable
-    interface PolicyItem {
+    interface Policy {
 
-        @Value.Parameter
-        PolicyLink link();
+        UUID id();
 
-        @Value.Parameter
-        PolicyEngine engine();
+        List<String> policyNames();
 
-        static PolicyItem of(PolicyLink link, PolicyEngine engine) {
-            return ImmutablePolicyItem.of(link, engine);
-        }
+        PolicyEngineRules rules();
     }
 
-    @Value.Immutable
-    interface Policy {
+    private record CompiledPolicy(List<PolicyRules> rules, PolicyEngine engine) {
+    }
 
-        UUID id();
+    private record UserLinkKey(UUID userId, UUID entityId) {
+    }
 
-        List<String> policyNames();
+    private record Snapshot(PolicyEngine defaultPolicy,
+                            Map<UUID, PolicyEngine> byOrg,
+                            Map<UUID, PolicyEngine> byProject,
+                            Map<UUID, PolicyEngine> byUser,
+                            Map<UserLinkKey, PolicyEngine> byUserAndProject,
+                            Map<UserLinkKey, PolicyEngine> byUserAndOrg) {
+
+        static final Snapshot EMPTY = new Builder().build();
+
+        PolicyEngine get(UUID orgId, UUID projectId, UUID userId) {
+            if (userId != null) {
+                if (projectId != null) {
+                    PolicyEngine result = byUserAndProject.get(new UserLinkKey(userId, projectId));
+                    if (result != null) {
+                        return result;
+                    }
+                }
 
-        PolicyEngineRules rules();
+                if (orgId != null) {
+                    PolicyEngine result = byUserAndOrg.get(new UserLinkKey(userId, orgId));
+                    if (result != null) {
+                        return result;
+                    }
+                }
+
+                PolicyEngine result = byUser.get(userId);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            if (projectId != null) {
+                PolicyEngine result = byProject.get(projectId);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            if (orgId != null) {
+                PolicyEngine result = byOrg.get(orgId);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            return defaultPolicy;
+        }
+
+        static class Builder {
+
+            private PolicyEngine defaultPolicy;
+            private final Map<UUID, PolicyEngine> byOrg = new HashMap<>();
+            private final Map<UUID, PolicyEngine> byProject = new HashMap<>();
+            private final Map<UUID, PolicyEngine> byUser = new HashMap<>();
+            private final Map<UserLinkKey, PolicyEngine> byUserAndProject = new HashMap<>();
+            private final Map<UserLinkKey, PolicyEngine> byUserAndOrg = new HashMap<>();
+
+            void add(PolicyLink l, PolicyEngine pe) {
+                if (l.orgId() == null && l.projectId() == null && l.userId() == null) {
+                    defaultPolicy = pe;
+                } else if (l.orgId() != null && l.projectId() == null && l.userId() == null) {
+                    byOrg.put(l.orgId(), pe);
+                } else if (l.orgId() == null && l.projectId() != null && l.userId() == null) {
+                    byProject.put(l.projectId(), pe);
+                } else if (l.orgId() == null && l.projectId() == null && l.userId() != null) {
+                    byUser.put(l.userId(), pe);
+                } else if (l.userId() != null) {
+                    // the first matching link wins
+                    if (l.projectId() != null) {
+                        byUserAndProject.putIfAbsent(new UserLinkKey(l.userId(), l.projectId()), pe);
+                    }
+                    if (l.orgId() != null) {
+                        byUserAndOrg.putIfAbsent(new UserLinkKey(l.userId(), l.orgId()), pe);
+                    }
+                } else {
+                    log.warn("Unexpected policy link: {}", l);
+                }
+            }
+
+            Snapshot build() {
+                return new Snapshot(defaultPolicy, Map.copyOf(byOrg), Map.copyOf(byProject), Map.copyOf(byUser),
+                        Map.copyOf(byUserAndProject), Map.copyOf(byUserAndOrg));
+            }
+        }
     }
 }
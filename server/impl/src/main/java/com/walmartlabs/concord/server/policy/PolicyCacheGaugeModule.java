@@ -0,0 +1,57 @@
+package com.walmartlabs.concord.server.policy;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Gauge;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.multibindings.Multibinder;
+import com.walmartlabs.concord.server.sdk.metrics.GaugeProvider;
+
+import java.util.function.ToLongFunction;
+
+public class PolicyCacheGaugeModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        Provider<PolicyCache> provider = getProvider(PolicyCache.class);
+
+        Multibinder<GaugeProvider> gauges = Multibinder.newSetBinder(binder(), GaugeProvider.class);
+        gauges.addBinding().toInstance(create("version", provider, PolicyCache::getLoadedVersion));
+        gauges.addBinding().toInstance(create("reload-duration-ms", provider, PolicyCache::getLastReloadDuration));
+        gauges.addBinding().toInstance(create("rebuilt-count", provider, PolicyCache::getLastRebuiltCount));
+    }
+
+    private static GaugeProvider<Long> create(String suffix, Provider<PolicyCache> provider, ToLongFunction<PolicyCache> value) {
+        return new GaugeProvider<>() {
+            @Override
+            public String name() {
+                return "policy-cache-" + suffix;
+            }
+
+            @Override
+            public Gauge<Long> gauge() {
+                PolicyCache cache = provider.get();
+                return () -> value.applyAsLong(cache);
+            }
+        };
+    }
+}
@@ -30,5 +30,6 @@ public class PolicyModule implements Module {
     @Override
     public void configure(Binder binder) {
         bindSingletonBackgroundTask(binder, PolicyCache.class);
+        binder.install(new PolicyCacheGaugeModule());
     }
 }
@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.time.OffsetDateTime;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.walmartlabs.concord.server.jooq.Tables.*;
@@ -39,12 +40,13 @@ import static com.walmartlabs.concord.server.jooq.tables.ProcessCheckpoints.PROC
 import static com.walmartlabs.concord.server.jooq.tables.ProcessEvents.PROCESS_EVENTS;
 import static com.walmartlabs.concord.server.jooq.tables.ProcessQueue.PROCESS_QUEUE;
 import static com.walmartlabs.concord.server.jooq.tables.ProcessState.PROCESS_STATE;
+import static org.jooq.impl.DSL.*;
 
 public class ProcessCleaner implements ScheduledTask {
 
     private static final Logger log = LoggerFactory.getLogger(ProcessCleaner.class);
 
-    private static final String[] EXCLUDE_STATUSES = {
+    static final String[] EXCLUDE_STATUSES = {
             ProcessStatus.STARTING.toString(),
             ProcessStatus.RUNNING.toString(),
             ProcessStatus.RESUMING.toString()
@@ -52,11 +54,16 @@ public class ProcessCleaner implements ScheduledTask {
 
     private final ProcessConfiguration cfg;
     private final CleanerDao cleanerDao;
+    private final ProcessPartitionManager partitionManager;
 
     @Inject
-    public ProcessCleaner(ProcessConfiguration cfg, @MainDB Configuration dbCfg) {
+    public ProcessCleaner(ProcessConfiguration cfg,
+                          @MainDB Configuration dbCfg,
+                          ProcessPartitionManager partitionManager) {
+
         this.cfg = cfg;
         this.cleanerDao = new CleanerDao(dbCfg);
+        this.partitionManager = partitionManager;
     }
 
     @Override
@@ -71,8 +78,12 @@ public class ProcessCleaner implements ScheduledTask {
 
     @Override
     public void performTask() {
-        cleanerDao.deleteOldState(cfg);
-        cleanerDao.deleteOrphans(cfg);
+        // tables cleaned up by dropping whole partitions
+        Set<Table<?>> partitioned = partitionManager.maintain();
+
+        cleanerDao.deleteOldState(cfg, partitioned);
+        cleanerDao.deleteOrphans(cfg, partitioned);
+        cleanerDao.deleteUnusedBlobs(cfg);
     }
 
     private static class CleanerDao extends AbstractDao {
@@ -81,7 +92,15 @@ public class ProcessCleaner implements ScheduledTask {
             super(cfg);
         }
 
-        void deleteOldState(ProcessConfiguration jobCfg) {
+        /**
+         * Removes the data of processes that weren't updated for longer than
+         * {@link ProcessConfiguration#getMaxStateAge()}.
+         * <p>
+         * Such processes were also created before the cutoff, the additional
+         * {@code INSTANCE_CREATED_AT} condition lets PostgreSQL skip the newer
+         * partitions of partitioned tables.
+         */
+        void deleteOldState(ProcessConfiguration jobCfg, Set<Table<?>> partitioned) {
             long t1 = System.currentTimeMillis();
 
             Field<OffsetDateTime> cutoff = PgUtils.nowMinus(jobCfg.getMaxStateAge());
@@ -95,46 +114,63 @@ public class ProcessCleaner implements ScheduledTask {
                 int stateRecords = 0;
                 int initialStateRecords = 0;
                 if (jobCfg.isStateCleanup()) {
-                    stateRecords = tx.deleteFrom(PROCESS_STATE)
-                            .where(PROCESS_STATE.INSTANCE_ID.in(ids))
-                            .execute();
-
-                    initialStateRecords = tx.deleteFrom(PROCESS_INITIAL_STATE)
-                            .where(PROCESS_INITIAL_STATE.INSTANCE_ID.in(ids))
-                            .execute();
+                    if (!partitioned.contains(PROCESS_STATE)) {
+                        stateRecords = tx.deleteFrom(PROCESS_STATE)
+                                .where(PROCESS_STATE.INSTANCE_ID.in(ids)
+                                        .and(PROCESS_STATE.INSTANCE_CREATED_AT.lessThan(cutoff)))
+                                .execute();
+                    }
+
+                    if (!partitioned.contains(PROCESS_INITIAL_STATE)) {
+                        initialStateRecords = tx.deleteFrom(PROCESS_INITIAL_STATE)
+                                .where(PROCESS_INITIAL_STATE.INSTANCE_ID.in(ids)
+                                        .and(PROCESS_INITIAL_STATE.INSTANCE_CREATED_AT.lessThan(cutoff)))
+                                .execute();
+                    }
                 }
 
                 int events = 0;
-                if (jobCfg.isEventsCleanup()) {
+                if (jobCfg.isEventsCleanup() && !partitioned.contains(PROCESS_EVENTS)) {
                     events = tx.deleteFrom(PROCESS_EVENTS)
-                            .where(PROCESS_EVENTS.INSTANCE_ID.in(ids))
+                            .where(PROCESS_EVENTS.INSTANCE_ID.in(ids)
+                                    .and(PROCESS_EVENTS.INSTANCE_CREATED_AT.lessThan(cutoff)))
                             .execute();
                 }
 
                 int logDataEntries = 0;
                 int logSegmentEntries = 0;
                 if (jobCfg.isLogsCleanup()) {
-                    logDataEntries = tx.deleteFrom(PROCESS_LOG_DATA)
-                            .where(PROCESS_LOG_DATA.INSTANCE_ID.in(ids))
-                            .execute();
-
-                    logSegmentEntries = tx.deleteFrom(PROCESS_LOG_SEGMENTS)
-                            .where(PROCESS_LOG_SEGMENTS.INSTANCE_ID.in(ids))
-                            .execute();
+                    if (!partitioned.contains(PROCESS_LOG_DATA)) {
+                        logDataEntries = tx.deleteFrom(PROCESS_LOG_DATA)
+                                .where(PROCESS_LOG_DATA.INSTANCE_ID.in(ids)
+                                        .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.lessThan(cutoff)))
+                                .execute();
+                    }
+
+                    if (!partitioned.contains(PROCESS_LOG_SEGMENTS)) {
+                        logSegmentEntries = tx.deleteFrom(PROCESS_LOG_SEGMENTS)
+                                .where(PROCESS_LOG_SEGMENTS.INSTANCE_ID.in(ids)
+                                        .and(PROCESS_LOG_SEGMENTS.INSTANCE_CREATED_AT.lessThan(cutoff)))
+                                .execute();
+                    }
                 }
 
                 int checkpoints = 0;
-                if (jobCfg.isCheckpointCleanup()) {
+                if (jobCfg.isCheckpointCleanup() && !partitioned.contains(PROCESS_CHECKPOINTS)) {
                     checkpoints = tx.deleteFrom(PROCESS_CHECKPOINTS)
-                            .where(PROCESS_CHECKPOINTS.INSTANCE_ID.in(ids))
+                            .where(PROCESS_CHECKPOINTS.INSTANCE_ID.in(ids)
+                                    .and(PROCESS_CHECKPOINTS.INSTANCE_CREATED_AT.lessThan(cutoff)))
                             .execute();
                 }
 
                 int queueEntries = 0;
                 if (jobCfg.isQueueCleanup()) {
-                    tx.deleteFrom(PROCESS_WAIT_CONDITIONS)
-                            .where(PROCESS_WAIT_CONDITIONS.INSTANCE_ID.in(ids))
-                            .execute();
+                    if (!partitioned.contains(PROCESS_WAIT_CONDITIONS)) {
+                        tx.deleteFrom(PROCESS_WAIT_CONDITIONS)
+                                .where(PROCESS_WAIT_CONDITIONS.INSTANCE_ID.in(ids)
+                                        .and(PROCESS_WAIT_CONDITIONS.INSTANCE_CREATED_AT.lessThan(cutoff)))
+                                .execute();
+                    }
 
                     queueEntries = tx.deleteFrom(PROCESS_QUEUE)
                             .where(PROCESS_QUEUE.INSTANCE_ID.in(ids))
@@ -149,28 +185,29 @@ public class ProcessCleaner implements ScheduledTask {
             log.info("deleteOldState -> took {}ms", (t2 - t1));
         }
 
-        void deleteOrphans(ProcessConfiguration jobCfg) {
+        void deleteOrphans(ProcessConfiguration jobCfg, Set<Table<?>> partitioned) {
             long t1 = System.currentTimeMillis();
 
             tx(tx -> {
                 SelectJoinStep<Record1<UUID>> alive = tx.select(PROCESS_QUEUE.INSTANCE_ID).from(PROCESS_QUEUE);
 
                 int stateRecords = 0;
-                if (jobCfg.isStateCleanup()) {
+                // orphans in partitioned tables are removed with their partitions
+                if (jobCfg.isStateCleanup() && !partitioned.contains(PROCESS_STATE)) {
                     stateRecords = tx.deleteFrom(PROCESS_STATE)
                             .where(PROCESS_STATE.INSTANCE_ID.notIn(alive))
                             .execute();
                 }
 
                 int events = 0;
-                if (jobCfg.isEventsCleanup()) {
+                if (jobCfg.isEventsCleanup() && !partitioned.contains(PROCESS_EVENTS)) {
                     events = tx.deleteFrom(PROCESS_EVENTS)
                             .where(PROCESS_EVENTS.INSTANCE_ID.notIn(alive))
                             .execute();
                 }
 
                 int checkpoints = 0;
-                if (jobCfg.isCheckpointCleanup()) {
+                if (jobCfg.isCheckpointCleanup() && !partitioned.contains(PROCESS_CHECKPOINTS)) {
                     checkpoints = tx.deleteFrom(PROCESS_CHECKPOINTS)
                             .where(PROCESS_CHECKPOINTS.INSTANCE_ID.notIn(alive))
                             .execute();
@@ -179,13 +216,17 @@ public class ProcessCleaner implements ScheduledTask {
                 int logDataEntries = 0;
                 int logSegmentEntries = 0;
                 if (jobCfg.isLogsCleanup()) {
-                    logDataEntries = tx.deleteFrom(PROCESS_LOG_DATA)
-                            .where(PROCESS_LOG_DATA.INSTANCE_ID.notIn(alive))
-                            .execute();
-
-                    logSegmentEntries = tx.deleteFrom(PROCESS_LOG_SEGMENTS)
-                            .where(PROCESS_LOG_SEGMENTS.INSTANCE_ID.notIn(alive))
-                            .execute();
+                    if (!partitioned.contains(PROCESS_LOG_DATA)) {
+                        logDataEntries = tx.deleteFrom(PROCESS_LOG_DATA)
+                                .where(PROCESS_LOG_DATA.INSTANCE_ID.notIn(alive))
+                                .execute();
+                    }
+
+                    if (!partitioned.contains(PROCESS_LOG_SEGMENTS)) {
+                        logSegmentEntries = tx.deleteFrom(PROCESS_LOG_SEGMENTS)
+                                .where(PROCESS_LOG_SEGMENTS.INSTANCE_ID.notIn(alive))
+                                .execute();
+                    }
                 }
 
                 log.info("deleteOrphans -> removed orphan data: {} log data entries, {} log segments, {} state item(s), {} event(s), {} checkpoint(s)",
@@ -195,5 +236,53 @@ public class ProcessCleaner implements ScheduledTask {
             long t2 = System.currentTimeMillis();
             log.info("deleteOrphans -> took {}ms", (t2 - t1));
         }
+
+        /**
+         * Removes the content of process state files which is no longer referenced.
+         * Blobs are first marked as unused and removed on one of the next runs if
+         * they stay unreferenced for longer than the configured grace period.
+         * That way the blobs re-used by concurrent transactions are never removed:
+         * {@code ProcessStateManager} clears the mark (and locks the row) before
+         * referencing an existing blob.
+         */
+        void deleteUnusedBlobs(ProcessConfiguration jobCfg) {
+            if (!jobCfg.isStateCleanup()) {
+                return;
+            }
+
+            long t1 = System.currentTimeMillis();
+
+            Field<OffsetDateTime> cutoff = PgUtils.nowMinus(jobCfg.getStateBlobsGracePeriod());
+
+            Condition unreferenced = notExists(selectOne().from(PROCESS_STATE)
+                    .where(PROCESS_STATE.ITEM_HASH.eq(PROCESS_STATE_BLOBS.BLOB_HASH)))
+                    .and(notExists(selectOne().from(PROCESS_INITIAL_STATE)
+                            .where(PROCESS_INITIAL_STATE.ITEM_HASH.eq(PROCESS_STATE_BLOBS.BLOB_HASH))));
+
+            tx(tx -> {
+                int blobs = tx.deleteFrom(PROCESS_STATE_BLOBS)
+                        .where(PROCESS_STATE_BLOBS.UNUSED_SINCE.lessThan(cutoff)
+                                .and(unreferenced))
+                        .execute();
+
+                int restored = tx.update(PROCESS_STATE_BLOBS)
+                        .set(PROCESS_STATE_BLOBS.UNUSED_SINCE, (OffsetDateTime) null)
+                        .where(PROCESS_STATE_BLOBS.UNUSED_SINCE.isNotNull()
+                                .andNot(unreferenced))
+                        .execute();
+
+                int marked = tx.update(PROCESS_STATE_BLOBS)
+                        .set(PROCESS_STATE_BLOBS.UNUSED_SINCE, currentOffsetDateTime())
+                        .where(PROCESS_STATE_BLOBS.UNUSED_SINCE.isNull()
+                                .and(unreferenced))
+                        .execute();
+
+                log.info("deleteUnusedBlobs -> removed {} state blob(s), {} marked as unused, {} in use again",
+                        blobs, marked, restored);
+            });
+
+            long t2 = System.currentTimeMillis();
+            log.info("deleteUnusedBlobs -> took {}ms", (t2 - t1));
+        }
     }
 }
@@ -25,12 +25,15 @@ import com.walmartlabs.concord.server.OperationResult;
 import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
 import com.walmartlabs.concord.server.process.logs.ProcessLogAccessManager;
 import com.walmartlabs.concord.server.process.logs.ProcessLogManager;
+import com.walmartlabs.concord.server.process.logs.ProcessLogStream;
+import com.walmartlabs.concord.server.process.logs.ProcessLogWatchHub;
 import com.walmartlabs.concord.server.sdk.ConcordApplicationException;
 import com.walmartlabs.concord.server.sdk.ProcessKey;
 import com.walmartlabs.concord.server.sdk.metrics.WithTimer;
 import com.walmartlabs.concord.server.sdk.rest.Resource;
 import com.walmartlabs.concord.server.sdk.validation.ValidationErrorsException;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
@@ -39,16 +42,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-
-import static com.walmartlabs.concord.server.process.logs.ProcessLogsDao.ProcessLog;
-import static com.walmartlabs.concord.server.process.logs.ProcessLogsDao.ProcessLogChunk;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * API to work with segmented process logs.
@@ -57,19 +61,24 @@ import static com.walmartlabs.concord.server.process.logs.ProcessLogsDao.Process
 @Tag(name = "ProcessLogV2")
 public class ProcessLogResourceV2 implements Resource {
 
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
     private final ProcessManager processManager;
     private final ProcessLogManager logManager;
     private final ProcessLogAccessManager logAccessManager;
+    private final ProcessLogWatchHub watchHub;
     private final ProcessConfiguration processCfg;
 
     @Inject
     public ProcessLogResourceV2(ProcessManager processManager,
                                 ProcessLogManager logManager,
                                 ProcessLogAccessManager logAccessManager,
+                                ProcessLogWatchHub watchHub,
                                 ProcessConfiguration processCfg) {
         this.processManager = processManager;
         this.logManager = logManager;
         this.logAccessManager = logAccessManager;
+        this.watchHub = watchHub;
         this.processCfg = processCfg;
     }
 
@@ -142,16 +151,67 @@ public class ProcessLogResourceV2 implements Resource {
     )
     public Response data(@PathParam("id") UUID instanceId,
                          @PathParam("segmentId") long segmentId,
-                         @HeaderParam("range") String rangeHeader) {
+                         @HeaderParam("range") String rangeHeader,
+                         @Parameter(hidden = true) @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
 
         ProcessKey processKey = logAccessManager.assertLogAccess(instanceId);
         HttpUtils.Range range = HttpUtils.parseRangeHeaderValue(rangeHeader);
-        ProcessLog l = logManager.segmentData(processKey, segmentId, range.start(), range.end());
-        return toResponse(instanceId, segmentId, l, range);
+        ProcessLogStream l = logManager.streamSegmentData(processKey, segmentId, range.start(), range.end());
+        return toResponse(instanceId, segmentId, l, range, acceptsGzip(acceptEncoding));
+    }
+
+    /**
+     * Waits for new data in the process log and returns everything after
+     * the specified offset. Returns an empty response if there's no new data
+     * within the specified time.
+     */
+    @GET
+    @Path("/{id}/log/tail")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @WithTimer
+    @Operation(description = "Wait for and retrieve new process log data", operationId = "tailProcessLog")
+    @ApiResponse(description = "New process log data",
+            content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM,
+                    schema = @Schema(type = "string", format = "binary"))
+    )
+    public Response tail(@PathParam("id") UUID instanceId,
+                         @QueryParam("offset") @DefaultValue("0") int offset,
+                         @QueryParam("wait") @DefaultValue("30") int waitSeconds,
+                         @Parameter(hidden = true) @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+
+        ProcessKey processKey = logAccessManager.assertLogAccess(instanceId);
+        ProcessLogStream l = tail(processKey, null, offset, waitSeconds);
+        return toResponse(instanceId, 0, l, HttpUtils.Range.builder().start(offset).build(), acceptsGzip(acceptEncoding));
+    }
+
+    /**
+     * Waits for new data in the log segment and returns everything after
+     * the specified offset. Returns an empty response if there's no new data
+     * within the specified time.
+     */
+    @GET
+    @Path("/{id}/log/segment/{segmentId}/tail")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @WithTimer
+    @Operation(description = "Wait for and retrieve new segment log data", operationId = "tailProcessLogSegment")
+    @ApiResponse(description = "New log segment data",
+            content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM,
+                    schema = @Schema(type = "string", format = "binary"))
+    )
+    public Response tailSegment(@PathParam("id") UUID instanceId,
+                                @PathParam("segmentId") long segmentId,
+                                @QueryParam("offset") @DefaultValue("0") int offset,
+                                @QueryParam("wait") @DefaultValue("30") int waitSeconds,
+                                @Parameter(hidden = true) @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+
+        ProcessKey processKey = logAccessManager.assertLogAccess(instanceId);
+        ProcessLogStream l = tail(processKey, segmentId, offset, waitSeconds);
+        return toResponse(instanceId, segmentId, l, HttpUtils.Range.builder().start(offset).build(), acceptsGzip(acceptEncoding));
     }
 
     /**
-     * Appends a process' log.
+     * Appends a process' log. The data can be compressed using gzip
+     * (with the appropriate {@code Content-Encoding} header).
      */
     @POST
     @Path("{id}/log/segment/{segmentId}/data")
@@ -165,52 +225,195 @@ public class ProcessLogResourceV2 implements Resource {
     )
     public void append(@PathParam("id") UUID instanceId,
                        @PathParam("segmentId") long segmentId,
+                       @Parameter(hidden = true) @HeaderParam(HttpHeaders.CONTENT_ENCODING) String contentEncoding,
                        InputStream data) {
 
         ProcessKey processKey = logAccessManager.assertLogAccess(instanceId);
 
-        try {
-            byte[] ab = data.readAllBytes();
-            int upper = logManager.log(processKey, segmentId, ab);
+        int logSizeLimit = processCfg.getLogSizeLimit();
+        try (InputStream in = decode(contentEncoding, data)) {
+            // don't let a compressed payload inflate beyond the log size limit
+            byte[] ab = in.readNBytes(logSizeLimit);
+            boolean truncated = in.read() >= 0;
+
+            int upper = logManager.logBuffered(processKey, segmentId, ab);
+            if (truncated) {
+                logManager.warn(processKey, "Log data truncated to {} bytes (the maximum log size)", logSizeLimit);
+            }
+            assertLogSize(processKey, upper);
+        } catch (IOException e) {
+            throw new ConcordApplicationException("Error while appending a log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends data to multiple log segments at once. The request body is a sequence of
+     * {@code (segmentId: int64, length: int32, data: byte[length])} records.
+     */
+    @POST
+    @Path("{id}/log/batch")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @WithTimer
+    @Operation(description = "Appends data to multiple log segments", operationId = "appendProcessLogSegments")
+    @RequestBody(description = "Log segments", required = true,
+            content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM,
+                    schema = @Schema(type = "string", format = "binary")
+            )
+    )
+    public void appendBatch(@PathParam("id") UUID instanceId,
+                            @Parameter(hidden = true) @HeaderParam(HttpHeaders.CONTENT_ENCODING) String contentEncoding,
+                            InputStream data) {
+
+        ProcessKey processKey = logAccessManager.assertLogAccess(instanceId);
+
+        int logSizeLimit = processCfg.getLogSizeLimit();
+
+        // read and validate the whole batch first, so an invalid request doesn't append anything
+        List<SegmentData> segments = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(decode(contentEncoding, data)))) {
+            long total = 0;
+
+            while (true) {
+                long segmentId;
+                try {
+                    segmentId = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
 
-            int logSizeLimit = processCfg.getLogSizeLimit();
-            if (upper >= logSizeLimit) {
-                logManager.error(processKey, "Maximum log size reached: {}. Process cancelled.", logSizeLimit);
-                processManager.kill(processKey);
+                int len = in.readInt();
+                total += len;
+                if (len < 0 || total > logSizeLimit) {
+                    throw new ValidationErrorsException("Invalid segment data length: " + len);
+                }
+
+                byte[] ab = in.readNBytes(len);
+                if (ab.length != len) {
+                    throw new ValidationErrorsException("Unexpected end of segment data: " + segmentId);
+                }
+
+                segments.add(new SegmentData(segmentId, ab));
             }
         } catch (IOException e) {
             throw new ConcordApplicationException("Error while appending a log: " + e.getMessage());
         }
+
+        int upper = 0;
+        for (SegmentData s : segments) {
+            upper = Math.max(upper, logManager.logBuffered(processKey, s.segmentId(), s.data()));
+        }
+
+        assertLogSize(processKey, upper);
+    }
+
+    private ProcessLogStream tail(ProcessKey processKey, Long segmentId, int offset, int waitSeconds) {
+        if (offset < 0) {
+            throw new ValidationErrorsException("'offset' must be a positive number or zero");
+        }
+
+        long waitMillis = Math.min(TimeUnit.SECONDS.toMillis(Math.max(waitSeconds, 0)), processCfg.getLogWatchMaxWaitTime().toMillis());
+        long deadline = System.currentTimeMillis() + waitMillis;
+
+        // start watching before reading, otherwise the appends made in between are missed
+        try (ProcessLogWatchHub.Watch w = watchHub.watch(processKey.getInstanceId(), segmentId)) {
+            while (true) {
+                ProcessLogStream l = segmentId != null
+                        ? logManager.streamSegmentData(processKey, segmentId, offset, null)
+                        : logManager.stream(processKey, offset, null);
+
+                if (!l.isEmpty() || !w.await(deadline)) {
+                    return l;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcordApplicationException("Interrupted while waiting for the log data");
+        }
+    }
+
+    private void assertLogSize(ProcessKey processKey, int upper) {
+        int logSizeLimit = processCfg.getLogSizeLimit();
+        if (upper >= logSizeLimit) {
+            logManager.error(processKey, "Maximum log size reached: {}. Process cancelled.", logSizeLimit);
+            processManager.kill(processKey);
+        }
+    }
+
+    private static InputStream decode(String contentEncoding, InputStream in) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank() || "identity".equalsIgnoreCase(contentEncoding)) {
+            return in;
+        }
+
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            return new GZIPInputStream(in);
+        }
+
+        throw new ConcordApplicationException("Unsupported Content-Encoding: " + contentEncoding, Response.Status.UNSUPPORTED_MEDIA_TYPE);
     }
 
-    public static Response toResponse(UUID instanceId, long segmentId, ProcessLog l, HttpUtils.Range range) {
-        List<ProcessLogChunk> data = l.getChunks();
-        if (data.isEmpty()) {
+    public static Response toResponse(UUID instanceId, long segmentId, ProcessLogStream l, HttpUtils.Range range, boolean gzip) {
+        if (l.isEmpty()) {
             int actualStart = range.start() != null ? range.start() : 0;
             int actualEnd = range.end() != null ? range.end() : actualStart;
             return downloadableFile(instanceId, segmentId, null, actualStart, actualEnd, l.getSize());
         }
 
-        ProcessLogChunk firstChunk = data.get(0);
-        int actualStart = firstChunk.getStart();
-
-        ProcessLogChunk lastChunk = data.get(data.size() - 1);
-        int actualEnd = lastChunk.getStart() + lastChunk.getData().length;
-
         StreamingOutput out = output -> {
-            for (ProcessLogChunk e : data) {
-                output.write(e.getData());
+            if (gzip) {
+                GZIPOutputStream gz = new GZIPOutputStream(output, GZIP_BUFFER_SIZE);
+                l.writeTo(gz);
+                gz.finish();
+            } else {
+                l.writeTo(output);
             }
         };
 
-        return downloadableFile(instanceId, segmentId, out, actualStart, actualEnd, l.getSize());
+        Response.ResponseBuilder b = downloadableFileBuilder(instanceId, segmentId, out, l.getStart(), l.getEnd(), l.getSize());
+        if (gzip) {
+            b.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return b.build();
+    }
+
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String s : acceptEncoding.split(",")) {
+            String[] parts = s.split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        return false;
     }
 
     private static Response downloadableFile(UUID instanceId, long segmentId, StreamingOutput out, int start, int end, int size) {
+        return downloadableFileBuilder(instanceId, segmentId, out, start, end, size).build();
+    }
+
+    private static Response.ResponseBuilder downloadableFileBuilder(UUID instanceId, long segmentId, StreamingOutput out, int start, int end, int size) {
         return (out != null ? Response.ok(out) : Response.ok())
                 .header("Content-Range", "bytes " + start + "-" + end + "/" + size)
                 .header("Content-Type", MediaType.APPLICATION_OCTET_STREAM)
-                .header("Content-Disposition", "attachment; filename=\"" + instanceId + "_" + segmentId + ".log\"")
-                .build();
+                .header("Content-Disposition", "attachment; filename=\"" + instanceId + "_" + segmentId + ".log\"");
+    }
+
+    private record SegmentData(long segmentId, byte[] data) {
     }
 }
@@ -37,7 +37,11 @@ import com.walmartlabs.concord.server.process.locks.ProcessLocksDao;
 import com.walmartlabs.concord.server.process.locks.ProcessLocksResource;
 import com.walmartlabs.concord.server.process.locks.ProcessLocksWatchdog;
 import com.walmartlabs.concord.server.process.logs.ProcessLogAccessManager;
+import com.walmartlabs.concord.server.process.logs.ProcessLogBuffer;
 import com.walmartlabs.concord.server.process.logs.ProcessLogManager;
+import com.walmartlabs.concord.server.process.logs.ProcessLogNotificationListener;
+import com.walmartlabs.concord.server.process.logs.ProcessLogNotifier;
+import com.walmartlabs.concord.server.process.logs.ProcessLogWatchHub;
 import com.walmartlabs.concord.server.process.pipelines.processors.ExclusiveGroupProcessor;
 import com.walmartlabs.concord.server.process.pipelines.processors.InvalidProcessStateExceptionMapper;
 import com.walmartlabs.concord.server.process.pipelines.processors.TemplateScriptProcessor;
@@ -45,6 +49,8 @@ import com.walmartlabs.concord.server.process.pipelines.processors.policy.*;
 import com.walmartlabs.concord.server.process.queue.*;
 import com.walmartlabs.concord.server.process.queue.dispatcher.ConcurrentProcessFilter;
 import com.walmartlabs.concord.server.process.queue.dispatcher.Dispatcher;
+import com.walmartlabs.concord.server.process.queue.dispatcher.DispatcherNotificationListener;
+import com.walmartlabs.concord.server.process.queue.dispatcher.DispatcherNotifier;
 import com.walmartlabs.concord.server.process.queue.dispatcher.ExclusiveProcessFilter;
 import com.walmartlabs.concord.server.process.queue.dispatcher.Filter;
 import com.walmartlabs.concord.server.process.state.ProcessCheckpointDao;
@@ -71,6 +77,12 @@ public class ProcessModule implements Module {
         binder.bind(ProcessLocksDao.class).in(SINGLETON);
         binder.bind(ProcessLogAccessManager.class).in(SINGLETON);
         binder.bind(ProcessLogManager.class).in(SINGLETON);
+        binder.bind(ProcessLogBuffer.class).in(SINGLETON);
+        newSetBinder(binder, BackgroundTask.class).addBinding().to(ProcessLogBuffer.class);
+        binder.bind(ProcessLogWatchHub.class).in(SINGLETON);
+        binder.bind(ProcessLogNotifier.class).in(SINGLETON);
+        newSetBinder(binder, BackgroundTask.class).addBinding().to(ProcessLogNotifier.class);
+        newSetBinder(binder, BackgroundTask.class).addBinding().to(ProcessLogNotificationListener.class).in(SINGLETON);
         binder.bind(ProcessSecurityContext.class).in(SINGLETON);
         binder.bind(ProcessCheckpointDao.class).in(SINGLETON);
         binder.bind(ProcessCheckpointManager.class).in(SINGLETON);
@@ -82,17 +94,21 @@ public class ProcessModule implements Module {
 
         bindSingletonScheduledTask(binder, ProcessCleaner.class);
         bindSingletonScheduledTask(binder, ProcessLocksWatchdog.class);
+        bindSingletonScheduledTask(binder, ProcessQueueCounters.class);
+        bindSingletonScheduledTask(binder, ProcessQueueCountersReconciler.class);
         bindSingletonScheduledTask(binder, ProcessQueueWatchdog.class);
         bindSingletonScheduledTask(binder, ProcessWaitWatchdog.class);
 
         binder.bind(Dispatcher.class).in(SINGLETON);
         newSetBinder(binder, BackgroundTask.class).addBinding().to(Dispatcher.class);
+        newSetBinder(binder, BackgroundTask.class).addBinding().to(DispatcherNotificationListener.class).in(SINGLETON);
         newSetBinder(binder, BackgroundTask.class).addBinding().toProvider(EnqueuedTaskProvider.class).in(SINGLETON);
 
         newSetBinder(binder, ProcessStatusListener.class).addBinding().to(WaitProcessStatusListener.class);
         newSetBinder(binder, ProcessStatusListener.class).addBinding().to(ExternalProcessListenerHandler.class);
         newSetBinder(binder, ProcessStatusListener.class).addBinding().to(WaitConditionUpdater.class);
         newSetBinder(binder, ProcessStatusListener.class).addBinding().to(TotalRuntimeCalculator.class);
+        newSetBinder(binder, ProcessStatusListener.class).addBinding().to(DispatcherNotifier.class);
 
         newSetBinder(binder, Filter.class).addBinding().to(ConcurrentProcessFilter.class);
         newSetBinder(binder, Filter.class).addBinding().to(ExclusiveProcessFilter.class);
@@ -0,0 +1,283 @@
+package com.walmartlabs.concord.server.process;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.db.AbstractDao;
+import com.walmartlabs.concord.db.MainDB;
+import com.walmartlabs.concord.db.PgUtils;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import org.jooq.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static com.walmartlabs.concord.server.jooq.Tables.*;
+import static org.jooq.impl.DSL.*;
+
+/**
+ * Maintains the process data tables that are range-partitioned by
+ * {@code INSTANCE_CREATED_AT}: creates partitions in advance and drops
+ * the partitions that contain only expired data.
+ * <p>
+ * A partition is dropped when its whole range is older than
+ * {@link ProcessConfiguration#getMaxStateAge()} and there are no processes
+ * created within the range that are still running or were updated recently.
+ * Tables that are not partitioned (or partitioned differently) are left alone.
+ * <p>
+ * Called by {@link ProcessCleaner} before the row-by-row cleanup.
+ */
+public class ProcessPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessPartitionManager.class);
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private static final List<ManagedTable> TABLES = List.of(
+            new ManagedTable(PROCESS_STATE, ProcessConfiguration::isStateCleanup),
+            new ManagedTable(PROCESS_INITIAL_STATE, ProcessConfiguration::isStateCleanup),
+            new ManagedTable(PROCESS_EVENTS, ProcessConfiguration::isEventsCleanup),
+            new ManagedTable(PROCESS_LOG_DATA, ProcessConfiguration::isLogsCleanup),
+            new ManagedTable(PROCESS_LOG_SEGMENTS, ProcessConfiguration::isLogsCleanup),
+            new ManagedTable(PROCESS_CHECKPOINTS, ProcessConfiguration::isCheckpointCleanup),
+            new ManagedTable(PROCESS_WAIT_CONDITIONS, ProcessConfiguration::isQueueCleanup));
+
+    private final ProcessConfiguration cfg;
+    private final PartitionDao dao;
+
+    @Inject
+    public ProcessPartitionManager(ProcessConfiguration cfg, @MainDB Configuration dbCfg) {
+        this.cfg = cfg;
+        this.dao = new PartitionDao(dbCfg);
+    }
+
+    /**
+     * Creates the upcoming partitions and drops the expired ones.
+     *
+     * @return the tables whose old data is removed by dropping partitions.
+     * Such tables should be excluded from the row-by-row cleanup.
+     */
+    public Set<Table<?>> maintain() {
+        if (!cfg.isPartitionsEnabled()) {
+            return Collections.emptySet();
+        }
+
+        long t1 = System.currentTimeMillis();
+
+        Duration interval = cfg.getPartitionInterval();
+        if (interval.compareTo(Duration.ofDays(1)) < 0) {
+            log.warn("maintain -> partition interval must be at least 1 day, got {}. Using 1 day instead", interval);
+            interval = Duration.ofDays(1);
+        }
+
+        Set<Table<?>> result = new HashSet<>();
+        for (ManagedTable t : TABLES) {
+            try {
+                String parent = dao.getPartitionedTable(t.table().getName());
+                if (parent == null) {
+                    continue;
+                }
+
+                List<Partition> partitions = dao.listPartitions(parent);
+                createPartitions(parent, t.table(), partitions, interval);
+
+                if (t.cleanupEnabled().test(cfg)) {
+                    dropPartitions(parent, partitions);
+                    result.add(t.table());
+                }
+            } catch (Exception e) {
+                log.warn("maintain ['{}'] -> error: {}", t.table().getName(), e.getMessage());
+            }
+        }
+
+        long t2 = System.currentTimeMillis();
+        log.info("maintain -> done, {} table(s) managed, took {}ms", result.size(), (t2 - t1));
+
+        return result;
+    }
+
+    private void createPartitions(String parent, Table<?> table, List<Partition> existing, Duration interval) {
+        for (Range r : upcomingRanges(dao.now(), interval, cfg.getPartitionPremake())) {
+            if (existing.stream().anyMatch(p -> p.contains(r.lower()))) {
+                continue;
+            }
+
+            String name = table.getName() + "_p" + SUFFIX_FORMAT.format(r.lower());
+            try {
+                dao.createPartition(parent, name, r);
+                log.info("createPartitions ['{}'] -> created {} for [{}, {})", parent, name, r.lower(), r.upper());
+            } catch (Exception e) {
+                // e.g. overlaps with a partition created outside of Concord
+                log.warn("createPartitions ['{}'] -> can't create {}: {}", parent, name, e.getMessage());
+            }
+        }
+    }
+
+    void dropPartitions(String parent, List<Partition> partitions) {
+        OffsetDateTime cutoff = dao.cutoff(cfg.getMaxStateAge());
+
+        for (Partition p : partitions) {
+            if (p.upper() == null || p.upper().isAfter(cutoff)) {
+                continue;
+            }
+
+            if (dao.hasRetainedProcesses(p, cutoff)) {
+                log.info("dropPartitions ['{}'] -> {} still has processes that are active or updated after {}, skipping",
+                        parent, p.name(), cutoff);
+                continue;
+            }
+
+            try {
+                dao.detachAndDrop(parent, p.name(), cfg.getPartitionLockTimeout());
+                log.info("dropPartitions ['{}'] -> dropped {}", parent, p.name());
+            } catch (Exception e) {
+                // e.g. lock timeout, try again on the next run
+                log.warn("dropPartitions ['{}'] -> can't drop {}: {}", parent, p.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns {@code count} consecutive ranges of the specified size, starting with
+     * the range that contains {@code now}. The ranges are aligned to the epoch (UTC).
+     */
+    static List<Range> upcomingRanges(OffsetDateTime now, Duration interval, int count) {
+        long size = interval.getSeconds();
+        long start = Math.floorDiv(now.toEpochSecond(), size) * size;
+
+        List<Range> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long lower = start + i * size;
+            result.add(new Range(toDate(lower), toDate(lower + size)));
+        }
+        return result;
+    }
+
+    private static OffsetDateTime toDate(long epochSecond) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+
+    record Range(OffsetDateTime lower, OffsetDateTime upper) {
+    }
+
+    /**
+     * @param lower inclusive, {@code null} for {@code MINVALUE}
+     * @param upper exclusive, {@code null} for {@code MAXVALUE}
+     */
+    record Partition(String name, OffsetDateTime lower, OffsetDateTime upper) {
+
+        boolean contains(OffsetDateTime t) {
+            return (lower == null || !lower.isAfter(t)) && (upper == null || upper.isAfter(t));
+        }
+    }
+
+    private record ManagedTable(Table<?> table, Predicate<ProcessConfiguration> cleanupEnabled) {
+    }
+
+    static class PartitionDao extends AbstractDao {
+
+        PartitionDao(Configuration cfg) {
+            super(cfg);
+        }
+
+        OffsetDateTime now() {
+            return dsl().select(currentOffsetDateTime()).fetchOne(Record1::value1);
+        }
+
+        OffsetDateTime cutoff(Duration maxAge) {
+            return dsl().select(PgUtils.nowMinus(maxAge)).fetchOne(Record1::value1);
+        }
+
+        /**
+         * Returns the qualified name of the table if it is range-partitioned
+         * by {@code INSTANCE_CREATED_AT}, {@code null} otherwise.
+         */
+        String getPartitionedTable(String tableName) {
+            return dsl().resultQuery("select c.oid::regclass::text " +
+                                    "from pg_partitioned_table pt " +
+                                    "join pg_class c on c.oid = pt.partrelid " +
+                                    "join pg_namespace n on n.oid = c.relnamespace " +
+                                    "join pg_attribute a on a.attrelid = pt.partrelid and a.attnum = pt.partattrs[0] " +
+                                    "where c.relname = {0} " +
+                                    "and n.nspname = any(current_schemas(false)) " +
+                                    "and pt.partstrat = 'r' " +
+                                    "and pt.partnatts = 1 " +
+                                    "and a.attname = 'instance_created_at'",
+                            val(tableName.toLowerCase()))
+                    .fetchOne(r -> r.get(0, String.class));
+        }
+
+        List<Partition> listPartitions(String parent) {
+            String bound = "pg_get_expr(c.relpartbound, c.oid)";
+            return dsl().resultQuery("select c.oid::regclass::text, " +
+                                    "(regexp_match(" + bound + ", 'FROM \\(''([^'']+)''\\)'))[1]::timestamptz, " +
+                                    "(regexp_match(" + bound + ", 'TO \\(''([^'']+)''\\)'))[1]::timestamptz " +
+                                    "from pg_inherits i " +
+                                    "join pg_class c on c.oid = i.inhrelid " +
+                                    "where i.inhparent = {0}::regclass " +
+                                    "and " + bound + " <> 'DEFAULT'",
+                            val(parent))
+                    .fetch(r -> new Partition(r.get(0, String.class), r.get(1, OffsetDateTime.class), r.get(2, OffsetDateTime.class)));
+        }
+
+        void createPartition(String parent, String name, Range r) {
+            DateTimeFormatter f = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+            dsl().execute("create table " + quoteIdent(name) + " partition of " + parent +
+                            " for values from ({0}) to ({1})",
+                    inline(f.format(r.lower())), inline(f.format(r.upper())));
+        }
+
+        /**
+         * Processes created within the partition's range that must be kept.
+         */
+        boolean hasRetainedProcesses(Partition p, OffsetDateTime cutoff) {
+            Condition inRange = PROCESS_QUEUE.CREATED_AT.lessThan(p.upper());
+            if (p.lower() != null) {
+                inRange = inRange.and(PROCESS_QUEUE.CREATED_AT.greaterOrEqual(p.lower()));
+            }
+
+            return dsl().fetchExists(selectOne().from(PROCESS_QUEUE)
+                    .where(inRange
+                            .and(PROCESS_QUEUE.LAST_UPDATED_AT.greaterOrEqual(cutoff)
+                                    .or(PROCESS_QUEUE.CURRENT_STATUS.in(ProcessCleaner.EXCLUDE_STATUSES)))));
+        }
+
+        void detachAndDrop(String parent, String partition, Duration lockTimeout) {
+            tx(tx -> {
+                // don't block the queries on the parent table while waiting for the lock
+                tx.execute("set local lock_timeout = {0}", inline(lockTimeout.toMillis() + "ms"));
+                tx.execute("alter table " + parent + " detach partition " + partition);
+                tx.execute("drop table " + partition);
+            });
+        }
+
+        private String quoteIdent(String s) {
+            return dsl().render(name(s));
+        }
+    }
+}
@@ -46,11 +46,12 @@ import com.walmartlabs.concord.server.process.ProcessEntry.ProcessWaitEntry;
 import com.walmartlabs.concord.server.process.ProcessManager.ProcessResult;
 import com.walmartlabs.concord.server.process.logs.ProcessLogAccessManager;
 import com.walmartlabs.concord.server.process.logs.ProcessLogManager;
-import com.walmartlabs.concord.server.process.logs.ProcessLogsDao.ProcessLog;
+import com.walmartlabs.concord.server.process.logs.ProcessLogStream;
 import com.walmartlabs.concord.server.process.queue.ProcessFilter;
 import com.walmartlabs.concord.server.process.queue.ProcessQueueDao;
 import com.walmartlabs.concord.server.process.queue.ProcessQueueManager;
 import com.walmartlabs.concord.server.process.state.ProcessStateManager;
+import com.walmartlabs.concord.server.process.state.StateManifestItem;
 import com.walmartlabs.concord.server.process.waits.AbstractWaitCondition;
 import com.walmartlabs.concord.server.process.waits.ProcessWaitManager;
 import com.walmartlabs.concord.server.sdk.*;
@@ -691,15 +692,16 @@ public class ProcessResource implements Resource {
                     schema = @Schema(type = "string", format = "binary"))
     )
     public Response getLog(@PathParam("id") UUID instanceId,
-                           @HeaderParam("range") String rangeHeader) {
+                           @HeaderParam("range") String rangeHeader,
+                           @Parameter(hidden = true) @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
 
         // check the permissions, logs can contain sensitive data
         ProcessKey processKey = logAccessManager.assertLogAccess(instanceId);
 
         HttpUtils.Range range = HttpUtils.parseRangeHeaderValue(rangeHeader);
 
-        ProcessLog l = logManager.get(processKey, range.start(), range.end());
-        return ProcessLogResourceV2.toResponse(instanceId, 0, l, range);
+        ProcessLogStream l = logManager.stream(processKey, range.start(), range.end());
+        return ProcessLogResourceV2.toResponse(instanceId, 0, l, range, ProcessLogResourceV2.acceptsGzip(acceptEncoding));
     }
 
     /**
@@ -770,6 +772,56 @@ public class ProcessResource implements Resource {
                 .build();
     }
 
+    /**
+     * Lists the items of the current state snapshot of a process.
+     */
+    @GET
+    @javax.ws.rs.Path("/{id}/state/manifest")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(description = "List the items of a process state snapshot", operationId = "getStateManifest")
+    public List<StateManifestItem> getStateManifest(@PathParam("id") UUID instanceId) {
+        ProcessEntry entry = assertProcess(PartialProcessKey.from(instanceId));
+        ProcessKey processKey = new ProcessKey(entry.instanceId(), entry.createdAt());
+
+        assertProcessAccessOwner(entry, "state");
+
+        boolean sessionKeyAccess = isSessionKeyAccess(instanceId);
+        return stateManager.manifest(processKey).stream()
+                .filter(i -> sessionKeyAccess || !isSessionResource(i.path()))
+                .toList();
+    }
+
+    /**
+     * Downloads the specified items of the current state snapshot of a process.
+     */
+    @POST
+    @javax.ws.rs.Path("/{id}/state/snapshot")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces("application/zip")
+    @Operation(description = "Download the specified items of a process state snapshot", operationId = "downloadStateItems")
+    @ApiResponse(responseCode = "200", description = "File content",
+            content = @Content(mediaType = "application/zip",
+                    schema = @Schema(type = "string", format = "binary"))
+    )
+    public Response downloadStateItems(@PathParam("id") UUID instanceId,
+                                       List<String> items) {
+        ProcessEntry entry = assertProcess(PartialProcessKey.from(instanceId));
+        ProcessKey processKey = new ProcessKey(entry.instanceId(), entry.createdAt());
+
+        assertProcessAccessOwner(entry, "state");
+        items.forEach(i -> assertResourceAccess(entry, i));
+
+        StreamingOutput out = output -> {
+            try (ZipArchiveOutputStream dst = new ZipArchiveOutputStream(output)) {
+                stateManager.export(processKey, items, zipTo(dst));
+            }
+        };
+
+        return Response.ok(out, "application/zip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + instanceId + ".zip\"")
+                .build();
+    }
+
     /**
      * Downloads a single file from the current state snapshot of a process.
      */
@@ -819,6 +871,28 @@ public class ProcessResource implements Resource {
             )
     )
     public void uploadAttachments(@PathParam("id") UUID instanceId, InputStream data) {
+        importAttachments(instanceId, data, false);
+    }
+
+    /**
+     * Upload changed process attachments. The archive contains only the new and modified files
+     * and the list of unchanged files ({@link Constants.Files#UNCHANGED_ATTACHMENTS_FILE_NAME}).
+     * The process state files not present in either are removed.
+     */
+    @POST
+    @javax.ws.rs.Path("{id}/attachment/delta")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @Operation(description = "Upload changed process attachments", operationId = "uploadProcessAttachmentsDelta")
+    @RequestBody(description = "Attachment content", required = true,
+            content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM,
+                    schema = @Schema(type = "string", format = "binary")
+            )
+    )
+    public void uploadAttachmentsDelta(@PathParam("id") UUID instanceId, InputStream data) {
+        importAttachments(instanceId, data, true);
+    }
+
+    private void importAttachments(UUID instanceId, InputStream data, boolean delta) {
         ProcessEntry entry = assertProcess(PartialProcessKey.from(instanceId));
         ProcessKey processKey = new ProcessKey(entry.instanceId(), entry.createdAt());
 
@@ -831,11 +905,13 @@ public class ProcessResource implements Resource {
             tmpDir = PathUtils.createTempDir("attachments");
             zipService.unzip(tmpIn, tmpDir);
 
-            assertAttachmentsPolicy(tmpDir, entry);
+            Set<String> unchanged = delta ? readUnchangedAttachments(tmpDir) : Set.of();
+
+            assertAttachmentsPolicy(tmpDir, entry, unchanged);
 
             Path finalTmpDir = tmpDir;
             stateManager.tx(tx -> {
-                stateManager.deleteDirectory(tx, processKey, path(Constants.Files.JOB_ATTACHMENTS_DIR_NAME, Constants.Files.JOB_STATE_DIR_NAME));
+                stateManager.deleteDirectory(tx, processKey, path(Constants.Files.JOB_ATTACHMENTS_DIR_NAME, Constants.Files.JOB_STATE_DIR_NAME), unchanged);
                 stateManager.importPath(tx, processKey, Constants.Files.JOB_ATTACHMENTS_DIR_NAME, finalTmpDir, (p, attrs) -> true);
             });
 
@@ -1053,13 +1129,36 @@ public class ProcessResource implements Resource {
                                                "Please use sync=false and poll for the status updates.", Status.BAD_REQUEST);
     }
 
-    private void assertAttachmentsPolicy(Path tmpDir, ProcessEntry entry) throws IOException {
+    /**
+     * Reads and removes the list of unchanged files from the unpacked attachments.
+     * Returns the full state paths of the files.
+     */
+    private Set<String> readUnchangedAttachments(Path tmpDir) throws IOException {
+        Path p = tmpDir.resolve(Constants.Files.UNCHANGED_ATTACHMENTS_FILE_NAME);
+        if (!Files.exists(p)) {
+            return Set.of();
+        }
+
+        String[] items = objectMapper.readValue(p.toFile(), String[].class);
+        Files.delete(p);
+
+        return Arrays.stream(items)
+                .map(i -> path(Constants.Files.JOB_ATTACHMENTS_DIR_NAME, i))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @param unchanged the previously uploaded attachments that are kept as is,
+     *                  they count towards the limit too
+     */
+    private void assertAttachmentsPolicy(Path tmpDir, ProcessEntry entry, Set<String> unchanged) throws IOException {
         PolicyEngine policy = policyManager.get(entry.orgId(), entry.projectId(), UserPrincipal.assertCurrent().getUser().getId());
         if (policy == null) {
             return;
         }
 
-        CheckResult<AttachmentsRule, Long> checkResult = policy.getAttachmentsPolicy().check(tmpDir);
+        long storedSize = stateManager.size(new ProcessKey(entry.instanceId(), entry.createdAt()), unchanged);
+        CheckResult<AttachmentsRule, Long> checkResult = policy.getAttachmentsPolicy().check(tmpDir, storedSize);
         if (!checkResult.getDeny().isEmpty()) {
             String errorMessage = buildErrorMessage(checkResult.getDeny());
             processLogManager.error(new ProcessKey(entry.instanceId(), entry.createdAt()), errorMessage);
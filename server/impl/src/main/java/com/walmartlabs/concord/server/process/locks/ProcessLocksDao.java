@@ -25,6 +25,7 @@ import com.walmartlabs.concord.db.MainDB;
 import com.walmartlabs.concord.server.jooq.enums.ProcessLockScope;
 import com.walmartlabs.concord.server.jooq.tables.ProcessLocks;
 import com.walmartlabs.concord.server.jooq.tables.records.ProcessLocksRecord;
+import com.walmartlabs.concord.server.process.waits.ProcessWaitDao;
 import com.walmartlabs.concord.server.sdk.ProcessKey;
 import org.jooq.Configuration;
 import org.jooq.DSLContext;
@@ -37,9 +38,12 @@ import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_LOCKS;
 
 public class ProcessLocksDao extends AbstractDao {
 
+    private final ProcessWaitDao processWaitDao;
+
     @Inject
-    protected ProcessLocksDao(@MainDB Configuration cfg) {
+    protected ProcessLocksDao(@MainDB Configuration cfg, ProcessWaitDao processWaitDao) {
         super(cfg);
+        this.processWaitDao = processWaitDao;
     }
 
     public LockEntry tryLock(ProcessKey processKey, UUID orgId, UUID projectId, ProcessLockScope scope, String lockName) {
@@ -110,12 +114,16 @@ public class ProcessLocksDao extends AbstractDao {
 
     private void delete(DSLContext tx, UUID instanceId, UUID orgId, UUID projectId, ProcessLockScope scope, String lockName) {
         ProcessLocks l = PROCESS_LOCKS.as("l");
-        tx.deleteFrom(l)
+        int rows = tx.deleteFrom(l)
                 .where(l.INSTANCE_ID.eq(instanceId)
                         .and(l.ORG_ID.eq(orgId))
                         .and(l.PROJECT_ID.eq(projectId))
                         .and(l.LOCK_SCOPE.eq(scope))
                         .and(l.LOCK_NAME.eq(lockName)))
                 .execute();
+
+        if (rows > 0) {
+            processWaitDao.wakeUpLockWaiters(tx, orgId, projectId, scope, lockName);
+        }
     }
 }
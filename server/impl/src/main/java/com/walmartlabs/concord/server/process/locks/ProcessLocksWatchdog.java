@@ -25,10 +25,13 @@ import com.walmartlabs.concord.db.MainDB;
 import com.walmartlabs.concord.server.Utils;
 import com.walmartlabs.concord.server.jooq.tables.ProcessLocks;
 import com.walmartlabs.concord.server.jooq.tables.ProcessQueue;
+import com.walmartlabs.concord.server.jooq.tables.records.ProcessLocksRecord;
+import com.walmartlabs.concord.server.process.waits.ProcessWaitDao;
 import com.walmartlabs.concord.server.sdk.ProcessStatus;
 import com.walmartlabs.concord.server.sdk.ScheduledTask;
 import org.jooq.Configuration;
 import org.jooq.Record1;
+import org.jooq.Result;
 import org.jooq.SelectConditionStep;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,8 +53,8 @@ public class ProcessLocksWatchdog implements ScheduledTask {
     private final WatchdogDao dao;
 
     @Inject
-    public ProcessLocksWatchdog(@MainDB Configuration cfg) {
-        this.dao = new WatchdogDao(cfg);
+    public ProcessLocksWatchdog(@MainDB Configuration cfg, ProcessWaitDao processWaitDao) {
+        this.dao = new WatchdogDao(cfg, processWaitDao);
     }
 
     @Override
@@ -80,8 +83,11 @@ public class ProcessLocksWatchdog implements ScheduledTask {
                 ProcessStatus.TIMED_OUT
         };
 
-        public WatchdogDao(@MainDB Configuration cfg) {
+        private final ProcessWaitDao processWaitDao;
+
+        public WatchdogDao(@MainDB Configuration cfg, ProcessWaitDao processWaitDao) {
             super(cfg);
+            this.processWaitDao = processWaitDao;
         }
 
         public int deleteStalledLocks() {
@@ -94,9 +100,17 @@ public class ProcessLocksWatchdog implements ScheduledTask {
                         .where(q.INSTANCE_ID.eq(l.INSTANCE_ID)
                                 .and(q.CURRENT_STATUS.in(Utils.toString(FINISHED_STATUSES))));
 
-                return tx.deleteFrom(l)
+                Result<ProcessLocksRecord> deleted = tx.deleteFrom(l)
                         .where(l.INSTANCE_ID.in(finishedProcesses))
-                        .execute();
+                        .returning()
+                        .fetch();
+
+                // wake up the processes waiting for the released locks
+                for (ProcessLocksRecord r : deleted) {
+                    processWaitDao.wakeUpLockWaiters(tx, r.getOrgId(), r.getProjectId(), r.getLockScope(), r.getLockName());
+                }
+
+                return deleted.size();
             });
         }
     }
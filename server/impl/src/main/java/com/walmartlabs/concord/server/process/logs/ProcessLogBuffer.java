@@ -0,0 +1,358 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.walmartlabs.concord.server.Listeners;
+import com.walmartlabs.concord.server.PeriodicTask;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import com.walmartlabs.concord.server.process.logs.ProcessLogsDao.NewLogChunk;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.Range;
+import com.walmartlabs.concord.server.sdk.log.ProcessLogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Coalesces process log appends in memory and writes them in batches.
+ * <p/>
+ * Appends are grouped by (process, segment) and flushed periodically or as soon as
+ * the amount of buffered data reaches {@link ProcessConfiguration#getLogBufferMaxSize()}.
+ * Each flush writes all buffered chunks using a single multi-row insert.
+ * <p/>
+ * If a flush fails, the data is put back in front of the buffer. Chunks that
+ * failed before are written one by one, so a single bad chunk can't hold back
+ * the rest of the data, and are dropped after {@link #MAX_FLUSH_ATTEMPTS}
+ * attempts. The amount of requeued data is limited to {@code maxSize * BACKPRESSURE_FACTOR}.
+ */
+public class ProcessLogBuffer extends PeriodicTask {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessLogBuffer.class);
+
+    private static final long ERROR_DELAY = 1000;
+
+    /**
+     * If the amount of buffered data exceeds {@code maxSize * BACKPRESSURE_FACTOR}
+     * the writers flush the buffer themselves.
+     */
+    private static final int BACKPRESSURE_FACTOR = 4;
+
+    private static final int MAX_TRACKED_PROCESSES = 10000;
+
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final ProcessLogsDao logsDao;
+    private final Listeners listeners;
+    private final ProcessLogWatchHub watchHub;
+    private final boolean enabled;
+    private final long maxSize;
+
+    private final Object flushMutex = new Object();
+
+    private final Object lock = new Object();
+    private Map<BufferKey, Buffer> buffers = new LinkedHashMap<>();
+    private Map<UUID, Integer> pendingByInstance = new HashMap<>();
+    private long pendingBytes;
+
+    /**
+     * The last known log sizes, used to estimate the log size before the data is flushed.
+     */
+    private final Map<UUID, Integer> knownUppers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Integer> eldest) {
+            return size() > MAX_TRACKED_PROCESSES;
+        }
+    };
+
+    private final Meter flushedBytes;
+    private final Meter droppedBytes;
+    private final Histogram flushBatchSize;
+    private final Timer flushTimer;
+
+    @Inject
+    public ProcessLogBuffer(ProcessConfiguration cfg,
+                            ProcessLogsDao logsDao,
+                            Listeners listeners,
+                            ProcessLogWatchHub watchHub,
+                            MetricRegistry metricRegistry) {
+
+        super(cfg.isLogBufferEnabled() ? cfg.getLogBufferFlushInterval().toMillis() : 0, ERROR_DELAY);
+
+        this.logsDao = logsDao;
+        this.listeners = listeners;
+        this.watchHub = watchHub;
+        this.enabled = cfg.isLogBufferEnabled();
+        this.maxSize = cfg.getLogBufferMaxSize();
+
+        this.flushedBytes = metricRegistry.meter("process-log-buffer-flushed-bytes");
+        this.droppedBytes = metricRegistry.meter("process-log-buffer-dropped-bytes");
+        this.flushBatchSize = metricRegistry.histogram("process-log-buffer-batch-size");
+        this.flushTimer = metricRegistry.timer("process-log-buffer-flush-timer");
+        metricRegistry.gauge("process-log-buffer-pending-bytes", () -> (Gauge<Long>) this::pendingBytes);
+    }
+
+    /**
+     * Adds the data to the buffer.
+     *
+     * @return the estimated size of the process log, including the buffered data.
+     */
+    public int append(ProcessKey processKey, long segmentId, byte[] data) {
+        long pending;
+        int upper;
+
+        synchronized (lock) {
+            buffers.computeIfAbsent(new BufferKey(processKey.getInstanceId(), segmentId), k -> new Buffer(processKey))
+                    .append(data);
+
+            pendingBytes += data.length;
+            pending = pendingBytes;
+
+            int instancePending = pendingByInstance.merge(processKey.getInstanceId(), data.length, Integer::sum);
+            upper = knownUppers.getOrDefault(processKey.getInstanceId(), 0) + instancePending;
+        }
+
+        if (pending >= maxSize * BACKPRESSURE_FACTOR) {
+            flush();
+        } else if (pending >= maxSize) {
+            wakeUp();
+        }
+
+        return upper;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("stop -> error while flushing the remaining data: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected boolean performTask() {
+        flush();
+
+        synchronized (lock) {
+            return pendingBytes >= maxSize;
+        }
+    }
+
+    /**
+     * Writes all buffered data into the DB.
+     */
+    public void flush() {
+        synchronized (flushMutex) {
+            Map<BufferKey, Buffer> batch;
+            synchronized (lock) {
+                if (buffers.isEmpty()) {
+                    return;
+                }
+
+                batch = buffers;
+                buffers = new LinkedHashMap<>();
+                pendingByInstance = new HashMap<>();
+                pendingBytes = 0;
+            }
+
+            List<Map.Entry<BufferKey, Buffer>> retries = new ArrayList<>();
+            List<Map.Entry<BufferKey, Buffer>> fresh = new ArrayList<>();
+            for (Map.Entry<BufferKey, Buffer> e : batch.entrySet()) {
+                (e.getValue().attempts > 0 ? retries : fresh).add(e);
+            }
+
+            List<NewLogChunk> chunks = new ArrayList<>(batch.size());
+            List<Range> ranges = new ArrayList<>(batch.size());
+            Map<BufferKey, Buffer> failed = new LinkedHashMap<>();
+            RuntimeException error = null;
+
+            try (Timer.Context ignored = flushTimer.time()) {
+                // the chunks that failed before are written separately, stop at the first error
+                // to avoid hammering the DB if it is unavailable
+                for (Map.Entry<BufferKey, Buffer> e : retries) {
+                    if (error != null) {
+                        failed.put(e.getKey(), e.getValue());
+                        continue;
+                    }
+
+                    NewLogChunk c = toChunk(e);
+                    try {
+                        ranges.addAll(logsDao.append(List.of(c)));
+                        chunks.add(c);
+                    } catch (RuntimeException ex) {
+                        error = ex;
+                        e.getValue().attempts++;
+                        failed.put(e.getKey(), e.getValue());
+                    }
+                }
+
+                if (!fresh.isEmpty()) {
+                    List<NewLogChunk> l = new ArrayList<>(fresh.size());
+                    for (Map.Entry<BufferKey, Buffer> e : fresh) {
+                        l.add(toChunk(e));
+                    }
+
+                    try {
+                        ranges.addAll(logsDao.append(l));
+                        chunks.addAll(l);
+                    } catch (RuntimeException ex) {
+                        error = ex;
+                        for (Map.Entry<BufferKey, Buffer> e : fresh) {
+                            e.getValue().attempts++;
+                            failed.put(e.getKey(), e.getValue());
+                        }
+                    }
+                }
+            }
+
+            if (!failed.isEmpty()) {
+                requeue(failed);
+            }
+
+            long bytes = 0;
+            synchronized (lock) {
+                for (int i = 0; i < chunks.size(); i++) {
+                    NewLogChunk c = chunks.get(i);
+                    knownUppers.merge(c.processKey().getInstanceId(), ranges.get(i).upper(), Math::max);
+                    bytes += c.data().length;
+                }
+            }
+
+            flushedBytes.mark(bytes);
+            flushBatchSize.update(chunks.size());
+
+            for (int i = 0; i < chunks.size(); i++) {
+                NewLogChunk c = chunks.get(i);
+                listeners.onProcessLogAppend(ProcessLogEntry.builder()
+                        .processKey(c.processKey())
+                        .range(ranges.get(i))
+                        .msg(c.data())
+                        .build());
+
+                watchHub.onAppend(c.processKey().getInstanceId(), c.segmentId());
+            }
+
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    private static NewLogChunk toChunk(Map.Entry<BufferKey, Buffer> e) {
+        return new NewLogChunk(e.getValue().processKey, e.getKey().segmentId(), e.getValue().data.toByteArray());
+    }
+
+    /**
+     * Puts the data back in front of anything buffered after the failed flush.
+     * Drops the data that failed too many times or doesn't fit into the buffer.
+     */
+    private void requeue(Map<BufferKey, Buffer> failed) {
+        long maxRequeued = maxSize * BACKPRESSURE_FACTOR;
+
+        Map<BufferKey, Buffer> batch = new LinkedHashMap<>();
+        long requeued = 0;
+        for (Map.Entry<BufferKey, Buffer> e : failed.entrySet()) {
+            BufferKey k = e.getKey();
+            Buffer v = e.getValue();
+
+            if (v.attempts >= MAX_FLUSH_ATTEMPTS) {
+                log.error("requeue ['{}', {}] -> dropping {} byte(s) of log data after {} failed attempts",
+                        k.instanceId(), k.segmentId(), v.data.size(), v.attempts);
+                droppedBytes.mark(v.data.size());
+                continue;
+            }
+
+            if (requeued + v.data.size() > maxRequeued) {
+                log.error("requeue ['{}', {}] -> dropping {} byte(s) of log data, too much data waiting to be written",
+                        k.instanceId(), k.segmentId(), v.data.size());
+                droppedBytes.mark(v.data.size());
+                continue;
+            }
+
+            batch.put(k, v);
+            requeued += v.data.size();
+        }
+
+        synchronized (lock) {
+            Map<BufferKey, Buffer> current = buffers;
+            buffers = batch;
+
+            current.forEach((k, v) -> buffers.merge(k, v, (a, b) -> {
+                a.append(b.data.toByteArray());
+                return a;
+            }));
+
+            pendingByInstance = new HashMap<>();
+            pendingBytes = 0;
+            buffers.forEach((k, v) -> {
+                pendingByInstance.merge(k.instanceId(), v.data.size(), Integer::sum);
+                pendingBytes += v.data.size();
+            });
+        }
+    }
+
+    private long pendingBytes() {
+        synchronized (lock) {
+            return pendingBytes;
+        }
+    }
+
+    private record BufferKey(UUID instanceId, long segmentId) {
+    }
+
+    private static final class Buffer {
+
+        private final ProcessKey processKey;
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        /**
+         * The number of failed attempts to write the data.
+         */
+        private int attempts;
+
+        private Buffer(ProcessKey processKey) {
+            this.processKey = processKey;
+        }
+
+        private void append(byte[] ab) {
+            data.write(ab, 0, ab.length);
+        }
+    }
+}
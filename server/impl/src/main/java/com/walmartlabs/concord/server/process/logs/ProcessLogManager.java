@@ -23,6 +23,7 @@ package com.walmartlabs.concord.server.process.logs;
 import com.codahale.metrics.Counter;
 import com.walmartlabs.concord.common.LogUtils;
 import com.walmartlabs.concord.server.Listeners;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
 import com.walmartlabs.concord.server.process.LogSegment;
 import com.walmartlabs.concord.server.sdk.ProcessKey;
 import com.walmartlabs.concord.server.sdk.Range;
@@ -36,25 +37,33 @@ import java.util.List;
 import java.util.UUID;
 
 import static com.walmartlabs.concord.common.LogUtils.LogLevel;
-import static com.walmartlabs.concord.server.process.logs.ProcessLogsDao.ProcessLog;
 
 public class ProcessLogManager {
 
     private static final long SYSTEM_SEGMENT_ID = 0;
     private static final String SYSTEM_SEGMENT_NAME = "system";
     private final ProcessLogsDao logsDao;
+    private final ProcessLogBuffer logBuffer;
+    private final ProcessLogWatchHub watchHub;
     private final Listeners listeners;
+    private final boolean logBufferEnabled;
 
     @InjectCounter
     private final Counter logBytesAppended;
 
     @Inject
-    public ProcessLogManager(ProcessLogsDao logsDao,
+    public ProcessLogManager(ProcessConfiguration cfg,
+                             ProcessLogsDao logsDao,
+                             ProcessLogBuffer logBuffer,
+                             ProcessLogWatchHub watchHub,
                              Listeners listeners,
                              Counter logBytesAppended) {
 
         this.logsDao = logsDao;
+        this.logBuffer = logBuffer;
+        this.watchHub = watchHub;
         this.listeners = listeners;
+        this.logBufferEnabled = cfg.isLogBufferEnabled();
         this.logBytesAppended = logBytesAppended;
     }
 
@@ -97,12 +106,18 @@ public class ProcessLogManager {
         logsDao.updateSegment(processKey, segmentId, status, warnings, errors);
     }
 
-    public ProcessLog segmentData(ProcessKey processKey, long segmentId, Integer start, Integer end) {
-        return logsDao.segmentData(processKey, segmentId, start, end);
+    /**
+     * @see ProcessLogsDao#streamSegmentData(ProcessKey, long, Integer, Integer)
+     */
+    public ProcessLogStream streamSegmentData(ProcessKey processKey, long segmentId, Integer start, Integer end) {
+        return logsDao.streamSegmentData(processKey, segmentId, start, end);
     }
 
-    public ProcessLog get(ProcessKey processKey, Integer start, Integer end) {
-        return logsDao.data(processKey, start, end);
+    /**
+     * @see ProcessLogsDao#streamData(ProcessKey, Integer, Integer)
+     */
+    public ProcessLogStream stream(ProcessKey processKey, Integer start, Integer end) {
+        return logsDao.streamData(processKey, start, end);
     }
 
     public int log(ProcessKey processKey, long segmentId, byte[] msg) {
@@ -116,10 +131,27 @@ public class ProcessLogManager {
                 .build();
 
         listeners.onProcessLogAppend(entry);
+        watchHub.onAppend(processKey.getInstanceId(), segmentId);
 
         return range.upper();
     }
 
+    /**
+     * Appends the data using the log buffer, if enabled. The data is written
+     * to the DB asynchronously.
+     *
+     * @return the (estimated) size of the process log.
+     */
+    public int logBuffered(ProcessKey processKey, long segmentId, byte[] msg) {
+        if (!logBufferEnabled) {
+            return log(processKey, segmentId, msg);
+        }
+
+        int upper = logBuffer.append(processKey, segmentId, msg);
+        logBytesAppended.inc(msg.length);
+        return upper;
+    }
+
     private void log(ProcessKey processKey, LogLevel level, String msg, Object... args) {
         log(processKey, LogUtils.formatMessage(level, msg, args));
     }
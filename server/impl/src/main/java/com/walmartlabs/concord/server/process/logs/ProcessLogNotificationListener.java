@@ -0,0 +1,91 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.db.DatabaseConfiguration;
+import com.walmartlabs.concord.db.MainDB;
+import com.walmartlabs.concord.db.PgNotificationListener;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import com.walmartlabs.concord.server.sdk.BackgroundTask;
+import org.postgresql.PGNotification;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listens for {@link ProcessLogNotifier} notifications and wakes up
+ * the local log watchers.
+ */
+public class ProcessLogNotificationListener implements BackgroundTask, PgNotificationListener.Handler {
+
+    private static final long POLL_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final ProcessLogWatchHub watchHub;
+    private final boolean enabled;
+    private final Meter notifications;
+    private final PgNotificationListener listener;
+
+    @Inject
+    public ProcessLogNotificationListener(@MainDB DatabaseConfiguration dbCfg,
+                                          ProcessLogWatchHub watchHub,
+                                          ProcessConfiguration cfg,
+                                          MetricRegistry metricRegistry) {
+
+        this.watchHub = watchHub;
+        this.enabled = cfg.isLogWatchNotificationsEnabled();
+        this.notifications = metricRegistry.meter("process-log-notifications");
+        this.listener = new PgNotificationListener(dbCfg, ProcessLogNotifier.CHANNEL, "process-log-notification-listener", POLL_TIMEOUT, this);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        listener.stop();
+    }
+
+    @Override
+    public void onNotifications(PGNotification[] n) {
+        notifications.mark(n.length);
+        for (PGNotification e : n) {
+            String payload = e.getParameter();
+            if (ProcessLogNotifier.isWatch(payload)) {
+                watchHub.onRemoteWatch(ProcessLogNotifier.parseInstanceId(payload));
+            } else {
+                watchHub.onRemoteAppend(ProcessLogNotifier.parseInstanceId(payload), ProcessLogNotifier.parseSegmentId(payload));
+            }
+        }
+    }
+
+    @Override
+    public void afterPoll() {
+        watchHub.removeExpired();
+    }
+}
@@ -0,0 +1,123 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.db.MainDB;
+import com.walmartlabs.concord.server.PeriodicTask;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import org.jooq.Configuration;
+import org.jooq.impl.DSL;
+
+import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Notifies other server nodes about process log appends. The notifications are
+ * collected and sent periodically, using a single statement per interval.
+ * <p>
+ * Two kinds of payloads are sent: {@code instanceId:segmentId} for appends and
+ * {@code instanceId} when a node starts watching the process' log. Appends are
+ * announced only for the processes watched on some node.
+ *
+ * @see ProcessLogNotificationListener
+ */
+public class ProcessLogNotifier extends PeriodicTask {
+
+    static final String CHANNEL = "concord_process_log";
+
+    private static final long ERROR_DELAY = 1000;
+
+    private final Configuration cfg;
+    private final boolean enabled;
+
+    private final Object lock = new Object();
+    private Set<String> pending = new HashSet<>();
+
+    @Inject
+    public ProcessLogNotifier(@MainDB Configuration cfg,
+                              ProcessConfiguration processCfg) {
+
+        super(processCfg.isLogWatchNotificationsEnabled() ? processCfg.getLogWatchNotifyInterval().toMillis() : 0, ERROR_DELAY);
+
+        this.cfg = cfg;
+        this.enabled = processCfg.isLogWatchNotificationsEnabled();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        super.start();
+    }
+
+    public void publish(UUID instanceId, long segmentId) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (lock) {
+            pending.add(instanceId + ":" + segmentId);
+        }
+    }
+
+    public void publishWatch(UUID instanceId) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (lock) {
+            pending.add(instanceId.toString());
+        }
+    }
+
+    @Override
+    protected boolean performTask() {
+        Set<String> payloads;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return false;
+            }
+
+            payloads = pending;
+            pending = new HashSet<>();
+        }
+
+        DSL.using(cfg).execute("select pg_notify(?, p) from unnest(?::text[]) p", CHANNEL, payloads.toArray(new String[0]));
+        return false;
+    }
+
+    static boolean isWatch(String payload) {
+        return payload.indexOf(':') < 0;
+    }
+
+    static UUID parseInstanceId(String payload) {
+        int idx = payload.indexOf(':');
+        return UUID.fromString(idx < 0 ? payload : payload.substring(0, idx));
+    }
+
+    static long parseSegmentId(String payload) {
+        return Long.parseLong(payload.substring(payload.indexOf(':') + 1));
+    }
+}
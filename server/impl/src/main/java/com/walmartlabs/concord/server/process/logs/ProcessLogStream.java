@@ -0,0 +1,88 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Process log data. The boundaries of the data are known upfront,
+ * the chunks are fetched from the DB only when the data is written.
+ */
+public class ProcessLogStream {
+
+    public static ProcessLogStream empty(int size) {
+        return new ProcessLogStream(0, 0, size, null);
+    }
+
+    private final int start;
+    private final int end;
+    private final int size;
+    private final ChunkWriter writer;
+
+    ProcessLogStream(int start, int end, int size, ChunkWriter writer) {
+        this.start = start;
+        this.end = end;
+        this.size = size;
+        this.writer = writer;
+    }
+
+    public boolean isEmpty() {
+        return writer == null;
+    }
+
+    /**
+     * @return the start of the first returned chunk.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return the end of the last returned chunk.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the total size of the log (or the segment).
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Fetches the chunks and writes them into the specified stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (writer == null) {
+            return;
+        }
+
+        writer.writeTo(out);
+    }
+
+    interface ChunkWriter {
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
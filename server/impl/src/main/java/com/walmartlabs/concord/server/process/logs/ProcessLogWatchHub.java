@@ -0,0 +1,245 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of clients waiting for new process log data on this server node.
+ * Appends made on other nodes are delivered via {@link ProcessLogNotificationListener}.
+ * <p>
+ * With notifications enabled, the node announces the processes it watches and
+ * the other nodes send notifications only for the appends to those processes.
+ * An announcement is repeated at most once per {@code maxWaitTime} and stays
+ * valid for twice as long.
+ */
+public class ProcessLogWatchHub {
+
+    /**
+     * Extra time to allow for the delivery of an announcement.
+     */
+    private static final long ANNOUNCEMENT_DELIVERY_TIME = 500;
+
+    private final ProcessLogNotifier notifier;
+    private final int maxWatchers;
+    private final boolean notificationsEnabled;
+    private final long announceInterval;
+    private final long recheckDelay;
+
+    private final Map<UUID, Set<Watch>> watches = new ConcurrentHashMap<>();
+    private final AtomicInteger watchCount = new AtomicInteger();
+
+    /**
+     * instanceId -> the time of the last announcement made by this node.
+     */
+    private final Map<UUID, Long> announcements = new ConcurrentHashMap<>();
+
+    /**
+     * instanceId -> the time the announcement made by some node expires.
+     */
+    private final Map<UUID, Long> remoteWatches = new ConcurrentHashMap<>();
+
+    @Inject
+    public ProcessLogWatchHub(ProcessConfiguration cfg,
+                              ProcessLogNotifier notifier,
+                              MetricRegistry metricRegistry) {
+
+        this.notifier = notifier;
+        this.maxWatchers = cfg.getLogWatchMaxWatchers();
+        this.notificationsEnabled = cfg.isLogWatchNotificationsEnabled();
+        this.announceInterval = cfg.getLogWatchMaxWaitTime().toMillis();
+        this.recheckDelay = notificationsEnabled ? 2 * cfg.getLogWatchNotifyInterval().toMillis() + ANNOUNCEMENT_DELIVERY_TIME : 0;
+
+        metricRegistry.gauge("process-log-watchers", () -> (Gauge<Integer>) watchCount::get);
+    }
+
+    /**
+     * Starts watching the process log (or the log segment, if {@code segmentId} is not null).
+     * If the max number of watchers is reached, the returned watch never fires.
+     */
+    public Watch watch(UUID instanceId, Long segmentId) {
+        if (watchCount.incrementAndGet() > maxWatchers) {
+            watchCount.decrementAndGet();
+            return new Watch(this, instanceId, segmentId, false, 0);
+        }
+
+        // the appends made on other nodes before they receive the announcement
+        // are not notified, re-check the data once it is delivered
+        long recheckAt = announce(instanceId) ? System.currentTimeMillis() + recheckDelay : 0;
+
+        Watch w = new Watch(this, instanceId, segmentId, true, recheckAt);
+        // create the set and add the watch atomically, otherwise a concurrent remove() can
+        // drop the set between the two calls
+        watches.compute(instanceId, (k, v) -> {
+            Set<Watch> s = v != null ? v : ConcurrentHashMap.newKeySet();
+            s.add(w);
+            return s;
+        });
+        return w;
+    }
+
+    /**
+     * Called when new data is appended to a process log on this node.
+     */
+    public void onAppend(UUID instanceId, long segmentId) {
+        notifyWatches(instanceId, segmentId);
+
+        Long expiresAt = remoteWatches.get(instanceId);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            notifier.publish(instanceId, segmentId);
+        }
+    }
+
+    /**
+     * Called when new data is appended to a process log on another node.
+     */
+    public void onRemoteAppend(UUID instanceId, long segmentId) {
+        notifyWatches(instanceId, segmentId);
+    }
+
+    /**
+     * Called when a node (including this one) announces that it watches the process log.
+     */
+    public void onRemoteWatch(UUID instanceId) {
+        remoteWatches.put(instanceId, System.currentTimeMillis() + 2 * announceInterval);
+    }
+
+    /**
+     * Removes the expired announcements.
+     */
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        remoteWatches.values().removeIf(expiresAt -> expiresAt <= now);
+        announcements.values().removeIf(announcedAt -> now - announcedAt >= announceInterval);
+    }
+
+    /**
+     * @return {@code true} if a new announcement was made
+     */
+    private boolean announce(UUID instanceId) {
+        if (!notificationsEnabled) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Long prev = announcements.get(instanceId);
+        if (prev != null && now - prev < announceInterval) {
+            return false;
+        }
+
+        announcements.put(instanceId, now);
+        notifier.publishWatch(instanceId);
+        return true;
+    }
+
+    private void notifyWatches(UUID instanceId, long segmentId) {
+        Set<Watch> s = watches.get(instanceId);
+        if (s == null) {
+            return;
+        }
+
+        for (Watch w : s) {
+            if (w.segmentId == null || w.segmentId == segmentId) {
+                w.signal();
+            }
+        }
+    }
+
+    private void remove(Watch w) {
+        watches.computeIfPresent(w.instanceId, (k, v) -> {
+            v.remove(w);
+            return v.isEmpty() ? null : v;
+        });
+        watchCount.decrementAndGet();
+    }
+
+    public static final class Watch implements AutoCloseable {
+
+        private final ProcessLogWatchHub hub;
+        private final UUID instanceId;
+        private final Long segmentId;
+        private final boolean active;
+
+        private long recheckAt;
+        private boolean signalled;
+        private boolean closed;
+
+        private Watch(ProcessLogWatchHub hub, UUID instanceId, Long segmentId, boolean active, long recheckAt) {
+            this.hub = hub;
+            this.instanceId = instanceId;
+            this.segmentId = segmentId;
+            this.active = active;
+            this.recheckAt = recheckAt;
+        }
+
+        /**
+         * Waits for new data or until the deadline.
+         *
+         * @return {@code true} if new data was appended since the previous call
+         * or if the data must be re-checked.
+         */
+        public synchronized boolean await(long deadlineMillis) throws InterruptedException {
+            if (!active) {
+                return false;
+            }
+
+            while (!signalled) {
+                long now = System.currentTimeMillis();
+                if (recheckAt > 0 && now >= recheckAt) {
+                    recheckAt = 0;
+                    return true;
+                }
+
+                long remaining = deadlineMillis - now;
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(recheckAt > 0 ? Math.min(remaining, recheckAt - now) : remaining);
+            }
+
+            signalled = false;
+            return true;
+        }
+
+        private synchronized void signal() {
+            signalled = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!active || closed) {
+                return;
+            }
+            closed = true;
+            hub.remove(this);
+        }
+    }
+}
@@ -29,12 +29,13 @@ import com.walmartlabs.concord.server.process.LogSegment;
 import com.walmartlabs.concord.server.sdk.ProcessKey;
 import com.walmartlabs.concord.server.sdk.Range;
 import org.jooq.*;
+import org.jooq.exception.DataAccessException;
 
 import javax.inject.Inject;
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 import static com.walmartlabs.concord.db.PgUtils.upperRange;
 import static com.walmartlabs.concord.server.jooq.Routines.*;
@@ -44,6 +45,8 @@ import static org.jooq.impl.DSL.*;
 
 public class ProcessLogsDao extends AbstractDao {
 
+    private static final int STREAM_FETCH_SIZE = 16;
+
     @Inject
     public ProcessLogsDao(@MainDB Configuration cfg) {
         super(cfg);
@@ -77,6 +80,65 @@ public class ProcessLogsDao extends AbstractDao {
         return PgIntRange.parse(r.getLogRange().toString());
     }
 
+    /**
+     * Appends multiple chunks using a single multi-row insert. The ranges are calculated
+     * using the current upper bounds of the affected processes and segments, fetched once
+     * per call. The chunks of the same process are appended in the order of the list.
+     *
+     * @return the new chunk ranges, in the same order as {@code chunks}.
+     */
+    public List<Range> append(List<NewLogChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return List.of();
+        }
+
+        return txResult(tx -> {
+            Set<ProcessKey> processKeys = new HashSet<>();
+            chunks.forEach(c -> processKeys.add(c.processKey()));
+
+            Map<UUID, Integer> logUppers = getLogUppers(tx, processKeys);
+            Map<SegmentKey, Integer> segmentUppers = getSegmentUppers(tx, processKeys);
+
+            InsertValuesStep6<ProcessLogDataRecord, UUID, OffsetDateTime, Long, Object, Object, byte[]> q = tx.insertInto(PROCESS_LOG_DATA)
+                    .columns(PROCESS_LOG_DATA.INSTANCE_ID,
+                            PROCESS_LOG_DATA.INSTANCE_CREATED_AT,
+                            PROCESS_LOG_DATA.SEGMENT_ID,
+                            PROCESS_LOG_DATA.SEGMENT_RANGE,
+                            PROCESS_LOG_DATA.LOG_RANGE,
+                            PROCESS_LOG_DATA.CHUNK_DATA);
+
+            List<Range> result = new ArrayList<>(chunks.size());
+            for (NewLogChunk c : chunks) {
+                int len = c.data().length;
+
+                int logStart = logUppers.getOrDefault(c.processKey().getInstanceId(), 0);
+                logUppers.put(c.processKey().getInstanceId(), logStart + len);
+
+                SegmentKey segmentKey = new SegmentKey(c.processKey().getInstanceId(), c.segmentId());
+                int segmentStart = segmentUppers.getOrDefault(segmentKey, 0);
+                segmentUppers.put(segmentKey, segmentStart + len);
+
+                q = q.values(value(c.processKey().getInstanceId()),
+                        value(c.processKey().getCreatedAt()),
+                        value(c.segmentId()),
+                        int4range(segmentStart, segmentStart + len),
+                        int4range(logStart, logStart + len),
+                        value(c.data()));
+
+                result.add(Range.builder()
+                        .lowerMode(Range.Mode.INCLUSIVE)
+                        .lower(logStart)
+                        .upper(logStart + len)
+                        .upperMode(Range.Mode.EXCLUSIVE)
+                        .build());
+            }
+
+            q.execute();
+
+            return result;
+        });
+    }
+
     public long createSegment(ProcessKey processKey, UUID correlationId, String name, OffsetDateTime createdAt, String status) {
         return txResult(tx -> tx.insertInto(PROCESS_LOG_SEGMENTS)
                 .columns(PROCESS_LOG_SEGMENTS.INSTANCE_ID,
@@ -155,130 +217,146 @@ public class ProcessLogsDao extends AbstractDao {
                 .fetch(ProcessLogsDao::toSegment);
     }
 
-    public ProcessLog segmentData(ProcessKey processKey, long segmentId, Integer start, Integer end) {
-        UUID instanceId = processKey.getInstanceId();
-        OffsetDateTime createdAt = processKey.getCreatedAt();
-
-        DSLContext tx = dsl();
+    /**
+     * Returns a stream of the segment's data. The chunks are fetched lazily,
+     * in small batches, when the stream is written.
+     */
+    public ProcessLogStream streamSegmentData(ProcessKey processKey, long segmentId, Integer start, Integer end) {
+        Condition base = PROCESS_LOG_DATA.INSTANCE_ID.eq(processKey.getInstanceId())
+                .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt()))
+                .and(PROCESS_LOG_DATA.SEGMENT_ID.eq(segmentId));
 
-        List<ProcessLogChunk> chunks = getSegmentChunks(tx, processKey, segmentId, start, end);
+        return openStream(PROCESS_LOG_DATA.SEGMENT_RANGE, base, start, end);
+    }
 
-        Field<Integer> upperRange = max(upperRange(PROCESS_LOG_DATA.SEGMENT_RANGE));
-        int size = tx.select(upperRange)
-                .from(PROCESS_LOG_DATA)
-                .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                        .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt))
-                        .and(PROCESS_LOG_DATA.SEGMENT_ID.eq(segmentId)))
-                .fetchOptional(upperRange)
-                .orElse(0);
+    /**
+     * Returns a stream of the process log. The chunks are fetched lazily,
+     * in small batches, when the stream is written.
+     */
+    public ProcessLogStream streamData(ProcessKey processKey, Integer start, Integer end) {
+        Condition base = PROCESS_LOG_DATA.INSTANCE_ID.eq(processKey.getInstanceId())
+                .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt()));
 
-        return new ProcessLog(size, chunks);
+        return openStream(PROCESS_LOG_DATA.LOG_RANGE, base, start, end);
     }
 
-    public ProcessLog data(ProcessKey processKey, Integer start, Integer end) {
-        UUID instanceId = processKey.getInstanceId();
-        OffsetDateTime createdAt = processKey.getCreatedAt();
+    /**
+     * Calculates the size of the log and the boundaries of the requested data
+     * using a single aggregate query (without reading the chunks). The chunks
+     * are selected by the calculated boundaries, so the data appended after
+     * this call is not included.
+     */
+    private ProcessLogStream openStream(Field<Object> rangeField, Condition base, Integer start, Integer end) {
+        Field<Integer> upperF = upperRange(rangeField);
+        Field<Integer> lowerF = field("lower({0})", Integer.class, rangeField);
 
-        DSLContext tx = dsl();
+        Table<Record1<Integer>> s = select(coalesce(max(upperF), 0).as("size"))
+                .from(PROCESS_LOG_DATA)
+                .where(base)
+                .asTable("s");
 
-        List<ProcessLogChunk> chunks = getDataChunks(tx, processKey, start, end);
+        Field<Integer> size = s.field("size", Integer.class);
 
-        Field<Integer> upperRange = max(upperRange(PROCESS_LOG_DATA.LOG_RANGE));
-        int size = tx.select(upperRange)
-                .from(PROCESS_LOG_DATA)
-                .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                        .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt)))
-                .fetchOptional(upperRange)
-                .orElse(0);
+        Field<Integer> lower;
+        Field<Integer> upper;
+        if (start == null && end == null) {
+            // entire file
+            lower = inline(0);
+            upper = size;
+        } else if (start != null) {
+            // [start, end)
+            lower = val(start);
+            upper = end != null ? least(val(end), size) : size;
+        } else {
+            // [size - end, size)
+            lower = greatest(size.minus(end), inline(0));
+            upper = size;
+        }
 
-        return new ProcessLog(size, chunks);
-    }
+        // an empty range if lower >= upper
+        Condition requested = condition("{0} && int4range({1}, greatest({1}, {2}))", rangeField, lower, upper);
 
-    private List<ProcessLogChunk> getSegmentChunks(DSLContext tx, ProcessKey processKey, long segmentId, Integer start, Integer end) {
-        UUID instanceId = processKey.getInstanceId();
-        OffsetDateTime createdAt = processKey.getCreatedAt();
+        Record3<Integer, Integer, Integer> r = dsl().select(size, min(lowerF), max(upperF))
+                .from(s)
+                .leftJoin(PROCESS_LOG_DATA).on(base.and(requested))
+                .groupBy(size)
+                .fetchOne();
 
-        String lowerBoundExpr = "lower(" + PROCESS_LOG_DATA.SEGMENT_RANGE + ")";
+        if (r == null) {
+            return ProcessLogStream.empty(0);
+        }
 
-        if (start == null && end == null) {
-            // entire file
-            return tx.select(field(lowerBoundExpr), PROCESS_LOG_DATA.CHUNK_DATA)
-                    .from(PROCESS_LOG_DATA)
-                    .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                            .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt))
-                            .and(PROCESS_LOG_DATA.SEGMENT_ID.eq(segmentId)))
-                    .orderBy(PROCESS_LOG_DATA.SEGMENT_RANGE)
-                    .fetch(ProcessLogsDao::toChunk);
+        if (r.value2() == null) {
+            return ProcessLogStream.empty(r.value1());
+        }
 
-        } else if (start != null) {
-            // ranges && [start, end)
-            String rangeExpr = PROCESS_LOG_DATA.SEGMENT_RANGE.getName() + " && int4range(?, ?)";
-            return tx.select(field(lowerBoundExpr), PROCESS_LOG_DATA.CHUNK_DATA)
-                    .from(PROCESS_LOG_DATA)
-                    .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                            .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt))
-                            .and(PROCESS_LOG_DATA.SEGMENT_ID.eq(segmentId))
-                            .and(rangeExpr, start, end))
-                    .orderBy(PROCESS_LOG_DATA.SEGMENT_RANGE)
-                    .fetch(ProcessLogsDao::toChunk);
+        int actualStart = r.value2();
+        int actualEnd = r.value3();
+        Condition chunks = base.and(overlaps(rangeField, actualStart, actualEnd));
+        return new ProcessLogStream(actualStart, actualEnd, r.value1(), out -> writeChunks(rangeField, chunks, out));
+    }
 
-        } else {
-            // ranges && [upper_bound - end, upper_bound)
-            String rangeExpr = PROCESS_LOG_DATA.SEGMENT_RANGE.getName() + " && (select range from x)";
-            return tx.with("x").as(select(processLogDataSegmentLastNBytes2(instanceId, createdAt, segmentId, end).as("range")))
-                    .select(field(lowerBoundExpr), PROCESS_LOG_DATA.CHUNK_DATA)
-                    .from(PROCESS_LOG_DATA)
-                    .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                            .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt))
-                            .and(PROCESS_LOG_DATA.SEGMENT_ID.eq(segmentId))
-                            .and(rangeExpr, instanceId, end))
-                    .orderBy(PROCESS_LOG_DATA.SEGMENT_RANGE)
-                    .fetch(ProcessLogsDao::toChunk);
+    private void writeChunks(Field<Object> rangeField, Condition chunks, OutputStream out) throws IOException {
+        try {
+            // PostgreSQL uses cursors (and respects the fetch size) only in transactions
+            tx(tx -> {
+                try (Cursor<Record1<byte[]>> cursor = tx.select(PROCESS_LOG_DATA.CHUNK_DATA)
+                        .from(PROCESS_LOG_DATA)
+                        .where(chunks)
+                        .orderBy(rangeField)
+                        .fetchSize(STREAM_FETCH_SIZE)
+                        .fetchLazy()) {
+
+                    for (Record1<byte[]> r : cursor) {
+                        out.write(r.value1());
+                    }
+                }
+            });
+        } catch (DataAccessException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw e;
         }
     }
 
-    private List<ProcessLogChunk> getDataChunks(DSLContext tx, ProcessKey processKey, Integer start, Integer end) {
-        UUID instanceId = processKey.getInstanceId();
-        OffsetDateTime createdAt = processKey.getCreatedAt();
+    private static Map<UUID, Integer> getLogUppers(DSLContext tx, Set<ProcessKey> processKeys) {
+        Field<Integer> upperRange = max(upperRange(PROCESS_LOG_DATA.LOG_RANGE));
 
-        String lowerBoundExpr = "lower(" + PROCESS_LOG_DATA.LOG_RANGE + ")";
+        Map<UUID, Integer> result = new HashMap<>();
+        tx.select(PROCESS_LOG_DATA.INSTANCE_ID, upperRange)
+                .from(PROCESS_LOG_DATA)
+                .where(byProcessKeys(processKeys))
+                .groupBy(PROCESS_LOG_DATA.INSTANCE_ID)
+                .forEach(r -> result.put(r.value1(), r.value2()));
+        return result;
+    }
 
-        if (start == null && end == null) {
-            // entire file
-            return tx.select(field(lowerBoundExpr), PROCESS_LOG_DATA.CHUNK_DATA)
-                    .from(PROCESS_LOG_DATA)
-                    .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                            .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt)))
-                    .orderBy(PROCESS_LOG_DATA.LOG_RANGE)
-                    .fetch(ProcessLogsDao::toChunk);
+    private static Map<SegmentKey, Integer> getSegmentUppers(DSLContext tx, Set<ProcessKey> processKeys) {
+        Field<Integer> upperRange = max(upperRange(PROCESS_LOG_DATA.SEGMENT_RANGE));
 
-        } else if (start != null) {
-            // ranges && [start, end)
-            String rangeExpr = PROCESS_LOG_DATA.LOG_RANGE.getName() + " && int4range(?, ?)";
-            return tx.select(field(lowerBoundExpr), PROCESS_LOG_DATA.CHUNK_DATA)
-                    .from(PROCESS_LOG_DATA)
-                    .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                            .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt))
-                            .and(rangeExpr, start, end))
-                    .orderBy(PROCESS_LOG_DATA.LOG_RANGE)
-                    .fetch(ProcessLogsDao::toChunk);
+        Map<SegmentKey, Integer> result = new HashMap<>();
+        tx.select(PROCESS_LOG_DATA.INSTANCE_ID, PROCESS_LOG_DATA.SEGMENT_ID, upperRange)
+                .from(PROCESS_LOG_DATA)
+                .where(byProcessKeys(processKeys))
+                .groupBy(PROCESS_LOG_DATA.INSTANCE_ID, PROCESS_LOG_DATA.SEGMENT_ID)
+                .forEach(r -> result.put(new SegmentKey(r.value1(), r.value2()), r.value3()));
+        return result;
+    }
 
-        } else {
-            // ranges && [upper_bound - end, upper_bound)
-            String rangeExpr = PROCESS_LOG_DATA.LOG_RANGE.getName() + " && (select range from x)";
-            return tx.with("x").as(select(processLogDataLastNBytes2(instanceId, createdAt, end).as("range")))
-                    .select(field(lowerBoundExpr), PROCESS_LOG_DATA.CHUNK_DATA)
-                    .from(PROCESS_LOG_DATA)
-                    .where(PROCESS_LOG_DATA.INSTANCE_ID.eq(instanceId)
-                            .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(createdAt))
-                            .and(rangeExpr, instanceId, end))
-                    .orderBy(PROCESS_LOG_DATA.LOG_RANGE)
-                    .fetch(ProcessLogsDao::toChunk);
-        }
+    private static Condition byProcessKeys(Set<ProcessKey> processKeys) {
+        return or(processKeys.stream()
+                .map(k -> PROCESS_LOG_DATA.INSTANCE_ID.eq(k.getInstanceId())
+                        .and(PROCESS_LOG_DATA.INSTANCE_CREATED_AT.eq(k.getCreatedAt())))
+                .toList());
+    }
+
+    private static Field<Object> int4range(int lower, int upper) {
+        return field("int4range({0}, {1})", Object.class, value(lower), value(upper));
     }
 
-    private static ProcessLogChunk toChunk(Record2<Object, byte[]> r) {
-        return new ProcessLogChunk((Integer) r.value1(), r.value2());
+    private static Condition overlaps(Field<Object> rangeField, int lower, int upper) {
+        return condition("{0} && {1}", rangeField, int4range(lower, upper));
     }
 
     private static LogSegment toSegment(Record8<Long, UUID, String, OffsetDateTime, String, OffsetDateTime, Integer, Integer> r) {
@@ -295,45 +373,12 @@ public class ProcessLogsDao extends AbstractDao {
                 .build();
     }
 
-    public static final class ProcessLogChunk implements Serializable {
-
-        private static final long serialVersionUID = 1L;
-
-        private final int start;
-        private final byte[] data;
-
-        public ProcessLogChunk(int start, byte[] data) { // NOSONAR
-            this.start = start;
-            this.data = data;
-        }
-
-        public int getStart() {
-            return start;
-        }
-
-        public byte[] getData() {
-            return data;
-        }
+    /**
+     * A chunk of log data to append.
+     */
+    public record NewLogChunk(ProcessKey processKey, long segmentId, byte[] data) { // NOSONAR
     }
 
-    public static final class ProcessLog implements Serializable {
-
-        private static final long serialVersionUID = 1L;
-
-        private final int size;
-        private final List<ProcessLogChunk> chunks;
-
-        public ProcessLog(int size, List<ProcessLogChunk> chunks) {
-            this.size = size;
-            this.chunks = chunks;
-        }
-
-        public int getSize() {
-            return size;
-        }
-
-        public List<ProcessLogChunk> getChunks() {
-            return chunks;
-        }
+    private record SegmentKey(UUID instanceId, long segmentId) {
     }
 }
@@ -47,8 +47,7 @@ import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.walmartlabs.concord.server.jooq.Tables.REPOSITORIES;
@@ -62,16 +61,28 @@ public class EnqueuedBatchTask extends PeriodicTask {
 
     private static final long ERROR_RETRY_INTERVAL = TimeUnit.SECONDS.toMillis(5);
 
+    /**
+     * Max number of consecutive batches of the same repository a worker
+     * processes before giving its slot back.
+     */
+    private static final int MAX_REPO_AFFINITY_BATCHES = 10;
+
     private final Dao dao;
     private final EnqueueWorkersConfiguration cfg;
+    private final Pipeline pipeline;
+    private final RepositoryManager repositoryManager;
     private final Histogram batchHistogram;
 
-    private final ExecutorService executor;
-    private final BlockingQueue<Batch> queue;
-    private final List<String> inflightRepoUrls;
-    private final AtomicInteger freeWorkersCount;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inflightRepoUrls = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger busyWorkersCount = new AtomicInteger();
+    private final AtomicInteger targetWorkersCount;
+    private final AtomicLong avgBatchDuration = new AtomicLong();
 
-    private final Lock mutex = new ReentrantLock();
+    /**
+     * {@code true} if the last poll couldn't take all NEW processes.
+     */
+    private volatile boolean backlog;
 
     @Inject
     public EnqueuedBatchTask(Dao dao,
@@ -84,26 +95,21 @@ public class EnqueuedBatchTask extends PeriodicTask {
 
         this.cfg = cfg;
         this.dao = dao;
+        this.pipeline = pipeline;
+        this.repositoryManager = repositoryManager;
         this.batchHistogram = metricRegistry.histogram("enqueued-task-batches-histogram");
 
-        this.queue = new ArrayBlockingQueue<>(cfg.getWorkersCount());
-        this.freeWorkersCount = new AtomicInteger(cfg.getWorkersCount());
-        this.inflightRepoUrls = new ArrayList<>(cfg.getWorkersCount());
+        this.targetWorkersCount = new AtomicInteger(cfg.getWorkersCount());
 
-        this.executor = Executors.newFixedThreadPool(cfg.getWorkersCount());
-        for (int i = 0; i < cfg.getWorkersCount(); i++) {
-            this.executor.submit(new Worker(pipeline, repositoryManager, queue));
-        }
+        // threads are created on demand and removed after being idle for a while,
+        // the actual concurrency is limited by targetWorkersCount
+        this.executor = new ThreadPoolExecutor(cfg.getMaxWorkersCount(), cfg.getMaxWorkersCount(),
+                1, TimeUnit.MINUTES, new LinkedBlockingQueue<>());
+        this.executor.allowCoreThreadTimeOut(true);
 
-        metricRegistry.gauge("enqueued-workers-available", () -> freeWorkersCount::get);
-        metricRegistry.gauge("enqueued-inflight-urls", () -> () -> {
-            mutex.lock();
-            try {
-                return inflightRepoUrls.size();
-            } finally {
-                mutex.unlock();
-            }
-        });
+        metricRegistry.gauge("enqueued-workers-available", () -> this::freeWorkersCount);
+        metricRegistry.gauge("enqueued-workers-target", () -> targetWorkersCount::get);
+        metricRegistry.gauge("enqueued-inflight-urls", () -> inflightRepoUrls::size);
     }
 
     @Override
@@ -122,14 +128,17 @@ public class EnqueuedBatchTask extends PeriodicTask {
     @Override
     @WithTimer
     protected boolean performTask() {
-        if (freeWorkersCount.get() == 0) {
+        int limit = freeWorkersCount();
+        if (limit <= 0) {
+            backlog = true;
             return false;
         }
 
-        int limit = Math.min(freeWorkersCount.get(), cfg.getWorkersCount());
-        List<String> ignoreRepoUrls = copyInFlightRepos();
+        List<String> ignoreRepoUrls = List.copyOf(inflightRepoUrls);
         Collection<Batch> batches = dao.poll(ignoreRepoUrls, limit);
         if (batches.isEmpty()) {
+            backlog = false;
+            shrink();
             return false;
         }
 
@@ -142,114 +151,142 @@ public class EnqueuedBatchTask extends PeriodicTask {
             batchHistogram.update(b.processes().size());
         }
 
-        for (int i = 0; i < batches.size(); i++) {
-            freeWorkersCount.decrementAndGet();
+        backlog = batches.size() >= limit;
+        if (backlog) {
+            grow();
         }
 
-        mutex.lock();
-        try {
-            for (Batch b : batches) {
-                if (b.repoUrl() != null) {
-                    inflightRepoUrls.add(b.repoUrl());
-                }
-            }
-        } finally {
-            mutex.unlock();
+        for (Batch b : batches) {
+            submit(b);
         }
 
-        queue.addAll(batches);
+        return freeWorkersCount() > 0;
+    }
 
-        return freeWorkersCount.get() > 0;
+    private int freeWorkersCount() {
+        return targetWorkersCount.get() - busyWorkersCount.get();
     }
 
-    private void onWorkerFree(String repoUrl) {
-        freeWorkersCount.incrementAndGet();
-        if (repoUrl != null) {
-            mutex.lock();
-            try {
-                inflightRepoUrls.remove(repoUrl);
-            } finally {
-                mutex.unlock();
-            }
+    /**
+     * Adds a worker if the current workers can't drain the backlog
+     * within one poll interval.
+     */
+    private void grow() {
+        if (avgBatchDuration.get() < cfg.getInterval().toMillis()) {
+            return;
         }
-    }
 
-    private List<String> copyInFlightRepos() {
-        mutex.lock();
-        try {
-            return List.copyOf(inflightRepoUrls);
-        } finally {
-            mutex.unlock();
+        int max = cfg.getMaxWorkersCount();
+        int prev = targetWorkersCount.getAndUpdate(n -> Math.min(n + 1, max));
+        if (prev < max) {
+            log.info("grow -> workers: {}", prev + 1);
         }
     }
 
-    private class Worker implements Runnable {
+    private void shrink() {
+        int min = cfg.getWorkersCount();
+        int prev = targetWorkersCount.getAndUpdate(n -> Math.max(n - 1, min));
+        if (prev > min) {
+            log.info("shrink -> workers: {}", prev - 1);
+        }
+    }
 
-        private final Pipeline pipeline;
-        private final RepositoryManager repositoryManager;
-        private final BlockingQueue<Batch> queue;
+    private void submit(Batch batch) {
+        busyWorkersCount.incrementAndGet();
+        if (batch.repoUrl() != null) {
+            inflightRepoUrls.add(batch.repoUrl());
+        }
 
-        private Worker(Pipeline pipeline, RepositoryManager repositoryManager, BlockingQueue<Batch> queue) {
-            this.pipeline = pipeline;
-            this.repositoryManager = repositoryManager;
-            this.queue = queue;
+        try {
+            executor.execute(() -> processRepoBatches(batch));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            onWorkerFree(batch.repoUrl());
+            throw e;
         }
+    }
+
+    /**
+     * Processes the batch and then keeps taking NEW processes of the same
+     * repository (any branch or commit), so the repository stays on one worker
+     * and its cached working copy stays warm.
+     */
+    private void processRepoBatches(Batch batch) {
+        String repoUrl = batch.repoUrl();
+        try {
+            Batch b = batch;
+            for (int i = 0; b != null; i++) {
+                long t1 = System.currentTimeMillis();
+                startProcessBatch(b);
+                updateAvgBatchDuration(System.currentTimeMillis() - t1);
+
+                if (repoUrl == null || i + 1 >= MAX_REPO_AFFINITY_BATCHES || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
 
-        @Override
-        public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                String repoUrl = null;
-                try {
-                    Batch keys = queue.take();
-                    repoUrl = keys.repoUrl();
-                    startProcessBatch(keys);
-                } catch (InterruptedException e) {
-                    log.warn("run -> interrupted");
-                    Thread.currentThread().interrupt();
-                } catch (Exception e) {
-                    log.error("run -> error", e);
-                    sleep(ERROR_RETRY_INTERVAL);
-                } finally {
-                    onWorkerFree(repoUrl);
+                b = dao.poll(repoUrl, cfg.getBatchSize());
+                if (b != null) {
+                    batchHistogram.update(b.processes().size());
                 }
             }
+        } catch (Exception e) {
+            log.error("processRepoBatches ['{}'] -> error", repoUrl, e);
+        } finally {
+            onWorkerFree(repoUrl);
         }
+    }
 
-        private void startProcessBatch(Batch batch) {
-            try {
-                if (batch.repoUrl() != null && batch.processes().size() > 1) {
-                    repositoryManager.withLock(batch.repoUrl(), () -> {
-                        Repository repository = null;
-                        for (ProcessKey key : batch.processes()) {
-                            Payload payload = startProcess(key, repository);
-                            if (payload != null && repository == null) {
-                                repository = payload.getHeader(Payload.REPOSITORY);
-                            }
-                        }
-                        return null;
-                    });
-                } else {
+    private void onWorkerFree(String repoUrl) {
+        if (repoUrl != null) {
+            inflightRepoUrls.remove(repoUrl);
+        }
+        busyWorkersCount.decrementAndGet();
+
+        // don't wait for the next poll interval if there's more work
+        if (backlog) {
+            wakeUp();
+        }
+    }
+
+    private void updateAvgBatchDuration(long duration) {
+        // exponentially weighted, new samples weigh 1/4
+        avgBatchDuration.updateAndGet(avg -> avg == 0 ? duration : (avg * 3 + duration) / 4);
+    }
+
+    private void startProcessBatch(Batch batch) {
+        try {
+            if (batch.repoUrl() != null && batch.processes().size() > 1) {
+                repositoryManager.withLock(batch.repoUrl(), () -> {
+                    Repository repository = null;
                     for (ProcessKey key : batch.processes()) {
-                        startProcess(key, null);
+                        Payload payload = startProcess(key, repository);
+                        if (payload != null && repository == null) {
+                            repository = payload.getHeader(Payload.REPOSITORY);
+                        }
                     }
+                    return null;
+                });
+            } else {
+                for (ProcessKey key : batch.processes()) {
+                    startProcess(key, null);
                 }
-            } catch (Exception e) {
-                log.error("startProcessBatch ['{}'] -> error", batch, e);
             }
+        } catch (Exception e) {
+            log.error("startProcessBatch ['{}'] -> error", batch, e);
         }
+    }
 
-        private Payload startProcess(ProcessKey key, Repository repository) {
-            try {
-                Payload payload = PayloadBuilder.start(key).build();
-                if (repository != null) {
-                    payload = payload.putHeader(Payload.REPOSITORY, repository);
-                }
-                return pipeline.process(payload);
-            } catch (Exception e) {
-                log.error("startProcess ['{}'] -> error", key, e);
+    private Payload startProcess(ProcessKey key, Repository repository) {
+        try {
+            Payload payload = PayloadBuilder.start(key).build();
+            if (repository != null) {
+                payload = payload.putHeader(Payload.REPOSITORY, repository);
             }
-            return null;
+            return pipeline.process(payload);
+        } catch (Exception e) {
+            log.error("startProcess ['{}'] -> error", key, e);
         }
+        return null;
     }
 
     static class Batch {
@@ -292,7 +329,7 @@ public class EnqueuedBatchTask extends PeriodicTask {
             this(key, repoUrl, Collections.emptyList());
         }
 
-        private Batch(Key key, String repoUrl, List<ProcessKey> processes) {
+        Batch(Key key, String repoUrl, List<ProcessKey> processes) {
             this.key = key;
             this.repoUrl = repoUrl;
             this.processes = new ArrayList<>(processes);
@@ -376,6 +413,40 @@ public class EnqueuedBatchTask extends PeriodicTask {
             });
         }
 
+        /**
+         * Returns the next batch of NEW processes of the specified repository
+         * or {@code null} if there are none.
+         */
+        @WithTimer
+        public Batch poll(String repoUrl, int limit) {
+            ProcessItem item = txResult(tx -> tx.select(PROCESS_QUEUE.INSTANCE_ID, PROCESS_QUEUE.CREATED_AT, PROCESS_QUEUE.REPO_ID, PROCESS_QUEUE.COMMIT_BRANCH, PROCESS_QUEUE.COMMIT_ID)
+                    .from(PROCESS_QUEUE).join(REPOSITORIES).on(REPOSITORIES.REPO_ID.eq(PROCESS_QUEUE.REPO_ID))
+                    .where(PROCESS_QUEUE.CURRENT_STATUS.eq(ProcessStatus.NEW.name())
+                            .and(REPOSITORIES.REPO_URL.eq(repoUrl)))
+                    .orderBy(PROCESS_QUEUE.CREATED_AT)
+                    .limit(1)
+                    .fetchOne(r -> ProcessItem.builder()
+                            .key(new ProcessKey(r.value1(), r.value2()))
+                            .repoId(r.value3())
+                            .repoUrl(repoUrl)
+                            .branchOrTag(r.value4())
+                            .commitId(r.value5())
+                            .build()));
+
+            if (item == null) {
+                return null;
+            }
+
+            Batch.Key key = Batch.Key.of(item.repoId(), item.branchOrTag(), item.commitId());
+            List<ProcessKey> processes = poll(key, limit);
+            if (processes.isEmpty()) {
+                // taken by another server
+                return null;
+            }
+
+            return new Batch(key, repoUrl, processes);
+        }
+
         @WithTimer
         public List<ProcessKey> poll(Batch.Key key, int limit) {
             return txResult(tx -> {
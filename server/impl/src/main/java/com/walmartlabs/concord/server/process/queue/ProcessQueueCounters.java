@@ -0,0 +1,148 @@
+package com.walmartlabs.concord.server.process.queue;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.db.AbstractDao;
+import com.walmartlabs.concord.db.MainDB;
+import com.walmartlabs.concord.server.cfg.ProcessQueueConfiguration;
+import com.walmartlabs.concord.server.sdk.ScheduledTask;
+import org.jooq.Configuration;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_QUEUE_COUNTER_DELTAS;
+import static com.walmartlabs.concord.server.jooq.tables.ProcessQueue.PROCESS_QUEUE;
+import static org.jooq.impl.DSL.*;
+
+/**
+ * Maintains the per-status process counters.
+ * <p>
+ * The DB triggers on PROCESS_QUEUE append +1/-1 rows into PROCESS_QUEUE_COUNTER_DELTAS
+ * on every status change, so concurrent transactions never wait for each other
+ * on a shared counter row. This task periodically folds the accumulated deltas
+ * into PROCESS_QUEUE_COUNTERS. The counters are verified against the actual
+ * contents of PROCESS_QUEUE by {@link ProcessQueueCountersReconciler}.
+ */
+public class ProcessQueueCounters implements ScheduledTask {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessQueueCounters.class);
+
+    private final ProcessQueueConfiguration cfg;
+    private final CountersDao dao;
+
+    @Inject
+    public ProcessQueueCounters(ProcessQueueConfiguration cfg,
+                                @MainDB Configuration dbCfg) {
+
+        this.cfg = cfg;
+        this.dao = new CountersDao(dbCfg);
+    }
+
+    @Override
+    public String getId() {
+        return "process-queue-counters";
+    }
+
+    @Override
+    public long getIntervalInSec() {
+        return cfg.getCountersCompactionInterval().getSeconds();
+    }
+
+    @Override
+    public void performTask() {
+        int compacted = dao.compact();
+        log.debug("performTask -> compacted {} delta(s)", compacted);
+    }
+
+    static class CountersDao extends AbstractDao {
+
+        private static final String RECONCILIATION_LOCK_KEY = "process-queue-counters-reconciliation";
+
+        CountersDao(Configuration cfg) {
+            super(cfg);
+        }
+
+        /**
+         * Moves the accumulated deltas into PROCESS_QUEUE_COUNTERS.
+         * The readers always see either the deltas or the updated counters,
+         * never both.
+         */
+        int compact() {
+            return txResult(tx -> tx.execute("with d as (delete from PROCESS_QUEUE_COUNTER_DELTAS returning CURRENT_STATUS, DELTA) " +
+                    "insert into PROCESS_QUEUE_COUNTERS (CURRENT_STATUS, PROCESS_COUNT) " +
+                    "select CURRENT_STATUS, sum(DELTA) from d group by CURRENT_STATUS " +
+                    "on conflict (CURRENT_STATUS) do update set PROCESS_COUNT = PROCESS_QUEUE_COUNTERS.PROCESS_COUNT + excluded.PROCESS_COUNT"));
+        }
+
+        /**
+         * Compares the counters with the actual number of processes and records
+         * the difference as a regular delta. Both values are read from the same
+         * snapshot, the changes made after the snapshot are already accounted for
+         * by their own deltas.
+         *
+         * @return {@code false} if another node is already running the reconciliation
+         */
+        boolean reconcile() {
+            return txResult(tx -> {
+                tx.execute("set transaction isolation level repeatable read");
+
+                boolean locked = tx.select(field("pg_try_advisory_xact_lock(hashtext({0}))", Boolean.class, val(RECONCILIATION_LOCK_KEY)))
+                        .fetchOne(Record1::value1);
+                if (!locked) {
+                    return false;
+                }
+
+                Map<String, Integer> actual = tx.select(PROCESS_QUEUE.CURRENT_STATUS, count())
+                        .from(PROCESS_QUEUE)
+                        .groupBy(PROCESS_QUEUE.CURRENT_STATUS)
+                        .fetchMap(Record2::value1, Record2::value2);
+
+                Map<String, Long> counters = ProcessQueueDao.fetchCounters(tx);
+
+                Set<String> statuses = new HashSet<>(actual.keySet());
+                statuses.addAll(counters.keySet());
+
+                for (String s : statuses) {
+                    long delta = actual.getOrDefault(s, 0) - counters.getOrDefault(s, 0L);
+                    if (delta == 0) {
+                        continue;
+                    }
+
+                    log.warn("reconcile -> the counter for '{}' is off by {}, correcting...", s, -delta);
+
+                    tx.insertInto(PROCESS_QUEUE_COUNTER_DELTAS)
+                            .columns(PROCESS_QUEUE_COUNTER_DELTAS.CURRENT_STATUS, PROCESS_QUEUE_COUNTER_DELTAS.DELTA)
+                            .values(s, delta)
+                            .execute();
+                }
+
+                return true;
+            });
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.walmartlabs.concord.server.process.queue;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.db.MainDB;
+import com.walmartlabs.concord.server.cfg.ProcessQueueConfiguration;
+import com.walmartlabs.concord.server.sdk.ScheduledTask;
+import org.jooq.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+
+/**
+ * Verifies the process counters against the actual contents of PROCESS_QUEUE,
+ * see {@link ProcessQueueCounters}. A separate task, so it runs once per
+ * interval across the cluster.
+ */
+public class ProcessQueueCountersReconciler implements ScheduledTask {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessQueueCountersReconciler.class);
+
+    private final ProcessQueueConfiguration cfg;
+    private final ProcessQueueCounters.CountersDao dao;
+
+    @Inject
+    public ProcessQueueCountersReconciler(ProcessQueueConfiguration cfg,
+                                          @MainDB Configuration dbCfg) {
+
+        this.cfg = cfg;
+        this.dao = new ProcessQueueCounters.CountersDao(dbCfg);
+    }
+
+    @Override
+    public String getId() {
+        return "process-queue-counters-reconciliation";
+    }
+
+    @Override
+    public long getIntervalInSec() {
+        return cfg.getCountersReconciliationInterval().getSeconds();
+    }
+
+    @Override
+    public void performTask() {
+        if (!dao.reconcile()) {
+            log.info("performTask -> the reconciliation is already running on another node, skipping...");
+        }
+    }
+}
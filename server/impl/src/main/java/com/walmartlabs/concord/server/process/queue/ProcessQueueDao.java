@@ -553,12 +553,45 @@ public class ProcessQueueDao extends AbstractDao {
                 .orElse(0);
     }
 
+    /**
+     * Returns the number of processes per status. The counters are maintained
+     * by the DB triggers on PROCESS_QUEUE, see {@link ProcessQueueCounters}.
+     */
     public Map<String, Integer> getStatistics() {
-        return dsl().select(PROCESS_QUEUE.CURRENT_STATUS, DSL.count(asterisk())).from(PROCESS_QUEUE)
-                .groupBy(PROCESS_QUEUE.CURRENT_STATUS)
-                .union(select(value(ENQUEUED_NOW_METRIC), DSL.count(asterisk())).from(PROCESS_QUEUE)
-                        .where(PROCESS_QUEUE.CURRENT_STATUS.eq(ProcessStatus.ENQUEUED.name()))
-                        .and(or(PROCESS_QUEUE.START_AT.isNull(), PROCESS_QUEUE.START_AT.lessOrEqual(currentOffsetDateTime()))))
+        DSLContext db = dsl();
+
+        Map<String, Integer> result = new HashMap<>();
+        fetchCounters(db).forEach((status, count) -> {
+            if (count != 0) {
+                result.put(status, count.intValue());
+            }
+        });
+
+        // ENQUEUED processes with START_AT in the future are rare, count them using the partial index
+        int scheduled = db.fetchCount(PROCESS_QUEUE, PROCESS_QUEUE.CURRENT_STATUS.eq(ProcessStatus.ENQUEUED.name())
+                .and(PROCESS_QUEUE.START_AT.greaterThan(currentOffsetDateTime())));
+
+        result.put(ENQUEUED_NOW_METRIC, result.getOrDefault(ProcessStatus.ENQUEUED.name(), 0) - scheduled);
+        return result;
+    }
+
+    /**
+     * Returns the current values of the process counters: the compacted values
+     * plus the deltas accumulated since the last compaction.
+     */
+    static Map<String, Long> fetchCounters(DSLContext tx) {
+        Table<Record2<String, Long>> counters = select(PROCESS_QUEUE_COUNTERS.CURRENT_STATUS, PROCESS_QUEUE_COUNTERS.PROCESS_COUNT)
+                .from(PROCESS_QUEUE_COUNTERS)
+                .unionAll(select(PROCESS_QUEUE_COUNTER_DELTAS.CURRENT_STATUS, PROCESS_QUEUE_COUNTER_DELTAS.DELTA)
+                        .from(PROCESS_QUEUE_COUNTER_DELTAS))
+                .asTable("c", "status", "cnt");
+
+        Field<String> status = counters.field("status", String.class);
+        Field<Long> count = counters.field("cnt", Long.class);
+
+        return tx.select(status, sum(count).cast(Long.class))
+                .from(counters)
+                .groupBy(status)
                 .fetchMap(Record2::value1, Record2::value2);
     }
 
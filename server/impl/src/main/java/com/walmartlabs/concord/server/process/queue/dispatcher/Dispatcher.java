@@ -84,6 +84,7 @@ public class Dispatcher extends PeriodicTask {
     private final ImportsNormalizerFactory importsNormalizerFactory;
 
     private final int batchSize;
+    private final DispatcherIndex index;
 
     private final Histogram dispatchedCountHistogram;
     private final Timer responseTimer;
@@ -115,10 +116,21 @@ public class Dispatcher extends PeriodicTask {
         this.requirementsMatcherErrorHandler = new DefaultRequirementsMatcherErrorHandler(queueManager, logManager);
 
         this.batchSize = cfg.getDispatcherBatchSize();
+        this.index = cfg.isDispatcherIndexEnabled() ? new DispatcherIndex(cfg.getDispatcherMaxExcludedRequirements(), metricRegistry) : null;
         this.sessionTokenCreator = sessionTokenCreator;
 
         this.dispatchedCountHistogram = metricRegistry.histogram("process-queue-dispatcher-dispatched-count");
         this.responseTimer = metricRegistry.timer("process-queue-dispatcher-response-timer");
+
+        if (cfg.isDispatcherNotificationsEnabled()) {
+            // new agent requests are handled immediately, ENQUEUED processes are
+            // signalled by DispatcherNotificationListener
+            channelManager.addRequestListener(type -> {
+                if (type == MessageType.PROCESS_REQUEST) {
+                    wakeUp();
+                }
+            });
+        }
     }
 
     @Override
@@ -166,8 +178,26 @@ public class Dispatcher extends PeriodicTask {
         // we need it modifiable
         List<Request> inbox = new ArrayList<>(requests);
 
-        int offset = 0;
         List<Match> matches = new ArrayList<>();
+        if (index != null) {
+            matchIndexed(tx, inbox, matches);
+        } else {
+            matchOffset(tx, inbox, matches);
+        }
+
+        for (Match m : matches) {
+            ProcessQueueEntry candidate = m.response;
+
+            // mark the process as STARTING
+            String agentId = m.request.channel.getAgentId();
+            queueManager.updateAgentId(tx, candidate.key(), agentId, ProcessStatus.STARTING);
+        }
+
+        return matches;
+    }
+
+    private void matchOffset(DSLContext tx, List<Request> inbox, List<Match> matches) {
+        int offset = 0;
         while (true) {
             // fetch the next few ENQUEUED processes from the DB
             List<ProcessQueueEntry> candidates = dao.next(tx, offset, batchSize);
@@ -175,47 +205,71 @@ public class Dispatcher extends PeriodicTask {
                 break;
             }
 
-            // filter out the candidates that shouldn't be dispatched at the moment (e.g. due to concurrency limits)
-            for (ProcessQueueEntry e : candidates) {
-                // find request/agent who can handle process
-                Request req = findRequest(e, inbox, tx, requirementsMatcherErrorHandler);
+            if (matchCandidates(tx, candidates, inbox, matches)) {
+                break;
+            }
 
-                if (req == null) {
-                    continue;
-                }
+            offset += batchSize;
+        }
+    }
 
-                // "startingProcesses" are the currently collected "matches"
-                // we keep them in a separate collection to simplify the filtering
-                List<ProcessQueueEntry> startingProcesses = matches.stream()
-                        .map(Match::response)
-                        .toList();
+    /**
+     * Same as {@link #matchOffset(DSLContext, List, List)}, but uses keyset pagination
+     * and skips the queue entries with requirements that are known not to match
+     * any of the agents in the inbox.
+     */
+    private void matchIndexed(DSLContext tx, List<Request> inbox, List<Match> matches) {
+        QueueCursor cursor = null;
+        while (true) {
+            Set<Map<String, Object>> capabilityClasses = new HashSet<>();
+            inbox.forEach(r -> capabilityClasses.add(r.request.getCapabilities()));
 
-                if (pass(tx, e, startingProcesses)) {
-                    matches.add(new Match(req, e));
-                    inbox.remove(req);
+            List<Map<String, Object>> excluded = index.unmatchable(capabilityClasses);
 
-                    if (inbox.isEmpty()) {
-                        break;
-                    }
-                }
+            // fetch the next few ENQUEUED processes from the DB
+            QueuePage page = dao.next(tx, cursor, excluded, batchSize);
+            if (page.entries().isEmpty()) {
+                break;
             }
 
-            if (inbox.isEmpty()) {
+            if (matchCandidates(tx, page.entries(), inbox, matches)) {
                 break;
             }
 
-            offset += batchSize;
+            cursor = page.last();
         }
+    }
 
-        for (Match m : matches) {
-            ProcessQueueEntry candidate = m.response;
+    /**
+     * @return {@code true} if the inbox is empty, i.e. all requests were matched
+     */
+    private boolean matchCandidates(DSLContext tx, List<ProcessQueueEntry> candidates, List<Request> inbox, List<Match> matches) {
+        // filter out the candidates that shouldn't be dispatched at the moment (e.g. due to concurrency limits)
+        for (ProcessQueueEntry e : candidates) {
+            // find request/agent who can handle process
+            Request req = findRequest(e, inbox, tx, requirementsMatcherErrorHandler, index);
+
+            if (req == null) {
+                continue;
+            }
 
-            // mark the process as STARTING
-            String agentId = m.request.channel.getAgentId();
-            queueManager.updateAgentId(tx, candidate.key(), agentId, ProcessStatus.STARTING);
+            // "startingProcesses" are the currently collected "matches"
+            // we keep them in a separate collection to simplify the filtering
+            List<ProcessQueueEntry> startingProcesses = matches.stream()
+                    .map(Match::response)
+                    .toList();
+
+            if (pass(tx, e, startingProcesses)) {
+                matches.add(new Match(req, e));
+                inbox.remove(req);
+
+                if (inbox.isEmpty()) {
+                    return true;
+                }
+            }
         }
 
-        return matches;
+        return inbox.isEmpty();
     }
 
     static Request findRequest(ProcessQueueEntry candidate,
@@ -223,8 +277,17 @@ public class Dispatcher extends PeriodicTask {
                                DSLContext tx,
                                RequirementsMatcherErrorHandler errHandler) {
 
+        return findRequest(candidate, requests, tx, errHandler, null);
+    }
+
+    static Request findRequest(ProcessQueueEntry candidate,
+                               List<Request> requests,
+                               DSLContext tx,
+                               RequirementsMatcherErrorHandler errHandler,
+                               DispatcherIndex index) {
+
         return requests.stream()
-                .filter(req -> isRequestMatch(candidate, req, tx, errHandler))
+                .filter(req -> isRequestMatch(candidate, req, tx, errHandler, index))
                 .findFirst()
                 .orElse(null);
     }
@@ -232,13 +295,22 @@ public class Dispatcher extends PeriodicTask {
     private static boolean isRequestMatch(ProcessQueueEntry candidate,
                                           Request req,
                                           DSLContext tx,
-                                          RequirementsMatcherErrorHandler errHandler) {
+                                          RequirementsMatcherErrorHandler errHandler,
+                                          DispatcherIndex index) {
 
         Map<String, Object> capabilities = req.request.getCapabilities();
         Map<?, ?> requirements = getAgentRequirements(candidate);
 
         try {
-            return requirements.isEmpty() || Matcher.matches(capabilities, requirements);
+            if (requirements.isEmpty()) {
+                return true;
+            }
+
+            if (index != null) {
+                return index.matches(candidate.requirements(), requirements, capabilities);
+            }
+
+            return Matcher.matches(capabilities, requirements);
         } catch (PatternSyntaxException pse) {
             log.error("Invalid regex in requested agent capabilities for instanceId: {}", candidate.key().getInstanceId());
             errHandler.handleError(tx, candidate, pse);
@@ -322,6 +394,7 @@ public class Dispatcher extends PeriodicTask {
 
         private final ConcordObjectMapper objectMapper;
         private final Histogram offsetHistogram;
+        private final Histogram excludedHistogram;
 
         @Inject
         public DispatcherDao(@MainDB Configuration cfg,
@@ -331,6 +404,7 @@ public class Dispatcher extends PeriodicTask {
             super(cfg);
             this.objectMapper = objectMapper;
             this.offsetHistogram = metricRegistry.histogram("process-queue-dispatcher-offset");
+            this.excludedHistogram = metricRegistry.histogram("process-queue-dispatcher-excluded-requirements");
         }
 
         @Override
@@ -344,51 +418,99 @@ public class Dispatcher extends PeriodicTask {
 
             ProcessQueue q = PROCESS_QUEUE.as("q");
 
-            Field<UUID> orgIdField = select(PROJECTS.ORG_ID).from(PROJECTS).where(PROJECTS.PROJECT_ID.eq(q.PROJECT_ID)).asField();
-
-            SelectJoinStep<Record14<UUID, OffsetDateTime, UUID, UUID, UUID, UUID, String, String, String, UUID, JSONB, JSONB, JSONB, String>> s =
-                    tx.select(
-                                    q.INSTANCE_ID,
-                                    q.CREATED_AT,
-                                    q.PROJECT_ID,
-                                    orgIdField,
-                                    q.INITIATOR_ID,
-                                    q.PARENT_INSTANCE_ID,
-                                    q.REPO_PATH,
-                                    q.REPO_URL,
-                                    q.COMMIT_ID,
-                                    q.REPO_ID,
-                                    q.IMPORTS,
-                                    q.REQUIREMENTS,
-                                    q.EXCLUSIVE,
-                                    q.COMMIT_BRANCH)
-                            .from(q);
-
-            s.where(q.CURRENT_STATUS.eq(ProcessStatus.ENQUEUED.toString())
-                    .and(or(q.START_AT.isNull(),
-                            q.START_AT.le(currentOffsetDateTime()))));
-
-            return s.orderBy(q.LAST_UPDATED_AT)
+            return selectEnqueued(tx, q)
+                    .orderBy(q.LAST_UPDATED_AT)
                     .offset(offset)
                     .limit(limit)
                     .forUpdate()
                     .of(q)
                     .skipLocked()
-                    .fetch(r -> ProcessQueueEntry.builder()
-                            .key(new ProcessKey(r.value1(), r.value2()))
-                            .projectId(r.value3())
-                            .orgId(r.value4())
-                            .initiatorId(r.value5())
-                            .parentInstanceId(r.value6())
-                            .repoPath(r.value7())
-                            .repoUrl(r.value8())
-                            .commitId(r.value9())
-                            .commitBranch(r.value14())
-                            .repoId(r.value10())
-                            .imports(objectMapper.fromJSONB(r.value11(), Imports.class))
-                            .requirements(objectMapper.fromJSONB(r.value12()))
-                            .exclusive(objectMapper.fromJSONB(r.value13(), ExclusiveMode.class))
-                            .build());
+                    .fetch(this::toEntry);
+        }
+
+        /**
+         * Keyset-paginated version of {@link #next(DSLContext, int, int)}.
+         *
+         * @param after                the position of the last entry of the previous page
+         *                             or {@code null} to fetch the first page
+         * @param excludedRequirements entries with these requirements are skipped
+         */
+        @WithTimer
+        public QueuePage next(DSLContext tx, QueueCursor after, List<Map<String, Object>> excludedRequirements, int limit) {
+            excludedHistogram.update(excludedRequirements.size());
+
+            ProcessQueue q = PROCESS_QUEUE.as("q");
+
+            SelectConditionStep<Record15<UUID, OffsetDateTime, UUID, UUID, UUID, UUID, String, String, String, UUID, JSONB, JSONB, JSONB, String, OffsetDateTime>> s = selectEnqueued(tx, q);
+
+            if (after != null) {
+                s.and(row(q.LAST_UPDATED_AT, q.INSTANCE_ID).gt(after.lastUpdatedAt(), after.instanceId()));
+            }
+
+            if (!excludedRequirements.isEmpty()) {
+                List<JSONB> excluded = excludedRequirements.stream()
+                        .map(objectMapper::toJSONB)
+                        .toList();
+
+                s.and(q.REQUIREMENTS.isNull().or(q.REQUIREMENTS.notIn(excluded)));
+            }
+
+            Result<Record15<UUID, OffsetDateTime, UUID, UUID, UUID, UUID, String, String, String, UUID, JSONB, JSONB, JSONB, String, OffsetDateTime>> rows = s.orderBy(q.LAST_UPDATED_AT, q.INSTANCE_ID)
+                    .limit(limit)
+                    .forUpdate()
+                    .of(q)
+                    .skipLocked()
+                    .fetch();
+
+            if (rows.isEmpty()) {
+                return new QueuePage(List.of(), after);
+            }
+
+            var last = rows.get(rows.size() - 1);
+            return new QueuePage(rows.map(this::toEntry), new QueueCursor(last.value15(), last.value1()));
+        }
+
+        private static SelectConditionStep<Record15<UUID, OffsetDateTime, UUID, UUID, UUID, UUID, String, String, String, UUID, JSONB, JSONB, JSONB, String, OffsetDateTime>> selectEnqueued(DSLContext tx, ProcessQueue q) {
+            Field<UUID> orgIdField = select(PROJECTS.ORG_ID).from(PROJECTS).where(PROJECTS.PROJECT_ID.eq(q.PROJECT_ID)).asField();
+
+            return tx.select(
+                            q.INSTANCE_ID,
+                            q.CREATED_AT,
+                            q.PROJECT_ID,
+                            orgIdField,
+                            q.INITIATOR_ID,
+                            q.PARENT_INSTANCE_ID,
+                            q.REPO_PATH,
+                            q.REPO_URL,
+                            q.COMMIT_ID,
+                            q.REPO_ID,
+                            q.IMPORTS,
+                            q.REQUIREMENTS,
+                            q.EXCLUSIVE,
+                            q.COMMIT_BRANCH,
+                            q.LAST_UPDATED_AT)
+                    .from(q)
+                    .where(q.CURRENT_STATUS.eq(ProcessStatus.ENQUEUED.toString())
+                            .and(or(q.START_AT.isNull(),
+                                    q.START_AT.le(currentOffsetDateTime()))));
+        }
+
+        private ProcessQueueEntry toEntry(Record15<UUID, OffsetDateTime, UUID, UUID, UUID, UUID, String, String, String, UUID, JSONB, JSONB, JSONB, String, OffsetDateTime> r) {
+            return ProcessQueueEntry.builder()
+                    .key(new ProcessKey(r.value1(), r.value2()))
+                    .projectId(r.value3())
+                    .orgId(r.value4())
+                    .initiatorId(r.value5())
+                    .parentInstanceId(r.value6())
+                    .repoPath(r.value7())
+                    .repoUrl(r.value8())
+                    .commitId(r.value9())
+                    .commitBranch(r.value14())
+                    .repoId(r.value10())
+                    .imports(objectMapper.fromJSONB(r.value11(), Imports.class))
+                    .requirements(objectMapper.fromJSONB(r.value12()))
+                    .exclusive(objectMapper.fromJSONB(r.value13(), ExclusiveMode.class))
+                    .build();
         }
 
         public SecretReference getSecretReference(UUID repoId) {
@@ -404,6 +526,15 @@ public class Dispatcher extends PeriodicTask {
     record Request(MessageChannel channel, ProcessRequest request) {
     }
 
+    /**
+     * Position of a queue entry in the (last_updated_at, instance_id) order.
+     */
+    public record QueueCursor(OffsetDateTime lastUpdatedAt, UUID instanceId) {
+    }
+
+    public record QueuePage(List<ProcessQueueEntry> entries, QueueCursor last) {
+    }
+
     private record Match(Request request, ProcessQueueEntry response) {
 
     }
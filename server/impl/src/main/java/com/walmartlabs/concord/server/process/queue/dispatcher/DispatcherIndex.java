@@ -0,0 +1,137 @@
+package com.walmartlabs.concord.server.process.queue.dispatcher;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.common.CompiledMatcher;
+
+import java.util.*;
+
+/**
+ * Remembers the results of matching process requirements against agent capabilities.
+ * <p>
+ * Agents with identical capabilities form a "capability class". The result of matching
+ * the same requirements against the same capability class never changes, so the index
+ * caches it. The cached results are also used to find requirements that can't match any
+ * of the agents currently waiting for work. Queue entries with such requirements can be
+ * excluded from the queue query instead of being fetched and rejected on every poll.
+ * <p>
+ * The agent requirements are compiled once per requirements entry, so cache misses
+ * don't have to re-interpret the conditions on every call.
+ * <p>
+ * Entries that fail to match due to an error (e.g. an invalid regex) are not cached.
+ */
+public class DispatcherIndex {
+
+    private static final int MAX_REQUIREMENTS = 1000;
+    private static final int MAX_CAPABILITY_CLASSES = 64;
+
+    private final int maxUnmatchable;
+    private final Map<Map<String, Object>, Entry> results;
+
+    private final Meter hits;
+    private final Meter misses;
+
+    public DispatcherIndex(int maxUnmatchable, MetricRegistry metricRegistry) {
+        this.maxUnmatchable = maxUnmatchable;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Map<String, Object>, Entry> eldest) {
+                return size() > MAX_REQUIREMENTS;
+            }
+        };
+
+        this.hits = metricRegistry.meter("process-queue-dispatcher-index-hits");
+        this.misses = metricRegistry.meter("process-queue-dispatcher-index-misses");
+    }
+
+    /**
+     * @param requirements      the process requirements as stored in the queue
+     * @param agentRequirements the "agent" section of the {@code requirements}
+     * @param capabilities      the agent's capabilities
+     */
+    public synchronized boolean matches(Map<String, Object> requirements,
+                                        Map<?, ?> agentRequirements,
+                                        Map<String, Object> capabilities) {
+
+        Entry entry = results.computeIfAbsent(requirements, k -> new Entry());
+
+        Boolean result = entry.byClass.get(capabilities);
+        if (result != null) {
+            hits.mark();
+            return result;
+        }
+
+        misses.mark();
+
+        if (entry.matcher == null) {
+            entry.matcher = CompiledMatcher.compile(agentRequirements);
+        }
+
+        boolean matched = entry.matcher.matches(capabilities);
+        if (entry.byClass.size() < MAX_CAPABILITY_CLASSES) {
+            entry.byClass.put(capabilities, matched);
+        }
+        return matched;
+    }
+
+    /**
+     * Returns the requirements that are known not to match any of the specified
+     * capability classes.
+     */
+    public synchronized List<Map<String, Object>> unmatchable(Collection<Map<String, Object>> capabilityClasses) {
+        if (capabilityClasses.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<Map<String, Object>, Entry> e : results.entrySet()) {
+            if (result.size() >= maxUnmatchable) {
+                break;
+            }
+
+            Map<Map<String, Object>, Boolean> byClass = e.getValue().byClass;
+
+            boolean unmatchable = true;
+            for (Map<String, Object> c : capabilityClasses) {
+                Boolean matched = byClass.get(c);
+                if (matched == null || matched) {
+                    unmatchable = false;
+                    break;
+                }
+            }
+
+            if (unmatchable) {
+                result.add(e.getKey());
+            }
+        }
+
+        return result;
+    }
+
+    private static final class Entry {
+
+        private final Map<Map<String, Object>, Boolean> byClass = new HashMap<>();
+
+        private CompiledMatcher matcher;
+    }
+}
@@ -0,0 +1,85 @@
+package com.walmartlabs.concord.server.process.queue.dispatcher;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.db.DatabaseConfiguration;
+import com.walmartlabs.concord.db.MainDB;
+import com.walmartlabs.concord.db.PgNotificationListener;
+import com.walmartlabs.concord.server.cfg.ProcessQueueConfiguration;
+import com.walmartlabs.concord.server.sdk.BackgroundTask;
+import org.postgresql.PGNotification;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listens for {@link DispatcherNotifier} notifications and wakes up the {@link Dispatcher}.
+ * Works across all server nodes connected to the same DB.
+ */
+public class DispatcherNotificationListener implements BackgroundTask, PgNotificationListener.Handler {
+
+    private static final long POLL_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final Dispatcher dispatcher;
+    private final boolean enabled;
+    private final Meter notifications;
+    private final PgNotificationListener listener;
+
+    @Inject
+    public DispatcherNotificationListener(@MainDB DatabaseConfiguration dbCfg,
+                                          Dispatcher dispatcher,
+                                          ProcessQueueConfiguration cfg,
+                                          MetricRegistry metricRegistry) {
+
+        this.dispatcher = dispatcher;
+        this.enabled = cfg.isDispatcherNotificationsEnabled();
+        this.notifications = metricRegistry.meter("process-queue-dispatcher-notifications");
+        this.listener = new PgNotificationListener(dbCfg, DispatcherNotifier.CHANNEL, "dispatcher-notification-listener", POLL_TIMEOUT, this);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        listener.stop();
+    }
+
+    @Override
+    public void onConnect() {
+        // the notifications might've been sent while we were reconnecting
+        dispatcher.wakeUp();
+    }
+
+    @Override
+    public void onNotifications(PGNotification[] n) {
+        notifications.mark(n.length);
+        dispatcher.wakeUp();
+    }
+}
@@ -0,0 +1,57 @@
+package com.walmartlabs.concord.server.process.queue.dispatcher;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.server.cfg.ProcessQueueConfiguration;
+import com.walmartlabs.concord.server.process.queue.ProcessStatusListener;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.ProcessStatus;
+import org.jooq.DSLContext;
+
+import javax.inject.Inject;
+
+/**
+ * Sends a PostgreSQL notification every time a process becomes ENQUEUED.
+ * The notification is delivered only when (and if) the transaction commits.
+ *
+ * @see DispatcherNotificationListener
+ */
+public class DispatcherNotifier implements ProcessStatusListener {
+
+    static final String CHANNEL = "concord_process_enqueued";
+
+    private final boolean enabled;
+
+    @Inject
+    public DispatcherNotifier(ProcessQueueConfiguration cfg) {
+        this.enabled = cfg.isDispatcherNotificationsEnabled();
+    }
+
+    @Override
+    public void onStatusChange(DSLContext tx, ProcessKey processKey, ProcessStatus status) {
+        if (!enabled || status != ProcessStatus.ENQUEUED) {
+            return;
+        }
+
+        // identical notifications are collapsed by PostgreSQL within a single transaction
+        tx.execute("select pg_notify(?, '')", CHANNEL);
+    }
+}
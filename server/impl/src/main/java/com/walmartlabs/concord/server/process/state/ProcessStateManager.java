@@ -20,6 +20,7 @@ package com.walmartlabs.concord.server.process.state;
  * =====
  */
 
+import com.google.common.collect.Iterables;
 import com.walmartlabs.concord.common.Posix;
 import com.walmartlabs.concord.common.secret.SecretUtils;
 import com.walmartlabs.concord.db.AbstractDao;
@@ -43,6 +44,7 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.jooq.Configuration;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.Query;
 import org.jooq.Table;
 import org.jooq.TableField;
 import org.jooq.impl.DSL;
@@ -50,15 +52,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.function.BiFunction;
@@ -66,6 +72,7 @@ import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_INITIAL_STATE;
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_STATE_BLOBS;
 import static com.walmartlabs.concord.server.jooq.tables.ProcessQueue.PROCESS_QUEUE;
 import static com.walmartlabs.concord.server.jooq.tables.ProcessState.PROCESS_STATE;
 import static com.walmartlabs.concord.server.jooq.tables.Projects.PROJECTS;
@@ -77,6 +84,8 @@ public class ProcessStateManager extends AbstractDao {
 
     private static final String PATH_SEPARATOR = "/";
     private static final int INSERT_BATCH_SIZE = 10;
+    private static final int EXPORT_BATCH_SIZE = 1000;
+    private static final HexFormat HEX = HexFormat.of();
 
     private final SecretStoreConfiguration secretCfg;
     private final PolicyManager policyManager;
@@ -84,6 +93,7 @@ public class ProcessStateManager extends AbstractDao {
     private final ProcessKeyCache processKeyCache;
 
     private final Set<String> secureFiles;
+    private final boolean blobsEnabled;
 
     @Inject
     protected ProcessStateManager(@MainDB Configuration cfg,
@@ -99,6 +109,7 @@ public class ProcessStateManager extends AbstractDao {
         this.processKeyCache = processKeyCache;
 
         this.secureFiles = Collections.unmodifiableSet(new HashSet<>(stateCfg.getSecureFiles()));
+        this.blobsEnabled = stateCfg.isStateBlobsEnabled();
     }
 
     @Override
@@ -134,7 +145,7 @@ public class ProcessStateManager extends AbstractDao {
     }
 
     private <T> Optional<T> doGet(DSLContext tx, ProcessStateTable table, ProcessKey processKey, String path, Function<InputStream, Optional<T>> converter) {
-        String sql = tx.select(table.IS_ENCRYPTED(), table.ITEM_DATA())
+        String sql = tx.select(table.IS_ENCRYPTED(), itemData(table))
                 .from(table.table())
                 .where(table.INSTANCE_ID().eq((UUID) null)
                         .and(table.INSTANCE_CREATED_AT().eq((OffsetDateTime) null))
@@ -168,7 +179,7 @@ public class ProcessStateManager extends AbstractDao {
     public <T> List<T> forEach(ProcessKey processKey, String path, Function<InputStream, Optional<T>> converter) {
         DSLContext tx = dsl();
 
-        String sql = tx.select(PROCESS_STATE.IS_ENCRYPTED, PROCESS_STATE.ITEM_DATA)
+        String sql = tx.select(PROCESS_STATE.IS_ENCRYPTED, itemData(CurrentProcessStateTable.INSTANCE))
                 .from(PROCESS_STATE)
                 .where(PROCESS_STATE.INSTANCE_ID.eq((UUID) null)
                         .and(PROCESS_STATE.INSTANCE_CREATED_AT.eq((OffsetDateTime) null))
@@ -309,13 +320,22 @@ public class ProcessStateManager extends AbstractDao {
 
     private void doInsert(DSLContext tx, ProcessStateTable table, ProcessKey processKey, String path, byte[] in) {
         boolean needEncrypt = secureFiles.contains(path);
+
+        byte[] digest = sha256(in);
+
         byte[] data = in;
+        byte[] hash = null;
         if (needEncrypt) {
             data = encrypt(in);
+        } else if (blobsEnabled) {
+            hash = digest;
+            storeBlobs(tx, List.of(new Blob(hash, in.length, null, in)));
+            data = null;
         }
+
         tx.insertInto(table.table())
-                .columns(table.INSTANCE_ID(), table.INSTANCE_CREATED_AT(), table.ITEM_PATH(), table.ITEM_DATA(), table.IS_ENCRYPTED())
-                .values(processKey.getInstanceId(), processKey.getCreatedAt(), path, data, needEncrypt)
+                .columns(table.INSTANCE_ID(), table.INSTANCE_CREATED_AT(), table.ITEM_PATH(), table.ITEM_DATA(), table.ITEM_HASH(), table.ITEM_DIGEST(), table.IS_ENCRYPTED())
+                .values(processKey.getInstanceId(), processKey.getCreatedAt(), path, data, hash, digest, needEncrypt)
                 .execute();
     }
 
@@ -382,13 +402,15 @@ public class ProcessStateManager extends AbstractDao {
                     Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
                     int unixMode = Posix.unixMode(permissions);
                     boolean needsEncryption = secureFiles.contains(n);
+                    byte[] digest = sha256(file);
+                    byte[] hash = blobsEnabled && !needsEncryption ? digest : null;
 
                     tx.deleteFrom(table.table()).where(table.INSTANCE_ID().eq(processKey.getInstanceId())
                                     .and(table.INSTANCE_CREATED_AT().eq(processKey.getCreatedAt()))
                                     .and(table.ITEM_PATH().eq(n)))
                             .execute();
 
-                    batch.add(new BatchItem(n, file, unixMode, needsEncryption));
+                    batch.add(new BatchItem(n, file, attrs.size(), unixMode, needsEncryption, hash, digest));
                     if (batch.size() >= INSERT_BATCH_SIZE) {
                         doInsert(tx, table, processKey.getInstanceId(), processKey.getCreatedAt(), batch);
                         batch.clear();
@@ -415,7 +437,7 @@ public class ProcessStateManager extends AbstractDao {
         DSLContext tx = dsl();
 
         String sql = tx
-                .select(PROCESS_STATE.ITEM_PATH, PROCESS_STATE.UNIX_MODE, PROCESS_STATE.IS_ENCRYPTED, PROCESS_STATE.ITEM_DATA)
+                .select(PROCESS_STATE.ITEM_PATH, PROCESS_STATE.UNIX_MODE, PROCESS_STATE.IS_ENCRYPTED, itemData(CurrentProcessStateTable.INSTANCE))
                 .from(PROCESS_STATE)
                 .where(PROCESS_STATE.INSTANCE_ID.eq((UUID) null).and(PROCESS_STATE.INSTANCE_CREATED_AT.eq((OffsetDateTime) null)))
                 .getSQL();
@@ -445,6 +467,90 @@ public class ProcessStateManager extends AbstractDao {
         });
     }
 
+    /**
+     * Exports the specified items of a process instance.
+     */
+    public boolean export(ProcessKey processKey, Collection<String> paths, ItemConsumer consumer) {
+        DSLContext tx = dsl();
+
+        boolean found = false;
+        for (List<String> batch : Iterables.partition(paths, EXPORT_BATCH_SIZE)) {
+            Query q = tx.select(PROCESS_STATE.ITEM_PATH, PROCESS_STATE.UNIX_MODE, PROCESS_STATE.IS_ENCRYPTED, itemData(CurrentProcessStateTable.INSTANCE))
+                    .from(PROCESS_STATE)
+                    .where(PROCESS_STATE.INSTANCE_ID.eq(processKey.getInstanceId())
+                            .and(PROCESS_STATE.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt()))
+                            .and(PROCESS_STATE.ITEM_PATH.in(batch)));
+
+            String sql = q.getSQL();
+            List<Object> params = q.getBindValues();
+
+            found |= tx.connectionResult(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < params.size(); i++) {
+                        ps.setObject(i + 1, params.get(i));
+                    }
+
+                    boolean result = false;
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            result = true;
+
+                            String n = rs.getString(1);
+                            int unixMode = rs.getInt(2);
+                            boolean encrypted = rs.getBoolean(3);
+                            try (InputStream in = rs.getBinaryStream(4);
+                                 InputStream processed = encrypted ? decrypt(in) : in) {
+                                consumer.accept(n, unixMode, processed);
+                            }
+                        }
+                    }
+
+                    return result;
+                }
+            });
+        }
+
+        return found;
+    }
+
+    /**
+     * Lists all items of a process instance with the hashes of their content.
+     * The content itself is not fetched. The hashes are stored when the items
+     * are written, only the items written by older versions are hashed as stored.
+     */
+    public List<StateManifestItem> manifest(ProcessKey processKey) {
+        Field<byte[]> hash = coalesce(PROCESS_STATE.ITEM_DIGEST, PROCESS_STATE.ITEM_HASH, function("sha256", byte[].class, PROCESS_STATE.ITEM_DATA));
+
+        return dsl().select(PROCESS_STATE.ITEM_PATH, PROCESS_STATE.UNIX_MODE, hash, itemSize(CurrentProcessStateTable.INSTANCE))
+                .from(PROCESS_STATE)
+                .where(PROCESS_STATE.INSTANCE_ID.eq(processKey.getInstanceId())
+                        .and(PROCESS_STATE.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt())))
+                .orderBy(PROCESS_STATE.ITEM_PATH)
+                .fetch(r -> StateManifestItem.builder()
+                        .path(r.value1())
+                        .unixMode(r.value2())
+                        .hash(HEX.formatHex(r.value3()))
+                        .size(r.value4())
+                        .build());
+    }
+
+    /**
+     * Returns the total size of the specified items. The missing items are ignored.
+     */
+    public long size(ProcessKey processKey, Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return 0;
+        }
+
+        return dsl().select(sum(itemSize(CurrentProcessStateTable.INSTANCE)))
+                .from(PROCESS_STATE)
+                .where(PROCESS_STATE.INSTANCE_ID.eq(processKey.getInstanceId())
+                        .and(PROCESS_STATE.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt()))
+                        .and(PROCESS_STATE.ITEM_PATH.in(paths)))
+                .fetchOptional(0, Long.class)
+                .orElse(0L);
+    }
+
     /**
      * Exports elements whose path begins with the specified value.
      */
@@ -462,7 +568,7 @@ public class ProcessStateManager extends AbstractDao {
         DSLContext tx = dsl();
 
         String sql = tx
-                .select(table.ITEM_PATH(), table.UNIX_MODE(), table.IS_ENCRYPTED(), table.ITEM_DATA())
+                .select(table.ITEM_PATH(), table.UNIX_MODE(), table.IS_ENCRYPTED(), itemData(table))
                 .from(table.table())
                 .where(table.INSTANCE_ID().eq((UUID) null)
                         .and(table.INSTANCE_CREATED_AT().eq((OffsetDateTime) null))
@@ -543,10 +649,15 @@ public class ProcessStateManager extends AbstractDao {
                 .execute();
     }
 
-    private void insert(DSLContext tx, UUID instanceId, OffsetDateTime instanceCreatedAt, Collection<BatchItem> batch) {
-        String sql = tx.insertInto(PROCESS_STATE)
-                .columns(PROCESS_STATE.INSTANCE_ID, PROCESS_STATE.INSTANCE_CREATED_AT, PROCESS_STATE.ITEM_PATH, PROCESS_STATE.UNIX_MODE, PROCESS_STATE.ITEM_DATA, PROCESS_STATE.IS_ENCRYPTED)
-                .values((UUID) null, null, null, null, null, null)
+    private void doInsert(DSLContext tx, ProcessStateTable table, UUID instanceId, OffsetDateTime instanceCreatedAt, Collection<BatchItem> batch) {
+        storeBlobs(tx, batch.stream()
+                .filter(item -> item.hash != null)
+                .map(item -> new Blob(item.hash, item.size, item.path, null))
+                .toList());
+
+        String sql = tx.insertInto(table.table())
+                .columns(table.INSTANCE_ID(), table.INSTANCE_CREATED_AT(), table.ITEM_PATH(), table.UNIX_MODE(), table.ITEM_DATA(), table.IS_ENCRYPTED(), table.ITEM_HASH(), table.ITEM_DIGEST())
+                .values((UUID) null, null, null, null, null, null, null, null)
                 .getSQL();
 
         List<InputStream> streams = new LinkedList<>();
@@ -566,19 +677,30 @@ public class ProcessStateManager extends AbstractDao {
                         // UNIX_MODE
                         ps.setInt(4, item.unixMode);
 
-                        InputStream in = Files.newInputStream(item.path);
-                        streams.add(in); // keep the streams open until the batch is committed
+                        if (item.hash != null) {
+                            // ITEM_DATA, the content is in PROCESS_STATE_BLOBS
+                            ps.setNull(5, Types.BINARY);
+                        } else {
+                            InputStream in = Files.newInputStream(item.path);
+                            streams.add(in); // keep the streams open until the batch is committed
 
-                        if (item.needsEncryption) {
-                            in = encrypt(in);
-                        }
+                            if (item.needsEncryption) {
+                                in = encrypt(in);
+                            }
 
-                        // ITEM_DATA
-                        ps.setBinaryStream(5, in);
+                            // ITEM_DATA
+                            ps.setBinaryStream(5, in);
+                        }
 
                         // IS_ENCRYPTED
                         ps.setBoolean(6, item.needsEncryption);
 
+                        // ITEM_HASH
+                        ps.setBytes(7, item.hash);
+
+                        // ITEM_DIGEST
+                        ps.setBytes(8, item.digest);
+
                         ps.addBatch();
                     }
 
@@ -592,48 +714,61 @@ public class ProcessStateManager extends AbstractDao {
         }
     }
 
-    private void doInsert(DSLContext tx, ProcessStateTable table, UUID instanceId, OffsetDateTime instanceCreatedAt, Collection<BatchItem> batch) {
-        String sql = tx.insertInto(table.table())
-                .columns(table.INSTANCE_ID(), table.INSTANCE_CREATED_AT(), table.ITEM_PATH(), table.UNIX_MODE(), table.ITEM_DATA(), table.IS_ENCRYPTED())
-                .values((UUID) null, null, null, null, null, null)
-                .getSQL();
+    /**
+     * Makes sure the specified blobs are present in {@code PROCESS_STATE_BLOBS}.
+     * Only the content which is not stored yet is sent to the DB.
+     */
+    private void storeBlobs(DSLContext tx, Collection<Blob> blobs) {
+        if (blobs.isEmpty()) {
+            return;
+        }
 
-        List<InputStream> streams = new LinkedList<>();
-        try {
-            tx.connection(conn -> {
-                try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                    for (BatchItem item : batch) {
-                        // INSTANCE_ID
-                        ps.setObject(1, instanceId);
+        Map<String, Blob> missing = new LinkedHashMap<>();
+        blobs.forEach(b -> missing.putIfAbsent(HEX.formatHex(b.hash), b));
 
-                        // INSTANCE_CREATED_AT
-                        ps.setObject(2, instanceCreatedAt);
+        List<byte[]> hashes = missing.values().stream()
+                .map(b -> b.hash)
+                .toList();
 
-                        // ITEM_PATH
-                        ps.setString(3, item.itemPath);
-
-                        // UNIX_MODE
-                        ps.setInt(4, item.unixMode);
+        // claim back the blobs marked as unused by ProcessCleaner
+        // the row locks prevent the cleaner from removing them until the transaction is committed
+        tx.update(PROCESS_STATE_BLOBS)
+                .set(PROCESS_STATE_BLOBS.UNUSED_SINCE, (OffsetDateTime) null)
+                .where(PROCESS_STATE_BLOBS.BLOB_HASH.in(hashes)
+                        .and(PROCESS_STATE_BLOBS.UNUSED_SINCE.isNotNull()))
+                .execute();
 
-                        InputStream in = Files.newInputStream(item.path);
-                        streams.add(in); // keep the streams open until the batch is committed
+        tx.select(PROCESS_STATE_BLOBS.BLOB_HASH)
+                .from(PROCESS_STATE_BLOBS)
+                .where(PROCESS_STATE_BLOBS.BLOB_HASH.in(hashes))
+                .fetch(PROCESS_STATE_BLOBS.BLOB_HASH)
+                .forEach(h -> missing.remove(HEX.formatHex(h)));
 
-                        if (item.needsEncryption) {
-                            in = encrypt(in);
-                        }
+        if (missing.isEmpty()) {
+            return;
+        }
 
-                        // ITEM_DATA
-                        ps.setBinaryStream(5, in);
+        String sql = tx.insertInto(PROCESS_STATE_BLOBS)
+                .columns(PROCESS_STATE_BLOBS.BLOB_HASH, PROCESS_STATE_BLOBS.BLOB_SIZE, PROCESS_STATE_BLOBS.BLOB_DATA)
+                .values((byte[]) null, null, null)
+                .onConflictDoNothing()
+                .getSQL();
 
-                        // IS_ENCRYPTED
-                        ps.setBoolean(6, item.needsEncryption);
+        List<InputStream> streams = new LinkedList<>();
+        try {
+            tx.connection(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (Blob b : missing.values()) {
+                        InputStream in = b.open();
+                        streams.add(in);
 
+                        ps.setBytes(1, b.hash);
+                        ps.setLong(2, b.size);
+                        ps.setBinaryStream(3, in, b.size);
                         ps.addBatch();
                     }
 
                     ps.executeBatch();
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
                 }
             });
         } finally {
@@ -653,6 +788,51 @@ public class ProcessStateManager extends AbstractDao {
         return SecretUtils.encrypt(in, secretCfg.getServerPwd(), secretCfg.getSecretStoreSalt());
     }
 
+    /**
+     * Returns the item's data, either stored inline or in {@code PROCESS_STATE_BLOBS}.
+     */
+    private static Field<byte[]> itemData(ProcessStateTable table) {
+        Field<byte[]> blobData = select(PROCESS_STATE_BLOBS.BLOB_DATA)
+                .from(PROCESS_STATE_BLOBS)
+                .where(PROCESS_STATE_BLOBS.BLOB_HASH.eq(table.ITEM_HASH()))
+                .asField();
+
+        return coalesce(table.ITEM_DATA(), blobData);
+    }
+
+    private static Field<Long> itemSize(ProcessStateTable table) {
+        Field<Long> blobSize = select(PROCESS_STATE_BLOBS.BLOB_SIZE)
+                .from(PROCESS_STATE_BLOBS)
+                .where(PROCESS_STATE_BLOBS.BLOB_HASH.eq(table.ITEM_HASH()))
+                .asField();
+
+        return coalesce(PgUtils.length(table.ITEM_DATA()), blobSize);
+    }
+
+    private static byte[] sha256(byte[] data) {
+        return sha256().digest(data);
+    }
+
+    private static byte[] sha256(Path file) throws IOException {
+        MessageDigest md = sha256();
+        byte[] buf = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buf)) > 0) {
+                md.update(buf, 0, read);
+            }
+        }
+        return md.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private static String fixPath(String p) {
         if (p == null) {
             return null;
@@ -712,7 +892,7 @@ public class ProcessStateManager extends AbstractDao {
     }
 
     private static StatePolicy.StateStats getStateStats(DSLContext tx, ProcessKey processKey) {
-        return tx.select(DSL.sum(PgUtils.length(PROCESS_STATE.ITEM_DATA)), count(PROCESS_STATE.ITEM_DATA))
+        return tx.select(DSL.sum(itemSize(CurrentProcessStateTable.INSTANCE)), count(PROCESS_STATE.ITEM_PATH))
                 .from(PROCESS_STATE)
                 .where(PROCESS_STATE.INSTANCE_ID.eq(processKey.getInstanceId())
                         .and(PROCESS_STATE.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt())))
@@ -845,14 +1025,45 @@ public class ProcessStateManager extends AbstractDao {
 
         private final String itemPath;
         private final Path path;
+        private final long size;
         private final int unixMode;
         private final boolean needsEncryption;
+        private final byte[] hash;
+        private final byte[] digest;
 
-        private BatchItem(String itemPath, Path path, int unixMode, boolean needsEncryption) {
+        private BatchItem(String itemPath, Path path, long size, int unixMode, boolean needsEncryption, byte[] hash, byte[] digest) {
             this.itemPath = itemPath;
             this.path = path;
+            this.size = size;
             this.unixMode = unixMode;
             this.needsEncryption = needsEncryption;
+            this.hash = hash;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * Content of a state file, read either from a file or from memory.
+     */
+    private static final class Blob {
+
+        private final byte[] hash;
+        private final long size;
+        private final Path path;
+        private final byte[] data;
+
+        private Blob(byte[] hash, long size, Path path, byte[] data) {
+            this.hash = hash;
+            this.size = size;
+            this.path = path;
+            this.data = data;
+        }
+
+        private InputStream open() throws IOException {
+            if (data != null) {
+                return new ByteArrayInputStream(data);
+            }
+            return Files.newInputStream(path);
         }
     }
 
@@ -868,6 +1079,10 @@ public class ProcessStateManager extends AbstractDao {
 
         TableField<?, byte[]> ITEM_DATA();
 
+        TableField<?, byte[]> ITEM_HASH();
+
+        TableField<?, byte[]> ITEM_DIGEST();
+
         TableField<?, Short> UNIX_MODE();
 
         TableField<?, Boolean> IS_ENCRYPTED();
@@ -903,6 +1118,16 @@ public class ProcessStateManager extends AbstractDao {
             return PROCESS_INITIAL_STATE.ITEM_DATA;
         }
 
+        @Override
+        public TableField<?, byte[]> ITEM_HASH() {
+            return PROCESS_INITIAL_STATE.ITEM_HASH;
+        }
+
+        @Override
+        public TableField<?, byte[]> ITEM_DIGEST() {
+            return PROCESS_INITIAL_STATE.ITEM_DIGEST;
+        }
+
         @Override
         public TableField<?, Short> UNIX_MODE() {
             return PROCESS_INITIAL_STATE.UNIX_MODE;
@@ -943,6 +1168,16 @@ public class ProcessStateManager extends AbstractDao {
             return PROCESS_STATE.ITEM_DATA;
         }
 
+        @Override
+        public TableField<?, byte[]> ITEM_HASH() {
+            return PROCESS_STATE.ITEM_HASH;
+        }
+
+        @Override
+        public TableField<?, byte[]> ITEM_DIGEST() {
+            return PROCESS_STATE.ITEM_DIGEST;
+        }
+
         @Override
         public TableField<?, Short> UNIX_MODE() {
             return PROCESS_STATE.UNIX_MODE;
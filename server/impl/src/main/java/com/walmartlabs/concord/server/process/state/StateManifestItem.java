@@ -0,0 +1,49 @@
+package com.walmartlabs.concord.server.process.state;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * An item of the process state without the data.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableStateManifestItem.class)
+@JsonDeserialize(as = ImmutableStateManifestItem.class)
+public interface StateManifestItem {
+
+    String path();
+
+    /**
+     * Hex-encoded SHA-256 of the stored content.
+     */
+    String hash();
+
+    int unixMode();
+
+    long size();
+
+    static ImmutableStateManifestItem.Builder builder() {
+        return ImmutableStateManifestItem.builder();
+    }
+}
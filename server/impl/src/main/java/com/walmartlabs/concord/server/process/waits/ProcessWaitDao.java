@@ -24,6 +24,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.walmartlabs.concord.db.AbstractDao;
 import com.walmartlabs.concord.db.MainDB;
 import com.walmartlabs.concord.server.ConcordObjectMapper;
+import com.walmartlabs.concord.server.jooq.enums.ProcessLockScope;
 import com.walmartlabs.concord.server.process.ProcessEntry.ProcessWaitEntry;
 import com.walmartlabs.concord.server.sdk.ProcessKey;
 import org.jooq.Configuration;
@@ -31,13 +32,14 @@ import org.jooq.DSLContext;
 import org.jooq.JSONB;
 
 import javax.inject.Inject;
-import java.util.List;
-import java.util.Map;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
 
 import static com.walmartlabs.concord.db.PgUtils.jsonbAppend;
 import static com.walmartlabs.concord.db.PgUtils.jsonbOrEmptyArray;
 import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_WAIT_CONDITIONS;
-import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.*;
 
 public class ProcessWaitDao extends AbstractDao {
 
@@ -70,6 +72,7 @@ public class ProcessWaitDao extends AbstractDao {
                 .set(PROCESS_WAIT_CONDITIONS.VERSION, PROCESS_WAIT_CONDITIONS.VERSION.plus(1))
                 .set(PROCESS_WAIT_CONDITIONS.WAIT_CONDITIONS,
                         jsonbAppend(jsonbOrEmptyArray(PROCESS_WAIT_CONDITIONS.WAIT_CONDITIONS), objectMapper.toJSONB(wait)))
+                .set(PROCESS_WAIT_CONDITIONS.WAKE_UP_AT, currentOffsetDateTime())
                 .where(PROCESS_WAIT_CONDITIONS.INSTANCE_ID.eq(processKey.getInstanceId())
                         .and(PROCESS_WAIT_CONDITIONS.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt())))
                 .execute();
@@ -83,6 +86,7 @@ public class ProcessWaitDao extends AbstractDao {
         int rows = tx.update(PROCESS_WAIT_CONDITIONS)
                 .set(PROCESS_WAIT_CONDITIONS.WAIT_CONDITIONS, field("?::jsonb", JSONB.class, objectMapper.toJSONB(waits, WAIT_LIST)))
                 .set(PROCESS_WAIT_CONDITIONS.IS_WAITING, isWaiting)
+                .set(PROCESS_WAIT_CONDITIONS.WAKE_UP_AT, nextWakeUp(waits))
                 .set(PROCESS_WAIT_CONDITIONS.VERSION, PROCESS_WAIT_CONDITIONS.VERSION.plus(1))
                 .where(PROCESS_WAIT_CONDITIONS.INSTANCE_ID.eq(processKey.getInstanceId())
                         .and(PROCESS_WAIT_CONDITIONS.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt())
@@ -92,6 +96,47 @@ public class ProcessWaitDao extends AbstractDao {
         return rows > 0;
     }
 
+    /**
+     * Sets the time of the next evaluation of the process' wait conditions.
+     * Does nothing if the conditions were modified (or woken up) after they were read.
+     */
+    public void setWakeUp(DSLContext tx, ProcessKey processKey, OffsetDateTime wakeUpAt, long version) {
+        tx.update(PROCESS_WAIT_CONDITIONS)
+                .set(PROCESS_WAIT_CONDITIONS.WAKE_UP_AT, wakeUpAt)
+                .where(PROCESS_WAIT_CONDITIONS.INSTANCE_ID.eq(processKey.getInstanceId())
+                        .and(PROCESS_WAIT_CONDITIONS.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt())
+                                .and(PROCESS_WAIT_CONDITIONS.VERSION.eq(version))))
+                .execute();
+    }
+
+    /**
+     * Schedules an immediate evaluation of the processes waiting for the specified lock.
+     */
+    public int wakeUpLockWaiters(DSLContext tx, UUID orgId, UUID projectId, ProcessLockScope scope, String lockName) {
+        Map<String, Object> match = new HashMap<>();
+        match.put("type", WaitType.PROCESS_LOCK.name());
+        match.put("scope", scope.name());
+        match.put("name", lockName);
+        switch (scope) {
+            case ORG:
+                match.put("orgId", orgId);
+                break;
+            case PROJECT:
+                match.put("projectId", projectId);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown lock scope: " + scope);
+        }
+
+        return tx.update(PROCESS_WAIT_CONDITIONS)
+                .set(PROCESS_WAIT_CONDITIONS.WAKE_UP_AT, currentOffsetDateTime())
+                .set(PROCESS_WAIT_CONDITIONS.VERSION, PROCESS_WAIT_CONDITIONS.VERSION.plus(1))
+                .where(PROCESS_WAIT_CONDITIONS.IS_WAITING.eq(true)
+                        .and(condition("{0} @> {1}::jsonb", PROCESS_WAIT_CONDITIONS.WAIT_CONDITIONS,
+                                val(objectMapper.toJSONB(Collections.singletonList(match))))))
+                .execute();
+    }
+
     public ProcessWaitEntry get(ProcessKey processKey) {
         return txResult(tx -> tx.select(PROCESS_WAIT_CONDITIONS.IS_WAITING, PROCESS_WAIT_CONDITIONS.WAIT_CONDITIONS)
                 .from(PROCESS_WAIT_CONDITIONS)
@@ -99,4 +144,22 @@ public class ProcessWaitDao extends AbstractDao {
                         .and(PROCESS_WAIT_CONDITIONS.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt())))
                 .fetchOne(r -> ProcessWaitEntry.of(r.value1(), objectMapper.fromJSONB(r.value2(), LIST_OF_MAP))));
     }
+
+    /**
+     * Returns the time of the next evaluation of the specified wait conditions.
+     * Only the sleep conditions are time-based, other conditions are evaluated
+     * when the awaited process finishes or the lock is released.
+     */
+    public static OffsetDateTime nextWakeUp(List<AbstractWaitCondition> waits) {
+        if (waits == null) {
+            return null;
+        }
+
+        return waits.stream()
+                .filter(w -> w instanceof ProcessSleepCondition)
+                .map(w -> ((ProcessSleepCondition) w).until().toInstant())
+                .min(Comparator.naturalOrder())
+                .map(i -> OffsetDateTime.ofInstant(i, ZoneOffset.UTC))
+                .orElse(null);
+    }
 }
@@ -30,6 +30,7 @@ import com.walmartlabs.concord.server.sdk.ProcessKey;
 import org.jooq.DSLContext;
 
 import javax.inject.Inject;
+import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -88,6 +89,13 @@ public class ProcessWaitManager {
         return updated;
     }
 
+    /**
+     * @see ProcessWaitDao#setWakeUp(DSLContext, ProcessKey, OffsetDateTime, long)
+     */
+    public void setWakeUp(ProcessKey processKey, OffsetDateTime wakeUpAt, long version) {
+        processWaitDao.tx(tx -> processWaitDao.setWakeUp(tx, processKey, wakeUpAt, version));
+    }
+
     private NewProcessEvent buildEvent(ProcessKey processKey, List<AbstractWaitCondition> waits, String action) {
         Map<String, Object> data = new HashMap<>();
         if (waits != null && !waits.isEmpty()) {
@@ -35,11 +35,12 @@ import com.walmartlabs.concord.server.sdk.metrics.WithTimer;
 import org.immutables.value.Value;
 import org.jooq.Configuration;
 import org.jooq.JSONB;
-import org.jooq.Record5;
+import org.jooq.Record6;
 import org.jooq.SelectConditionStep;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
@@ -51,10 +52,17 @@ import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_WAIT_CONDITIONS
 import static com.walmartlabs.concord.server.process.waits.ProcessWaitHandler.WaitConditionItem;
 import static com.walmartlabs.concord.server.process.waits.ProcessWaitHandler.Result;
 import static com.walmartlabs.concord.server.process.waits.ProcessWaitHandler.Action;
+import static org.jooq.impl.DSL.currentOffsetDateTime;
 
 /**
  * Takes care of processes with wait conditions.
  * E.g. waiting for other processes to finish, locking, etc.
+ * <p>
+ * Each run processes only the conditions that are due, i.e. with
+ * {@code WAKE_UP_AT} in the past. The wake up time is set when a sleep
+ * condition expires, when an awaited process finishes (see {@link WaitConditionUpdater}),
+ * when a lock is released or when a new condition is added.
+ * All waiting processes are re-checked periodically as a recovery measure.
  */
 public class ProcessWaitWatchdog implements ScheduledTask {
 
@@ -67,6 +75,9 @@ public class ProcessWaitWatchdog implements ScheduledTask {
     private final PayloadManager payloadManager;
     private final Map<WaitType, ProcessWaitHandler<AbstractWaitCondition>> processWaitHandlers;
     private final Histogram waitItemsHistogram;
+    private final Histogram dueItemsHistogram;
+
+    private long lastRecoveryAt = -1;
 
     @Inject
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -88,6 +99,7 @@ public class ProcessWaitWatchdog implements ScheduledTask {
 
         handlers.forEach(h -> this.processWaitHandlers.put(h.getType(), h));
         this.waitItemsHistogram = metricRegistry.histogram("process-wait-watchdog-items");
+        this.dueItemsHistogram = metricRegistry.histogram("process-wait-watchdog-due-items");
     }
 
     @Override
@@ -103,10 +115,20 @@ public class ProcessWaitWatchdog implements ScheduledTask {
     @Override
     @WithTimer
     public void performTask() {
+        poll(true, dueItemsHistogram);
+
+        long now = System.currentTimeMillis();
+        if (lastRecoveryAt + cfg.getRecoveryPeriod().toMillis() <= now) {
+            poll(false, waitItemsHistogram);
+            lastRecoveryAt = now;
+        }
+    }
+
+    private void poll(boolean dueOnly, Histogram histogram) {
         Long lastId = null;
         while (true) {
-            List<WaitingProcess> processes = dao.nextWaitItems(lastId, cfg.getPollLimit());
-            waitItemsHistogram.update(processes.size());
+            List<WaitingProcess> processes = dao.nextWaitItems(lastId, cfg.getPollLimit(), dueOnly);
+            histogram.update(processes.size());
 
             if (processes.isEmpty()) {
                 return;
@@ -152,6 +174,11 @@ public class ProcessWaitWatchdog implements ScheduledTask {
             List<AbstractWaitCondition> resultWaits = buildWaitConditions(p.waits(), resultForProcess);
 
             if (p.waits().equals(resultWaits)) {
+                // nothing changed, wait for the next event (or timeout)
+                OffsetDateTime wakeUpAt = ProcessWaitDao.nextWakeUp(resultWaits);
+                if (!isSameInstant(p.wakeUpAt(), wakeUpAt)) {
+                    processWaitManager.setWakeUp(p.processKey(), wakeUpAt, p.version());
+                }
                 continue;
             }
 
@@ -245,6 +272,13 @@ public class ProcessWaitWatchdog implements ScheduledTask {
                 .collect(Collectors.toList());
     }
 
+    private static boolean isSameInstant(OffsetDateTime a, OffsetDateTime b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.isEqual(b);
+    }
+
     @Value.Immutable
     interface WaitingProcess {
 
@@ -256,38 +290,46 @@ public class ProcessWaitWatchdog implements ScheduledTask {
 
         long version();
 
+        @Nullable
+        OffsetDateTime wakeUpAt();
+
         static ImmutableWaitingProcess.Builder builder() {
             return ImmutableWaitingProcess.builder();
         }
     }
 
-    private static class WatchdogDao extends AbstractDao {
+    static class WatchdogDao extends AbstractDao {
 
         private static final TypeReference<List<AbstractWaitCondition>> WAIT_LIST = new TypeReference<List<AbstractWaitCondition>>() {
         };
 
         private final ConcordObjectMapper objectMapper;
 
-        private WatchdogDao(@MainDB Configuration cfg, ConcordObjectMapper objectMapper) {
+        WatchdogDao(@MainDB Configuration cfg, ConcordObjectMapper objectMapper) {
             super(cfg);
 
             this.objectMapper = objectMapper;
         }
 
         @WithTimer
-        public List<WaitingProcess> nextWaitItems(Long lastId, int pollLimit) {
+        public List<WaitingProcess> nextWaitItems(Long lastId, int pollLimit, boolean dueOnly) {
             return txResult(tx -> {
                 ProcessWaitConditions w = PROCESS_WAIT_CONDITIONS.as("w");
 
-                SelectConditionStep<Record5<UUID, OffsetDateTime, Long, JSONB, Long>> s = tx.select(
+                SelectConditionStep<Record6<UUID, OffsetDateTime, Long, JSONB, Long, OffsetDateTime>> s = tx.select(
                                 w.INSTANCE_ID,
                                 w.INSTANCE_CREATED_AT,
                                 w.ID_SEQ,
                                 w.WAIT_CONDITIONS,
-                                w.VERSION)
+                                w.VERSION,
+                                w.WAKE_UP_AT)
                         .from(w)
                         .where(w.IS_WAITING.eq(true));
 
+                if (dueOnly) {
+                    s.and(w.WAKE_UP_AT.lessOrEqual(currentOffsetDateTime()));
+                }
+
                 if (lastId != null) {
                     s.and(w.ID_SEQ.greaterThan(lastId));
                 }
@@ -299,6 +341,7 @@ public class ProcessWaitWatchdog implements ScheduledTask {
                                 .id(r.value3())
                                 .waits(objectMapper.fromJSONB(r.value4(), WAIT_LIST))
                                 .version(r.value5())
+                                .wakeUpAt(r.value6())
                                 .build());
             });
         }
@@ -56,6 +56,7 @@ public class WaitConditionUpdater implements ProcessStatusListener {
                         END
                      )
                      FROM jsonb_array_elements(wait_conditions) obj),
+                wake_up_at = now(),
                 version = version + 1
             WHERE wait_conditions @> ?::jsonb;
             """;
@@ -0,0 +1,57 @@
+package com.walmartlabs.concord.server;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PeriodicTaskTest {
+
+    @Test
+    public void testWakeUp() throws Exception {
+        CountDownLatch firstRun = new CountDownLatch(1);
+        CountDownLatch secondRun = new CountDownLatch(2);
+
+        PeriodicTask task = new PeriodicTask(TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1)) {
+            @Override
+            protected boolean performTask() {
+                firstRun.countDown();
+                secondRun.countDown();
+                return false;
+            }
+        };
+
+        task.start();
+        try {
+            assertTrue(firstRun.await(10, TimeUnit.SECONDS));
+
+            // the task should run again without waiting for the interval
+            task.wakeUp();
+            assertTrue(secondRun.await(10, TimeUnit.SECONDS));
+        } finally {
+            task.stop();
+        }
+    }
+}
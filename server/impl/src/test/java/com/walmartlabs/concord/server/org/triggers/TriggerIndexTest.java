@@ -0,0 +1,120 @@
+package com.walmartlabs.concord.server.org.triggers;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.common.Matcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TriggerIndexTest {
+
+    @Test
+    public void testCandidates() {
+        TriggerEntry a = trigger("github", Map.of("version", 2, "githubOrg", "myOrg", "githubRepo", "myRepo", "type", "push"));
+        TriggerEntry b = trigger("github", Map.of("version", 2, "githubOrg", "myOrg", "githubRepo", "other.*", "type", "push"));
+        TriggerEntry c = trigger("github", Map.of("version", 2, "githubOrg", "myOrg", "githubRepo", "myRepo"));
+        TriggerEntry d = trigger("github", Map.of("version", 2, "githubOrg", "anotherOrg", "githubRepo", "myRepo", "type", "push"));
+        TriggerEntry e = trigger("github", Map.of("githubOrg", "myOrg", "githubRepo", "myRepo", "type", "push"));
+        TriggerEntry f = trigger("myEvent", Map.of("version", 2, "type", "x"));
+
+        TriggerIndex.Snapshot s = TriggerIndex.Snapshot.build(List.of(a, b, c, d, e, f));
+        assertEquals(6, s.size());
+
+        assertEquals(Set.of(a, c), candidates(s, "github", 2, event("MYORG", "myrepo", "push")));
+        assertEquals(Set.of(b), candidates(s, "github", 2, event("myOrg", "otherRepo", "push")));
+        assertEquals(Set.of(c), candidates(s, "github", 2, event("myOrg", "myRepo", "pull_request")));
+        assertEquals(Set.of(), candidates(s, "github", 2, event(null, "myRepo", "push")));
+
+        // triggers without a version are version 1 triggers
+        assertEquals(Set.of(e), candidates(s, "github", 1, event("myOrg", "myRepo", "push")));
+
+        assertEquals(Set.of(f), candidates(s, "myEvent", 2, Map.of("type", "x")));
+        assertEquals(Set.of(), candidates(s, "myEvent", 2, Map.of("type", "y")));
+        assertEquals(Set.of(), candidates(s, "myEvent", 1, Map.of("type", "x")));
+
+        // non-string values can't be looked up, all triggers of the group are returned
+        assertEquals(Set.of(f), candidates(s, "myEvent", 2, Map.of("type", List.of("y"))));
+    }
+
+    @Test
+    public void testSameResultsAsMatcher() {
+        List<String> values = Arrays.asList("a", "A", "b", "a.*", ".*", "a|b", "", null);
+
+        List<TriggerEntry> triggers = new ArrayList<>();
+        for (String org : values) {
+            for (String repo : values) {
+                for (String type : values) {
+                    Map<String, Object> conditions = new HashMap<>();
+                    conditions.put("version", 2);
+                    putIfNotNull(conditions, "githubOrg", org);
+                    putIfNotNull(conditions, "githubRepo", repo);
+                    putIfNotNull(conditions, "type", type);
+                    triggers.add(trigger("github", conditions));
+                }
+            }
+        }
+
+        TriggerIndex.Snapshot s = TriggerIndex.Snapshot.build(triggers);
+
+        List<String> eventValues = Arrays.asList("a", "A", "b", "c", "", null);
+        for (String org : eventValues) {
+            for (String repo : eventValues) {
+                for (String type : eventValues) {
+                    Map<String, Object> event = event(org, repo, type);
+
+                    Set<TriggerEntry> expected = triggers.stream()
+                            .filter(t -> Matcher.matches(event, t.getConditions()))
+                            .collect(Collectors.toSet());
+
+                    assertEquals(expected, candidates(s, "github", 2, event), "event: " + event);
+                }
+            }
+        }
+    }
+
+    private static Set<TriggerEntry> candidates(TriggerIndex.Snapshot s, String eventSource, int version, Map<String, Object> event) {
+        return new HashSet<>(s.candidates(eventSource, version, event));
+    }
+
+    private static Map<String, Object> event(String org, String repo, String type) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", 2);
+        result.put("githubOrg", org);
+        result.put("githubRepo", repo);
+        result.put("type", type);
+        return result;
+    }
+
+    private static void putIfNotNull(Map<String, Object> m, String k, Object v) {
+        if (v != null) {
+            m.put(k, v);
+        }
+    }
+
+    private static TriggerEntry trigger(String eventSource, Map<String, Object> conditions) {
+        return new TriggerEntry(UUID.randomUUID(), UUID.randomUUID(), "org", UUID.randomUUID(), "project",
+                UUID.randomUUID(), "repo", eventSource, null, null, conditions, Map.of());
+    }
+}
@@ -22,6 +22,7 @@ package com.walmartlabs.concord.server.policy;
 
 import com.google.common.collect.ImmutableMap;
 import com.walmartlabs.concord.policyengine.EntityRule;
+import com.walmartlabs.concord.policyengine.PolicyEngine;
 import com.walmartlabs.concord.policyengine.PolicyEngineRules;
 import com.walmartlabs.concord.server.TestObjectMapper;
 import com.walmartlabs.concord.server.cfg.PolicyCacheConfiguration;
@@ -29,8 +30,9 @@ import org.junit.jupiter.api.Test;
 
 import java.util.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class PolicyCacheTest {
 
@@ -71,4 +73,78 @@ public class PolicyCacheTest {
         EntityRule actualRule = actualRules.entityRules().getDeny().get(0);
         assertEquals(conditions, actualRule.conditions());
     }
+
+    @Test
+    public void incrementalReload() {
+        PolicyCache.Dao dao = mock(PolicyCache.Dao.class);
+        PolicyCache pc = new PolicyCache(TestObjectMapper.INSTANCE, new PolicyCacheConfiguration(), dao);
+
+        UUID orgId = UUID.randomUUID();
+        UUID projectId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        PolicyCache.PolicyRules parent = policy("parent", null, "a");
+        PolicyCache.PolicyRules child = policy("child", parent.id(), "b");
+        PolicyCache.PolicyRules other = policy("other", null, "c");
+
+        when(dao.getVersion()).thenReturn(1L);
+        when(dao.listPolicies()).thenReturn(Arrays.asList(parent, child, other));
+        when(dao.listLinks()).thenReturn(Arrays.asList(
+                link(other.id(), null, null, null),
+                link(parent.id(), orgId, null, null),
+                link(child.id(), null, projectId, userId)));
+
+        pc.refresh();
+        assertEquals(3, pc.getLastRebuiltCount());
+        assertEquals(1L, pc.getLoadedVersion());
+
+        PolicyEngine userPolicy = pc.get(orgId, projectId, userId);
+        assertEquals(Arrays.asList("child", "parent"), userPolicy.policyNames());
+        assertEquals(Collections.singletonList("parent"), pc.get(orgId, projectId, UUID.randomUUID()).policyNames());
+        assertEquals(Collections.singletonList("other"), pc.get(UUID.randomUUID(), null, userId).policyNames());
+
+        // ---
+
+        PolicyCache.PolicyRules updatedOther = PolicyCache.PolicyRules.builder().from(other)
+                .rules(Collections.singletonMap("c", Collections.singletonMap("x", 2)))
+                .build();
+
+        when(dao.getVersion()).thenReturn(2L);
+        when(dao.listPolicies()).thenReturn(Arrays.asList(parent, child, updatedOther));
+
+        pc.refresh();
+        assertEquals(1, pc.getLastRebuiltCount());
+        assertSame(userPolicy, pc.get(orgId, projectId, userId));
+
+        // ---
+
+        PolicyCache.PolicyRules updatedParent = PolicyCache.PolicyRules.builder().from(parent)
+                .rules(Collections.singletonMap("a", Collections.singletonMap("x", 2)))
+                .build();
+
+        when(dao.getVersion()).thenReturn(3L);
+        when(dao.listPolicies()).thenReturn(Arrays.asList(updatedParent, child, updatedOther));
+
+        pc.refresh();
+        assertEquals(2, pc.getLastRebuiltCount());
+        assertNotSame(userPolicy, pc.get(orgId, projectId, userId));
+    }
+
+    private static PolicyCache.PolicyRules policy(String name, UUID parentId, String key) {
+        return PolicyCache.PolicyRules.builder()
+                .id(UUID.randomUUID())
+                .parentId(parentId)
+                .name(name)
+                .rules(Collections.singletonMap(key, Collections.singletonMap("x", 1)))
+                .build();
+    }
+
+    private static PolicyCache.PolicyLink link(UUID policyId, UUID orgId, UUID projectId, UUID userId) {
+        return ImmutablePolicyLink.builder()
+                .policyId(policyId)
+                .orgId(orgId)
+                .projectId(projectId)
+                .userId(userId)
+                .build();
+    }
 }
@@ -0,0 +1,194 @@
+package com.walmartlabs.concord.server.process;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.server.AbstractDaoTest;
+import com.walmartlabs.concord.server.ConcordObjectMapper;
+import com.walmartlabs.concord.server.TestObjectMapper;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import com.walmartlabs.concord.server.process.ProcessPartitionManager.Partition;
+import com.walmartlabs.concord.server.process.ProcessPartitionManager.PartitionDao;
+import com.walmartlabs.concord.server.process.ProcessPartitionManager.Range;
+import com.walmartlabs.concord.server.process.queue.ProcessQueueDao;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.ProcessStatus;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_META;
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_QUEUE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Disabled("requires a local DB instance")
+public class ProcessPartitionDaoTest extends AbstractDaoTest {
+
+    private String tableName;
+    private PartitionDao dao;
+    private ProcessQueueDao queueDao;
+    private final List<ProcessKey> processes = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        tableName = "test_partitioned_" + UUID.randomUUID().toString().replace("-", "");
+        dao = new PartitionDao(getConfiguration());
+        queueDao = new ProcessQueueDao(getConfiguration(), new ConcordObjectMapper(TestObjectMapper.INSTANCE));
+
+        tx(tx -> tx.execute("create table " + tableName + " (INSTANCE_ID uuid not null, INSTANCE_CREATED_AT timestamptz not null) " +
+                "partition by range (INSTANCE_CREATED_AT)"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tx(tx -> {
+            tx.execute("drop table if exists " + tableName);
+
+            List<UUID> ids = processes.stream().map(ProcessKey::getInstanceId).toList();
+            tx.deleteFrom(PROCESS_META).where(PROCESS_META.INSTANCE_ID.in(ids)).execute();
+            tx.deleteFrom(PROCESS_QUEUE).where(PROCESS_QUEUE.INSTANCE_ID.in(ids)).execute();
+        });
+    }
+
+    @Test
+    public void testListPartitions() {
+        assertEquals(tableName, dao.getPartitionedTable(tableName));
+        assertNull(dao.getPartitionedTable("process_queue"));
+
+        dao.createPartition(tableName, tableName + "_p1", new Range(utc(2001, 1, 1), utc(2001, 1, 2)));
+        dao.createPartition(tableName, tableName + "_p2", new Range(utc(2001, 1, 2), utc(2001, 1, 3)));
+
+        // created outside of Concord
+        tx(tx -> {
+            tx.execute("create table " + tableName + "_legacy partition of " + tableName + " for values from (MINVALUE) to ('2001-01-01 00:00:00+00')");
+            tx.execute("create table " + tableName + "_default partition of " + tableName + " default");
+        });
+
+        Map<String, Partition> partitions = new HashMap<>();
+        dao.listPartitions(tableName).forEach(p -> partitions.put(p.name(), p));
+
+        // the default partition is not listed
+        assertEquals(Set.of(tableName + "_p1", tableName + "_p2", tableName + "_legacy"), partitions.keySet());
+
+        assertBounds(partitions.get(tableName + "_p1"), utc(2001, 1, 1), utc(2001, 1, 2));
+        assertBounds(partitions.get(tableName + "_p2"), utc(2001, 1, 2), utc(2001, 1, 3));
+        assertBounds(partitions.get(tableName + "_legacy"), null, utc(2001, 1, 1));
+    }
+
+    @Test
+    public void testDropPartitions() {
+        dao.createPartition(tableName, tableName + "_p1", new Range(utc(2001, 1, 1), utc(2001, 1, 2)));
+        dao.createPartition(tableName, tableName + "_p2", new Range(utc(2001, 1, 2), utc(2001, 1, 3)));
+        dao.createPartition(tableName, tableName + "_p3", new Range(utc(2001, 1, 3), utc(2001, 1, 4)));
+        dao.createPartition(tableName, tableName + "_p4", new Range(utc(2001, 1, 4), utc(2001, 1, 5)));
+
+        OffsetDateTime longAgo = utc(2001, 2, 1);
+
+        tx(tx -> {
+            // p1: finished a long time ago
+            insertProcess(tx, utc(2001, 1, 1).plusHours(1), ProcessStatus.FINISHED, longAgo);
+            // p2: updated recently
+            insertProcess(tx, utc(2001, 1, 2).plusHours(1), ProcessStatus.FINISHED, null);
+            // p3: still running
+            insertProcess(tx, utc(2001, 1, 3).plusHours(1), ProcessStatus.RUNNING, longAgo);
+            // p4: no processes
+        });
+
+        OffsetDateTime cutoff = dao.cutoff(Duration.ofDays(7));
+        Map<String, Partition> partitions = new HashMap<>();
+        dao.listPartitions(tableName).forEach(p -> partitions.put(p.name(), p));
+
+        assertFalse(dao.hasRetainedProcesses(partitions.get(tableName + "_p1"), cutoff));
+        assertTrue(dao.hasRetainedProcesses(partitions.get(tableName + "_p2"), cutoff));
+        assertTrue(dao.hasRetainedProcesses(partitions.get(tableName + "_p3"), cutoff));
+        assertFalse(dao.hasRetainedProcesses(partitions.get(tableName + "_p4"), cutoff));
+
+        ProcessConfiguration cfg = mock(ProcessConfiguration.class);
+        when(cfg.getMaxStateAge()).thenReturn(Duration.ofDays(7));
+        when(cfg.getPartitionLockTimeout()).thenReturn(Duration.ofSeconds(5));
+
+        ProcessPartitionManager manager = new ProcessPartitionManager(cfg, getConfiguration());
+        manager.dropPartitions(tableName, dao.listPartitions(tableName));
+
+        Set<String> remaining = new HashSet<>();
+        dao.listPartitions(tableName).forEach(p -> remaining.add(p.name()));
+        assertEquals(Set.of(tableName + "_p2", tableName + "_p3"), remaining);
+
+        // detached and dropped, not just detached
+        assertFalse(tableExists(tableName + "_p1"));
+        assertFalse(tableExists(tableName + "_p4"));
+    }
+
+    @Test
+    public void testDetachAndDrop() {
+        dao.createPartition(tableName, tableName + "_p1", new Range(utc(2001, 1, 1), utc(2001, 1, 2)));
+        assertTrue(tableExists(tableName + "_p1"));
+
+        dao.detachAndDrop(tableName, tableName + "_p1", Duration.ofSeconds(5));
+
+        assertTrue(dao.listPartitions(tableName).isEmpty());
+        assertFalse(tableExists(tableName + "_p1"));
+    }
+
+    private void insertProcess(DSLContext tx, OffsetDateTime createdAt, ProcessStatus status, OffsetDateTime lastUpdatedAt) {
+        ProcessKey processKey = new ProcessKey(UUID.randomUUID(), createdAt);
+        processes.add(processKey);
+
+        queueDao.insert(tx, processKey, status, ProcessKind.DEFAULT, null, null, null, null, null, null, Collections.emptyMap(), null);
+
+        if (lastUpdatedAt != null) {
+            tx.update(PROCESS_QUEUE)
+                    .set(PROCESS_QUEUE.LAST_UPDATED_AT, lastUpdatedAt)
+                    .where(PROCESS_QUEUE.INSTANCE_ID.eq(processKey.getInstanceId()))
+                    .execute();
+        }
+    }
+
+    private boolean tableExists(String name) {
+        return DSL.using(getConfiguration())
+                .resultQuery("select to_regclass({0})", DSL.val(name))
+                .fetchOne(r -> r.get(0)) != null;
+    }
+
+    private static void assertBounds(Partition p, OffsetDateTime lower, OffsetDateTime upper) {
+        assertNotNull(p);
+        assertEquals(toInstant(lower), toInstant(p.lower()));
+        assertEquals(toInstant(upper), toInstant(p.upper()));
+    }
+
+    private static Instant toInstant(OffsetDateTime t) {
+        return t != null ? t.toInstant() : null;
+    }
+
+    private static OffsetDateTime utc(int year, int month, int day) {
+        return OffsetDateTime.of(year, month, day, 0, 0, 0, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,67 @@
+package com.walmartlabs.concord.server.process;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.server.process.ProcessPartitionManager.Partition;
+import com.walmartlabs.concord.server.process.ProcessPartitionManager.Range;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProcessPartitionManagerTest {
+
+    @Test
+    public void testUpcomingRanges() {
+        OffsetDateTime now = OffsetDateTime.of(2024, 3, 10, 15, 30, 0, 0, ZoneOffset.ofHours(-5));
+
+        List<Range> ranges = ProcessPartitionManager.upcomingRanges(now, Duration.ofDays(1), 3);
+        assertEquals(3, ranges.size());
+        assertEquals(utc(2024, 3, 10), ranges.get(0).lower());
+        assertEquals(utc(2024, 3, 11), ranges.get(0).upper());
+        assertEquals(utc(2024, 3, 11), ranges.get(1).lower());
+        assertEquals(utc(2024, 3, 13), ranges.get(2).upper());
+
+        // 20:30 UTC
+        OffsetDateTime late = OffsetDateTime.of(2024, 3, 10, 23, 30, 0, 0, ZoneOffset.ofHours(3));
+        assertEquals(utc(2024, 3, 10), ProcessPartitionManager.upcomingRanges(late, Duration.ofDays(1), 1).get(0).lower());
+    }
+
+    @Test
+    public void testPartitionContains() {
+        Partition p = new Partition("p", utc(2024, 3, 10), utc(2024, 3, 11));
+        assertTrue(p.contains(utc(2024, 3, 10)));
+        assertFalse(p.contains(utc(2024, 3, 11)));
+        assertFalse(p.contains(utc(2024, 3, 9)));
+
+        Partition legacy = new Partition("legacy", null, utc(2024, 3, 10));
+        assertTrue(legacy.contains(utc(2000, 1, 1)));
+        assertFalse(legacy.contains(utc(2024, 3, 10)));
+    }
+
+    private static OffsetDateTime utc(int year, int month, int day) {
+        return OffsetDateTime.of(year, month, day, 0, 0, 0, 0, ZoneOffset.UTC);
+    }
+}
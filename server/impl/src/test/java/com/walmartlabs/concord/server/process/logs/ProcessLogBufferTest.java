@@ -0,0 +1,223 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.server.Listeners;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import com.walmartlabs.concord.server.process.logs.ProcessLogsDao.NewLogChunk;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.Range;
+import org.jooq.exception.DataAccessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProcessLogBufferTest {
+
+    private final ProcessKey a = ProcessKey.random();
+    private final ProcessKey b = ProcessKey.random();
+    private final ProcessKey c = ProcessKey.random();
+
+    private final List<List<NewLogChunk>> batches = new ArrayList<>();
+    private boolean failNextAppend;
+    private ProcessKey badProcess;
+
+    private Listeners listeners;
+    private ProcessLogWatchHub watchHub;
+    private ProcessLogsDao logsDao;
+
+    @BeforeEach
+    public void setUp() {
+        listeners = mock(Listeners.class);
+        watchHub = mock(ProcessLogWatchHub.class);
+
+        logsDao = mock(ProcessLogsDao.class);
+        when(logsDao.append(anyList())).thenAnswer(invocation -> {
+            if (failNextAppend) {
+                failNextAppend = false;
+                throw new DataAccessException("Connection refused");
+            }
+
+            List<NewLogChunk> chunks = invocation.getArgument(0);
+            if (chunks.stream().anyMatch(c -> c.processKey().equals(badProcess))) {
+                throw new DataAccessException("Invalid data");
+            }
+
+            batches.add(List.copyOf(chunks));
+
+            List<Range> ranges = new ArrayList<>();
+            for (NewLogChunk chunk : chunks) {
+                ranges.add(Range.builder()
+                        .lowerMode(Range.Mode.INCLUSIVE)
+                        .lower(0)
+                        .upper(chunk.data().length)
+                        .upperMode(Range.Mode.EXCLUSIVE)
+                        .build());
+            }
+            return ranges;
+        });
+    }
+
+    @Test
+    public void testFlushOrder() {
+        ProcessLogBuffer buffer = createBuffer(1024);
+
+        buffer.append(a, 0, "a1".getBytes());
+        buffer.append(b, 0, "b1".getBytes());
+        buffer.append(a, 0, "a2".getBytes());
+        buffer.append(a, 1, "x".getBytes());
+
+        buffer.flush();
+
+        // one chunk per (process, segment) in the order of the first append
+        assertEquals(1, batches.size());
+        assertChunks(batches.get(0),
+                chunk(a, 0, "a1a2"),
+                chunk(b, 0, "b1"),
+                chunk(a, 1, "x"));
+
+        InOrder inOrder = inOrder(watchHub);
+        inOrder.verify(watchHub).onAppend(a.getInstanceId(), 0);
+        inOrder.verify(watchHub).onAppend(b.getInstanceId(), 0);
+        inOrder.verify(watchHub).onAppend(a.getInstanceId(), 1);
+        verify(listeners, times(3)).onProcessLogAppend(any());
+
+        // nothing left to write
+        buffer.flush();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void testRequeueAfterError() {
+        ProcessLogBuffer buffer = createBuffer(1024);
+
+        buffer.append(a, 0, "a1".getBytes());
+        buffer.append(b, 0, "b1".getBytes());
+
+        failNextAppend = true;
+        assertThrows(DataAccessException.class, buffer::flush);
+        verifyNoInteractions(listeners, watchHub);
+
+        // the failed data is still accounted for
+        assertEquals(4, buffer.append(a, 0, "a2".getBytes()));
+        buffer.append(c, 0, "c1".getBytes());
+
+        buffer.flush();
+
+        // the failed chunks go first, one by one, the new data is merged into them
+        assertEquals(3, batches.size());
+        assertChunks(batches.get(0), chunk(a, 0, "a1a2"));
+        assertChunks(batches.get(1), chunk(b, 0, "b1"));
+        assertChunks(batches.get(2), chunk(c, 0, "c1"));
+
+        verify(listeners, times(3)).onProcessLogAppend(any());
+    }
+
+    @Test
+    public void testBadChunkIsDropped() {
+        ProcessLogBuffer buffer = createBuffer(1024);
+        badProcess = b;
+
+        buffer.append(a, 0, "a1".getBytes());
+        buffer.append(b, 0, "b1".getBytes());
+        assertThrows(DataAccessException.class, buffer::flush);
+        assertTrue(batches.isEmpty());
+
+        // the bad chunk doesn't hold back the rest of the data
+        buffer.append(c, 0, "c1".getBytes());
+        assertThrows(DataAccessException.class, buffer::flush);
+        assertEquals(2, batches.size());
+        assertChunks(batches.get(0), chunk(a, 0, "a1"));
+        assertChunks(batches.get(1), chunk(c, 0, "c1"));
+
+        // the last attempt
+        assertThrows(DataAccessException.class, buffer::flush);
+
+        // dropped
+        buffer.flush();
+        assertEquals(2, batches.size());
+        verify(watchHub, never()).onAppend(eq(b.getInstanceId()), anyLong());
+    }
+
+    @Test
+    public void testRequeueLimit() {
+        ProcessLogBuffer buffer = createBuffer(4);
+
+        buffer.append(a, 0, "aaaaaaaaaa".getBytes());
+
+        // 4x maxSize, the writer flushes the buffer itself and fails
+        failNextAppend = true;
+        assertThrows(DataAccessException.class, () -> buffer.append(b, 0, "bbbbbbbbbb".getBytes()));
+
+        // only the data that fits is requeued
+        buffer.flush();
+        assertEquals(1, batches.size());
+        assertChunks(batches.get(0), chunk(a, 0, "aaaaaaaaaa"));
+    }
+
+    @Test
+    public void testBackpressure() {
+        ProcessLogBuffer buffer = createBuffer(4);
+
+        buffer.append(a, 0, "aaaaaaaa".getBytes());
+        assertTrue(batches.isEmpty());
+
+        // 4x maxSize, the writer flushes the buffer itself
+        buffer.append(a, 0, "bbbbbbbb".getBytes());
+        assertEquals(1, batches.size());
+        assertChunks(batches.get(0), chunk(a, 0, "aaaaaaaabbbbbbbb"));
+    }
+
+    private ProcessLogBuffer createBuffer(int maxSize) {
+        ProcessConfiguration cfg = mock(ProcessConfiguration.class);
+        when(cfg.isLogBufferEnabled()).thenReturn(true);
+        when(cfg.getLogBufferFlushInterval()).thenReturn(Duration.ofHours(1));
+        when(cfg.getLogBufferMaxSize()).thenReturn(maxSize);
+
+        // not started, flushes are triggered by the tests
+        return new ProcessLogBuffer(cfg, logsDao, listeners, watchHub, new MetricRegistry());
+    }
+
+    private static NewLogChunk chunk(ProcessKey processKey, long segmentId, String data) {
+        return new NewLogChunk(processKey, segmentId, data.getBytes());
+    }
+
+    private static void assertChunks(List<NewLogChunk> actual, NewLogChunk... expected) {
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].processKey(), actual.get(i).processKey());
+            assertEquals(expected[i].segmentId(), actual.get(i).segmentId());
+            assertEquals(new String(expected[i].data()), new String(actual.get(i).data()));
+        }
+    }
+}
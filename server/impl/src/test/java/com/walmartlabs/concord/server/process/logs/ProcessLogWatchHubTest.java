@@ -0,0 +1,146 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.server.cfg.ProcessConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class ProcessLogWatchHubTest {
+
+    private ProcessConfiguration cfg;
+    private ProcessLogNotifier notifier;
+    private ProcessLogWatchHub hub;
+
+    @BeforeEach
+    public void setUp() {
+        cfg = mock(ProcessConfiguration.class);
+        when(cfg.getLogWatchMaxWatchers()).thenReturn(2);
+        when(cfg.getLogWatchMaxWaitTime()).thenReturn(Duration.ofSeconds(30));
+        when(cfg.getLogWatchNotifyInterval()).thenReturn(Duration.ofMillis(10));
+
+        notifier = mock(ProcessLogNotifier.class);
+        hub = new ProcessLogWatchHub(cfg, notifier, new MetricRegistry());
+    }
+
+    @Test
+    public void testSegmentWatch() throws Exception {
+        UUID instanceId = UUID.randomUUID();
+
+        try (ProcessLogWatchHub.Watch segment = hub.watch(instanceId, 1L);
+             ProcessLogWatchHub.Watch log = hub.watch(instanceId, null)) {
+
+            hub.onAppend(instanceId, 2);
+            assertFalse(segment.await(System.currentTimeMillis() + 50));
+            assertTrue(log.await(System.currentTimeMillis() + 50));
+
+            hub.onRemoteAppend(instanceId, 1);
+            assertTrue(segment.await(System.currentTimeMillis() + 50));
+            assertTrue(log.await(System.currentTimeMillis() + 50));
+
+            // the signal is consumed
+            assertFalse(log.await(System.currentTimeMillis() + 50));
+        }
+
+        // nobody else is watching
+        verifyNoInteractions(notifier);
+    }
+
+    @Test
+    public void testRemoteWatches() throws Exception {
+        when(cfg.isLogWatchNotificationsEnabled()).thenReturn(true);
+        hub = new ProcessLogWatchHub(cfg, notifier, new MetricRegistry());
+
+        UUID instanceId = UUID.randomUUID();
+
+        try (ProcessLogWatchHub.Watch a = hub.watch(instanceId, null);
+             ProcessLogWatchHub.Watch b = hub.watch(instanceId, null)) {
+
+            // announced once
+            verify(notifier).publishWatch(instanceId);
+
+            // the first watch re-checks the data once the announcement is delivered
+            assertTrue(a.await(System.currentTimeMillis() + 10_000));
+            assertFalse(b.await(System.currentTimeMillis() + 50));
+        }
+
+        hub.onAppend(instanceId, 0);
+        verify(notifier, never()).publish(any(), anyLong());
+
+        hub.onRemoteWatch(instanceId);
+        hub.onAppend(instanceId, 0);
+        verify(notifier).publish(instanceId, 0);
+    }
+
+    @Test
+    public void testAwaitFromAnotherThread() throws Exception {
+        UUID instanceId = UUID.randomUUID();
+
+        try (ProcessLogWatchHub.Watch w = hub.watch(instanceId, 0L)) {
+            Thread t = new Thread(() -> {
+                sleep(100);
+                hub.onAppend(instanceId, 0);
+            });
+            t.start();
+
+            assertTrue(w.await(System.currentTimeMillis() + 10_000));
+            t.join();
+        }
+    }
+
+    @Test
+    public void testMaxWatchers() throws Exception {
+        UUID instanceId = UUID.randomUUID();
+
+        try (ProcessLogWatchHub.Watch a = hub.watch(instanceId, 0L);
+             ProcessLogWatchHub.Watch b = hub.watch(instanceId, 0L)) {
+
+            try (ProcessLogWatchHub.Watch c = hub.watch(instanceId, 0L)) {
+                hub.onAppend(instanceId, 0);
+                assertTrue(a.await(System.currentTimeMillis() + 50));
+                assertTrue(b.await(System.currentTimeMillis() + 50));
+                assertFalse(c.await(System.currentTimeMillis() + 50));
+            }
+        }
+
+        // the slots are released
+        try (ProcessLogWatchHub.Watch d = hub.watch(instanceId, 0L)) {
+            hub.onAppend(instanceId, 0);
+            assertTrue(d.await(System.currentTimeMillis() + 50));
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
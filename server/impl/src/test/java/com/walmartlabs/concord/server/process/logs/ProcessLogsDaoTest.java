@@ -0,0 +1,132 @@
+package com.walmartlabs.concord.server.process.logs;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.server.AbstractDaoTest;
+import com.walmartlabs.concord.server.process.logs.ProcessLogsDao.NewLogChunk;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.Range;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Disabled("requires a local DB instance")
+public class ProcessLogsDaoTest extends AbstractDaoTest {
+
+    private ProcessLogsDao logsDao;
+
+    @BeforeEach
+    public void setUp() {
+        logsDao = new ProcessLogsDao(getConfiguration());
+    }
+
+    @Test
+    public void testBatchAppend() throws Exception {
+        ProcessKey processKey = ProcessKey.random();
+
+        logsDao.append(processKey, 0, "aaa".getBytes());
+
+        List<Range> ranges = logsDao.append(List.of(
+                new NewLogChunk(processKey, 0, "bb".getBytes()),
+                new NewLogChunk(processKey, 1, "cccc".getBytes()),
+                new NewLogChunk(processKey, 0, "d".getBytes())));
+
+        assertEquals(3, ranges.get(0).lower());
+        assertEquals(5, ranges.get(0).upper());
+        assertEquals(5, ranges.get(1).lower());
+        assertEquals(9, ranges.get(1).upper());
+        assertEquals(9, ranges.get(2).lower());
+        assertEquals(10, ranges.get(2).upper());
+
+        assertEquals("aaabbccccd", new String(toBytes(logsDao.streamData(processKey, null, null))));
+        assertEquals("aaabbd", new String(toBytes(logsDao.streamSegmentData(processKey, 0, null, null))));
+        assertEquals("cccc", new String(toBytes(logsDao.streamSegmentData(processKey, 1, null, null))));
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        ProcessKey processKey = ProcessKey.random();
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String line = "line " + i + "\n";
+            logsDao.append(processKey, 0, line.getBytes());
+            all.append(line);
+        }
+
+        // 10 lines of 7 bytes and 90 lines of 8 bytes
+        int size = all.length();
+        assertEquals(790, size);
+
+        // entire log
+        assertStream(processKey, null, null, 0, size, all.toString());
+
+        // [10, 100) -> lines 1..13, [7, 102)
+        assertStream(processKey, 10, 100, 7, 102, all.substring(7, 102));
+
+        // last 50 bytes -> lines 93..99, [734, 790)
+        assertStream(processKey, null, 50, 734, size, all.substring(734));
+
+        // out of range
+        ProcessLogStream s = logsDao.streamData(processKey, 100000, 100010);
+        assertTrue(s.isEmpty());
+        assertEquals(size, s.getSize());
+    }
+
+    @Test
+    public void testStreamExcludesNewData() throws Exception {
+        ProcessKey processKey = ProcessKey.random();
+        logsDao.append(processKey, 0, "aaa".getBytes());
+
+        ProcessLogStream s = logsDao.streamData(processKey, null, null);
+        logsDao.append(processKey, 0, "bbb".getBytes());
+
+        assertEquals(3, s.getEnd());
+        assertEquals("aaa", new String(toBytes(s)));
+    }
+
+    @Test
+    public void testStreamEmpty() {
+        ProcessLogStream s = logsDao.streamData(ProcessKey.random(), null, null);
+        assertTrue(s.isEmpty());
+        assertEquals(0, s.getSize());
+    }
+
+    private void assertStream(ProcessKey processKey, Integer start, Integer end, int expectedStart, int expectedEnd, String expectedData) throws Exception {
+        ProcessLogStream s = logsDao.streamData(processKey, start, end);
+        assertFalse(s.isEmpty());
+        assertEquals(790, s.getSize());
+        assertEquals(expectedStart, s.getStart());
+        assertEquals(expectedEnd, s.getEnd());
+        assertEquals(expectedData, new String(toBytes(s)));
+    }
+
+    private static byte[] toBytes(ProcessLogStream s) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        s.writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,210 @@
+package com.walmartlabs.concord.server.process.queue;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.codahale.metrics.MetricRegistry;
+import com.walmartlabs.concord.server.cfg.EnqueueWorkersConfiguration;
+import com.walmartlabs.concord.server.process.pipelines.EnqueueProcessPipeline;
+import com.walmartlabs.concord.server.repository.RepositoryManager;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EnqueuedBatchTaskTest {
+
+    private static final String REPO_URL = "https://example.com/repo.git";
+
+    @Mock
+    private EnqueuedBatchTask.Dao dao;
+
+    @Mock
+    private EnqueueWorkersConfiguration cfg;
+
+    @Mock
+    private EnqueueProcessPipeline pipeline;
+
+    @Mock
+    private RepositoryManager repositoryManager;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private EnqueuedBatchTask task;
+
+    @AfterEach
+    void tearDown() {
+        if (task != null) {
+            task.stop();
+        }
+    }
+
+    @Test
+    void testGrowAndShrink() throws Exception {
+        // batches take longer than the poll interval
+        task = createTask(1, 3, Duration.ZERO);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(pipeline.process(any())).thenAnswer(i -> {
+            release.await();
+            return i.getArgument(0);
+        });
+
+        AtomicBoolean hasWork = new AtomicBoolean(true);
+        when(dao.poll(anyList(), anyInt()))
+                .thenAnswer(i -> hasWork.get() ? List.of(EnqueuedBatchTask.Batch.singleProcess(ProcessKey.random())) : List.of());
+
+        // each poll fills all free workers, one worker is added per poll
+        task.performTask();
+        assertEquals(2, targetWorkers());
+        task.performTask();
+        assertEquals(3, targetWorkers());
+        task.performTask();
+        assertEquals(3, targetWorkers());
+        verify(dao, times(3)).poll(anyList(), eq(1));
+
+        // all workers are busy, nothing to poll
+        assertFalse(task.performTask());
+        verify(dao, times(3)).poll(anyList(), anyInt());
+
+        release.countDown();
+        awaitIdle();
+
+        // empty polls remove one worker at a time, down to the configured minimum
+        hasWork.set(false);
+        task.performTask();
+        assertEquals(2, targetWorkers());
+        task.performTask();
+        assertEquals(1, targetWorkers());
+        task.performTask();
+        assertEquals(1, targetWorkers());
+    }
+
+    @Test
+    void testNoGrowForFastBatches() {
+        task = createTask(1, 3, Duration.ofHours(1));
+
+        when(dao.poll(anyList(), anyInt()))
+                .thenReturn(List.of(EnqueuedBatchTask.Batch.singleProcess(ProcessKey.random())));
+
+        task.performTask();
+        assertEquals(1, targetWorkers());
+    }
+
+    @Test
+    void testRepoAffinity() throws Exception {
+        task = createTask(2, 2, Duration.ofHours(1));
+        when(cfg.getBatchSize()).thenReturn(5);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(pipeline.process(any())).thenAnswer(i -> {
+            release.await();
+            return i.getArgument(0);
+        });
+
+        when(dao.poll(anyList(), anyInt()))
+                .thenReturn(List.of(repoBatch()))
+                .thenReturn(List.of());
+        when(dao.poll(eq(REPO_URL), anyInt())).thenAnswer(i -> repoBatch());
+
+        task.performTask();
+
+        // the repository is taken by the worker and excluded from the next poll
+        task.performTask();
+        verify(dao).poll(eq(List.of(REPO_URL)), eq(1));
+
+        release.countDown();
+        awaitIdle();
+
+        // the worker keeps the repository for up to 10 batches
+        verify(pipeline, times(10)).process(any());
+        verify(dao, times(9)).poll(eq(REPO_URL), eq(5));
+        assertEquals(0, gauge("enqueued-inflight-urls"));
+    }
+
+    @Test
+    void testRepoAffinityNoMoreProcesses() throws Exception {
+        task = createTask(1, 1, Duration.ofHours(1));
+        when(cfg.getBatchSize()).thenReturn(5);
+        when(pipeline.process(any())).thenAnswer(i -> i.getArgument(0));
+
+        when(dao.poll(anyList(), anyInt())).thenReturn(List.of(repoBatch()));
+        when(dao.poll(eq(REPO_URL), anyInt()))
+                .thenReturn(repoBatch())
+                .thenReturn(null);
+
+        task.performTask();
+        awaitIdle();
+
+        verify(pipeline, times(2)).process(any());
+        verify(dao, times(2)).poll(eq(REPO_URL), eq(5));
+        verify(repositoryManager, never()).withLock(any(), any());
+        assertEquals(0, gauge("enqueued-inflight-urls"));
+    }
+
+    private EnqueuedBatchTask createTask(int workersCount, int maxWorkersCount, Duration interval) {
+        when(cfg.getWorkersCount()).thenReturn(workersCount);
+        when(cfg.getMaxWorkersCount()).thenReturn(maxWorkersCount);
+        when(cfg.getInterval()).thenReturn(interval);
+        return new EnqueuedBatchTask(dao, cfg, pipeline, repositoryManager, metricRegistry);
+    }
+
+    private int targetWorkers() {
+        return gauge("enqueued-workers-target");
+    }
+
+    private void awaitIdle() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (gauge("enqueued-workers-available") != targetWorkers()) {
+                Thread.sleep(10);
+            }
+        });
+    }
+
+    private int gauge(String name) {
+        return ((Number) metricRegistry.getGauges().get(name).getValue()).intValue();
+    }
+
+    private static EnqueuedBatchTask.Batch repoBatch() {
+        EnqueuedBatchTask.Batch.Key key = EnqueuedBatchTask.Batch.Key.of(UUID.randomUUID(), "main", null);
+        return new EnqueuedBatchTask.Batch(key, REPO_URL, List.of(ProcessKey.random()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.walmartlabs.concord.server.process.queue;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walmartlabs.concord.server.AbstractDaoTest;
+import com.walmartlabs.concord.server.ConcordObjectMapper;
+import com.walmartlabs.concord.server.process.ProcessKind;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.ProcessStatus;
+import org.jooq.DSLContext;
+import org.jooq.Record2;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_META;
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_QUEUE_COUNTER_DELTAS;
+import static com.walmartlabs.concord.server.jooq.tables.ProcessQueue.PROCESS_QUEUE;
+import static com.walmartlabs.concord.server.process.queue.ProcessQueueDao.ENQUEUED_NOW_METRIC;
+import static org.jooq.impl.DSL.count;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Disabled("requires a local DB instance")
+public class ProcessQueueCountersTest extends AbstractDaoTest {
+
+    private ProcessQueueDao queueDao;
+    private ProcessQueueCounters.CountersDao countersDao;
+
+    @BeforeEach
+    public void setUp() {
+        queueDao = new ProcessQueueDao(getConfiguration(), new ConcordObjectMapper(new ObjectMapper()));
+        countersDao = new ProcessQueueCounters.CountersDao(getConfiguration());
+    }
+
+    @Test
+    public void testStatistics() {
+        // start with the compacted and reconciled counters
+        countersDao.reconcile();
+        countersDao.compact();
+
+        Map<String, Integer> initial = queueDao.getStatistics();
+
+        ProcessKey a = ProcessKey.random();
+        ProcessKey b = ProcessKey.random();
+        ProcessKey c = ProcessKey.random();
+
+        tx(tx -> {
+            for (ProcessKey k : List.of(a, b, c)) {
+                queueDao.insert(tx, k, ProcessStatus.NEW, ProcessKind.DEFAULT, null, null, null, null, null, null, Collections.emptyMap(), null);
+            }
+        });
+
+        assertStatistics(initial, queueDao.getStatistics(), 3, 0, 0, 0);
+
+        // ---
+
+        tx(tx -> {
+            enqueue(tx, a, null);
+            enqueue(tx, b, OffsetDateTime.now().plusHours(1));
+            queueDao.updateStatus(tx, c, ProcessStatus.RUNNING);
+        });
+
+        assertStatistics(initial, queueDao.getStatistics(), 0, 2, 1, 1);
+
+        countersDao.compact();
+        assertStatistics(initial, queueDao.getStatistics(), 0, 2, 1, 1);
+
+        // ---
+
+        tx(tx -> queueDao.updateStatus(tx, a, ProcessStatus.ENQUEUED, ProcessStatus.RUNNING));
+        assertStatistics(initial, queueDao.getStatistics(), 0, 1, 0, 2);
+
+        tx(tx -> delete(tx, a, c));
+        assertStatistics(initial, queueDao.getStatistics(), 0, 1, 0, 0);
+
+        countersDao.compact();
+        assertStatistics(initial, queueDao.getStatistics(), 0, 1, 0, 0);
+
+        tx(tx -> delete(tx, b));
+        assertStatistics(initial, queueDao.getStatistics(), 0, 0, 0, 0);
+
+        countersDao.compact();
+        assertStatistics(initial, queueDao.getStatistics(), 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testReconcile() {
+        // simulate a counter drift
+        tx(tx -> tx.insertInto(PROCESS_QUEUE_COUNTER_DELTAS)
+                .columns(PROCESS_QUEUE_COUNTER_DELTAS.CURRENT_STATUS, PROCESS_QUEUE_COUNTER_DELTAS.DELTA)
+                .values(ProcessStatus.RUNNING.name(), 5L)
+                .execute());
+
+        Map<String, Integer> actual = actualCounts();
+        assertEquals(actual.getOrDefault(ProcessStatus.RUNNING.name(), 0) + 5, countOf(queueDao.getStatistics(), ProcessStatus.RUNNING));
+
+        countersDao.reconcile();
+        assertCounters(actual, queueDao.getStatistics());
+
+        countersDao.compact();
+        assertCounters(actual, queueDao.getStatistics());
+    }
+
+    @Test
+    public void testConcurrentReconcile() {
+        tx(tx -> {
+            // simulate a reconciliation running on another node
+            tx.execute("select pg_advisory_xact_lock(hashtext('process-queue-counters-reconciliation'))");
+            assertFalse(countersDao.reconcile());
+        });
+
+        assertTrue(countersDao.reconcile());
+    }
+
+    private void enqueue(DSLContext tx, ProcessKey processKey, OffsetDateTime startAt) {
+        queueDao.enqueue(tx, processKey, null, startAt, null, null, null, null, null, null, null, null, null,
+                Set.of(ProcessStatus.NEW));
+    }
+
+    private static void delete(DSLContext tx, ProcessKey... processKeys) {
+        List<UUID> ids = Arrays.stream(processKeys).map(ProcessKey::getInstanceId).toList();
+        tx.deleteFrom(PROCESS_META).where(PROCESS_META.INSTANCE_ID.in(ids)).execute();
+        tx.deleteFrom(PROCESS_QUEUE).where(PROCESS_QUEUE.INSTANCE_ID.in(ids)).execute();
+    }
+
+    private Map<String, Integer> actualCounts() {
+        return DSL.using(getConfiguration())
+                .select(PROCESS_QUEUE.CURRENT_STATUS, count())
+                .from(PROCESS_QUEUE)
+                .groupBy(PROCESS_QUEUE.CURRENT_STATUS)
+                .fetchMap(Record2::value1, Record2::value2);
+    }
+
+    private static void assertStatistics(Map<String, Integer> initial, Map<String, Integer> current,
+                                         int newDelta, int enqueuedDelta, int enqueuedNowDelta, int runningDelta) {
+
+        assertEquals(countOf(initial, ProcessStatus.NEW) + newDelta, countOf(current, ProcessStatus.NEW));
+        assertEquals(countOf(initial, ProcessStatus.ENQUEUED) + enqueuedDelta, countOf(current, ProcessStatus.ENQUEUED));
+        assertEquals(initial.getOrDefault(ENQUEUED_NOW_METRIC, 0) + enqueuedNowDelta, current.getOrDefault(ENQUEUED_NOW_METRIC, 0));
+        assertEquals(countOf(initial, ProcessStatus.RUNNING) + runningDelta, countOf(current, ProcessStatus.RUNNING));
+    }
+
+    private static void assertCounters(Map<String, Integer> actual, Map<String, Integer> statistics) {
+        for (ProcessStatus s : ProcessStatus.values()) {
+            assertEquals(actual.getOrDefault(s.name(), 0), countOf(statistics, s), s.name());
+        }
+    }
+
+    private static int countOf(Map<String, Integer> statistics, ProcessStatus status) {
+        return statistics.getOrDefault(status.name(), 0);
+    }
+}
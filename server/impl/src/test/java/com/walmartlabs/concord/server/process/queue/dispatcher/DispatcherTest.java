@@ -53,6 +53,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static java.time.temporal.ChronoUnit.MICROS;
@@ -116,6 +117,22 @@ class DispatcherTest {
         verify(errHandler, times(0)).handleError(any(), any(), any());
     }
 
+    @Test
+    void testIndexUnmatchable() {
+        DispatcherIndex index = new DispatcherIndex(100, new MetricRegistry());
+
+        var gpu = generateCandidate(".*gpu.*");
+        var any = generateCandidate(".*");
+        Map<String, Object> defaultAgent = Map.of("flavor", "default");
+
+        assertNull(Dispatcher.findRequest(gpu, requests, tx, errHandler, index));
+        assertNotNull(Dispatcher.findRequest(any, requests, tx, errHandler, index));
+
+        // only the requirements that were checked against all capability classes are excluded
+        assertEquals(List.of(gpu.requirements()), index.unmatchable(Set.of(defaultAgent)));
+        assertEquals(List.of(), index.unmatchable(Set.of(defaultAgent, Map.of("flavor", "gpu"))));
+    }
+
     @Test
     void testResponseIncludesRequirementsInProcessResponse() {
         UUID projectId = UUID.randomUUID();
@@ -37,6 +37,7 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -87,6 +88,37 @@ public class ProcessStateManagerTest extends AbstractDaoTest {
         assertFileContent("456", tmpDir.resolve("file-2"));
     }
 
+    @Test
+    public void testDeduplicatedState() throws Exception {
+        ProcessKey processKeyA = ProcessKey.random();
+        ProcessKey processKeyB = ProcessKey.random();
+
+        Path baseDir = Files.createTempDirectory("testImport");
+
+        writeTempFile(baseDir.resolve("file-1"), "123".getBytes());
+        writeTempFile(baseDir.resolve("file-2"), "456".getBytes());
+
+        ProcessKeyCache processKeyCache = new ProcessKeyCache(new ProcessQueueDao(getConfiguration(), new ConcordObjectMapper(new ObjectMapper())));
+        ProcessConfiguration stateCfg = new ProcessConfiguration(Duration.of(24, ChronoUnit.HOURS), Collections.singletonList(Constants.Files.CONFIGURATION_FILE_NAME), true);
+        ProcessStateManager stateManager = new ProcessStateManager(getConfiguration(), mock(SecretStoreConfiguration.class), stateCfg, mock(PolicyManager.class), mock(ProcessLogManager.class), processKeyCache);
+
+        // the same content imported by two processes
+        stateManager.importPath(processKeyA, null, baseDir, (p, attrs) -> true);
+        stateManager.importPath(processKeyB, null, baseDir, (p, attrs) -> true);
+        stateManager.tx(tx -> stateManager.insert(tx, processKeyB, "file-3", "123".getBytes()));
+
+        // ---
+
+        Path tmpDir = Files.createTempDirectory("testExport");
+        assertTrue(stateManager.export(processKeyB, copyTo(tmpDir)));
+        assertFileContent("123", tmpDir.resolve("file-1"));
+        assertFileContent("456", tmpDir.resolve("file-2"));
+        assertFileContent("123", tmpDir.resolve("file-3"));
+
+        Optional<String> s = stateManager.get(processKeyA, "file-2", in -> Optional.of(new String(readAll(in))));
+        assertEquals(Optional.of("456"), s);
+    }
+
     @Test
     public void testLargeImport() throws Exception {
         ProcessKey processKey = ProcessKey.random();
@@ -152,6 +184,14 @@ public class ProcessStateManagerTest extends AbstractDaoTest {
         assertEquals(4, exported.size());
     }
 
+    private static byte[] readAll(InputStream in) {
+        try {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private static void assertFileContent(String expected, Path f) throws IOException {
         String str = com.google.common.io.Files.asCharSource(f.toFile(), Charsets.UTF_8).read();
         assertEquals(expected, str);
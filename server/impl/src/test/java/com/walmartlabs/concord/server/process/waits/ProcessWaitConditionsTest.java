@@ -0,0 +1,221 @@
+package com.walmartlabs.concord.server.process.waits;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.server.AbstractDaoTest;
+import com.walmartlabs.concord.server.ConcordObjectMapper;
+import com.walmartlabs.concord.server.TestObjectMapper;
+import com.walmartlabs.concord.server.jooq.enums.ProcessLockScope;
+import com.walmartlabs.concord.server.process.waits.ProcessCompletionCondition.CompleteCondition;
+import com.walmartlabs.concord.server.process.waits.ProcessWaitWatchdog.WaitingProcess;
+import com.walmartlabs.concord.server.process.waits.ProcessWaitWatchdog.WatchdogDao;
+import com.walmartlabs.concord.server.sdk.ProcessKey;
+import com.walmartlabs.concord.server.sdk.ProcessStatus;
+import org.jooq.DSLContext;
+import org.jooq.JSONB;
+import org.jooq.Record3;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_WAIT_CONDITIONS;
+import static com.walmartlabs.concord.server.process.waits.ProcessWaitDao.WAIT_LIST;
+import static org.jooq.impl.DSL.max;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Disabled("requires a local DB instance")
+public class ProcessWaitConditionsTest extends AbstractDaoTest {
+
+    private ConcordObjectMapper objectMapper;
+    private ProcessWaitDao dao;
+    private WatchdogDao watchdogDao;
+
+    @BeforeEach
+    public void setUp() {
+        objectMapper = new ConcordObjectMapper(TestObjectMapper.INSTANCE);
+        dao = new ProcessWaitDao(getConfiguration(), objectMapper);
+        watchdogDao = new WatchdogDao(getConfiguration(), objectMapper);
+    }
+
+    @Test
+    public void testWakeUpLockWaiters() {
+        UUID orgId = UUID.randomUUID();
+        UUID projectId = UUID.randomUUID();
+        String lockName = "lock-" + UUID.randomUUID();
+
+        ProcessKey projectLock = ProcessKey.random();
+        ProcessKey otherProject = ProcessKey.random();
+        ProcessKey orgLock = ProcessKey.random();
+        ProcessKey otherName = ProcessKey.random();
+        ProcessKey notWaiting = ProcessKey.random();
+
+        tx(tx -> {
+            insert(tx, projectLock, true, null, lock(projectLock, orgId, projectId, ProcessLockScope.PROJECT, lockName));
+            insert(tx, otherProject, true, null, lock(otherProject, orgId, UUID.randomUUID(), ProcessLockScope.PROJECT, lockName));
+            insert(tx, orgLock, true, null, lock(orgLock, orgId, projectId, ProcessLockScope.ORG, lockName));
+            insert(tx, otherName, true, null, lock(otherName, orgId, projectId, ProcessLockScope.PROJECT, "other-" + lockName));
+            insert(tx, notWaiting, false, null, lock(notWaiting, orgId, projectId, ProcessLockScope.PROJECT, lockName));
+        });
+
+        // only the waiting processes with the same type, scope, name and project match
+        int rows = dao.txResult(tx -> dao.wakeUpLockWaiters(tx, orgId, projectId, ProcessLockScope.PROJECT, lockName));
+        assertEquals(1, rows);
+        assertWokenUp(projectLock, 1);
+        assertNotWokenUp(otherProject);
+        assertNotWokenUp(orgLock);
+        assertNotWokenUp(otherName);
+        assertNotWokenUp(notWaiting);
+
+        // the org-scoped locks are matched by orgId
+        rows = dao.txResult(tx -> dao.wakeUpLockWaiters(tx, orgId, UUID.randomUUID(), ProcessLockScope.ORG, lockName));
+        assertEquals(1, rows);
+        assertWokenUp(orgLock, 1);
+        assertNotWokenUp(otherProject);
+        assertNotWokenUp(otherName);
+        assertNotWokenUp(notWaiting);
+    }
+
+    @Test
+    public void testWakeUpCompletionWaiters() {
+        ProcessKey child = ProcessKey.random();
+        UUID otherChild = UUID.randomUUID();
+
+        ProcessKey waitsForAll = ProcessKey.random();
+        ProcessKey waitsForOne = ProcessKey.random();
+        ProcessKey waitsForOther = ProcessKey.random();
+
+        tx(tx -> {
+            insert(tx, waitsForAll, true, null, completion(CompleteCondition.ALL, child.getInstanceId(), otherChild));
+            insert(tx, waitsForOne, true, null, completion(CompleteCondition.ONE_OF, child.getInstanceId(), otherChild));
+            insert(tx, waitsForOther, true, null, completion(CompleteCondition.ALL, otherChild));
+        });
+
+        tx(tx -> new WaitConditionUpdater().onStatusChange(tx, child, ProcessStatus.FINISHED));
+
+        assertWokenUp(waitsForAll, 1);
+        assertEquals(Set.of(otherChild), completionOf(waitsForAll).processes());
+
+        assertWokenUp(waitsForOne, 1);
+        assertEquals(Set.of(), completionOf(waitsForOne).processes());
+
+        assertNotWokenUp(waitsForOther);
+        assertEquals(Set.of(otherChild), completionOf(waitsForOther).processes());
+    }
+
+    @Test
+    public void testNextWaitItemsDueOnly() {
+        Long lastId = DSL.using(getConfiguration())
+                .select(max(PROCESS_WAIT_CONDITIONS.ID_SEQ))
+                .from(PROCESS_WAIT_CONDITIONS)
+                .fetchOne(0, Long.class);
+
+        OffsetDateTime now = OffsetDateTime.now();
+
+        ProcessKey due = ProcessKey.random();
+        ProcessKey notDue = ProcessKey.random();
+        ProcessKey noWakeUp = ProcessKey.random();
+        ProcessKey notWaiting = ProcessKey.random();
+
+        tx(tx -> {
+            insert(tx, due, true, now.minusMinutes(1), completion(CompleteCondition.ALL, UUID.randomUUID()));
+            insert(tx, notDue, true, now.plusHours(1), completion(CompleteCondition.ALL, UUID.randomUUID()));
+            insert(tx, noWakeUp, true, null, completion(CompleteCondition.ALL, UUID.randomUUID()));
+            insert(tx, notWaiting, false, now.minusMinutes(1), completion(CompleteCondition.ALL, UUID.randomUUID()));
+        });
+
+        List<WaitingProcess> dueOnly = watchdogDao.nextWaitItems(lastId, 100, true);
+        assertEquals(List.of(due), keysOf(dueOnly));
+
+        List<WaitingProcess> all = watchdogDao.nextWaitItems(lastId, 100, false);
+        assertEquals(List.of(due, notDue, noWakeUp), keysOf(all));
+
+        // pagination continues after the last returned item
+        List<WaitingProcess> firstPage = watchdogDao.nextWaitItems(lastId, 1, false);
+        assertEquals(List.of(due), keysOf(firstPage));
+        List<WaitingProcess> nextPage = watchdogDao.nextWaitItems(firstPage.get(0).id(), 100, true);
+        assertTrue(nextPage.isEmpty());
+    }
+
+    private void insert(DSLContext tx, ProcessKey processKey, boolean isWaiting, OffsetDateTime wakeUpAt, AbstractWaitCondition wait) {
+        tx.insertInto(PROCESS_WAIT_CONDITIONS)
+                .set(PROCESS_WAIT_CONDITIONS.INSTANCE_ID, processKey.getInstanceId())
+                .set(PROCESS_WAIT_CONDITIONS.INSTANCE_CREATED_AT, processKey.getCreatedAt())
+                .set(PROCESS_WAIT_CONDITIONS.IS_WAITING, isWaiting)
+                .set(PROCESS_WAIT_CONDITIONS.WAIT_CONDITIONS, objectMapper.toJSONB(List.of(wait), WAIT_LIST))
+                .set(PROCESS_WAIT_CONDITIONS.WAKE_UP_AT, wakeUpAt)
+                .set(PROCESS_WAIT_CONDITIONS.VERSION, 0L)
+                .execute();
+    }
+
+    private Record3<OffsetDateTime, Long, JSONB> fetch(ProcessKey processKey) {
+        return DSL.using(getConfiguration())
+                .select(PROCESS_WAIT_CONDITIONS.WAKE_UP_AT, PROCESS_WAIT_CONDITIONS.VERSION, PROCESS_WAIT_CONDITIONS.WAIT_CONDITIONS)
+                .from(PROCESS_WAIT_CONDITIONS)
+                .where(PROCESS_WAIT_CONDITIONS.INSTANCE_ID.eq(processKey.getInstanceId())
+                        .and(PROCESS_WAIT_CONDITIONS.INSTANCE_CREATED_AT.eq(processKey.getCreatedAt())))
+                .fetchOne();
+    }
+
+    private void assertWokenUp(ProcessKey processKey, long version) {
+        Record3<OffsetDateTime, Long, JSONB> r = fetch(processKey);
+        assertNotNull(r.value1(), processKey + " should be woken up");
+        assertEquals(version, r.value2());
+    }
+
+    private void assertNotWokenUp(ProcessKey processKey) {
+        Record3<OffsetDateTime, Long, JSONB> r = fetch(processKey);
+        assertNull(r.value1(), processKey + " shouldn't be woken up");
+        assertEquals(0L, r.value2());
+    }
+
+    private ProcessCompletionCondition completionOf(ProcessKey processKey) {
+        List<AbstractWaitCondition> waits = objectMapper.fromJSONB(fetch(processKey).value3(), WAIT_LIST);
+        assertEquals(1, waits.size());
+        return (ProcessCompletionCondition) waits.get(0);
+    }
+
+    private static List<ProcessKey> keysOf(List<WaitingProcess> processes) {
+        return processes.stream().map(WaitingProcess::processKey).toList();
+    }
+
+    private static ProcessLockCondition lock(ProcessKey processKey, UUID orgId, UUID projectId, ProcessLockScope scope, String name) {
+        return ProcessLockCondition.builder()
+                .instanceId(processKey.getInstanceId())
+                .orgId(orgId)
+                .projectId(projectId)
+                .scope(scope)
+                .name(name)
+                .build();
+    }
+
+    private static ProcessCompletionCondition completion(CompleteCondition completeCondition, UUID... processes) {
+        return ProcessCompletionCondition.builder()
+                .processes(Set.of(processes))
+                .completeCondition(completeCondition)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.walmartlabs.concord.server.process.waits;
+
+/*-
+ * *****
+ * Concord
+ * -----
+ * Copyright (C) 2017 - 2026 Walmart Inc.
+ * -----
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =====
+ */
+
+import com.walmartlabs.concord.server.jooq.enums.ProcessLockScope;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ProcessWaitDaoTest {
+
+    @Test
+    public void testNextWakeUp() {
+        OffsetDateTime t = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        ProcessSleepCondition later = sleep(t.plusMinutes(10));
+        ProcessSleepCondition sooner = sleep(t.plusMinutes(1));
+        ProcessLockCondition lock = ProcessLockCondition.builder()
+                .instanceId(UUID.randomUUID())
+                .orgId(UUID.randomUUID())
+                .projectId(UUID.randomUUID())
+                .scope(ProcessLockScope.PROJECT)
+                .name("test")
+                .build();
+
+        assertNull(ProcessWaitDao.nextWakeUp(null));
+        assertNull(ProcessWaitDao.nextWakeUp(Collections.singletonList(lock)));
+        assertEquals(t.plusMinutes(1), ProcessWaitDao.nextWakeUp(Arrays.asList(later, lock, sooner)));
+    }
+
+    private static ProcessSleepCondition sleep(OffsetDateTime until) {
+        return ProcessSleepCondition.builder()
+                .until(Date.from(until.toInstant()))
+                .resumeEvent("test")
+                .build();
+    }
+}
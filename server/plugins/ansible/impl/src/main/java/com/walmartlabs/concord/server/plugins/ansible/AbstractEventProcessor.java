@@ -20,42 +20,121 @@ package com.walmartlabs.concord.server.plugins.ansible;
  * =====
  */
 
+import com.walmartlabs.concord.server.sdk.BackgroundTask;
 import com.walmartlabs.concord.server.sdk.ScheduledTask;
 import org.jooq.DSLContext;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 // TODO: move to plugins sdk?
-public abstract class AbstractEventProcessor<E extends AbstractEventProcessor.Event> implements ScheduledTask {
+public abstract class AbstractEventProcessor<E extends AbstractEventProcessor.Event> implements ScheduledTask, BackgroundTask {
 
     private final String processorName;
     private final EventMarkerDao eventMarkerDao;
     private final int fetchLimit;
+    private final int partitions;
+    private final List<String> markerNames;
+    private final ExecutorService executor;
+
+    private volatile long lag;
+    private volatile boolean staleMarkersRemoved;
 
     protected AbstractEventProcessor(String processorName, EventMarkerDao eventMarkerDao, int fetchLimit) {
+        this(processorName, eventMarkerDao, fetchLimit, 1);
+    }
+
+    /**
+     * @param partitions number of partitions to split the events into. Events
+     *                   are fetched once and assigned to partitions by their
+     *                   {@link #partitionKey(Event)}. Each partition is processed
+     *                   in a separate thread and has its own marker.
+     */
+    protected AbstractEventProcessor(String processorName, EventMarkerDao eventMarkerDao, int fetchLimit, int partitions) {
         this.processorName = processorName;
         this.eventMarkerDao = eventMarkerDao;
         this.fetchLimit = fetchLimit;
+        this.partitions = Math.max(1, partitions);
+        this.markerNames = this.partitions > 1 ? markerNames(processorName, this.partitions) : List.of();
+        this.executor = this.partitions > 1 ? newExecutor(processorName, this.partitions) : null;
+    }
+
+    @Override
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
-    public void performTask() {
-        int processedEvents = 0;
+    public void performTask() throws Exception {
+        if (!staleMarkersRemoved) {
+            // markers of the previous partition count (if it was changed)
+            eventMarkerDao.tx(tx -> eventMarkerDao.deletePartitionMarkers(tx, processorName, markerNames));
+            staleMarkersRemoved = true;
+        }
+
+        if (partitions == 1) {
+            int processedEvents = 0;
+
+            do {
+                EventMarkerDao.EventMarker m = eventMarkerDao.get(processorName);
+                lag = Math.max(0, m.maxEventSeq() - m.eventSeq());
+                processedEvents = process(m, fetchLimit);
+            } while (processedEvents >= fetchLimit);
+
+            return;
+        }
 
+        // new partition markers start from the processor's marker
+        eventMarkerDao.tx(tx -> markerNames.forEach(n -> eventMarkerDao.createIfMissing(tx, n, processorName)));
+
+        boolean isContinue;
         do {
-            EventMarkerDao.EventMarker m = eventMarkerDao.get(processorName);
-            processedEvents = process(m, fetchLimit);
-        } while (processedEvents >= fetchLimit);
+            EventMarkerDao.EventMarker m = eventMarkerDao.getLowest(markerNames);
+            lag = Math.max(0, m.maxEventSeq() - m.eventSeq());
+            isContinue = processPartitioned(m);
+        } while (isContinue);
+
+        // the lowest partition marker is stored under the processor's name
+        // it is used as the starting point when the number of partitions changes
+        EventMarkerDao.EventMarker m = eventMarkerDao.getLowest(markerNames);
+        lag = Math.max(0, m.maxEventSeq() - m.eventSeq());
+        eventMarkerDao.tx(tx -> eventMarkerDao.update(tx, processorName, m.eventSeq()));
+    }
+
+    /**
+     * @return the difference between the latest event's sequence number and
+     * the (lowest) marker, as seen during the last run.
+     */
+    public long getLag() {
+        return lag;
     }
 
     private int process(EventMarkerDao.EventMarker m, int fetchLimit) {
         return eventMarkerDao.txResult(tx -> {
-            List<E> events = processEvents(tx, m, fetchLimit);
+            List<E> events = fetchEvents(tx, m, fetchLimit);
             if (events.isEmpty()) {
                 eventMarkerDao.update(tx, processorName, m.maxEventSeq());
                 return 0;
             }
 
+            processEvents(tx, events);
+
             E lastEvent = events.get(events.size() - 1);
             eventMarkerDao.update(tx, processorName, lastEvent.eventSeq());
 
@@ -63,7 +142,92 @@ public abstract class AbstractEventProcessor<E extends AbstractEventProcessor.Ev
         });
     }
 
-    protected abstract List<E> processEvents(DSLContext tx, EventMarkerDao.EventMarker m, int fetchLimit);
+    /**
+     * Fetches the events after the lowest partition marker once and
+     * processes them in parallel, one partition per thread.
+     *
+     * @return {@code true} if there are more events to process.
+     */
+    private boolean processPartitioned(EventMarkerDao.EventMarker m) throws Exception {
+        List<E> events = eventMarkerDao.txResult(tx -> fetchEvents(tx, m, fetchLimit));
+
+        // all events up to this one are seen by every partition
+        long lastEventSeq = events.isEmpty() ? m.maxEventSeq() : events.get(events.size() - 1).eventSeq();
+
+        List<List<E>> partitionEvents = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            partitionEvents.add(new ArrayList<>());
+        }
+        for (E e : events) {
+            partitionEvents.get(Math.floorMod(partitionKey(e).hashCode(), partitions)).add(e);
+        }
+
+        List<Future<Boolean>> futures = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            String markerName = markerNames.get(i);
+            List<E> l = partitionEvents.get(i);
+            futures.add(executor.submit(() -> processPartition(markerName, l, lastEventSeq)));
+        }
+
+        boolean allProcessed = true;
+        for (Future<Boolean> f : futures) {
+            allProcessed &= f.get();
+        }
+
+        // if a partition is locked by another server instance, its marker
+        // doesn't move and the next run starts from it again
+        return allProcessed && events.size() >= fetchLimit;
+    }
+
+    /**
+     * @return {@code false} if the partition is locked by another server instance.
+     */
+    private boolean processPartition(String markerName, List<E> events, long lastEventSeq) {
+        return eventMarkerDao.txResult(tx -> {
+            // the marker is locked until the end of the transaction,
+            // other server instances skip the partition while it's being processed
+            Long eventSeq = eventMarkerDao.tryLock(tx, markerName);
+            if (eventSeq == null) {
+                return false;
+            }
+
+            // the partition's marker can be ahead of the lowest one
+            List<E> newEvents = events.stream()
+                    .filter(e -> e.eventSeq() > eventSeq)
+                    .collect(Collectors.toList());
+
+            if (!newEvents.isEmpty()) {
+                processEvents(tx, newEvents);
+            }
+
+            eventMarkerDao.update(tx, markerName, Math.max(eventSeq, lastEventSeq));
+            return true;
+        });
+    }
+
+    private static List<String> markerNames(String processorName, int partitions) {
+        return IntStream.range(0, partitions)
+                .mapToObj(i -> processorName + "-" + i + "-of-" + partitions)
+                .collect(Collectors.toList());
+    }
+
+    private static ExecutorService newExecutor(String processorName, int partitions) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(partitions, r -> new Thread(r, processorName + "-partition-" + counter.getAndIncrement()));
+    }
+
+    /**
+     * Returns up to {@code fetchLimit} events after the marker, ordered by
+     * their sequence number.
+     */
+    protected abstract List<E> fetchEvents(DSLContext tx, EventMarkerDao.EventMarker m, int fetchLimit);
+
+    protected abstract void processEvents(DSLContext tx, List<E> events);
+
+    /**
+     * Events with the same key are always processed by the same partition.
+     */
+    protected abstract Object partitionKey(E event);
 
     public interface Event {
         long eventSeq();
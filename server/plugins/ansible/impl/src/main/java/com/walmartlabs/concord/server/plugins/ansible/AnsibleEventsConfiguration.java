@@ -42,6 +42,10 @@ public class AnsibleEventsConfiguration implements Serializable {
     @Config("ansibleEvents.fetchLimit")
     private int fetchLimit;
 
+    @Inject
+    @Config("ansibleEvents.partitions")
+    private int partitions;
+
     public Duration getPeriod() {
         return period;
     }
@@ -49,4 +53,8 @@ public class AnsibleEventsConfiguration implements Serializable {
     public int getFetchLimit() {
         return fetchLimit;
     }
+
+    public int getPartitions() {
+        return partitions;
+    }
 }
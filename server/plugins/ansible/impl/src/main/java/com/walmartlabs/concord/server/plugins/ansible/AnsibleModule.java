@@ -20,14 +20,18 @@ package com.walmartlabs.concord.server.plugins.ansible;
  * =====
  */
 
+import com.codahale.metrics.Gauge;
 import com.google.inject.Binder;
 import com.google.inject.Module;
+import com.google.inject.Provider;
 import com.walmartlabs.concord.db.DatabaseChangeLogProvider;
 import com.walmartlabs.concord.db.MainDB;
 import com.walmartlabs.concord.server.plugins.ansible.db.AnsibleDBChangeLogProvider;
 import com.walmartlabs.concord.server.plugins.ansible.queue.InventoryProcessor;
 import com.walmartlabs.concord.server.plugins.ansible.queue.PrivateKeyProcessor;
+import com.walmartlabs.concord.server.sdk.BackgroundTask;
 import com.walmartlabs.concord.server.sdk.ScheduledTask;
+import com.walmartlabs.concord.server.sdk.metrics.GaugeProvider;
 import com.walmartlabs.concord.server.sdk.process.CustomEnqueueProcessor;
 
 import javax.inject.Named;
@@ -43,7 +47,24 @@ public class AnsibleModule implements Module {
         binder.bind(DatabaseChangeLogProvider.class).annotatedWith(MainDB.class).to(AnsibleDBChangeLogProvider.class);
         binder.bind(EventFetcher.class).in(SINGLETON);
         newSetBinder(binder, ScheduledTask.class).addBinding().to(EventFetcher.class);
+        newSetBinder(binder, BackgroundTask.class).addBinding().to(EventFetcher.class);
         newSetBinder(binder, CustomEnqueueProcessor.class).addBinding().to(PrivateKeyProcessor.class);
         newSetBinder(binder, CustomEnqueueProcessor.class).addBinding().to(InventoryProcessor.class);
+        newSetBinder(binder, GaugeProvider.class).addBinding().toInstance(lagGauge(binder.getProvider(EventFetcher.class)));
+    }
+
+    private static GaugeProvider<Long> lagGauge(Provider<EventFetcher> provider) {
+        return new GaugeProvider<>() {
+            @Override
+            public String name() {
+                return "ansible-events-lag";
+            }
+
+            @Override
+            public Gauge<Long> gauge() {
+                EventFetcher fetcher = provider.get();
+                return fetcher::getLag;
+            }
+        };
     }
 }
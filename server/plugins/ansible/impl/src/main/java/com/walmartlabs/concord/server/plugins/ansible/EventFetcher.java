@@ -48,7 +48,7 @@ public class EventFetcher extends AbstractEventProcessor<EventProcessor.Event> {
                         EventMarkerDao eventMarkerDao,
                         AnsibleEventDao dao,
                         List<EventProcessor> processors) {
-        super(PROCESSOR_NAME, eventMarkerDao, cfg.getFetchLimit());
+        super(PROCESSOR_NAME, eventMarkerDao, cfg.getFetchLimit(), cfg.getPartitions());
         this.cfg = cfg;
         this.dao = dao;
         this.processors = processors;
@@ -65,17 +65,21 @@ public class EventFetcher extends AbstractEventProcessor<EventProcessor.Event> {
     }
 
     @Override
-    protected List<EventProcessor.Event> processEvents(DSLContext tx, EventMarkerDao.EventMarker marker, int fetchLimit) {
-        List<EventProcessor.Event> events = dao.list(tx, marker, fetchLimit);
-        if (events.isEmpty()) {
-            return Collections.emptyList();
-        }
+    protected List<EventProcessor.Event> fetchEvents(DSLContext tx, EventMarkerDao.EventMarker marker, int fetchLimit) {
+        return dao.list(tx, marker, fetchLimit);
+    }
 
+    @Override
+    protected void processEvents(DSLContext tx, List<EventProcessor.Event> events) {
         for (EventProcessor p : processors) {
             p.process(tx, events);
         }
+    }
 
-        return events;
+    @Override
+    protected Object partitionKey(EventProcessor.Event event) {
+        // all events of a process must end up in the same partition
+        return event.instanceId();
     }
 
     @Named
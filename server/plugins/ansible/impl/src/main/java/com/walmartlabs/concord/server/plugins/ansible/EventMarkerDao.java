@@ -26,15 +26,16 @@ import com.walmartlabs.concord.server.jooq.tables.EventProcessorMarker;
 import org.immutables.value.Value;
 import org.jooq.Configuration;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record1;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.Collection;
 
 import static com.walmartlabs.concord.server.jooq.Tables.EVENT_PROCESSOR_MARKER;
 import static com.walmartlabs.concord.server.jooq.Tables.PROCESS_EVENTS;
-import static org.jooq.impl.DSL.max;
-import static org.jooq.impl.DSL.value;
+import static org.jooq.impl.DSL.*;
 
 // TODO: move to plugins sdk?
 @Named
@@ -63,16 +64,83 @@ public class EventMarkerDao extends AbstractDao {
                 .where(m.PROCESSOR_NAME.eq(processorName))
                 .fetchOne(m.EVENT_SEQ));
 
-        Long maxEventSeq = txResult(tx -> tx.select(max(PROCESS_EVENTS.EVENT_SEQ))
-                .from(PROCESS_EVENTS)
+        return EventMarker.builder()
+                .eventSeq(currentEventSeq != null ? currentEventSeq : -1)
+                .maxEventSeq(getMaxEventSeq())
+                .build();
+    }
+
+    /**
+     * Returns the lowest of the specified markers.
+     */
+    public EventMarker getLowest(Collection<String> processorNames) {
+        EventProcessorMarker m = EVENT_PROCESSOR_MARKER.as("m");
+
+        Long currentEventSeq = txResult(tx -> tx.select(min(m.EVENT_SEQ))
+                .from(m)
+                .where(m.PROCESSOR_NAME.in(processorNames))
                 .fetchOne(Record1::value1));
 
         return EventMarker.builder()
                 .eventSeq(currentEventSeq != null ? currentEventSeq : -1)
-                .maxEventSeq(maxEventSeq != null ? maxEventSeq : -1)
+                .maxEventSeq(getMaxEventSeq())
                 .build();
     }
 
+    public long getMaxEventSeq() {
+        Long maxEventSeq = txResult(tx -> tx.select(max(PROCESS_EVENTS.EVENT_SEQ))
+                .from(PROCESS_EVENTS)
+                .fetchOne(Record1::value1));
+
+        return maxEventSeq != null ? maxEventSeq : -1;
+    }
+
+    /**
+     * Creates the marker if it doesn't exist. A new marker starts from
+     * the value of {@code initialProcessorName} marker.
+     */
+    public void createIfMissing(DSLContext tx, String processorName, String initialProcessorName) {
+        EventProcessorMarker i = EVENT_PROCESSOR_MARKER.as("i");
+
+        Field<Long> initialEventSeq = coalesce(field(select(i.EVENT_SEQ)
+                .from(i)
+                .where(i.PROCESSOR_NAME.eq(initialProcessorName))), inline(-1L));
+
+        tx.insertInto(EVENT_PROCESSOR_MARKER)
+                .columns(EVENT_PROCESSOR_MARKER.PROCESSOR_NAME, EVENT_PROCESSOR_MARKER.EVENT_SEQ)
+                .select(select(value(processorName), initialEventSeq))
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    /**
+     * Locks the marker until the end of the transaction and returns its value.
+     *
+     * @return the marker's value or {@code null} if the marker is locked by
+     * another transaction (or doesn't exist).
+     */
+    public Long tryLock(DSLContext tx, String processorName) {
+        EventProcessorMarker m = EVENT_PROCESSOR_MARKER.as("m");
+
+        return tx.select(m.EVENT_SEQ)
+                .from(m)
+                .where(m.PROCESSOR_NAME.eq(processorName))
+                .forUpdate()
+                .skipLocked()
+                .fetchOne(m.EVENT_SEQ);
+    }
+
+    /**
+     * Removes the partition markers ({@code ${processorName}-N-of-M}) of
+     * the processor, except for the specified ones.
+     */
+    public void deletePartitionMarkers(DSLContext tx, String processorName, Collection<String> keep) {
+        tx.deleteFrom(EVENT_PROCESSOR_MARKER)
+                .where(EVENT_PROCESSOR_MARKER.PROCESSOR_NAME.like(processorName + "-%-of-%")
+                        .and(EVENT_PROCESSOR_MARKER.PROCESSOR_NAME.notIn(keep)))
+                .execute();
+    }
+
     public void update(DSLContext tx, String processorName, long eventSeq) {
         EventProcessorMarker m = EVENT_PROCESSOR_MARKER.as("m");
         tx.insertInto(m)